@@ -0,0 +1,117 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2011 Simon Hardijanto
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.projectthaleia.colony.buildings;
+
+import java.lang.reflect.Constructor;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.projectthaleia.colony.Colony;
+import org.projectthaleia.factions.Empire;
+import org.projectthaleia.universe.planet.Planet;
+
+/**
+ * Updates a building queue holding many buildings. Each update advances the 
+ * game by one day, which completes exactly one building.
+ * <p>
+ * The queue is used up by updating, so it is set up anew for every iteration
+ * and each iteration runs a fixed batch of {@value #UPDATES} updates.
+ * </p>
+ * @author Simon Hardijanto
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 20, batchSize = BuildingQueueBenchmark.UPDATES)
+@Measurement(iterations = 20, batchSize = BuildingQueueBenchmark.UPDATES)
+@Fork(1)
+public class BuildingQueueBenchmark
+{
+  /** Buildings left in the queue after the last update of an iteration */
+  @Param({"10", "10000"})
+  public int additionalBuildings;
+  
+  private BuildingQueue queue;
+  private long now;
+  
+  @Setup(Level.Iteration)
+  public void setUp()
+          throws ReflectiveOperationException
+  {
+    // the queue only asks its colony for the factory output. A mock would
+    // record every call and distort the allocation rate.
+    final Constructor<Colony> constructor = Colony.class.getDeclaredConstructor(
+            String.class, Planet.class, Empire.class, BuildingQueue.class);
+    constructor.setAccessible(true);
+    final Colony colony = constructor.newInstance("Benchmark", null, null, null);
+    
+    this.now = START;
+    this.queue = new BuildingQueue(colony);
+    this.queue.update(new Date(this.now));
+    for (int i = 0; i < UPDATES + this.additionalBuildings; ++i) {
+      this.queue.add(new Queueable(BUILDING, 1));
+    }
+  }
+  
+  @Benchmark
+  public BuildingQueue update()
+  {
+    this.now += Queueable.MS_PER_DAY;
+    this.queue.update(new Date(this.now));
+    return this.queue;
+  }
+  
+  //------------- PACKAGE PRIVATE -----------
+  static final int UPDATES = 1000;
+  
+  //---------------- PRIVATE ----------------
+  /** 2200-01-01 00:00 UTC in ms */
+  private static final long START = 7258118400000L;
+  /** Takes one day at an output of 1 */
+  private static final IBuildable BUILDING = new IBuildable()
+  {
+    @Override
+    public String getName()
+    {
+      return "Benchmark building";
+    }
+
+    @Override
+    public int getCost()
+    {
+      return 1;
+    }
+  };
+}
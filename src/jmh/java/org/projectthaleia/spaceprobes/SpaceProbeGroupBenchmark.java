@@ -0,0 +1,93 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2011 Simon Hardijanto
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.projectthaleia.spaceprobes;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.projectthaleia.universe.Position;
+
+/**
+ * Moves a space probe group along a long list of waypoints that lie 1 km 
+ * apart, so every update passes {@value #WAYPOINTS_PER_UPDATE} waypoints and
+ * moves part of the way towards the next one.
+ * <p>
+ * The waypoints are used up by moving, so the group is set up anew for every 
+ * iteration and each iteration runs a fixed batch of {@value #UPDATES} 
+ * updates.
+ * </p>
+ * @author Simon Hardijanto
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 20, batchSize = SpaceProbeGroupBenchmark.UPDATES)
+@Measurement(iterations = 20, batchSize = SpaceProbeGroupBenchmark.UPDATES)
+@Fork(1)
+public class SpaceProbeGroupBenchmark
+{
+  /** Waypoints left over after the last update of an iteration */
+  @Param({"0", "10000"})
+  public int additionalWaypoints;
+  
+  private SpaceProbeGroup group;
+  
+  @Setup(Level.Iteration)
+  public void setUp()
+  {
+    this.group = SpaceProbeGroup.generateSpaceProbeGroup();
+    final Position start = this.group.getPosition();
+    final int waypoints = (UPDATES + 1) * WAYPOINTS_PER_UPDATE + this.additionalWaypoints;
+    for (int i = 1; i <= waypoints; ++i) {
+      this.group.addWaypoint(new Position(start.x + i, start.y));
+    }
+    this.group.setCurrentSpeed(SPEED);
+  }
+  
+  @Benchmark
+  public Position update()
+  {
+    this.group.update(DELTA);
+    return this.group.getPosition();
+  }
+  
+  //------------- PACKAGE PRIVATE -----------
+  static final int UPDATES = 50;
+  static final int WAYPOINTS_PER_UPDATE = 20;
+  
+  //---------------- PRIVATE ----------------
+  private static final long DELTA = 10;
+  /** In m/s. Covers the waypoints of one update and half a kilometre more */
+  private static final int SPEED = (WAYPOINTS_PER_UPDATE * 1000 + 500) / (int) DELTA;
+}
@@ -0,0 +1,135 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2011 Simon Hardijanto
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.projectthaleia.spaceprobes;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.projectthaleia.universe.Position;
+
+/**
+ * Builds up a fleet probe by probe and loses it again, and reinforces a 
+ * fleet with a whole group and splits it off again. The time per probe 
+ * should not grow with the size of the fleet. The same fleet of counted 
+ * ships takes the same time for any size.
+ * @author Simon Hardijanto
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpaceProbeGroupMembershipBenchmark
+{
+  @Param({"1000", "10000"})
+  public int probes;
+  
+  private ProbeClass[] probeClasses;
+  private SpaceProbe[] spaceProbes;
+  private SpaceProbeGroup fleet;
+  private SpaceProbeGroup reinforcements;
+  private List<SpaceProbe> reinforcementList;
+  
+  @Setup
+  public void setUp()
+  {
+    this.probeClasses = new ProbeClass[] {
+      ProbeClass.valueOf("Scout", 100, 9000),
+      ProbeClass.valueOf("Cruiser", 500, 8000),
+      ProbeClass.valueOf("Freighter", 2000, 3000)
+    };
+    this.spaceProbes = new SpaceProbe[this.probes];
+    for (int i = 0; i < this.probes; ++i) {
+      this.spaceProbes[i] = new SpaceProbe(this.probeClasses[i % this.probeClasses.length], 
+                                           "Probe " + i, null);
+    }
+    
+    this.fleet = new SpaceProbeGroup("Fleet", new Position(0, 0));
+    this.reinforcements = new SpaceProbeGroup("Reinforcements", new Position(0, 0));
+    for (SpaceProbe probe : this.spaceProbes) {
+      this.reinforcements.addSpaceProbe(probe);
+    }
+    this.reinforcementList = Arrays.asList(this.spaceProbes);
+  }
+  
+  /** Adds every probe to an empty group and removes them again, the slowest last */
+  @Benchmark
+  public int addAndRemove()
+  {
+    final SpaceProbeGroup group = new SpaceProbeGroup("Growing", new Position(0, 0));
+    for (SpaceProbe probe : this.spaceProbes) {
+      group.addSpaceProbe(probe);
+    }
+    final int result = group.getMaximumSpeed();
+    for (SpaceProbe probe : this.spaceProbes) {
+      group.removeSpaceProbe(probe);
+    }
+    return result;
+  }
+  
+  /** Adds the same ships as counted ships of their designs and removes them again */
+  @Benchmark
+  public int addAndRemoveCounted()
+  {
+    final SpaceProbeGroup group = new SpaceProbeGroup("Growing", new Position(0, 0));
+    for (int i = 0; i < this.probeClasses.length; ++i) {
+      group.addSpaceProbes(this.probeClasses[i], this.countOf(i));
+    }
+    final int result = group.getMaximumSpeed();
+    for (int i = 0; i < this.probeClasses.length; ++i) {
+      group.removeSpaceProbes(this.probeClasses[i], this.countOf(i));
+    }
+    return result;
+  }
+  
+  /** Merges all probes into the fleet and splits them off again */
+  @Benchmark
+  public int mergeAndSplit()
+  {
+    this.reinforcements.mergeInto(this.fleet);
+    final int result = this.fleet.getMaximumSpeed();
+    this.fleet.splitOff("Reinforcements", this.reinforcementList).mergeInto(this.reinforcements);
+    return result;
+  }
+  
+  //---------------- PRIVATE ----------------
+  /** The number of probes of a design in {@link #setUp()} */
+  private int countOf(final int _design)
+  {
+    return (this.probes - _design + this.probeClasses.length - 1) / this.probeClasses.length;
+  }
+}
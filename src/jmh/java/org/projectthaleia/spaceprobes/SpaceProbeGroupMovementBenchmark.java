@@ -0,0 +1,156 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2011 Simon Hardijanto
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.projectthaleia.spaceprobes;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.projectthaleia.universe.Position;
+
+/**
+ * Moves many space probe groups towards waypoints so far away that they 
+ * never arrive, i.e. the steady state of fleets crossing a system. Moving 
+ * should not allocate anything; run with the GC profiler to check, e.g. 
+ * <code>-Djmh.args="SpaceProbeGroupMovement -prof gc"</code>, and expect a 
+ * gc.alloc.rate.norm of 0 B/op.
+ * <p>
+ * The same number of groups is also moved by a {@link FleetMovement}, 
+ * serially and in parallel, with as many stopped groups attached that 
+ * should not add anything to the time.
+ * </p>
+ * <p>
+ * Patrolling groups pass several waypoints of a long route in every tick.
+ * Reached waypoints go round the ring buffer of the route, so this should
+ * not allocate anything either.
+ * </p>
+ * @author Simon Hardijanto
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpaceProbeGroupMovementBenchmark
+{
+  @Param({"1000", "50000"})
+  public int groups;
+  
+  private SpaceProbeGroup[] spaceProbeGroups;
+  private SpaceProbeGroup[] patrollingGroups;
+  private FleetMovement serialMovement;
+  private FleetMovement parallelMovement;
+  
+  @Setup
+  public void setUp()
+  {
+    this.spaceProbeGroups = new SpaceProbeGroup[this.groups];
+    for (int i = 0; i < this.groups; ++i) {
+      final SpaceProbeGroup group = SpaceProbeGroup.generateSpaceProbeGroup();
+      group.addWaypoint(new Position(FAR_AWAY, i));
+      group.setCurrentSpeed(group.getMaximumSpeed());
+      this.spaceProbeGroups[i] = group;
+    }
+    
+    this.patrollingGroups = new SpaceProbeGroup[this.groups];
+    for (int i = 0; i < this.groups; ++i) {
+      final SpaceProbeGroup group = SpaceProbeGroup.generateSpaceProbeGroup();
+      for (int j = 0; j < PATROL_WAYPOINTS; ++j) {
+        group.addWaypoint(new Position(j % 2 == 0 ? 0 : PATROL_WIDTH, j));
+      }
+      group.setPatrolling(true);
+      group.setCurrentSpeed(group.getMaximumSpeed());
+      this.patrollingGroups[i] = group;
+    }
+    
+    this.serialMovement = createFleetMovement(false);
+    this.parallelMovement = createFleetMovement(true);
+  }
+  
+  /** One tick of all groups */
+  @Benchmark
+  public void update()
+  {
+    for (SpaceProbeGroup group : this.spaceProbeGroups) {
+      group.update(DELTA);
+    }
+  }
+  
+  /** One tick of all patrolling groups */
+  @Benchmark
+  public void updatePatrolling()
+  {
+    for (SpaceProbeGroup group : this.patrollingGroups) {
+      group.update(DELTA);
+    }
+  }
+  
+  /** One tick of all groups in one pass on the calling thread */
+  @Benchmark
+  public void updateFleetMovementSerially()
+  {
+    this.serialMovement.update(DELTA);
+  }
+  
+  /** One tick of all groups in one pass split into parallel chunks */
+  @Benchmark
+  public void updateFleetMovementInParallel()
+  {
+    this.parallelMovement.update(DELTA);
+  }
+  
+  //---------------- PRIVATE ----------------
+  /** One update at normal game speed */
+  private static final long DELTA = 60*60*24/30;
+  /** Out of reach for any benchmark run. Unit: km */
+  private static final long FAR_AWAY = 1000000000000000L;
+  /** A zigzag route long enough not to be passed within one tick */
+  private static final int PATROL_WAYPOINTS = 1000;
+  /** Several legs per tick at the speed of the generated probes. Unit: km */
+  private static final long PATROL_WIDTH = 3000;
+  
+  private FleetMovement createFleetMovement(final boolean _isParallel)
+  {
+    final FleetMovement result = new FleetMovement(ForkJoinPool.commonPool());
+    result.setParallel(_isParallel);
+    for (int i = 0; i < this.groups; ++i) {
+      final SpaceProbeGroup group = SpaceProbeGroup.generateSpaceProbeGroup();
+      group.addWaypoint(new Position(FAR_AWAY, i));
+      group.setCurrentSpeed(group.getMaximumSpeed());
+      result.attach(group);
+      result.attach(SpaceProbeGroup.generateSpaceProbeGroup());
+    }
+    return result;
+  }
+}
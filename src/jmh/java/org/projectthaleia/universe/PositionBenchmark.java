@@ -0,0 +1,113 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2011 Simon Hardijanto
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.projectthaleia.universe;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the distance between two positions and moving between them, 
+ * against the 32 bit arithmetic positions used before.
+ * @author Simon Hardijanto
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PositionBenchmark
+{
+  private Position from;
+  private Position to;
+  private int fromX;
+  private int fromY;
+  private int toX;
+  private int toY;
+  private double fraction;
+  
+  @Setup
+  public void setUp()
+  {
+    // non-final fields keep the JIT from folding the result
+    this.from = new Position(-1234, 5678);
+    this.to = new Position(8765, -4321);
+    this.fromX = -1234;
+    this.fromY = 5678;
+    this.toX = 8765;
+    this.toY = -4321;
+    this.fraction = 0.3;
+  }
+  
+  @Benchmark
+  public double distance()
+  {
+    return this.from.distance(this.to);
+  }
+  
+  @Benchmark
+  public double distanceOfCoordinates()
+  {
+    return Position.distance(this.from.x, this.from.y, this.to.x, this.to.y);
+  }
+  
+  /** The arithmetic of the former int positions, which overflows beyond 46341 km. */
+  @Benchmark
+  public double distanceOfIntCoordinates()
+  {
+    final int dx = Math.abs(this.toX - this.fromX);
+    final int dy = Math.abs(this.toY - this.fromY);
+    return Math.sqrt(dx * dx + dy * dy);
+  }
+  
+  @Benchmark
+  public Position interpolate()
+  {
+    return new Position(Position.interpolate(this.from.x, this.to.x, this.fraction),
+                        Position.interpolate(this.from.y, this.to.y, this.fraction));
+  }
+  
+  @Benchmark
+  public long interpolateCoordinates()
+  {
+    return Position.interpolate(this.from.x, this.to.x, this.fraction)
+         + Position.interpolate(this.from.y, this.to.y, this.fraction);
+  }
+  
+  @Benchmark
+  public int interpolateIntCoordinates()
+  {
+    return this.fromX + (int) ((this.toX - this.fromX) * this.fraction)
+         + this.fromY + (int) ((this.toY - this.fromY) * this.fraction);
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2011 Simon Hardijanto
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.projectthaleia.universe;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.projectthaleia.spaceprobes.SpaceProbeGroup;
+import org.projectthaleia.universe.planet.Planet;
+import org.projectthaleia.universe.sun.Sun;
+
+/**
+ * Updates a star system with a number of planets and moving space probe 
+ * groups. An observed system also publishes a snapshot per update.
+ * <p>
+ * The groups arrive at their waypoints after a while, so the system is set up 
+ * anew for every iteration and each iteration runs a fixed batch of 
+ * {@value #UPDATES} updates.
+ * </p>
+ * @author Simon Hardijanto
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 20, batchSize = StarSystemBenchmark.UPDATES)
+@Measurement(iterations = 20, batchSize = StarSystemBenchmark.UPDATES)
+@Fork(1)
+public class StarSystemBenchmark
+{
+  @Param({"10", "100"})
+  public int planets;
+  
+  /** Without groups an unobserved system is dormant */
+  @Param({"0", "10", "1000"})
+  public int spaceProbeGroups;
+  
+  @Param({"false", "true"})
+  public boolean isObserved;
+  
+  private StarSystem starSystem;
+  
+  @Setup(Level.Iteration)
+  public void setUp()
+  {
+    this.starSystem = new StarSystem("Benchmark", Sun.generateSun());
+    for (int i = 0; i < this.planets; ++i) {
+      this.starSystem.addPlanet(Planet.generatePlanet());
+    }
+    for (int i = 0; i < this.spaceProbeGroups; ++i) {
+      final SpaceProbeGroup group = SpaceProbeGroup.generateSpaceProbeGroup();
+      // far enough away to keep moving during a whole iteration
+      group.addWaypoint(new Position(40000, i));
+      group.setCurrentSpeed(SPEED);
+      this.starSystem.addSpaceProbeGroup(group);
+    }
+    if (this.isObserved) {
+      this.starSystem.addStarSystemChangedListener(new IStarSystemChangedListener()
+      {
+        @Override
+        public void starSystemChanged(final StarSystemChanges _changes) {}
+      });
+    }
+  }
+  
+  @Benchmark
+  public StarSystemSnapshot update()
+  {
+    this.starSystem.update(DELTA);
+    return this.starSystem.getSnapshot();
+  }
+  
+  //------------- PACKAGE PRIVATE -----------
+  static final int UPDATES = 100;
+  
+  //---------------- PRIVATE ----------------
+  /** In m/s. Covers 28800 km in {@value #UPDATES} updates */
+  private static final int SPEED = 100;
+  /** One update at normal game speed */
+  private static final long DELTA = 60*60*24/30;
+}
@@ -0,0 +1,119 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2011 Simon Hardijanto
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.projectthaleia.universe.graphics;
+
+import com.google.inject.Guice;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.projectthaleia.spaceprobes.SpaceProbeGroup;
+import org.projectthaleia.spaceprobes.SpaceProbesModule;
+import org.projectthaleia.universe.Position;
+import org.projectthaleia.universe.StarSystem;
+import org.projectthaleia.universe.planet.Planet;
+
+/**
+ * Hit-tests and paints a star system the way the universe panel does. 
+ * Painting goes into an offscreen image, so no display is needed.
+ * @author Simon Hardijanto
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class StarSystemGraphicBenchmark
+{
+  @Param({"10", "100"})
+  public int planets;
+  
+  @Param({"10", "1000"})
+  public int spaceProbeGroups;
+  
+  private StarSystemGraphic graphic;
+  private BufferedImage image;
+  private Graphics2D g;
+  private Position offset;
+  /** Misses every planet, so all of them are tested */
+  private Position miss;
+  
+  @Setup
+  public void setUp()
+  {
+    final StarSystem starSystem = StarSystem.generateStarSystem();
+    for (int i = 1; i < this.planets; ++i) {
+      starSystem.addPlanet(Planet.generatePlanet());
+    }
+    for (int i = 0; i < this.spaceProbeGroups; ++i) {
+      final SpaceProbeGroup group = SpaceProbeGroup.generateSpaceProbeGroup();
+      group.setPosition(new Position(i % 400 - 200, i / 400 * 10 - 200));
+      starSystem.addSpaceProbeGroup(group);
+    }
+    
+    this.graphic = Guice.createInjector(new SystemGraphicsModule(), 
+                                        new SpaceProbesModule())
+                        .getInstance(SystemGraphicsLibrary.class)
+                        .get(starSystem);
+    this.image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+    this.g = this.image.createGraphics();
+    this.offset = new Position(WIDTH/2, HEIGHT/2);
+    this.miss = new Position(WIDTH, HEIGHT);
+  }
+  
+  @TearDown
+  public void tearDown()
+  {
+    this.g.dispose();
+  }
+  
+  @Benchmark
+  public Planet wasPlanetHit()
+  {
+    return this.graphic.wasPlanetHit(this.miss);
+  }
+  
+  @Benchmark
+  public BufferedImage paint()
+  {
+    this.graphic.paint(this.g, this.offset, 0.5f);
+    return this.image;
+  }
+  
+  //---------------- PRIVATE ----------------
+  private static final int WIDTH = 1024;
+  private static final int HEIGHT = 768;
+}
@@ -33,6 +33,8 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
 import org.projectthaleia.colony.Colony;
+import org.projectthaleia.core.ITimelineEvent;
+import org.projectthaleia.core.Timeline;
 
 /**
  * The production waiting queue of a {@link org.projectthaleia.colony.Colony}.
@@ -68,7 +70,8 @@ public class BuildingQueue
     }
     
     if (this.active.isEmpty()) {
-      this.activateNextWaiting(this.lastUpdate);
+      this.activateNextWaiting(this.getNow());
+      this.scheduleCompletion();
     }    
     
     this.notifyListenersThatBuildingWasAdded(_building);
@@ -89,6 +92,9 @@ public class BuildingQueue
     
     if (!success) {
       success = this.active.remove(_building);
+      if (success) {
+        this.scheduleCompletion();
+      }
     }
     
     if (!success) {
@@ -171,22 +177,48 @@ public class BuildingQueue
             + "is not in the queue of colony " + this.colony);
   }
 
+  /**
+   * Completes all buildings that are finished by the given date. Each waiting
+   * building is started at the moment its predecessor was finished, not at 
+   * the date of the update, so a single update may span any amount of time 
+   * without delaying the queue.
+   * <p>
+   * Once the queue is on a {@link #setTimeline(Timeline) timeline} there is 
+   * no need to call this, the timeline does it whenever a building is due.
+   * </p>
+   * @param _now the current in-game date
+   */
   public void update(final Date _now)
   {
     this.lastUpdate = _now;
     
-    boolean slotAvailable = false;
-    
-    for (IQueueable building : this.active) {
-      if (building.getFinishedDate().before(_now) || building.getFinishedDate().equals(_now)) {
-        this.finishProduction(building);
-        slotAvailable = true;
-      }
+    IQueueable finished = this.nextFinished(_now);
+    while (finished != null) {
+      final Date finishedDate = finished.getFinishedDate();
+      this.active.remove(finished);
+      this.finishProduction(finished);
+      this.activateNextWaiting(finishedDate);
+      
+      finished = this.nextFinished(_now);
     }
-
-    if (slotAvailable) {
-      this.activateNextWaiting(_now);
+    
+    this.scheduleCompletion();
+  }
+  
+  /**
+   * Lets the timeline of the game complete the buildings of this queue when 
+   * they are due, instead of the game updating the queue every tick. Buildings
+   * started after this begin at the current time of the timeline.
+   * @param _timeline the timeline of the game
+   */
+  public void setTimeline(final Timeline _timeline)
+  {
+    if (_timeline == null) {
+      throw new NullPointerException("Cannot put building queue of colony " 
+              + this.colony + " on no timeline.");
     }
+    this.timeline = _timeline;
+    this.scheduleCompletion();
   }
 
 
@@ -201,6 +233,13 @@ public class BuildingQueue
     this.queue      = Collections.synchronizedList(new LinkedList<IQueueable>());
     this.active     = Collections.synchronizedList(new LinkedList<IQueueable>());
     this.listeners  = new ArrayList<IBuildingQueueChangedListener>();
+    this.completionEvent = new ITimelineEvent() {
+      @Override
+      public void fire(final long _time)
+      {
+        BuildingQueue.this.update(new Date(_time));
+      }
+    };
     
     this.validate();
   }
@@ -220,8 +259,12 @@ public class BuildingQueue
   private final List<IQueueable> active;
   private final List<IBuildingQueueChangedListener> listeners;
   private final Colony colony;
+  private final ITimelineEvent completionEvent;
   
   private Date lastUpdate;
+  private volatile Timeline timeline;
+  /** The completion of the active building that is finished first */
+  private Timeline.ScheduledEvent completion;
   
   private void validate()
   {
@@ -257,6 +300,75 @@ public class BuildingQueue
     this.colony.addBuilding(_finishedBuilding.getProduct(), _finishedBuilding.getAmount());
   }
 
+  /**
+   * The active building that was finished first, as long as that was not 
+   * after the given date.
+   * @return the finished building or <strong>null</strong>
+   */
+  private IQueueable nextFinished(final Date _now)
+  {
+    IQueueable result = null;
+    Date resultDate = null;
+    
+    synchronized (this.active) {
+      for (IQueueable building : this.active) {
+        final Date finishedDate = building.getFinishedDate();
+        if (finishedDate == null) {
+          continue;
+        }
+        final boolean isDue = finishedDate.before(_now) || finishedDate.equals(_now);
+        if (isDue && (resultDate == null || finishedDate.before(resultDate))) {
+          result = building;
+          resultDate = finishedDate;
+        }
+      }
+    }
+    
+    return result;
+  }
+
+  /**
+   * The date a newly started building begins at.
+   */
+  private Date getNow()
+  {
+    final Timeline currentTimeline = this.timeline;
+    if (currentTimeline == null) {
+      return this.lastUpdate;
+    }
+    return new Date(currentTimeline.getTime());
+  }
+  
+  /**
+   * Replaces the scheduled completion with one for the active building that 
+   * is finished first.
+   */
+  private synchronized void scheduleCompletion()
+  {
+    if (this.timeline == null) {
+      return;
+    }
+    if (this.completion != null) {
+      this.completion.cancel();
+      this.completion = null;
+    }
+    
+    Date firstFinished = null;
+    synchronized (this.active) {
+      for (IQueueable building : this.active) {
+        final Date finishedDate = building.getFinishedDate();
+        if (finishedDate != null 
+                && (firstFinished == null || finishedDate.before(firstFinished))) {
+          firstFinished = finishedDate;
+        }
+      }
+    }
+    
+    if (firstFinished != null) {
+      this.completion = this.timeline.schedule(firstFinished.getTime(), this.completionEvent);
+    }
+  }
+
   private void activateNextWaiting(final Date _now)
   {
     if (!this.queue.isEmpty()) {
@@ -0,0 +1,152 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2011 Simon Hardijanto
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.projectthaleia.core;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import org.projectthaleia.factions.FactionsModule;
+import org.projectthaleia.game.Game;
+import org.projectthaleia.game.GameGenerator;
+import org.projectthaleia.game.GameModule;
+import org.projectthaleia.game.HeadlessRunner;
+import org.projectthaleia.game.SimulationReport;
+import org.projectthaleia.universe.Galaxy;
+import org.projectthaleia.universe.GalaxyGenerator;
+
+/**
+ * Runs a simulation without a display and reports its throughput.
+ * <p>
+ * Usage: <code>HeadlessProjectThaleia [--days N | --seconds N] [--delta N] 
+ * [--systems N] [--sector-budget N] [--serial] [--seed N] [--profile]</code>
+ * <ul>
+ * <li><code>--days N</code> simulates N game days (default: 365)</li>
+ * <li><code>--seconds N</code> simulates as fast as possible for N real seconds</li>
+ * <li><code>--delta N</code> game seconds per update (default: one day/30)</li>
+ * <li><code>--systems N</code> number of star systems in the galaxy (default: 1)</li>
+ * <li><code>--sector-budget N</code> number of sectors of the galaxy kept in 
+ * memory (default: {@link Galaxy#getSectorBudget()} of a new galaxy)</li>
+ * <li><code>--serial</code> updates all star systems on one thread</li>
+ * <li><code>--seed N</code> generates the galaxy from a fixed seed</li>
+ * <li><code>--profile</code> measures and reports the time spent in each 
+ * phase of an update</li>
+ * </ul>
+ * </p>
+ * <p>
+ * The report ends with a hash of the final state. Runs with the same seed, 
+ * <code>--days</code> and <code>--delta</code> end with the same hash, so 
+ * comparing it e.g. with and without <code>--serial</code> shows whether 
+ * both update paths agree.
+ * </p>
+ * @author Simon Hardijanto
+ */
+public class HeadlessProjectThaleia
+{
+  /**
+   * @param args the command line arguments
+   */
+  public static void main(String args[])
+  {
+    System.setProperty("java.awt.headless", "true");
+    
+    long days = DEFAULT_DAYS;
+    long seconds = -1;
+    long delta = DEFAULT_DELTA;
+    int systems = 1;
+    int sectorBudget = -1;
+    boolean isParallel = true;
+    Long seed = null;
+    boolean isProfiled = false;
+    
+    for (int i = 0; i < args.length; ++i) {
+      if (args[i].equals("--days") && i+1 < args.length) {
+        days = Long.parseLong(args[++i]);
+      } else if (args[i].equals("--seconds") && i+1 < args.length) {
+        seconds = Long.parseLong(args[++i]);
+      } else if (args[i].equals("--delta") && i+1 < args.length) {
+        delta = Long.parseLong(args[++i]);
+      } else if (args[i].equals("--systems") && i+1 < args.length) {
+        systems = Integer.parseInt(args[++i]);
+      } else if (args[i].equals("--sector-budget") && i+1 < args.length) {
+        sectorBudget = Integer.parseInt(args[++i]);
+      } else if (args[i].equals("--serial")) {
+        isParallel = false;
+      } else if (args[i].equals("--seed") && i+1 < args.length) {
+        seed = Long.parseLong(args[++i]);
+      } else if (args[i].equals("--profile")) {
+        isProfiled = true;
+      } else {
+        System.err.println("Usage: HeadlessProjectThaleia "
+                + "[--days N | --seconds N] [--delta N] [--systems N] "
+                + "[--sector-budget N] [--serial] [--seed N] [--profile]");
+        System.exit(1);
+      }
+    }
+    
+    final RandomSource randomSource = new RandomSource(seed != null ? seed : System.nanoTime());
+    final Injector injector = Guice.createInjector(new GameModule(),
+                                                   new FactionsModule(),
+                                                   new AbstractModule()
+    {
+      @Override
+      protected void configure()
+      {
+        bind(RandomSource.class).toInstance(randomSource);
+      }
+    });
+    final long generationStart = System.nanoTime();
+    final Game game = injector.getInstance(GameGenerator.class).generateGame();
+    final Galaxy galaxy = game.getGalaxy();
+    // the budget applies while the rest of the galaxy is generated
+    if (sectorBudget > 0) {
+      galaxy.setSectorBudget(sectorBudget);
+    }
+    injector.getInstance(GalaxyGenerator.class).populate(galaxy, Math.max(0, systems - 1));
+    final long generationTime = System.nanoTime() - generationStart;
+    galaxy.setParallel(isParallel);
+    game.getProfiler().setEnabled(isProfiled);
+    final HeadlessRunner runner = new HeadlessRunner(delta);
+    
+    final SimulationReport report;
+    if (seconds >= 0) {
+      report = runner.runUntil(game, seconds * 1000000000L);
+    } else {
+      report = runner.runFor(game, days);
+    }
+    
+    System.out.println("Seed " + randomSource.getSeed());
+    System.out.println("Generated " + galaxy.getStarSystemCount() + " star systems in " 
+            + generationTime / 1000000 + " ms");
+    System.out.println(report);
+    if (isProfiled) {
+      for (PhaseStatistics statistics : game.getProfiler().getPhaseStatistics()) {
+        System.out.println(statistics);
+      }
+    }
+  }
+  
+  //---------------- PRIVATE ----------------
+  private static final long DEFAULT_DAYS = 365;
+  private static final long DEFAULT_DELTA = 60*60*24/30;
+}
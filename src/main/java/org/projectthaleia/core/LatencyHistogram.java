@@ -0,0 +1,201 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2011 Simon Hardijanto
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.projectthaleia.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts durations in buckets of logarithmically growing width, in the manner
+ * of an HDR histogram. Every power of two is split into 
+ * {@value #SUB_BUCKET_COUNT} buckets, so a percentile is never off by more 
+ * than 1/{@value #SUB_BUCKET_COUNT} of its value while the whole range of a 
+ * long fits into a few hundred counters.
+ * <p>
+ * Recording neither allocates nor locks. There should only be one thread 
+ * recording values, but any thread may read them. Reads while values are 
+ * being recorded may be slightly inconsistent with each other.
+ * </p>
+ * @author Simon Hardijanto
+ */
+public class LatencyHistogram
+{
+  /**
+   * Adds a measured duration.
+   * @param _nanos the duration in ns. Negative values are counted as 0.
+   */
+  public void record(final long _nanos)
+  {
+    final long value = Math.max(0, _nanos);
+    this.counts.incrementAndGet(bucketOf(value));
+    this.count.incrementAndGet();
+    this.total.addAndGet(value);
+    if (value > this.maximum) {
+      this.maximum = value;
+    }
+  }
+  
+  /**
+   * The number of recorded durations.
+   * @return the number of durations. Is never negative.
+   */
+  public long getCount()
+  {
+    return this.count.get();
+  }
+  
+  /**
+   * The mean of all recorded durations.
+   * @return the mean in ns or 0 if nothing has been recorded
+   */
+  public long getMean()
+  {
+    final long count = this.count.get();
+    if (count == 0) {
+      return 0;
+    }
+    return this.total.get() / count;
+  }
+  
+  /**
+   * The longest recorded duration.
+   * @return the duration in ns or 0 if nothing has been recorded
+   */
+  public long getMaximum()
+  {
+    return this.maximum;
+  }
+  
+  /**
+   * The duration that the given percentage of all recorded durations did not
+   * exceed.
+   * @param _percentile the percentage between 0 and 100
+   * @return the upper bound of the bucket containing the percentile in ns or 
+   * 0 if nothing has been recorded
+   */
+  public long getValueAtPercentile(final double _percentile)
+  {
+    if (_percentile < 0 || _percentile > 100) {
+      throw new IllegalArgumentException("Percentile has to be between 0 and "
+              + "100. Was " + _percentile);
+    }
+    
+    final long count = this.count.get();
+    if (count == 0) {
+      return 0;
+    }
+    
+    final long rank = Math.max(1, (long) Math.ceil(count * _percentile / 100));
+    long seen = 0;
+    for (int i = 0; i < this.counts.length(); ++i) {
+      seen += this.counts.get(i);
+      if (seen >= rank) {
+        return Math.min(upperBoundOf(i), this.maximum);
+      }
+    }
+    return this.maximum;
+  }
+  
+  /**
+   * Forgets all recorded durations.
+   */
+  public void reset()
+  {
+    for (int i = 0; i < this.counts.length(); ++i) {
+      this.counts.set(i, 0);
+    }
+    this.count.set(0);
+    this.total.set(0);
+    this.maximum = 0;
+  }
+  
+  public LatencyHistogram()
+  {
+    this.counts = new AtomicLongArray(BUCKET_COUNT);
+    this.count = new AtomicLong();
+    this.total = new AtomicLong();
+  }
+  
+  //------------- PACKAGE PRIVATE -----------
+  /** Number of buckets each power of two is split into */
+  static final int SUB_BUCKET_COUNT = 8;
+  
+  /**
+   * The bucket a value is counted in. Values below {@value #SUB_BUCKET_COUNT}
+   * have a bucket of their own, above that each power of two gets 
+   * {@value #SUB_BUCKET_COUNT} equally wide buckets.
+   * @param _value a value that is not negative
+   * @return the index of the bucket
+   */
+  static int bucketOf(final long _value)
+  {
+    if (_value < SUB_BUCKET_COUNT) {
+      return (int) _value;
+    }
+    final int exponent = 63 - Long.numberOfLeadingZeros(_value);
+    final int shift = exponent - SUB_BUCKET_BITS;
+    final int subBucket = (int) (_value >>> shift) & (SUB_BUCKET_COUNT - 1);
+    return (shift + 1) * SUB_BUCKET_COUNT + subBucket;
+  }
+  
+  /**
+   * The smallest value counted in a bucket.
+   * @param _bucket the index of the bucket
+   * @return the lower bound
+   */
+  static long lowerBoundOf(final int _bucket)
+  {
+    if (_bucket < SUB_BUCKET_COUNT) {
+      return _bucket;
+    }
+    final int shift = _bucket / SUB_BUCKET_COUNT - 1;
+    final int subBucket = _bucket % SUB_BUCKET_COUNT;
+    return (long) (SUB_BUCKET_COUNT + subBucket) << shift;
+  }
+  
+  /**
+   * The largest value counted in a bucket.
+   * @param _bucket the index of the bucket
+   * @return the upper bound
+   */
+  static long upperBoundOf(final int _bucket)
+  {
+    if (_bucket == BUCKET_COUNT - 1) {
+      return Long.MAX_VALUE;
+    }
+    return lowerBoundOf(_bucket + 1) - 1;
+  }
+  
+  //---------------- PRIVATE ----------------
+  private static final int SUB_BUCKET_BITS = 3;
+  /** Enough buckets for Long.MAX_VALUE */
+  private static final int BUCKET_COUNT = bucketOf(Long.MAX_VALUE) + 1;
+  
+  private final AtomicLongArray counts;
+  private final AtomicLong count;
+  /** Sum of all recorded values in ns */
+  private final AtomicLong total;
+  /** Written by the recording thread only */
+  private volatile long maximum;
+}
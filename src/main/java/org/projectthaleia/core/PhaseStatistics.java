@@ -0,0 +1,99 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2011 Simon Hardijanto
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.projectthaleia.core;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * The durations measured for one {@link TickPhase} so far. Shown as composite
+ * data by JMX clients.
+ * @author Simon Hardijanto
+ */
+@Immutable
+public final class PhaseStatistics
+{
+  public String getPhase()
+  {
+    return this.phase;
+  }
+  
+  /**
+   * The number of measurements, i.e. updates or frames.
+   * @return the number of measurements
+   */
+  public long getCount()
+  {
+    return this.count;
+  }
+  
+  public long getMeanNanos()
+  {
+    return this.meanNanos;
+  }
+  
+  public long getMedianNanos()
+  {
+    return this.medianNanos;
+  }
+  
+  public long getP99Nanos()
+  {
+    return this.p99Nanos;
+  }
+  
+  public long getMaximumNanos()
+  {
+    return this.maximumNanos;
+  }
+  
+  @ConstructorProperties({"phase", "count", "meanNanos", "medianNanos", 
+                          "p99Nanos", "maximumNanos"})
+  public PhaseStatistics(final String _phase, final long _count, 
+                         final long _meanNanos, final long _medianNanos, 
+                         final long _p99Nanos, final long _maximumNanos)
+  {
+    this.phase = _phase;
+    this.count = _count;
+    this.meanNanos = _meanNanos;
+    this.medianNanos = _medianNanos;
+    this.p99Nanos = _p99Nanos;
+    this.maximumNanos = _maximumNanos;
+  }
+  
+  @Override
+  public String toString()
+  {
+    return String.format("%-12s mean %8.3f ms  p50 %8.3f ms  p99 %8.3f ms  max %8.3f ms", 
+            this.phase, this.meanNanos/1e6, this.medianNanos/1e6, 
+            this.p99Nanos/1e6, this.maximumNanos/1e6);
+  }
+  
+  //---------------- PRIVATE ----------------
+  private final String phase;
+  private final long count;
+  private final long meanNanos;
+  private final long medianNanos;
+  private final long p99Nanos;
+  private final long maximumNanos;
+}
@@ -0,0 +1,98 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2011 Simon Hardijanto
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.projectthaleia.core;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import java.util.Random;
+
+/**
+ * The only source of random numbers for generating a game. Everything 
+ * generated from the same seed in the same order comes out the same, so a 
+ * simulation can be repeated exactly.
+ * <p>
+ * Generators that run one after the other share {@link #getRandom()}. Work 
+ * that runs in parallel or in no fixed order takes its own stream from 
+ * {@link #fork(long)}.
+ * </p>
+ * @author Simon Hardijanto
+ */
+@Singleton
+public class RandomSource
+{
+  /**
+   * The seed all random numbers are derived from.
+   * @return the seed
+   */
+  public long getSeed()
+  {
+    return this.seed;
+  }
+  
+  /**
+   * The shared stream of random numbers. Not meant for several threads at
+   * once: the numbers would still be random, but no longer repeatable.
+   * @return the shared generator
+   */
+  public Random getRandom()
+  {
+    return this.random;
+  }
+  
+  /**
+   * Creates a separate stream of random numbers. The same seed and stream 
+   * number always give the same stream, independent of how much of the 
+   * shared stream or other streams has been used.
+   * @param _stream the number of the stream, e.g. the index of a star system
+   * @return a new generator
+   */
+  public Random fork(final long _stream)
+  {
+    return new Random(StateHash.mix(StateHash.mix(StateHash.INITIAL, this.seed), _stream));
+  }
+  
+  /**
+   * Creates a source with a fixed seed.
+   * @param _seed the seed
+   */
+  public RandomSource(final long _seed)
+  {
+    this.seed = _seed;
+    this.random = new Random(_seed);
+  }
+  
+  //------------- PACKAGE PRIVATE -----------
+  /**
+   * Creates a source with a different seed every time.
+   */
+  @Inject
+  RandomSource()
+  {
+    this(System.nanoTime());
+  }
+  
+  //---------------- PRIVATE ----------------
+  private final long seed;
+  private final Random random;
+}
@@ -0,0 +1,74 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2011 Simon Hardijanto
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.projectthaleia.core;
+
+/**
+ * Combines the state of the simulation into a 64 bit hash, one value at a 
+ * time. Two runs that end up with the same hash have, with very high 
+ * probability, passed through the same states. The order of the values 
+ * matters.
+ * <p>
+ * Each step is a round of the xxHash64 algorithm, i.e. a few multiplications
+ * and rotations, so the state can be hashed after every update.
+ * </p>
+ * @author Simon Hardijanto
+ */
+public final class StateHash
+{
+  /** The hash to start with */
+  public static final long INITIAL = 0x27D4EB2F165667C5L;
+  
+  /**
+   * Adds a value to a hash.
+   * @param _hash the hash so far
+   * @param _value the value to add
+   * @return the new hash
+   */
+  public static long mix(final long _hash, final long _value)
+  {
+    long k = _value * PRIME_2;
+    k = Long.rotateLeft(k, 31) * PRIME_1;
+    return Long.rotateLeft(_hash ^ k, 27) * PRIME_1 + PRIME_4;
+  }
+  
+  /**
+   * Adds a floating point value to a hash. Values that are equal bit by bit 
+   * give the same hash.
+   * @param _hash the hash so far
+   * @param _value the value to add
+   * @return the new hash
+   */
+  public static long mix(final long _hash, final double _value)
+  {
+    return mix(_hash, Double.doubleToLongBits(_value));
+  }
+  
+  //---------------- PRIVATE ----------------
+  private static final long PRIME_1 = 0x9E3779B185EBCA87L;
+  private static final long PRIME_2 = 0xC2B2AE3D27D4EB4FL;
+  private static final long PRIME_4 = 0x85EBCA77C2B2AE63L;
+  
+  private StateHash()
+  {}
+}
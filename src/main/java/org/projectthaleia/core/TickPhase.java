@@ -0,0 +1,75 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2011 Simon Hardijanto
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.projectthaleia.core;
+
+/**
+ * The parts of a game update and of painting that the {@link TickProfiler} 
+ * measures separately.
+ * @author Simon Hardijanto
+ */
+public enum TickPhase
+{
+  /** The whole update of the game, measured in real time */
+  UPDATE              ("Update", true),
+  /** Moving all planets along their orbits */
+  PLANETS             ("Planets", true),
+  /** Moving all space probe groups */
+  SPACE_PROBE_GROUPS  ("Space probes", true),
+  /** Publishing star system snapshots for the graphics */
+  SNAPSHOTS           ("Snapshots", true),
+  /** Firing the timeline events that are due, e.g. finished buildings */
+  EVENTS              ("Events", true),
+  /** Painting a frame on the event dispatch thread */
+  PAINT               ("Paint", false);
+
+  /**
+   * A short name for displays.
+   * @return the label
+   */
+  public String getLabel()
+  {
+    return this.label;
+  }
+  
+  /**
+   * Is the phase part of a game update? The times of these phases are summed
+   * up over all threads during one update and recorded once per update.
+   * Other phases are recorded every time they are measured.
+   * @return <strong>true</strong> if the phase belongs to an update
+   */
+  public boolean isPartOfTick()
+  {
+    return this.isPartOfTick;
+  }
+
+  //---------------- PRIVATE ----------------
+  private final String label;
+  private final boolean isPartOfTick;
+
+  private TickPhase(final String _label, final boolean _isPartOfTick)
+  {
+    this.label = _label;
+    this.isPartOfTick = _isPartOfTick;
+  }
+}
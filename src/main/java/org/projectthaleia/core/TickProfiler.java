@@ -0,0 +1,247 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2011 Simon Hardijanto
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.projectthaleia.core;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Measures how long the phases of each game update and of painting take.
+ * <p>
+ * Measuring costs two calls to {@link System#nanoTime()} per phase and star 
+ * system and does not allocate. The time spent in a phase is summed up over
+ * all threads taking part in an update, so with a parallel galaxy update the
+ * star system phases show CPU time while {@link TickPhase#UPDATE} shows the 
+ * real time. At the end of each update the sums are added to a 
+ * {@link LatencyHistogram} per phase.
+ * </p>
+ * <p>
+ * Usage:
+ * <pre>
+ * final long start = profiler.start();
+ * // do the work
+ * profiler.stop(TickPhase.PLANETS, start);
+ * </pre>
+ * </p>
+ * @author Simon Hardijanto
+ */
+public class TickProfiler implements TickProfilerMXBean
+{
+  /** The name the profiler is registered under with the platform MBean server */
+  public static final String OBJECT_NAME = "org.projectthaleia:type=TickProfiler";
+  
+  /**
+   * Starts measuring a phase.
+   * @return the start time to pass to {@link #stop(TickPhase, long)} or 0 if 
+   * the profiler is disabled
+   */
+  public long start()
+  {
+    return this.isEnabled ? System.nanoTime() : 0;
+  }
+  
+  /**
+   * Ends measuring a phase. May be called by several threads at once.
+   * @param _phase the measured phase
+   * @param _start the value returned by {@link #start()}
+   */
+  public void stop(final TickPhase _phase, final long _start)
+  {
+    if (_start == 0) {
+      return;
+    }
+    final long elapsed = System.nanoTime() - _start;
+    if (_phase.isPartOfTick()) {
+      this.currentTick[_phase.ordinal()].add(elapsed);
+    } else {
+      this.histograms[_phase.ordinal()].record(elapsed);
+    }
+  }
+  
+  /**
+   * Records the phases measured during the update that has just finished. 
+   * Must be called by the thread that updates the game after all other 
+   * threads have finished their part of the update.
+   */
+  public void endTick()
+  {
+    if (!this.isEnabled) {
+      return;
+    }
+    for (TickPhase phase : PHASES) {
+      if (phase.isPartOfTick()) {
+        this.histograms[phase.ordinal()].record(this.currentTick[phase.ordinal()].sumThenReset());
+      }
+    }
+    this.tickCount.incrementAndGet();
+  }
+  
+  /**
+   * Counts frames the game loop did not paint because it was catching up 
+   * with updates.
+   * @param _frames the number of skipped frames
+   */
+  public void frameSkipped(final int _frames)
+  {
+    if (this.isEnabled) {
+      this.skippedFrames.addAndGet(_frames);
+    }
+  }
+  
+  /**
+   * The durations measured for a phase.
+   * @param _phase the phase
+   * @return the histogram of the phase. Is never null.
+   */
+  public LatencyHistogram getHistogram(final TickPhase _phase)
+  {
+    return this.histograms[_phase.ordinal()];
+  }
+  
+  @Override
+  public boolean isEnabled()
+  {
+    return this.isEnabled;
+  }
+  
+  @Override
+  public void setEnabled(final boolean _isEnabled)
+  {
+    this.isEnabled = _isEnabled;
+  }
+  
+  @Override
+  public long getTickCount()
+  {
+    return this.tickCount.get();
+  }
+  
+  @Override
+  public long getSkippedFrames()
+  {
+    return this.skippedFrames.get();
+  }
+  
+  @Override
+  public List<PhaseStatistics> getPhaseStatistics()
+  {
+    final List<PhaseStatistics> result = new ArrayList<PhaseStatistics>(PHASES.length);
+    for (TickPhase phase : PHASES) {
+      final LatencyHistogram histogram = this.histograms[phase.ordinal()];
+      result.add(new PhaseStatistics(phase.getLabel(), 
+                                     histogram.getCount(),
+                                     histogram.getMean(),
+                                     histogram.getValueAtPercentile(50),
+                                     histogram.getValueAtPercentile(99),
+                                     histogram.getMaximum()));
+    }
+    return result;
+  }
+  
+  @Override
+  public void reset()
+  {
+    for (TickPhase phase : PHASES) {
+      this.currentTick[phase.ordinal()].reset();
+      this.histograms[phase.ordinal()].reset();
+    }
+    this.tickCount.set(0);
+    this.skippedFrames.set(0);
+  }
+  
+  /**
+   * Makes the profiler available over JMX under {@value #OBJECT_NAME}. 
+   * Replaces a profiler registered before, e.g. by a previous game.
+   */
+  public void registerMBean()
+  {
+    final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    try {
+      final ObjectName name = new ObjectName(OBJECT_NAME);
+      try {
+        server.registerMBean(this, name);
+      } catch (InstanceAlreadyExistsException e) {
+        server.unregisterMBean(name);
+        server.registerMBean(this, name);
+      }
+    } catch (JMException e) {
+      throw new IllegalStateException("Could not register tick profiler as "
+              + OBJECT_NAME, e);
+    }
+  }
+  
+  /**
+   * Removes the profiler from the platform MBean server again. Does nothing 
+   * if it is not registered.
+   */
+  public void unregisterMBean()
+  {
+    final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    try {
+      server.unregisterMBean(new ObjectName(OBJECT_NAME));
+    } catch (InstanceNotFoundException e) {
+      // not registered, nothing to do
+    } catch (JMException e) {
+      throw new IllegalStateException("Could not unregister tick profiler "
+              + OBJECT_NAME, e);
+    }
+  }
+  
+  /**
+   * Creates a new profiler.
+   * @param _isEnabled <strong>false</strong> to start without measuring
+   */
+  public TickProfiler(final boolean _isEnabled)
+  {
+    this.isEnabled = _isEnabled;
+    this.currentTick = new LongAdder[PHASES.length];
+    this.histograms = new LatencyHistogram[PHASES.length];
+    for (TickPhase phase : PHASES) {
+      this.currentTick[phase.ordinal()] = new LongAdder();
+      this.histograms[phase.ordinal()] = new LatencyHistogram();
+    }
+    this.tickCount = new AtomicLong();
+    this.skippedFrames = new AtomicLong();
+  }
+  
+  //---------------- PRIVATE ----------------
+  private static final TickPhase[] PHASES = TickPhase.values();
+  
+  /** Time in ns spent in each phase during the current update */
+  private final LongAdder[] currentTick;
+  private final LatencyHistogram[] histograms;
+  private final AtomicLong tickCount;
+  private final AtomicLong skippedFrames;
+  
+  /** written by any thread */
+  private volatile boolean isEnabled;
+}
@@ -0,0 +1,62 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2011 Simon Hardijanto
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.projectthaleia.core;
+
+import java.util.List;
+
+/**
+ * Management interface of the {@link TickProfiler}, e.g. for JConsole or 
+ * VisualVM.
+ * @author Simon Hardijanto
+ */
+public interface TickProfilerMXBean
+{
+  boolean isEnabled();
+  
+  void setEnabled(boolean _isEnabled);
+  
+  /**
+   * The number of game updates measured so far.
+   * @return the number of updates
+   */
+  long getTickCount();
+  
+  /**
+   * The number of frames the game loop has not painted because it had to 
+   * catch up with updates.
+   * @return the number of skipped frames
+   */
+  long getSkippedFrames();
+  
+  /**
+   * The durations measured for each phase.
+   * @return one entry per {@link TickPhase}
+   */
+  List<PhaseStatistics> getPhaseStatistics();
+  
+  /**
+   * Forgets all measurements.
+   */
+  void reset();
+}
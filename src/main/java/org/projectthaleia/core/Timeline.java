@@ -0,0 +1,233 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2011 Simon Hardijanto
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.projectthaleia.core;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+
+/**
+ * Events ordered by the game time they happen at. Instead of asking every 
+ * colony on every update whether something is due, the game advances the 
+ * timeline and only the events that are due are fired, so an update costs 
+ * nothing as long as nothing happens.
+ * <p>
+ * Events are fired in the order of their time, events with the same time in 
+ * the order they were scheduled. Events may be scheduled and cancelled from 
+ * any thread, but only one thread may advance the timeline.
+ * </p>
+ * @author Simon Hardijanto
+ */
+public class Timeline
+{
+  /**
+   * An event waiting on the timeline.
+   */
+  public static final class ScheduledEvent
+  {
+    /**
+     * The time the event is fired at.
+     * @return the time
+     */
+    public long getTime()
+    {
+      return this.time;
+    }
+    
+    /**
+     * Keeps the event from being fired. Nothing happens if it was already 
+     * fired or cancelled.
+     */
+    public void cancel()
+    {
+      this.timeline.cancel(this);
+    }
+    
+    public boolean isCancelled()
+    {
+      return this.isCancelled;
+    }
+
+    //---------------- PRIVATE ----------------
+    private final Timeline timeline;
+    private final long time;
+    private final long sequence;
+    private final ITimelineEvent event;
+    private volatile boolean isCancelled;
+    /** Is the event still in the queue? Guarded by the timeline. */
+    private boolean isQueued;
+
+    private ScheduledEvent(final Timeline _timeline, final long _time, 
+            final long _sequence, final ITimelineEvent _event)
+    {
+      this.timeline = _timeline;
+      this.time = _time;
+      this.sequence = _sequence;
+      this.event = _event;
+    }
+  }
+  
+  /**
+   * Creates an empty timeline.
+   * @param _now the time the timeline starts at
+   */
+  public Timeline(final long _now)
+  {
+    this.now = _now;
+    this.events = new PriorityQueue<ScheduledEvent>(16, new Comparator<ScheduledEvent>() {
+      @Override
+      public int compare(final ScheduledEvent _a, final ScheduledEvent _b)
+      {
+        if (_a.time != _b.time) {
+          return _a.time < _b.time ? -1 : 1;
+        }
+        return _a.sequence < _b.sequence ? -1 : (_a.sequence == _b.sequence ? 0 : 1);
+      }
+    });
+  }
+  
+  /**
+   * Schedules an event. An event scheduled for a time that has already 
+   * passed is fired on the next advance.
+   * @param _time the time the event happens at
+   * @param _event the event
+   * @return a handle for cancelling the event
+   */
+  public synchronized ScheduledEvent schedule(final long _time, final ITimelineEvent _event)
+  {
+    if (_event == null) {
+      throw new NullPointerException("Cannot schedule no event.");
+    }
+    final ScheduledEvent scheduled = new ScheduledEvent(this, _time, this.nextSequence++, _event);
+    scheduled.isQueued = true;
+    this.events.add(scheduled);
+    return scheduled;
+  }
+  
+  /**
+   * Fires all events that are due by the given time, in order. While an event
+   * is fired, {@link #getTime()} returns the time of that event.
+   * @param _time the new time. Must not be before the current time.
+   */
+  public void advanceTo(final long _time)
+  {
+    synchronized (this) {
+      if (_time < this.now) {
+        throw new IllegalArgumentException("Cannot advance timeline backwards "
+                + "from " + this.now + " to " + _time);
+      }
+    }
+    
+    ScheduledEvent next = this.pollDue(_time);
+    while (next != null) {
+      next.event.fire(next.time);
+      next = this.pollDue(_time);
+    }
+    
+    synchronized (this) {
+      this.now = _time;
+    }
+  }
+  
+  /**
+   * The time the timeline was last advanced to or, while events are fired, 
+   * the time of the current event.
+   * @return the current time
+   */
+  public synchronized long getTime()
+  {
+    return this.now;
+  }
+  
+  /**
+   * The number of scheduled events, including cancelled ones that have not 
+   * been removed yet. Cancelled events are removed when they come up or 
+   * when they make up most of the timeline.
+   * @return the number of scheduled events
+   */
+  public synchronized int size()
+  {
+    return this.events.size();
+  }
+
+  //---------------- PRIVATE ----------------
+  /** Cancelled events are left in a timeline smaller than this */
+  private static final int MIN_COMPACTED_SIZE = 64;
+  
+  private final PriorityQueue<ScheduledEvent> events;
+  private long now;
+  private long nextSequence;
+  /** The number of cancelled events still in the queue */
+  private int cancelledCount;
+  
+  /**
+   * Marks an event as cancelled. Rescheduling cancels an event for every 
+   * new one, so the cancelled events are removed once they make up more 
+   * than half of a large timeline instead of waiting for them to come up.
+   */
+  private synchronized void cancel(final ScheduledEvent _event)
+  {
+    if (_event.isCancelled) {
+      return;
+    }
+    _event.isCancelled = true;
+    if (!_event.isQueued) {
+      return;
+    }
+    ++this.cancelledCount;
+    if (this.events.size() >= MIN_COMPACTED_SIZE 
+            && 2 * this.cancelledCount > this.events.size()) {
+      for (Iterator<ScheduledEvent> it = this.events.iterator(); it.hasNext(); ) {
+        final ScheduledEvent scheduled = it.next();
+        if (scheduled.isCancelled) {
+          scheduled.isQueued = false;
+          it.remove();
+        }
+      }
+      this.cancelledCount = 0;
+    }
+  }
+  
+  /**
+   * Removes the next event that is due and not cancelled. Cancelled events 
+   * that come up on the way are dropped.
+   * @return the event or <strong>null</strong>
+   */
+  private synchronized ScheduledEvent pollDue(final long _time)
+  {
+    ScheduledEvent next = this.events.peek();
+    while (next != null && next.time <= _time) {
+      this.events.poll();
+      next.isQueued = false;
+      if (next.isCancelled) {
+        --this.cancelledCount;
+      } else {
+        this.now = Math.max(this.now, next.time);
+        return next;
+      }
+      next = this.events.peek();
+    }
+    return null;
+  }
+}
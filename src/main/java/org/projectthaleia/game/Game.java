@@ -25,7 +25,14 @@ package org.projectthaleia.game;
 
 import com.google.inject.Inject;
 import com.google.inject.assistedinject.Assisted;
+import java.util.Date;
+import org.projectthaleia.colony.Colony;
+import org.projectthaleia.core.StateHash;
+import org.projectthaleia.core.TickPhase;
+import org.projectthaleia.core.TickProfiler;
+import org.projectthaleia.core.Timeline;
 import org.projectthaleia.factions.Empire;
+import org.projectthaleia.universe.Galaxy;
 import org.projectthaleia.universe.StarSystem;
 
 
@@ -38,7 +45,40 @@ public class Game
 
   public void update(final long _delta)
   {
-    this.empire.getHomeSystem().update(_delta);
+    final long start = this.profiler.start();
+    
+    this.gameTime += _delta;
+    this.galaxy.update(_delta);
+    
+    final long events = this.profiler.start();
+    this.timeline.advanceTo(START_DATE + this.gameTime*1000);
+    this.profiler.stop(TickPhase.EVENTS, events);
+    
+    this.stateHash = StateHash.mix(this.galaxy.getStateHash(), this.gameTime);
+    
+    this.profiler.stop(TickPhase.UPDATE, start);
+    this.profiler.endTick();
+  }
+
+  /**
+   * Advances the game by a large amount of game time in a single step instead
+   * of many regular updates. Planets move along their orbits in closed form, 
+   * space probe groups fly straight from waypoint to waypoint and building 
+   * queues complete everything that is due in the order of the timeline, so the outcome 
+   * does not depend on the size of the step.
+   * <p>
+   * Must be called by the thread that updates the game, see 
+   * {@link GameLoop#warp(long)}.
+   * </p>
+   * @param _gameSeconds the game time to skip in seconds. Must be positive.
+   */
+  public void warp(final long _gameSeconds)
+  {
+    if (_gameSeconds <= 0) {
+      throw new IllegalArgumentException("Game time to warp must be positive. "
+              + "Was " + _gameSeconds);
+    }
+    this.update(_gameSeconds);
   }
 
   public boolean isRunning()
@@ -48,7 +88,43 @@ public class Game
 
   public boolean isPaused()
   {
-    return false;
+    return this.isPaused;
+  }
+  
+  /**
+   * Stops the game time until {@link #resume()} is called. The game is still 
+   * painted while paused. May be called from any thread.
+   */
+  public void pause()
+  {
+    this.isPaused = true;
+  }
+  
+  /**
+   * Lets the game time continue after {@link #pause()}. May be called from 
+   * any thread.
+   */
+  public void resume()
+  {
+    this.isPaused = false;
+  }
+  
+  /**
+   * The game time that has passed since the start of the game.
+   * @return the time in game seconds
+   */
+  public long getGameTime()
+  {
+    return this.gameTime;
+  }
+  
+  /**
+   * The current in-game date.
+   * @return a new date object
+   */
+  public Date getDate()
+  {
+    return new Date(START_DATE + this.gameTime*1000);
   }
   
   public void quit()
@@ -56,6 +132,30 @@ public class Game
     this.isRunning = false;
   }
 
+  /**
+   * How far real time has progressed from the last towards the next update.
+   * Graphics use it to interpolate between the last and the current state.
+   * @return a value between 0 and 1
+   */
+  public float getInterpolation()
+  {
+    return this.interpolation;
+  }
+  
+  /**
+   * Sets how far real time has progressed from the last towards the next 
+   * update. Called by the game loop before each frame.
+   * @param _interpolation a value between 0 and 1
+   */
+  public void setInterpolation(final float _interpolation)
+  {
+    if (_interpolation < 0 || _interpolation > 1) {
+      throw new IllegalArgumentException("Interpolation has to be between 0 "
+              + "and 1. Was " + _interpolation);
+    }
+    this.interpolation = _interpolation;
+  }
+
   public StarSystem getHomeSystem()
   {
     return this.empire.getHomeSystem();
@@ -66,20 +166,97 @@ public class Game
     return this.empire;
   }
   
+  /**
+   * All star systems of the game including the home system.
+   * @return the galaxy
+   */
+  public Galaxy getGalaxy()
+  {
+    return this.galaxy;
+  }
+  
+  /**
+   * A hash of the whole simulation state after the last update. Two games 
+   * generated from the same seed and updated with the same steps have the 
+   * same hash after every update, whichever way the galaxy was updated.
+   * @return the hash
+   * @see org.projectthaleia.core.StateHash
+   */
+  public long getStateHash()
+  {
+    return this.stateHash;
+  }
+  
+  /**
+   * The events of the game in the order they happen, keyed by the in-game 
+   * date in ms. It is advanced with every update.
+   * @return the timeline. Is never null.
+   */
+  public Timeline getTimeline()
+  {
+    return this.timeline;
+  }
+  
+  /**
+   * Puts the building queue of a colony on the timeline of the game. Colonies
+   * on the planets of the galaxy are put on it automatically, whenever they 
+   * were founded, so this is only needed for colonies elsewhere.
+   * @param _colony the new colony
+   */
+  public void registerColony(final Colony _colony)
+  {
+    _colony.getBuildingQueue().setTimeline(this.timeline);
+  }
+  
+  /**
+   * Measures how long the parts of each update take. The profiler starts 
+   * disabled and is switched on with the profiler overlay, over JMX or with
+   * <code>--profile</code> of a headless run.
+   * @return the profiler. Is never null.
+   */
+  public TickProfiler getProfiler()
+  {
+    return this.profiler;
+  }
+  
   //--------------- PROTECTED ---------------
 
   //------------- PACKAGE PRIVATE -----------
   @Inject
-  Game(@Assisted final Empire _empire)
+  Game(@Assisted final Empire _empire, final Galaxy _galaxy)
   {
     this.empire = _empire;
+    this.galaxy = _galaxy;
+    this.timeline = new Timeline(START_DATE);
+    this.galaxy.setTimeline(this.timeline);
+    this.galaxy.addStarSystem(this.empire.getHomeSystem());
+    this.profiler = new TickProfiler(false);
+    this.galaxy.setProfiler(this.profiler);
     
     this.isRunning = true;
+    this.isPaused = false;
+    this.gameTime = 0;
+    this.interpolation = 1.0f;
+    this.stateHash = StateHash.INITIAL;
   }
 
   //---------------- PRIVATE ----------------
+  /** 2200-01-01 00:00 UTC in ms */
+  private static final long START_DATE = 7258118400000L;
+  
   private final Empire empire;
+  private final Galaxy galaxy;
+  private final TickProfiler profiler;
+  private final Timeline timeline;
   
-  private boolean isRunning;
+  /** written by any thread, read by the game loop */
+  private volatile boolean isRunning;
+  private volatile boolean isPaused;
+  /** Unit: game seconds. Written by the game loop, read by the graphics */
+  private volatile long gameTime;
+  /** written by the game loop, read by the event dispatch thread */
+  private volatile float interpolation;
+  /** Written by the game loop, read by anyone */
+  private volatile long stateHash;
 
 }
@@ -0,0 +1,104 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2011 Simon Hardijanto
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.projectthaleia.game;
+
+import com.google.inject.Inject;
+import java.util.Random;
+import org.projectthaleia.core.RandomSource;
+import org.projectthaleia.factions.Empire;
+import org.projectthaleia.factions.EmpireFactory;
+import org.projectthaleia.factions.Species;
+import org.projectthaleia.factions.SpeciesFactory;
+import org.projectthaleia.spaceprobes.ProbeClass;
+import org.projectthaleia.spaceprobes.SpaceProbeGroup;
+import org.projectthaleia.universe.GalaxyGenerator;
+import org.projectthaleia.universe.StarSystem;
+
+/**
+ * Sets up a new game including the player's empire and home system. Does not 
+ * depend on any graphics so it can be used without a display.
+ * @author Simon Hardijanto
+ */
+public class GameGenerator
+{
+  /**
+   * Creates a new game with a generated home system. Games generated from 
+   * the same {@link RandomSource} seed are identical.
+   * @return the new game
+   */
+  public Game generateGame()
+  {
+    return this.generateGame(1);
+  }
+  
+  /**
+   * Creates a new game in a galaxy of generated star systems. Games generated
+   * from the same {@link RandomSource} seed are identical. The probe designs
+   * of games created before are forgotten.
+   * @param _starSystemCount the number of star systems including the home 
+   * system
+   * @return the new game
+   */
+  public Game generateGame(final int _starSystemCount)
+  {
+    if (_starSystemCount < 1) {
+      throw new IllegalArgumentException("A game needs at least the home system. "
+              + "Number of star systems was " + _starSystemCount);
+    }
+    
+    ProbeClass.clearRegistry();
+    final Random random = this.randomSource.getRandom();
+    final Species mainSpecies = this.speciesFactory.create();
+    final StarSystem homeSystem = StarSystem.generateStarSystem(random);
+    homeSystem.addSpaceProbeGroup(SpaceProbeGroup.generateSpaceProbeGroup(random));
+    final Empire empire = this.empireFactory.create(mainSpecies, homeSystem);
+    final Game game = this.gameFactory.newGame(empire);
+    this.galaxyGenerator.populate(game.getGalaxy(), _starSystemCount - 1);
+    return game;
+  }
+  
+  //--------------- PROTECTED ---------------
+
+  //------------- PACKAGE PRIVATE -----------
+  @Inject
+  GameGenerator(final GameFactory _gameFactory,
+                final EmpireFactory _empireFactory,
+                final SpeciesFactory _speciesFactory,
+                final RandomSource _randomSource,
+                final GalaxyGenerator _galaxyGenerator)
+  {
+    this.gameFactory = _gameFactory;
+    this.empireFactory = _empireFactory;
+    this.speciesFactory = _speciesFactory;
+    this.randomSource = _randomSource;
+    this.galaxyGenerator = _galaxyGenerator;
+  }
+
+  //---------------- PRIVATE ----------------
+  private final GameFactory gameFactory;
+  private final EmpireFactory empireFactory;
+  private final SpeciesFactory speciesFactory;
+  private final RandomSource randomSource;
+  private final GalaxyGenerator galaxyGenerator;
+}
@@ -26,6 +26,7 @@ package org.projectthaleia.game;
 import com.google.inject.Inject;
 import com.google.inject.assistedinject.Assisted;
 import java.awt.Component;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  *
@@ -40,38 +41,157 @@ public class GameLoop implements Runnable
     // frameskip counter
     int loops;
     long nextTick = now();
-    long tickBegin, timeLeft;
+    long nextFrame = nextTick;
+    long currentTime;
+    
+    this.game.getProfiler().registerMBean();
     
     while (this.game.isRunning()) {
       
       loops = 0;
-      tickBegin = now();
+      // the speed may be changed by other threads at any time
+      final GameSpeed speed = this.gameSpeed;
+      
+      // a requested warp is done in one step between two regular updates
+      final long warp = this.pendingWarp.getAndSet(0);
+      if (warp > 0) {
+        this.game.warp(warp);
+      }
       
       if (!this.game.isPaused()) {
         
-        while (now() > nextTick && loops < this.gameSpeed.maxFrameskip) {
+        while (now() > nextTick && loops < speed.maxFrameskip) {
           
-          this.game.update(this.gameSpeed.gameTimePerTick);
-          nextTick += this.gameSpeed.skipTicks;
+          this.game.update(speed.getGameTimePerTick());
+          nextTick += speed.skipTicks;
           ++loops;
           
         }
         
+        if (loops > 1) {
+          // the updates in between were not painted
+          this.game.getProfiler().frameSkipped(loops - 1);
+        }
+        
+      } else {
+        // don't try to catch up on the time spent paused
+        nextTick = now() + speed.skipTicks;
       }
       
-      this.canvas.repaint();
+      currentTime = now();
+      if (currentTime >= nextFrame) {
+        this.game.setInterpolation(this.interpolation(currentTime, nextTick, speed));
+        this.canvas.repaint();
+        
+        nextFrame += this.frameLength;
+        if (nextFrame < currentTime) {
+          // rendering fell behind, don't try to catch up
+          nextFrame = currentTime + this.frameLength;
+        }
+      }
       
-//      timeLeft = this.gameSpeed.skipTicks-(now()-tickBegin)/100000;
-//      try {
-//        Thread.sleep(timeLeft);
-//      } catch (InterruptedException e) {
-//        System.err.print(e);
-//      }
+      // sleep until either the next update or the next frame is due
+      try {
+        this.scheduler.waitUntil(Math.min(nextTick, nextFrame));
+      } catch (InterruptedException e) {
+        // the loop thread is asked to stop
+        break;
+      }
     }
     
+    this.game.getProfiler().unregisterMBean();
     System.exit(0);
   }
   
+  /**
+   * The speed the game is currently running at.
+   * @return the game speed. Is never null.
+   */
+  public GameSpeed getGameSpeed()
+  {
+    return this.gameSpeed;
+  }
+  
+  /**
+   * Changes the speed of the game. Takes effect with the next update and may 
+   * be called from any thread.
+   * @param _gameSpeed the new speed. Must not be null.
+   */
+  public void setGameSpeed(final GameSpeed _gameSpeed)
+  {
+    if (_gameSpeed == null) {
+      throw new NullPointerException("Game speed must not be null.");
+    }
+    this.gameSpeed = _gameSpeed;
+  }
+  
+  /**
+   * Skips ahead in game time. The loop thread advances the game by the whole 
+   * amount in a single step before its next regular update, see 
+   * {@link Game#warp(long)}. May be called from any thread, also while the 
+   * game is paused. Requests made before the loop got to them add up.
+   * @param _gameSeconds the game time to skip in seconds. Must be positive.
+   */
+  public void warp(final long _gameSeconds)
+  {
+    if (_gameSeconds <= 0) {
+      throw new IllegalArgumentException("Game time to warp must be positive. "
+              + "Was " + _gameSeconds);
+    }
+    this.pendingWarp.addAndGet(_gameSeconds);
+  }
+  
+  /**
+   * Limits the number of frames painted per second independently of the 
+   * number of game updates.
+   * @param _framesPerSecond the maximum number of frames per second. Must be
+   * positive.
+   */
+  public void setFrameRateCap(final int _framesPerSecond)
+  {
+    if (_framesPerSecond <= 0) {
+      throw new IllegalArgumentException("Frame rate cap must be positive. Was " 
+              + _framesPerSecond);
+    }
+    this.frameLength = 1000000000L/_framesPerSecond;
+  }
+  
+  /**
+   * The maximum number of frames painted per second.
+   * @return the frame rate cap
+   */
+  public int getFrameRateCap()
+  {
+    return (int) (1000000000L/this.frameLength);
+  }
+  
+  /**
+   * How late the game loop woke up for the last update.
+   * @return the jitter in ns
+   */
+  public long getLastTickJitter()
+  {
+    return this.scheduler.getLastJitter();
+  }
+  
+  /**
+   * The mean delay between the scheduled and the actual start of an update.
+   * @return the jitter in ns
+   */
+  public long getAverageTickJitter()
+  {
+    return this.scheduler.getAverageJitter();
+  }
+  
+  /**
+   * The longest delay between the scheduled and the actual start of an update.
+   * @return the jitter in ns
+   */
+  public long getMaximumTickJitter()
+  {
+    return this.scheduler.getMaximumJitter();
+  }
+  
   //--------------- PROTECTED ---------------
 
   //------------- PACKAGE PRIVATE -----------
@@ -81,40 +201,41 @@ public class GameLoop implements Runnable
     this.game = _game;
     this.canvas = _canvas;
     this.gameSpeed = GameSpeed.FASTEST;
+    this.pendingWarp = new AtomicLong();
+    this.scheduler = new TickScheduler();
+    this.setFrameRateCap(DEFAULT_FRAME_RATE_CAP);
   }
 
   //---------------- PRIVATE ----------------
-  private enum GameSpeed
-  {
-    NORMAL  (30, 60*60*24/30),
-    FASTER  (30, 60*60*24/15),
-    FASTEST (30, 60*60*24/7);
-    
-    GameSpeed(final int _ticksPerSecond, final int _gameTimePerTick)
-    {
-      this.ticksPerSecond = _ticksPerSecond;
-      this.gameTimePerTick = _gameTimePerTick;
-      this.maxFrameskip = this.ticksPerSecond/5;
-      this.skipTicks = 1000000000L/this.ticksPerSecond;
-    }
-    
-    /** No of game updates per second */
-    final int ticksPerSecond;
-    /** No of passed seconds in-game per update */
-    final int gameTimePerTick;
-    /** Length of one game update cycle */
-    final long skipTicks;
-    /** Number of skipped frames */
-    final int maxFrameskip;
-  }
-          
+  private static final int DEFAULT_FRAME_RATE_CAP = 60;
+  
   private final Game game;
   private final Component canvas;
-  private final GameSpeed gameSpeed;
+  private volatile GameSpeed gameSpeed;
+  /** Game time in seconds to skip before the next update */
+  private final AtomicLong pendingWarp;
+  private final TickScheduler scheduler;
+  /** Minimum time between two frames in ns */
+  private volatile long frameLength;
   
   private long now()
   {
     return System.nanoTime();
   }
+  
+  /**
+   * Calculates how far the current time lies between the last and the next 
+   * update.
+   * @return a value between 0 and 1
+   */
+  private float interpolation(final long _now, final long _nextTick, final GameSpeed _speed)
+  {
+    if (this.game.isPaused()) {
+      return 1.0f;
+    }
+    final long lastTick = _nextTick - _speed.skipTicks;
+    final float result = (_now - lastTick) / (float) _speed.skipTicks;
+    return Math.max(0.0f, Math.min(1.0f, result));
+  }
 
 }
@@ -0,0 +1,84 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2011 Simon Hardijanto
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.projectthaleia.game;
+
+/**
+ * The speeds the {@link GameLoop} can run a game at. Every speed updates the 
+ * game at the same rate but lets a different amount of game time pass per 
+ * update.
+ * @author Simon Hardijanto
+ */
+public enum GameSpeed
+{
+  NORMAL  (30, 60*60*24/30),
+  FASTER  (30, 60*60*24/15),
+  FASTEST (30, 60*60*24/7);
+
+  /**
+   * The number of game updates per real second.
+   * @return the number of updates. Is always positive.
+   */
+  public int getTicksPerSecond()
+  {
+    return this.ticksPerSecond;
+  }
+
+  /**
+   * The amount of game time that passes with each update.
+   * @return the time in game seconds. Is always positive.
+   */
+  public int getGameTimePerTick()
+  {
+    return this.gameTimePerTick;
+  }
+
+  /**
+   * The amount of game time that passes per real second.
+   * @return the time in game seconds
+   */
+  public long getGameTimePerSecond()
+  {
+    return (long) this.ticksPerSecond * this.gameTimePerTick;
+  }
+
+  //------------- PACKAGE PRIVATE -----------
+  /** Length of one game update cycle in ns */
+  final long skipTicks;
+  /** Maximum number of updates in a row without painting */
+  final int maxFrameskip;
+
+  //---------------- PRIVATE ----------------
+  /** No of game updates per second */
+  private final int ticksPerSecond;
+  /** No of passed seconds in-game per update */
+  private final int gameTimePerTick;
+
+  private GameSpeed(final int _ticksPerSecond, final int _gameTimePerTick)
+  {
+    this.ticksPerSecond = _ticksPerSecond;
+    this.gameTimePerTick = _gameTimePerTick;
+    this.maxFrameskip = this.ticksPerSecond/5;
+    this.skipTicks = 1000000000L/this.ticksPerSecond;
+  }
+}
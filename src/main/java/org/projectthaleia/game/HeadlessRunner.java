@@ -0,0 +1,136 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2011 Simon Hardijanto
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.projectthaleia.game;
+
+/**
+ * Advances a {@link Game} as fast as possible without a display. In contrast
+ * to the {@link GameLoop} it neither paints nor waits between updates. Used
+ * for long running simulations and benchmarks.
+ * @author Simon Hardijanto
+ */
+public class HeadlessRunner
+{
+  /**
+   * Advances the game by a fixed amount of game time.
+   * @param _game the game to simulate
+   * @param _gameDays the number of standard days to simulate. Must not be 
+   * negative.
+   * @return the measured throughput
+   */
+  public SimulationReport runFor(final Game _game, final long _gameDays)
+  {
+    if (_game == null) {
+      throw new NullPointerException("Cannot simulate null game.");
+    }
+    if (_gameDays < 0) {
+      throw new IllegalArgumentException("Number of game days to simulate must "
+              + "not be negative. Was " + _gameDays);
+    }
+    
+    final long gameSeconds = _gameDays * SECONDS_PER_DAY;
+    long simulated = 0;
+    long ticks = 0;
+    final long start = System.nanoTime();
+    
+    while (simulated < gameSeconds && _game.isRunning()) {
+      final long delta = Math.min(this.delta, gameSeconds - simulated);
+      _game.update(delta);
+      simulated += delta;
+      ++ticks;
+    }
+    
+    return new SimulationReport(ticks, simulated, System.nanoTime() - start,
+                                _game.getStateHash());
+  }
+  
+  /**
+   * Advances the game as fast as possible for a fixed amount of real time.
+   * @param _game the game to simulate
+   * @param _wallNanos the real time in ns. Must not be negative.
+   * @return the measured throughput
+   */
+  public SimulationReport runUntil(final Game _game, final long _wallNanos)
+  {
+    if (_game == null) {
+      throw new NullPointerException("Cannot simulate null game.");
+    }
+    if (_wallNanos < 0) {
+      throw new IllegalArgumentException("Real time to simulate must not be "
+              + "negative. Was " + _wallNanos);
+    }
+    
+    long simulated = 0;
+    long ticks = 0;
+    final long start = System.nanoTime();
+    final long end = start + _wallNanos;
+    long now = start;
+    
+    while (now - end < 0 && _game.isRunning()) {
+      _game.update(this.delta);
+      simulated += this.delta;
+      ++ticks;
+      
+      // reading the clock is not free, so check only every few ticks
+      if ((ticks & CLOCK_CHECK_MASK) == 0) {
+        now = System.nanoTime();
+      }
+    }
+    
+    return new SimulationReport(ticks, simulated, System.nanoTime() - start,
+                                _game.getStateHash());
+  }
+  
+  /**
+   * The amount of game time simulated per update.
+   * @return the time in game seconds
+   */
+  public long getDelta()
+  {
+    return this.delta;
+  }
+  
+  /**
+   * Creates a new runner.
+   * @param _delta the amount of game time in seconds per update. Must be 
+   * positive.
+   */
+  public HeadlessRunner(final long _delta)
+  {
+    if (_delta <= 0) {
+      throw new IllegalArgumentException("Game time per update must be "
+              + "positive. Was " + _delta);
+    }
+    this.delta = _delta;
+  }
+  
+  //--------------- PROTECTED ---------------
+
+  //------------- PACKAGE PRIVATE -----------
+
+  //---------------- PRIVATE ----------------
+  private static final long SECONDS_PER_DAY = 60*60*24;
+  private static final long CLOCK_CHECK_MASK = 0xFF;
+  
+  private final long delta;
+}
@@ -0,0 +1,122 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2011 Simon Hardijanto
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.projectthaleia.game;
+
+import org.projectthaleia.core.Immutable;
+
+/**
+ * Result of a simulation run without graphics.
+ * @author Simon Hardijanto
+ */
+@Immutable
+public final class SimulationReport
+{
+  /**
+   * The number of game updates.
+   * @return the number of updates
+   */
+  public long getTicks()
+  {
+    return this.ticks;
+  }
+  
+  /**
+   * The amount of simulated game time.
+   * @return the game time in seconds
+   */
+  public long getGameSeconds()
+  {
+    return this.gameSeconds;
+  }
+  
+  /**
+   * The amount of real time the simulation took.
+   * @return the real time in ns
+   */
+  public long getWallNanos()
+  {
+    return this.wallNanos;
+  }
+  
+  /**
+   * The hash of the simulation state at the end of the run. Runs of games 
+   * generated from the same seed with the same delta end with the same hash.
+   * @return the hash
+   * @see Game#getStateHash()
+   */
+  public long getStateHash()
+  {
+    return this.stateHash;
+  }
+  
+  /**
+   * The amount of simulated game time.
+   * @return the game time in standard days
+   */
+  public double getGameDays()
+  {
+    return this.gameSeconds / (double) SECONDS_PER_DAY;
+  }
+  
+  /**
+   * The throughput of the simulation.
+   * @return the simulated game days per real second
+   */
+  public double getGameDaysPerSecond()
+  {
+    if (this.wallNanos == 0) {
+      return 0;
+    }
+    return this.getGameDays() / (this.wallNanos / 1e9);
+  }
+  
+  @Override
+  public String toString()
+  {
+    return String.format("%d ticks, %.1f game days in %.3f s (%.1f game days/s), "
+            + "state hash %016x",
+            this.ticks, this.getGameDays(), this.wallNanos / 1e9, 
+            this.getGameDaysPerSecond(), this.stateHash);
+  }
+  
+  //--------------- PROTECTED ---------------
+
+  //------------- PACKAGE PRIVATE -----------
+  SimulationReport(final long _ticks, final long _gameSeconds, final long _wallNanos,
+                   final long _stateHash)
+  {
+    this.ticks = _ticks;
+    this.gameSeconds = _gameSeconds;
+    this.wallNanos = _wallNanos;
+    this.stateHash = _stateHash;
+  }
+
+  //---------------- PRIVATE ----------------
+  private static final long SECONDS_PER_DAY = 60*60*24;
+  
+  private final long ticks;
+  private final long gameSeconds;
+  private final long wallNanos;
+  private final long stateHash;
+}
@@ -0,0 +1,166 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2011 Simon Hardijanto
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.projectthaleia.game;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Paces the {@link GameLoop}. Instead of burning a core in a busy loop the 
+ * waiting thread is parked until shortly before the deadline. Only the last
+ * stretch is spent spinning to make up for the coarse wake-up granularity of
+ * the operating system's scheduler.
+ * <p>
+ * The scheduler measures the jitter of every wait, i.e. how late the thread 
+ * actually returned compared to the requested deadline.
+ * </p>
+ * @author Simon Hardijanto
+ */
+class TickScheduler
+{
+  //------------- PACKAGE PRIVATE -----------
+  /** Remaining time in ns below which the thread spins instead of parking */
+  static final long DEFAULT_SPIN_WINDOW = 1000000L;
+  
+  TickScheduler()
+  {
+    this(DEFAULT_SPIN_WINDOW);
+  }
+  
+  TickScheduler(final long _spinWindow)
+  {
+    if (_spinWindow < 0) {
+      throw new IllegalArgumentException("Spin window must not be negative. Was "
+              + _spinWindow);
+    }
+    this.spinWindow = _spinWindow;
+  }
+  
+  /**
+   * Blocks the calling thread until the given point in time. Returns at once 
+   * if the deadline has already passed.
+   * <p>
+   * An interrupt is taken as the request to stop waiting for good. The 
+   * interrupted status is cleared as usual when the exception is thrown, 
+   * otherwise every later park would return at once and the caller would 
+   * spin instead of being paced.
+   * </p>
+   * @param _deadline the deadline as returned by {@link System#nanoTime()}
+   * @throws InterruptedException if the thread is interrupted before or while
+   * waiting
+   */
+  void waitUntil(final long _deadline) throws InterruptedException
+  {
+    checkInterrupted();
+    long remaining = _deadline - System.nanoTime();
+    if (remaining <= 0) {
+      return;
+    }
+    
+    // park most of the time. parkNanos may return early, so check again.
+    while (remaining > this.spinWindow) {
+      LockSupport.parkNanos(remaining - this.spinWindow);
+      checkInterrupted();
+      remaining = _deadline - System.nanoTime();
+    }
+    
+    // spin for the rest
+    while (remaining > 0) {
+      Thread.yield();
+      checkInterrupted();
+      remaining = _deadline - System.nanoTime();
+    }
+    
+    this.recordJitter(-remaining);
+  }
+  
+  /**
+   * How late the last wait returned.
+   * @return the jitter in ns. Is never negative.
+   */
+  long getLastJitter()
+  {
+    return this.lastJitter;
+  }
+  
+  /**
+   * The highest jitter measured so far.
+   * @return the jitter in ns. Is never negative.
+   */
+  long getMaximumJitter()
+  {
+    return this.maximumJitter;
+  }
+  
+  /**
+   * The mean jitter of all waits so far.
+   * @return the jitter in ns or 0 if the scheduler has never waited
+   */
+  long getAverageJitter()
+  {
+    final long waits = this.waitCount;
+    if (waits == 0) {
+      return 0;
+    }
+    return this.totalJitter / waits;
+  }
+  
+  /**
+   * The number of waits that actually had to block.
+   * @return the number of waits
+   */
+  long getWaitCount()
+  {
+    return this.waitCount;
+  }
+  
+  //---------------- PRIVATE ----------------
+  private final long spinWindow;
+  
+  // written by the game loop thread only, read by anyone
+  private volatile long lastJitter;
+  private volatile long maximumJitter;
+  private volatile long totalJitter;
+  private volatile long waitCount;
+  
+  /**
+   * Clears the interrupted status of the calling thread.
+   * @throws InterruptedException if it was set
+   */
+  private static void checkInterrupted() throws InterruptedException
+  {
+    if (Thread.interrupted()) {
+      throw new InterruptedException("Interrupted while waiting for the next tick.");
+    }
+  }
+  
+  private void recordJitter(final long _jitter)
+  {
+    this.lastJitter = _jitter;
+    if (_jitter > this.maximumJitter) {
+      this.maximumJitter = _jitter;
+    }
+    this.totalJitter += _jitter;
+    this.waitCount++;
+  }
+}
@@ -27,6 +27,7 @@ import com.google.inject.Inject;
 import com.google.inject.assistedinject.Assisted;
 import java.awt.event.WindowEvent;
 import java.awt.event.WindowListener;
+import org.projectthaleia.core.TickProfiler;
 import org.projectthaleia.game.Game;
 import org.projectthaleia.universe.graphics.StarSystemGraphic;
 import org.projectthaleia.universe.graphics.SystemGraphicsLibrary;
@@ -80,11 +81,29 @@ public class GameGraphics implements WindowListener
     return this.currentStarSystemGraphic;
   }
   
+  /**
+   * How far the display is between the last and the current update.
+   * @return a value between 0 and 1
+   */
+  public float getInterpolation()
+  {
+    return this.game.getInterpolation();
+  }
+  
   public Game getGame()
   {
     return this.game;
   }
   
+  /**
+   * Measures how long updates and painting take.
+   * @return the profiler of the game
+   */
+  public TickProfiler getProfiler()
+  {
+    return this.game.getProfiler();
+  }
+  
   //------------- PACKAGE PRIVATE -----------
   @Inject
   GameGraphics(@Assisted final Game _game, final SystemGraphicsLibrary _sysGraphicsLibrary)
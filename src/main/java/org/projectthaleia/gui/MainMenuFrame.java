@@ -25,20 +25,14 @@ package org.projectthaleia.gui;
 
 import com.google.inject.Inject;
 import java.awt.event.WindowEvent;
-import org.projectthaleia.factions.Empire;
-import org.projectthaleia.factions.EmpireFactory;
-import org.projectthaleia.factions.Species;
-import org.projectthaleia.factions.SpeciesFactory;
 import org.projectthaleia.game.Game;
-import org.projectthaleia.game.GameFactory;
+import org.projectthaleia.game.GameGenerator;
 import org.projectthaleia.game.GameLoop;
 import org.projectthaleia.game.GameLoopFactory;
 import org.projectthaleia.game.graphics.GameFrame;
 import org.projectthaleia.game.graphics.GameFrameFactory;
 import org.projectthaleia.game.graphics.GameGraphics;
 import org.projectthaleia.game.graphics.GameGraphicsFactory;
-import org.projectthaleia.spaceprobes.SpaceProbeGroup;
-import org.projectthaleia.universe.StarSystem;
 
 /**
  *
@@ -48,19 +42,15 @@ public class MainMenuFrame extends javax.swing.JFrame
 {
   /** Creates new form MainFrame */
   @Inject
-  public MainMenuFrame( final GameFactory _gameFactory,
+  public MainMenuFrame( final GameGenerator _gameGenerator,
                         final GameGraphicsFactory _gameGraphicsFactory,
                         final GameFrameFactory _gameFrameFactory,
-                        final GameLoopFactory _gameLoopFactory,
-                        final EmpireFactory _empireFactory,
-                        final SpeciesFactory _speciesFactory)
+                        final GameLoopFactory _gameLoopFactory)
   {
-    this.gameFactory = _gameFactory;
+    this.gameGenerator = _gameGenerator;
     this.gameGraphicsFactory = _gameGraphicsFactory;
     this.gameFrameFactory = _gameFrameFactory;
     this.gameLoopFactory = _gameLoopFactory;
-    this.empireFactory = _empireFactory;
-    this.speciesFactory = _speciesFactory;
     this.initComponents();
   }
 
@@ -156,20 +146,14 @@ public class MainMenuFrame extends javax.swing.JFrame
     private javax.swing.JButton quitGameBtn;
     // End of variables declaration//GEN-END:variables
 
-  private final GameFactory gameFactory;
+  private final GameGenerator gameGenerator;
   private final GameGraphicsFactory gameGraphicsFactory;
   private final GameLoopFactory gameLoopFactory;
   private final GameFrameFactory gameFrameFactory;
-  private final EmpireFactory empireFactory;
-  private final SpeciesFactory speciesFactory;
 
   private void newGame()
   {
-    final Species mainSpecies = this.speciesFactory.create();
-    final StarSystem homeSystem = StarSystem.generateStarSystem();
-    homeSystem.addSpaceProbeGroup(SpaceProbeGroup.generateSpaceProbeGroup());
-    final Empire empire = this.empireFactory.create(mainSpecies, homeSystem);
-    final Game game = this.gameFactory.newGame(empire);
+    final Game game = this.gameGenerator.generateGame();
     final GameGraphics gameGraphics = this.gameGraphicsFactory.create(game);
     final GameFrame gameFrame = this.gameFrameFactory.create(gameGraphics);
     final GameLoop gameLoop = this.gameLoopFactory.create(game, gameFrame.getUniversePanel());
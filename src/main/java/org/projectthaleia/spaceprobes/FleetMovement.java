@@ -0,0 +1,365 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2011 Simon Hardijanto
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.projectthaleia.spaceprobes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Moves all space probe groups that are on their way to a waypoint, side by 
+ * side in primitive arrays like the orbits of an 
+ * {@link org.projectthaleia.universe.planet.OrbitStore}. A tick is one pass 
+ * over a few arrays, split into chunks that are moved in parallel, instead 
+ * of a call on every group of every star system.
+ * <p>
+ * Groups are {@link #attach(SpaceProbeGroup) attached} to the movement, 
+ * usually by the star system they are in. An attached group only takes a 
+ * slot while it has a speed and a waypoint to go to, so stopped groups cost 
+ * nothing per tick. The slot holds the position, the speed and the current 
+ * leg of the course. The group reads its position from the slot when asked 
+ * for it and is only called by the movement when it reaches a waypoint and 
+ * has to pick the next one or stop.
+ * </p>
+ * <p>
+ * Each slot is moved the same way a group moves itself, and waypoints are 
+ * handled in the order of the slots on the calling thread, so parallel and 
+ * serial ticks give identical results.
+ * </p>
+ * <p>
+ * Not thread safe. Only the thread that updates the star systems may attach, 
+ * detach, update and change the course of attached groups.
+ * </p>
+ * @author Simon Hardijanto
+ */
+public class FleetMovement
+{
+  /**
+   * Creates a movement without any groups.
+   * @param _pool the threads to move the groups with in parallel. Must not be
+   * null.
+   */
+  public FleetMovement(final ForkJoinPool _pool)
+  {
+    if (_pool == null) {
+      throw new NullPointerException("Fleet movement needs a thread pool for parallel updates.");
+    }
+    
+    this.pool = _pool;
+    this.groups = new SpaceProbeGroup[INITIAL_CAPACITY];
+    this.x = new double[INITIAL_CAPACITY];
+    this.y = new double[INITIAL_CAPACITY];
+    this.previousX = new double[INITIAL_CAPACITY];
+    this.previousY = new double[INITIAL_CAPACITY];
+    this.headingX = new double[INITIAL_CAPACITY];
+    this.headingY = new double[INITIAL_CAPACITY];
+    this.legDistanceLeft = new double[INITIAL_CAPACITY];
+    this.speed = new double[INITIAL_CAPACITY];
+    this.hasArrived = new boolean[INITIAL_CAPACITY];
+    this.arrivals = new ArrayList<SpaceProbeGroup>();
+    this.isParallel = true;
+  }
+  
+  /**
+   * Lets the movement move a group from now on. The group takes a slot as 
+   * soon as it is under way.
+   * @param _group the group. Must not be attached to another movement.
+   */
+  public void attach(final SpaceProbeGroup _group)
+  {
+    if (_group == null) {
+      throw new NullPointerException("Cannot attach null to " + this);
+    }
+    _group.attachTo(this);
+  }
+  
+  /**
+   * Hands a group back, it moves itself again on its 
+   * {@link SpaceProbeGroup#update(long) updates}.
+   * @param _group the group. Must be attached to this movement.
+   */
+  public void detach(final SpaceProbeGroup _group)
+  {
+    if (_group == null) {
+      throw new NullPointerException("Cannot detach null from " + this);
+    }
+    _group.detachFrom(this);
+  }
+  
+  /**
+   * Moves all groups that are under way a certain step in time. Uses 
+   * several threads if parallel updates are enabled and there are enough 
+   * groups. Attached groups skip moving on their own updates of the same 
+   * tick.
+   * @param _delta the number of seconds (game time) passed since the last update
+   */
+  public void update(final long _delta)
+  {
+    ++this.tick;
+    if (this.isParallel && this.size > CHUNK_SIZE) {
+      this.pool.invoke(new MoveTask(this, 0, this.size, _delta));
+    } else {
+      this.move(0, this.size, _delta);
+    }
+    
+    // collected first, the slots change while the groups pick their next leg
+    for (int i = 0; i < this.size; ++i) {
+      if (this.hasArrived[i]) {
+        this.hasArrived[i] = false;
+        this.arrivals.add(this.groups[i]);
+      }
+    }
+    for (SpaceProbeGroup group : this.arrivals) {
+      group.reachWaypoint(_delta);
+    }
+    this.arrivals.clear();
+  }
+  
+  /**
+   * The number of groups that are under way and take a slot.
+   * @return the number of groups. Is never negative.
+   */
+  public int getMovingCount()
+  {
+    return this.size;
+  }
+  
+  /**
+   * Are the groups moved in parallel?
+   * @return <strong>true</strong> if updates may use several threads
+   */
+  public boolean isParallel()
+  {
+    return this.isParallel;
+  }
+  
+  /**
+   * Enables or disables parallel updates.
+   * @param _isParallel <strong>false</strong> to move all groups on the 
+   * calling thread
+   */
+  public void setParallel(final boolean _isParallel)
+  {
+    this.isParallel = _isParallel;
+  }
+  
+  //------------ PACKAGE PRIVATE ------------
+  /**
+   * The number of updates so far. Tells the groups whether their slot moved 
+   * since they last looked at it.
+   */
+  long getTick()
+  {
+    return this.tick;
+  }
+  
+  /**
+   * Gives a group a slot. The slot has to be filled with 
+   * {@link #store(int, double, double, double, double, double, double, double, int)}
+   * before the next update.
+   * @return the index of the slot
+   */
+  int add(final SpaceProbeGroup _group)
+  {
+    if (this.size == this.groups.length) {
+      this.grow();
+    }
+    this.groups[this.size] = _group;
+    return this.size++;
+  }
+  
+  /**
+   * Frees a slot. The group of the last slot takes its place.
+   */
+  void remove(final int _slot)
+  {
+    final int last = this.size - 1;
+    if (_slot != last) {
+      this.groups[_slot] = this.groups[last];
+      this.x[_slot] = this.x[last];
+      this.y[_slot] = this.y[last];
+      this.previousX[_slot] = this.previousX[last];
+      this.previousY[_slot] = this.previousY[last];
+      this.headingX[_slot] = this.headingX[last];
+      this.headingY[_slot] = this.headingY[last];
+      this.legDistanceLeft[_slot] = this.legDistanceLeft[last];
+      this.speed[_slot] = this.speed[last];
+      this.hasArrived[_slot] = this.hasArrived[last];
+      this.groups[_slot].moveToSlot(_slot);
+    }
+    this.groups[last] = null;
+    this.hasArrived[last] = false;
+    this.size = last;
+  }
+  
+  /**
+   * Fills a slot with the state of its group.
+   * @param _speed unit: m/s
+   */
+  void store(final int _slot, final double _x, final double _y, 
+             final double _previousX, final double _previousY, 
+             final double _headingX, final double _headingY, 
+             final double _legDistanceLeft, final int _speed)
+  {
+    this.x[_slot] = _x;
+    this.y[_slot] = _y;
+    this.previousX[_slot] = _previousX;
+    this.previousY[_slot] = _previousY;
+    this.headingX[_slot] = _headingX;
+    this.headingY[_slot] = _headingY;
+    this.legDistanceLeft[_slot] = _legDistanceLeft;
+    this.speed[_slot] = _speed;
+  }
+  
+  double getX(final int _slot)
+  {
+    return this.x[_slot];
+  }
+  
+  double getY(final int _slot)
+  {
+    return this.y[_slot];
+  }
+  
+  double getPreviousX(final int _slot)
+  {
+    return this.previousX[_slot];
+  }
+  
+  double getPreviousY(final int _slot)
+  {
+    return this.previousY[_slot];
+  }
+  
+  double getLegDistanceLeft(final int _slot)
+  {
+    return this.legDistanceLeft[_slot];
+  }
+  
+  //---------------- PRIVATE ----------------
+  private static final int INITIAL_CAPACITY = 64;
+  /** Number of slots up to which a single thread moves the groups */
+  private static final int CHUNK_SIZE = 4096;
+  
+  private final ForkJoinPool pool;
+  /** The owners of the slots */
+  private SpaceProbeGroup[] groups;
+  /** Unit of all distances: km */
+  private double[] x;
+  private double[] y;
+  private double[] previousX;
+  private double[] previousY;
+  /** The direction to the waypoint, normalized to a length of 1 */
+  private double[] headingX;
+  private double[] headingY;
+  private double[] legDistanceLeft;
+  /** Unit: m/s */
+  private double[] speed;
+  /** Marks the groups that reach their waypoint during the update */
+  private boolean[] hasArrived;
+  private int size;
+  /** Reused by every update */
+  private final List<SpaceProbeGroup> arrivals;
+  private long tick;
+  private volatile boolean isParallel;
+  
+  /**
+   * Moves the slots of a chunk towards their waypoints. Groups that would 
+   * reach theirs are left where they are and marked, they pick the next leg 
+   * themselves. Only touches the slots of the chunk.
+   */
+  private void move(final int _from, final int _to, final long _delta)
+  {
+    final double[] xs = this.x;
+    final double[] ys = this.y;
+    final double[] legs = this.legDistanceLeft;
+    for (int i = _from; i < _to; ++i) {
+      this.previousX[i] = xs[i];
+      this.previousY[i] = ys[i];
+      // distance in km, calculated exactly like SpaceProbeGroup does
+      final double distance = _delta * this.speed[i] / 1000;
+      if (legs[i] > distance) {
+        xs[i] += this.headingX[i] * distance;
+        ys[i] += this.headingY[i] * distance;
+        legs[i] -= distance;
+      } else {
+        this.hasArrived[i] = true;
+      }
+    }
+  }
+  
+  private void grow()
+  {
+    final int capacity = 2 * this.groups.length;
+    this.groups = Arrays.copyOf(this.groups, capacity);
+    this.x = Arrays.copyOf(this.x, capacity);
+    this.y = Arrays.copyOf(this.y, capacity);
+    this.previousX = Arrays.copyOf(this.previousX, capacity);
+    this.previousY = Arrays.copyOf(this.previousY, capacity);
+    this.headingX = Arrays.copyOf(this.headingX, capacity);
+    this.headingY = Arrays.copyOf(this.headingY, capacity);
+    this.legDistanceLeft = Arrays.copyOf(this.legDistanceLeft, capacity);
+    this.speed = Arrays.copyOf(this.speed, capacity);
+    this.hasArrived = Arrays.copyOf(this.hasArrived, capacity);
+  }
+  
+  /**
+   * Splits the slots in halves until they are small enough to be moved 
+   * serially.
+   */
+  private static class MoveTask extends RecursiveAction
+  {
+    MoveTask(final FleetMovement _movement, final int _from, final int _to, 
+             final long _delta)
+    {
+      this.movement = _movement;
+      this.from = _from;
+      this.to = _to;
+      this.delta = _delta;
+    }
+    
+    @Override
+    protected void compute()
+    {
+      if (this.to - this.from <= CHUNK_SIZE) {
+        this.movement.move(this.from, this.to, this.delta);
+        return;
+      }
+      
+      final int middle = (this.from + this.to) >>> 1;
+      invokeAll(new MoveTask(this.movement, this.from, middle, this.delta),
+                new MoveTask(this.movement, middle, this.to, this.delta));
+    }
+    
+    private static final long serialVersionUID = 1L;
+    
+    private final FleetMovement movement;
+    private final int from;
+    private final int to;
+    private final long delta;
+  }
+}
@@ -24,15 +24,70 @@
 
 package org.projectthaleia.spaceprobes;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import org.projectthaleia.core.Immutable;
 
 /**
- * 
+ * A design of space probes. Designs are registered by name and shared by 
+ * all probes and groups built after them, so there is only one object per 
+ * design and designs can be compared by identity. The registry belongs to 
+ * the current game and is cleared with {@link #clearRegistry()} when a new 
+ * game is created.
  * @author Simon Hardijanto
  */
 @Immutable
 public final class ProbeClass
 {
+  /**
+   * The registered design of a name. Registers the design the first time 
+   * the name is used.
+   * @param _name the name of the design. Must not be empty.
+   * @param _size the size of the design
+   * @param _speed the maximum speed in m/s. Must not be negative.
+   * @return the design. Always the same object for the same name.
+   * @throws IllegalArgumentException if a design of that name with other 
+   * values has been registered before
+   */
+  public static ProbeClass valueOf(final String _name, final int _size, final int _speed)
+  {
+    if (_name == null) {
+      throw new NullPointerException("Name of a probe class must not be null.");
+    }
+    if (_name.trim().isEmpty()) {
+      throw new IllegalArgumentException("Name of a probe class must not be empty.");
+    }
+    if (_speed < 0) {
+      throw new IllegalArgumentException("Speed of probe class " + _name 
+              + " must not be negative. Was " + _speed);
+    }
+    
+    ProbeClass result = REGISTRY.get(_name);
+    if (result == null) {
+      final ProbeClass design = new ProbeClass(_name, _size, _speed);
+      result = REGISTRY.putIfAbsent(_name, design);
+      if (result == null) {
+        return design;
+      }
+    }
+    if (result.size != _size || result.speed != _speed) {
+      throw new IllegalArgumentException("Probe class " + _name 
+              + " is already registered with size " + result.size 
+              + " and speed " + result.speed);
+    }
+    return result;
+  }
+  
+  /**
+   * Forgets all registered designs, so the designs of one game do not leak 
+   * into the next. Designs registered before stay valid for the probes built 
+   * after them, but a name registered again afterwards gets a new object 
+   * with possibly other values.
+   */
+  public static void clearRegistry()
+  {
+    REGISTRY.clear();
+  }
 
   /** 
    * The name of this ship class.
@@ -63,25 +118,29 @@ public final class ProbeClass
   
   public static ProbeClass generateProbeClass()
   {
-    final ProbeClass result = new ProbeClass("Test Cruiser", 500, 8000);
-    return result;
+    return valueOf("Test Cruiser", 500, 8000);
   }
   
   //---------------- PROTECTED ----------------
   
   //-------------- PACKAGE PRIVATE ------------
-  ProbeClass(final String _name, final int _size, final int _speed)
-  {
-    this.name = _name;
-    this.size = _size;
-    this.speed = _speed;
-  }
   
   //----------------  PRIVATE  ----------------
+  /** All designs by name */
+  private static final ConcurrentMap<String, ProbeClass> REGISTRY = 
+          new ConcurrentHashMap<String, ProbeClass>();
+  
   /** Name of the class */
   private final String name;
   /** Size of the class in an arbitrary, not clearly defined unit */
   private final int size;
   /** Speed in m/s */
   private final int speed;
+  
+  private ProbeClass(final String _name, final int _size, final int _speed)
+  {
+    this.name = _name;
+    this.size = _size;
+    this.speed = _speed;
+  }
 }
@@ -24,12 +24,16 @@
 
 package org.projectthaleia.spaceprobes;
 
-import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import org.apache.commons.math3.geometry.euclidean.twod.Vector2D;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import org.projectthaleia.core.StateHash;
 import org.projectthaleia.core.Vector;
 import org.projectthaleia.universe.Position;
 
@@ -41,6 +45,25 @@ import org.projectthaleia.universe.Position;
  * <strong>{@link org.projectthaleia.core.Vector#NOT_MOVING}</strong> and a speed 
  * of <strong>0</strong>.
  * </p>
+ * <p>
+ * A group moves itself on its updates, unless it is attached to a 
+ * {@link FleetMovement}. Then the movement moves it while it is under way 
+ * and the group only picks the next leg of its course when it reaches a 
+ * waypoint.
+ * </p>
+ * <p>
+ * The members are kept in an identity set and their speeds are counted per
+ * speed, so adding and removing a probe doesn't depend on the size of the 
+ * group. The maximum speed of a probe must not change while it is a member.
+ * </p>
+ * <p>
+ * Large fleets don't need an object per ship. Ships added with 
+ * {@link #addSpaceProbes(ProbeClass, int)} are only counted per 
+ * {@link ProbeClass}, so a group of a million ships of a few designs takes 
+ * no more memory than a group of a few ships. A counted ship becomes an 
+ * individual {@link SpaceProbe} when someone wants to look at it, see 
+ * {@link #materialize(ProbeClass)}.
+ * </p>
  * @author Simon Hardijanto
  */
 public class SpaceProbeGroup
@@ -67,22 +90,71 @@ public class SpaceProbeGroup
   }
   
   /**
-   * The current position.
+   * The current position, rounded to whole km. The group itself moves by 
+   * fractions of a km.
    * @return is never null.
    */
   public Position getPosition()
   {
+    this.pullMovement();
+    if (this.position == null) {
+      this.position = new Position(Math.round(this.x), Math.round(this.y));
+    }
     return this.position;
   }
   
   /**
-   * Sets a new position.
+   * The position before the last update.
+   * @return is never null.
+   */
+  public Position getPreviousPosition()
+  {
+    if (!this.hasMoved()) {
+      return this.getPosition();
+    }
+    if (this.previousPosition == null) {
+      this.previousPosition = new Position(Math.round(this.previousX), Math.round(this.previousY));
+    }
+    return this.previousPosition;
+  }
+  
+  /**
+   * Did the group move during the last update?
+   * @return <strong>true</strong> if the position differs from the previous
+   * one
+   */
+  public boolean hasMoved()
+  {
+    this.pullMovement();
+    return this.x != this.previousX || this.y != this.previousY;
+  }
+  
+  /**
+   * The position somewhere between the last and the current update. Used to 
+   * draw smooth movement at a frame rate higher than the update rate.
+   * @param _interpolation 0 for the position at the last update, 1 for the 
+   * current position
+   * @return is never null.
+   */
+  public Position getInterpolatedPosition(final float _interpolation)
+  {
+    if (!this.hasMoved()) {
+      return this.getPosition();
+    }
+    return new Position(
+            Math.round(this.previousX + (this.x - this.previousX) * _interpolation),
+            Math.round(this.previousY + (this.y - this.previousY) * _interpolation));
+  }
+  
+  /**
+   * Sets a new position. The group jumps there without being interpolated.
    * @param _position Must not be null.
    */
   public void setPosition(final Position _position)
   {
-    this.position = _position;
-    validate();
+    this.pullMovement();
+    this.jumpTo(_position);
+    this.pushMovement();
   }
   
   /**
@@ -101,8 +173,10 @@ public class SpaceProbeGroup
    */
   public void setDirection(final Vector _direction)
   {
+    final boolean wasStopped = this.isStopped();
     this.direction = _direction;
     validate();
+    this.notifyIfStarted(wasStopped);
   }
   
   /**
@@ -116,19 +190,57 @@ public class SpaceProbeGroup
       throw new IllegalArgumentException("Waypoint to add must not be null.");
     }
     
-    if (!this.waypoints.isEmpty() && 
-          newWaypoint.equals(this.waypoints.get(this.waypoints.size()-1))) {
+    final int last = this.waypoints.size() - 1;
+    if (last >= 0 && newWaypoint.x == this.waypoints.getX(last) 
+            && newWaypoint.y == this.waypoints.getY(last)) {
       return;
     }
     
-    this.waypoints.add(newWaypoint);
+    this.pullMovement();
+    this.waypoints.add(newWaypoint.x, newWaypoint.y);
+    this.pushMovement();
   }
 
   /**
-   * @return the list of waypoints. May be the empty list.
+   * The waypoints still to go to, the next one first. The positions are 
+   * created when asked for.
+   * @return an unmodifiable view of the waypoints that follows all changes. 
+   * May be empty.
    */
   public List<Position> getWaypoints() {
-    return this.waypoints;
+    return this.waypoints.asList();
+  }
+  
+  /**
+   * Removes all waypoints. A moving group stops on its next update.
+   */
+  public void clearWaypoints()
+  {
+    this.pullMovement();
+    this.waypoints.clear();
+    this.isOnLeg = false;
+    this.pushMovement();
+  }
+  
+  /**
+   * Is the group patrolling along its waypoints?
+   * @return <strong>true</strong> if reached waypoints are visited again
+   */
+  public boolean isPatrolling()
+  {
+    return this.waypoints.isCyclic();
+  }
+  
+  /**
+   * Lets the group patrol along its waypoints: a reached waypoint is added 
+   * to the end of the route again, so the group goes round in circles until
+   * told otherwise. A patrol needs at least two waypoints, the group stops 
+   * at a single one.
+   * @param _isPatrolling <strong>false</strong> to drop reached waypoints
+   */
+  public void setPatrolling(final boolean _isPatrolling)
+  {
+    this.waypoints.setCyclic(_isPatrolling);
   }
   
   /** 
@@ -147,8 +259,12 @@ public class SpaceProbeGroup
    */
   public void setCurrentSpeed(final int _speed)
   {
+    final boolean wasStopped = this.isStopped();
+    this.pullMovement();
     this.currentSpeed = _speed;
     validate();
+    this.pushMovement();
+    this.notifyIfStarted(wasStopped);
   }
 
   /**
@@ -172,6 +288,16 @@ public class SpaceProbeGroup
     this.setDirection(Vector.NOT_MOVING);
   }
   
+  /**
+   * Sets who is told when the group starts moving. A group has at most one
+   * such listener, usually the star system it is in.
+   * @param _listener the listener or <strong>null</strong> for none
+   */
+  public void setStartedListener(final ISpaceProbeGroupStartedListener _listener)
+  {
+    this.startedListener = _listener;
+  }
+  
   /**
    * Returns <strong>true</strong> if this group is stopped.
    * @return <strong>true</strong> if stopped
@@ -192,12 +318,11 @@ public class SpaceProbeGroup
       throw new NullPointerException("Can not add null to " + this.getName());
     }
     
-    if (this.spaceProbes.contains(_member)) {
+    if (!this.spaceProbes.add(_member)) {
       throw new IllegalArgumentException("Can not add the same space probe (" 
               + _member.getName() + ") twice to " + this.getName());
     }
-    this.spaceProbes.add(_member);
-    this.recalculateMaximumSpeed();
+    this.countSpeed(_member.getMaximumSpeed(), 1);
   }
   
   /**
@@ -218,7 +343,192 @@ public class SpaceProbeGroup
               + this.getName());
     }
     
-    this.recalculateMaximumSpeed();
+    this.countSpeed(_member.getMaximumSpeed(), -1);
+  }
+  
+  /**
+   * Moves all members of this group to another group, e.g. to reinforce a 
+   * fleet. This group is left empty and stopped, the other group slows down 
+   * to its new maximum speed if necessary. Takes time in proportion to
+   * the number of individual probes and designs moved, not to the size of 
+   * the other group.
+   * @param _target the group that takes the members. Must not be this group.
+   */
+  public void mergeInto(final SpaceProbeGroup _target)
+  {
+    if (_target == null) {
+      throw new NullPointerException("Can not merge " + this.getName() + " into null.");
+    }
+    if (_target == this) {
+      throw new IllegalArgumentException("Can not merge " + this.getName() + " into itself.");
+    }
+    for (SpaceProbe member : this.spaceProbes) {
+      if (_target.spaceProbes.contains(member)) {
+        throw new IllegalArgumentException("Can not merge " + this.getName() 
+                + " into " + _target.getName() + ", both contain " + member.getName());
+      }
+    }
+    
+    this.stop();
+    for (SpaceProbe member : this.spaceProbes) {
+      _target.spaceProbes.add(member);
+      member.setGroup(_target);
+    }
+    // their speeds are merged with those of the individual members below
+    for (Map.Entry<ProbeClass, Integer> counted : this.probeClassCounts.entrySet()) {
+      _target.probeClassCounts.put(counted.getKey(), 
+              _target.getCountedSpaceProbes(counted.getKey()) + counted.getValue());
+    }
+    _target.countedSpaceProbes += this.countedSpaceProbes;
+    for (Map.Entry<Integer, Integer> speed : this.speedCounts.entrySet()) {
+      _target.countSpeed(speed.getKey(), speed.getValue());
+    }
+    this.spaceProbes.clear();
+    this.probeClassCounts.clear();
+    this.countedSpaceProbes = 0;
+    this.speedCounts.clear();
+    this.maximumSpeed = 0;
+    // slower arrivals must not leave the target faster than its slowest ship
+    _target.setCurrentSpeed(Math.min(_target.getCurrentSpeed(), _target.getMaximumSpeed()));
+  }
+  
+  /**
+   * Moves some members of this group to a new group at the same position, 
+   * e.g. to send a detachment elsewhere. Takes time in proportion to the 
+   * number of moved probes, not to the size of this group.
+   * @param _name the name of the new group. Must not be empty.
+   * @param _members the probes to move. Must all be members of this group.
+   * @return the new group. Is stopped and has no waypoints.
+   */
+  public SpaceProbeGroup splitOff(final String _name, final Collection<SpaceProbe> _members)
+  {
+    final SpaceProbeGroup result = new SpaceProbeGroup(_name, this.getPosition());
+    for (SpaceProbe member : _members) {
+      if (!this.spaceProbes.contains(member)) {
+        throw new IllegalArgumentException("Can not split " + member.getName() 
+                + " off " + this.getName() + ". Not a member.");
+      }
+      if (!result.spaceProbes.add(member)) {
+        throw new IllegalArgumentException("Can not split " + member.getName() 
+                + " off " + this.getName() + " twice.");
+      }
+    }
+    
+    for (SpaceProbe member : result.spaceProbes) {
+      this.spaceProbes.remove(member);
+      final int speed = member.getMaximumSpeed();
+      this.countSpeed(speed, -1);
+      result.countSpeed(speed, 1);
+      member.setGroup(result);
+    }
+    return result;
+  }
+  
+  /**
+   * Moves some counted ships of a design to a new group at the same position.
+   * @param _name the name of the new group. Must not be empty.
+   * @param _probeClass the design
+   * @param _count the number of ships. Must be positive and not more than 
+   * the group counts of the design.
+   * @return the new group. Is stopped and has no waypoints.
+   */
+  public SpaceProbeGroup splitOff(final String _name, final ProbeClass _probeClass, 
+                                  final int _count)
+  {
+    final SpaceProbeGroup result = new SpaceProbeGroup(_name, this.getPosition());
+    this.removeSpaceProbes(_probeClass, _count);
+    result.addSpaceProbes(_probeClass, _count);
+    return result;
+  }
+  
+  /**
+   * Adds ships of a design that are only counted, see the class 
+   * documentation. Takes the same time for any number of ships.
+   * @param _probeClass the design. Must not be null.
+   * @param _count the number of ships. Must be positive.
+   */
+  public void addSpaceProbes(final ProbeClass _probeClass, final int _count)
+  {
+    if (_probeClass == null) {
+      throw new NullPointerException("Can not add ships without a class to " + this.getName());
+    }
+    if (_count <= 0) {
+      throw new IllegalArgumentException("Can only add a positive number of " 
+              + _probeClass.getName() + " ships to " + this.getName() + ". Was " + _count);
+    }
+    this.countProbeClass(_probeClass, _count);
+    this.countedSpaceProbes += _count;
+  }
+  
+  /**
+   * Removes counted ships of a design, e.g. when they are lost in battle. 
+   * Takes the same time for any number of ships. Individual ships are 
+   * removed with {@link #removeSpaceProbe(SpaceProbe)}.
+   * @param _probeClass the design. Must not be null.
+   * @param _count the number of ships. Must be positive and not more than 
+   * the group counts of the design.
+   */
+  public void removeSpaceProbes(final ProbeClass _probeClass, final int _count)
+  {
+    if (_probeClass == null) {
+      throw new NullPointerException("Can not remove ships without a class from " + this.getName());
+    }
+    final int counted = this.getCountedSpaceProbes(_probeClass);
+    if (_count <= 0 || _count > counted) {
+      throw new IllegalArgumentException("Can not remove " + _count + " " 
+              + _probeClass.getName() + " ships from " + this.getName() 
+              + ", it counts " + counted);
+    }
+    this.countProbeClass(_probeClass, -_count);
+    this.countedSpaceProbes -= _count;
+  }
+  
+  /**
+   * The number of counted ships of a design. Individual ships are not 
+   * included.
+   * @param _probeClass the design
+   * @return the number of ships. Is never negative.
+   */
+  public int getCountedSpaceProbes(final ProbeClass _probeClass)
+  {
+    final Integer result = this.probeClassCounts.get(_probeClass);
+    return result == null ? 0 : result;
+  }
+  
+  /**
+   * The designs the group counts ships of.
+   * @return an unmodifiable set of designs in the order they were first 
+   * added
+   */
+  public Set<ProbeClass> getCountedProbeClasses()
+  {
+    return Collections.unmodifiableSet(this.probeClassCounts.keySet());
+  }
+  
+  /**
+   * The number of all ships in the group, individual and counted.
+   * @return the number of ships. Is never negative.
+   */
+  public long getSpaceProbeCount()
+  {
+    return this.spaceProbes.size() + this.countedSpaceProbes;
+  }
+  
+  /**
+   * Turns a counted ship into an individual {@link SpaceProbe}, e.g. when 
+   * the player inspects it. The probe stays an individual member of the 
+   * group from now on.
+   * @param _probeClass the design. The group must count at least one ship 
+   * of it.
+   * @return the new probe
+   */
+  public SpaceProbe materialize(final ProbeClass _probeClass)
+  {
+    this.removeSpaceProbes(_probeClass, 1);
+    final SpaceProbe result = new SpaceProbe(_probeClass, 
+            _probeClass.getName() + "-" + (++this.materializedSpaceProbes), this);
+    this.addSpaceProbe(result);
+    return result;
   }
   
   public static SpaceProbeGroup generateSpaceProbeGroup()
@@ -230,11 +540,51 @@ public class SpaceProbeGroup
   }
   
   /**
-   * Updates the ships status.
+   * Creates a group of one space probe at a random position.
+   * @param _random the source of all random decisions
+   * @return the group
+   */
+  public static SpaceProbeGroup generateSpaceProbeGroup(final Random _random)
+  {
+    final Position position = new Position(_random.nextInt(401) - 200, 
+                                           _random.nextInt(401) - 200);
+    final SpaceProbeGroup result = new SpaceProbeGroup("Test Force " + (_random.nextInt(99) + 1), 
+                                                       position);
+    result.addSpaceProbe(SpaceProbe.generateSpaceProbe(result));
+    return result;
+  }
+  
+  /**
+   * Adds the state of the group to a hash of the simulation state.
+   * @param _hash the hash so far
+   * @return the new hash
+   * @see StateHash
+   */
+  public long hashState(final long _hash)
+  {
+    this.pullMovement();
+    long result = StateHash.mix(_hash, this.x);
+    result = StateHash.mix(result, this.y);
+    result = StateHash.mix(result, this.currentSpeed);
+    result = StateHash.mix(result, this.waypoints.isCyclic() ? 1 : 0);
+    return StateHash.mix(result, this.waypoints.size());
+  }
+  
+  /**
+   * Updates the ships status. A group that is moved by a 
+   * {@link FleetMovement} has already been moved during the update of the 
+   * movement.
    * 
    * @param _delta the period of passed time since the last update in in-game seconds
    */
   public void update(long _delta) {
+    if (this.movementSlot != NO_SLOT 
+            || (this.fleetMovement != null && this.movedTick == this.fleetMovement.getTick())) {
+      return;
+    }
+    this.previousX = this.x;
+    this.previousY = this.y;
+    this.previousPosition = this.position;
     updatePosition(_delta);
   }
   
@@ -244,30 +594,125 @@ public class SpaceProbeGroup
   SpaceProbeGroup(final String _name, final Position _position)
   {
     this.name = _name;
-    this.position = _position;
+    this.jumpTo(_position);
     
     this.maximumSpeed = 0;
     this.direction = Vector.NOT_MOVING;
     this.currentSpeed = 0;
-    this.spaceProbes = new ArrayList<SpaceProbe>();
+    this.spaceProbes = Collections.newSetFromMap(new IdentityHashMap<SpaceProbe, Boolean>());
+    this.speedCounts = new TreeMap<Integer, Integer>();
+    this.probeClassCounts = new LinkedHashMap<ProbeClass, Integer>();
    
-    this.waypoints = new LinkedList<Position>();
+    this.waypoints = new WaypointBuffer();
     validate();
   }
   
-  List<SpaceProbe> getSpaceProbes()
+  Set<SpaceProbe> getSpaceProbes()
   {
-    return Collections.unmodifiableList(this.spaceProbes);
+    return Collections.unmodifiableSet(this.spaceProbes);
+  }
+  
+  /**
+   * Lets a fleet movement move the group. Takes a slot right away if the 
+   * group is under way.
+   */
+  void attachTo(final FleetMovement _fleetMovement)
+  {
+    if (this.fleetMovement == _fleetMovement) {
+      return;
+    }
+    if (this.fleetMovement != null) {
+      throw new IllegalStateException(this.getName() 
+              + " is already attached to another fleet movement.");
+    }
+    this.fleetMovement = _fleetMovement;
+    this.movedTick = _fleetMovement.getTick() - 1;
+    this.pushMovement();
+  }
+  
+  /**
+   * Takes the state back from the slot and frees it.
+   */
+  void detachFrom(final FleetMovement _fleetMovement)
+  {
+    if (this.fleetMovement != _fleetMovement) {
+      throw new IllegalStateException(this.getName() 
+              + " is not attached to " + _fleetMovement);
+    }
+    this.pullMovement();
+    if (this.movementSlot != NO_SLOT) {
+      this.fleetMovement.remove(this.movementSlot);
+      this.movementSlot = NO_SLOT;
+    }
+    this.fleetMovement = null;
+  }
+  
+  /**
+   * The fleet movement moved the group into another slot.
+   */
+  void moveToSlot(final int _slot)
+  {
+    this.movementSlot = _slot;
+  }
+  
+  /**
+   * Called by the fleet movement when the group can reach its waypoint 
+   * during the current update. The movement has left the group where it was
+   * at the start of the update; the group covers the distance of the update
+   * itself and heads for the next waypoint or stops.
+   * @param _delta the period of passed time since the last update in in-game seconds
+   */
+  void reachWaypoint(final long _delta)
+  {
+    this.pullMovement();
+    this.movedTick = this.pulledTick;
+    updatePosition(_delta);
+    this.pushMovement();
   }
   
   //----------------  PRIVATE  ----------------
   private String name;
+  /** 
+   * The exact coordinates, unit: km. Positions are only created when asked 
+   * for and rounded to whole km.
+   */
+  private double x;
+  private double y;
+  private double previousX;
+  private double previousY;
+  /** Created when first asked for, <strong>null</strong> until then */
   private Position position;
+  private Position previousPosition;
+  /** Have the heading and the distance been calculated for the next waypoint? */
+  private boolean isOnLeg;
+  /** The direction to the target of the leg, normalized to a length of 1 */
+  private double headingX;
+  private double headingY;
+  /** Unit: km */
+  private double legDistanceLeft;
   private int maximumSpeed;
   private Vector direction;
   private int currentSpeed;
-  private final List<SpaceProbe> spaceProbes;
-  private final LinkedList<Position> waypoints;
+  private final Set<SpaceProbe> spaceProbes;
+  /** The number of members per maximum speed, the slowest first */
+  private final TreeMap<Integer, Integer> speedCounts;
+  /** The ships that are only counted, per design. Designs are compared by identity. */
+  private final Map<ProbeClass, Integer> probeClassCounts;
+  private long countedSpaceProbes;
+  /** The number of ships turned into individual probes so far, for their names */
+  private int materializedSpaceProbes;
+  private final WaypointBuffer waypoints;
+  private ISpaceProbeGroupStartedListener startedListener;
+  /** The movement the group is attached to or <strong>null</strong> */
+  private FleetMovement fleetMovement;
+  /** The slot in the fleet movement while under way, {@link #NO_SLOT} otherwise */
+  private int movementSlot = NO_SLOT;
+  /** The tick of the fleet movement the fields were last brought up to */
+  private long pulledTick;
+  /** The tick of the fleet movement that last moved the group */
+  private long movedTick;
+  
+  private static final int NO_SLOT = -1;
   
   private void validate()
   {
@@ -292,75 +737,184 @@ public class SpaceProbeGroup
               + " must not be higher than maximum speed: "  
               + this.getCurrentSpeed() + " > " + this.getMaximumSpeed() + ".");
     }
-    
-    if(this.position == null) {
+  }
+  
+  /**
+   * Puts the group at a position without moving there.
+   */
+  private void jumpTo(final Position _position)
+  {
+    if (_position == null) {
       throw new NullPointerException("Trying to set new position to null on "
               + this.getName() + ".");
     }
+    this.x = _position.x;
+    this.y = _position.y;
+    this.previousX = this.x;
+    this.previousY = this.y;
+    this.position = _position;
+    this.previousPosition = _position;
+    this.isOnLeg = false;
   }
 
-  private void recalculateMaximumSpeed()
+  /**
+   * Brings the fields up to date with the slot in the fleet movement, once 
+   * per tick of the movement. The fields stay current until the next tick, 
+   * every change of the course in between is stored back in the slot by 
+   * {@link #pushMovement()}.
+   */
+  private void pullMovement()
   {
-    int lowestSpeed;
-    if (spaceProbes.isEmpty()) {
-      lowestSpeed = 0;
-    } else {
-      Iterator<SpaceProbe> it = spaceProbes.iterator();
-      lowestSpeed = it.next().getMaximumSpeed();
-
-      while(it.hasNext()) {
-        lowestSpeed = Math.min(lowestSpeed, it.next().getMaximumSpeed());
+    if (this.movementSlot == NO_SLOT || this.pulledTick == this.fleetMovement.getTick()) {
+      return;
+    }
+    final FleetMovement movement = this.fleetMovement;
+    final int slot = this.movementSlot;
+    final double newX = movement.getX(slot);
+    final double newY = movement.getY(slot);
+    final double newPreviousX = movement.getPreviousX(slot);
+    final double newPreviousY = movement.getPreviousY(slot);
+    
+    this.previousPosition = newPreviousX == this.x && newPreviousY == this.y 
+            ? this.position : null;
+    if (newX != this.x || newY != this.y) {
+      this.position = null;
+    }
+    this.x = newX;
+    this.y = newY;
+    this.previousX = newPreviousX;
+    this.previousY = newPreviousY;
+    this.legDistanceLeft = movement.getLegDistanceLeft(slot);
+    this.pulledTick = movement.getTick();
+  }
+  
+  /**
+   * Takes a slot in the fleet movement while the group is under way and 
+   * stores the fields in it, or frees the slot when the group has stopped.
+   */
+  private void pushMovement()
+  {
+    if (this.fleetMovement == null) {
+      return;
+    }
+    if (this.currentSpeed == 0 || this.waypoints.isEmpty()) {
+      if (this.movementSlot != NO_SLOT) {
+        this.fleetMovement.remove(this.movementSlot);
+        this.movementSlot = NO_SLOT;
       }
+      return;
+    }
+    
+    if (!this.isOnLeg) {
+      this.startLeg();
+    }
+    if (this.movementSlot == NO_SLOT) {
+      this.movementSlot = this.fleetMovement.add(this);
     }
-    maximumSpeed = lowestSpeed;
+    this.fleetMovement.store(this.movementSlot, this.x, this.y, 
+            this.previousX, this.previousY, this.headingX, this.headingY, 
+            this.legDistanceLeft, this.currentSpeed);
+    this.pulledTick = this.fleetMovement.getTick();
+  }
+
+  private void notifyIfStarted(final boolean _wasStopped)
+  {
+    if (_wasStopped && !this.isStopped() && this.startedListener != null) {
+      this.startedListener.spaceProbeGroupStarted(this);
+    }
+  }
+  
+  /**
+   * Adds to the number of counted ships of a design and of their speed.
+   * @param _change the number of ships added, negative if removed
+   */
+  private void countProbeClass(final ProbeClass _probeClass, final int _change)
+  {
+    final int newCount = this.getCountedSpaceProbes(_probeClass) + _change;
+    if (newCount == 0) {
+      this.probeClassCounts.remove(_probeClass);
+    } else {
+      this.probeClassCounts.put(_probeClass, newCount);
+    }
+    this.countSpeed(_probeClass.getSpeed(), _change);
+  }
+  
+  /**
+   * Adds to the number of members with a speed and takes the maximum speed 
+   * of the group from the slowest speed counted.
+   * @param _change the number of members added, negative if removed
+   */
+  private void countSpeed(final int _speed, final int _change)
+  {
+    final Integer count = this.speedCounts.get(_speed);
+    final int newCount = (count == null ? 0 : count) + _change;
+    if (newCount == 0) {
+      this.speedCounts.remove(_speed);
+    } else {
+      this.speedCounts.put(_speed, newCount);
+    }
+    this.maximumSpeed = this.speedCounts.isEmpty() ? 0 : this.speedCounts.firstKey();
   }
 
   /**
-   * Updates the ship's position.
+   * Updates the ship's position. Works on the coordinates only and allocates
+   * nothing, positions are created when someone asks for them.
    * <p>
    * Stops the ship if there is no waypoint but the ship is not stopped.
    * @param _delta the period of passed time since the last update in in-game seconds
    */
-  private void updatePosition(long _delta) {
+  private void updatePosition(final long _delta) {
     if (isStopped()) {
       return;
     }
     
     if (waypoints.isEmpty()) {
       stop();
+      return;
     }
     
-    // distance in meters
-    long availableDistance = _delta * currentSpeed;
+    // distance in km
+    double availableDistance = _delta * (double) currentSpeed / 1000;
     
-    Position nextWaypoint = waypoints.peek();
-    while(availableDistance > 0) {
-      final double distanceToWaypoint = position.distance(nextWaypoint) * 1000;
+    while (availableDistance > 0) {
+      if (!this.isOnLeg) {
+        this.startLeg();
+      }
+      this.position = null;
       
-      if (distanceToWaypoint <= availableDistance) {
+      if (this.legDistanceLeft <= availableDistance) {
         // waypoint can be reached within the remaining time of this update
-        availableDistance -= distanceToWaypoint;
-        position = nextWaypoint;
-        waypoints.remove();
-        nextWaypoint = waypoints.peek();
-        if (nextWaypoint == null) {
+        availableDistance -= this.legDistanceLeft;
+        this.x = waypoints.getX(0);
+        this.y = waypoints.getY(0);
+        waypoints.advance();
+        this.isOnLeg = false;
+        if (waypoints.isEmpty()) {
           stop();
           break;
         }
       } else {
         // move towards waypoint
-        Vector2D start = new Vector2D(position.x, position.y);
-        Vector2D target = new Vector2D(nextWaypoint.x, nextWaypoint.y)
-                .subtract(start)                        // direction vector
-                .normalize()                            // normalize to length of 1
-                .scalarMultiply(availableDistance/1000) // covered distance
-                .add(start);                            // move to new position
-        position = new Position((int) target.getX(), (int) target.getY());
+        this.x += this.headingX * availableDistance;
+        this.y += this.headingY * availableDistance;
+        this.legDistanceLeft -= availableDistance;
         availableDistance = 0;
       }
     }
-    
-        
-    
+  }
+  
+  /**
+   * Calculates the heading and the distance to the next waypoint once per 
+   * leg of the course.
+   */
+  private void startLeg()
+  {
+    final double dx = this.waypoints.getX(0) - this.x;
+    final double dy = this.waypoints.getY(0) - this.y;
+    final double distance = Math.sqrt(dx*dx + dy*dy);
+    this.isOnLeg = true;
+    this.legDistanceLeft = distance;
+    this.headingX = distance > 0 ? dx / distance : 0;
+    this.headingY = distance > 0 ? dy / distance : 0;
   }
 }
@@ -28,7 +28,6 @@ import com.google.inject.Inject;
 import com.google.inject.assistedinject.Assisted;
 import java.awt.Color;
 import java.awt.Graphics2D;
-import java.awt.Rectangle;
 import org.projectthaleia.universe.Position;
 import org.projectthaleia.universe.graphics.IStarSystemGraphic;
 
@@ -42,33 +41,66 @@ public class SpaceProbeGroupGraphic implements IStarSystemGraphic
   // Implements IStarSystemGraphic --------------------------------------------
   @Override
   public void paint(final Graphics2D _g, final Position _offset)
+  {
+    final Position pos = this.spaceProbeGroup.getPosition();
+    this.paintAt(_g, _offset, pos.x, pos.y, this.spaceProbeGroup.getName());
+  }
+
+  @Override
+  public void paint(final Graphics2D _g, final Position _offset, final float _interpolation)
+  {
+    final Position pos = this.spaceProbeGroup.getInterpolatedPosition(_interpolation);
+    this.paintAt(_g, _offset, pos.x, pos.y, this.spaceProbeGroup.getName());
+  }
+
+  @Override
+  public boolean hit(final Position _click)
+  {
+    Position pos = this.spaceProbeGroup.getPosition();
+    
+    return this.hitAt(_click, pos.x, pos.y);
+  }
+  // End of IStarSystemGraphic ------------------------------------------------
+  
+  /**
+   * Paints the group at the given coordinates instead of its current position.
+   * @param _g the graphics context
+   * @param _offset the offset in pixels
+   * @param _x the x coordinate in km
+   * @param _y the y coordinate in km
+   * @param _name the name to print next to the group
+   */
+  public void paintAt(final Graphics2D _g, final Position _offset, 
+                      final long _x, final long _y, final String _name)
   {
     final int radius = GROUP_RADIUS;
     final int width  = radius*2;
     _g.setColor(Color.CYAN);
     
     // print circle
-    final int x = this.spaceProbeGroup.getPosition().x+_offset.x;
-    final int y = this.spaceProbeGroup.getPosition().y+_offset.y;
+    final int x = (int) (_x+_offset.x);
+    final int y = (int) (_y+_offset.y);
     _g.fillOval(x-radius, y-radius, width, width);
     
     // print name
     final int fontHeight = 5;
-    _g.drawString(this.spaceProbeGroup.getName(), x+width, y+width+fontHeight);
+    _g.drawString(_name, x+width, y+width+fontHeight);
   }
-
-  @Override
-  public boolean hit(final Position _click)
+  
+  /**
+   * Tests whether the group would be hit at the given coordinates.
+   * @param _click the position to check
+   * @param _x the x coordinate of the group in km
+   * @param _y the y coordinate of the group in km
+   * @return <strong>true</strong> if hit
+   */
+  public boolean hitAt(final Position _click, final long _x, final long _y)
   {
-    Position pos = this.spaceProbeGroup.getPosition();
-    
     final int radius = GROUP_RADIUS;
-    final int width  = radius*2;
-    Rectangle hitbox = new Rectangle(pos.x - radius, pos.y - radius, width, width);
-
-    return hitbox.contains(_click.x, _click.y);
+    
+    return _click.x >= _x - radius && _click.x < _x + radius
+        && _click.y >= _y - radius && _click.y < _y + radius;
   }
-  // End of IStarSystemGraphic ------------------------------------------------
 
   public SpaceProbeGroup getSpaceProbeGroup()
   {
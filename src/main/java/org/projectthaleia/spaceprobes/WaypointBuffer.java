@@ -0,0 +1,208 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2011 Simon Hardijanto
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.projectthaleia.spaceprobes;
+
+import java.util.AbstractList;
+import java.util.List;
+import org.projectthaleia.universe.Position;
+
+/**
+ * The waypoints of a {@link SpaceProbeGroup} as a ring buffer of packed 
+ * coordinates, two longs per waypoint instead of a list node and a 
+ * {@link Position}. Reaching a waypoint only moves the start of the ring, 
+ * so long routes are consumed without allocating anything. Positions are 
+ * only created when someone looks at the waypoints through {@link #asList()}.
+ * <p>
+ * A cyclic buffer is a patrol route: a reached waypoint goes to the end of 
+ * the route again instead of being dropped, reusing its place in the ring.
+ * </p>
+ * <p>
+ * Not thread safe.
+ * </p>
+ * @author Simon Hardijanto
+ */
+class WaypointBuffer
+{
+  /**
+   * Creates an empty buffer that is not cyclic.
+   */
+  WaypointBuffer()
+  {
+    this.coordinates = new long[2*INITIAL_CAPACITY];
+    this.view = new View();
+  }
+  
+  /**
+   * The number of waypoints.
+   * @return the number of waypoints. Is never negative.
+   */
+  int size()
+  {
+    return this.size;
+  }
+  
+  boolean isEmpty()
+  {
+    return this.size == 0;
+  }
+  
+  /**
+   * The x coordinate of a waypoint.
+   * @param _index the index of the waypoint, 0 for the next one
+   * @return the coordinate in km
+   */
+  long getX(final int _index)
+  {
+    return this.coordinates[this.toSlot(_index)];
+  }
+  
+  /**
+   * The y coordinate of a waypoint.
+   * @param _index the index of the waypoint, 0 for the next one
+   * @return the coordinate in km
+   */
+  long getY(final int _index)
+  {
+    return this.coordinates[this.toSlot(_index) + 1];
+  }
+  
+  /**
+   * Appends a waypoint to the end of the route. Only allocates when the 
+   * buffer is full.
+   */
+  void add(final long _x, final long _y)
+  {
+    if (2*this.size == this.coordinates.length) {
+      this.grow();
+    }
+    final int slot = this.toSlot(this.size);
+    this.coordinates[slot] = _x;
+    this.coordinates[slot + 1] = _y;
+    ++this.size;
+  }
+  
+  /**
+   * Drops the next waypoint, or moves it to the end of the route if the 
+   * buffer is cyclic. A route needs two waypoints to be cycled, a single 
+   * waypoint is dropped once reached.
+   */
+  void advance()
+  {
+    if (this.size == 0) {
+      throw new IllegalStateException("Cannot advance along an empty route.");
+    }
+    final int first = this.start;
+    this.start = (this.start + 2) % this.coordinates.length;
+    if (this.isCyclic && this.size > 1) {
+      // lands on the slot just freed if the buffer is full
+      final int slot = this.toSlot(this.size - 1);
+      this.coordinates[slot] = this.coordinates[first];
+      this.coordinates[slot + 1] = this.coordinates[first + 1];
+    } else {
+      --this.size;
+    }
+  }
+  
+  /**
+   * Removes all waypoints. Keeps the capacity.
+   */
+  void clear()
+  {
+    this.start = 0;
+    this.size = 0;
+  }
+  
+  boolean isCyclic()
+  {
+    return this.isCyclic;
+  }
+  
+  void setCyclic(final boolean _isCyclic)
+  {
+    this.isCyclic = _isCyclic;
+  }
+  
+  /**
+   * An unmodifiable view of the waypoints that follows all changes.
+   * @return the view, starting with the next waypoint
+   */
+  List<Position> asList()
+  {
+    return this.view;
+  }
+  
+  //---------------- PRIVATE ----------------
+  private static final int INITIAL_CAPACITY = 4;
+  
+  /** x and y of each waypoint next to each other, the route starts at start */
+  private long[] coordinates;
+  private int start;
+  private int size;
+  private boolean isCyclic;
+  private final List<Position> view;
+  
+  /**
+   * The index of the x coordinate of a waypoint in the ring.
+   */
+  private int toSlot(final int _index)
+  {
+    return (this.start + 2*_index) % this.coordinates.length;
+  }
+  
+  /**
+   * Doubles the capacity and unrolls the ring to start at 0.
+   */
+  private void grow()
+  {
+    final long[] grown = new long[2*this.coordinates.length];
+    final int head = this.coordinates.length - this.start;
+    System.arraycopy(this.coordinates, this.start, grown, 0, head);
+    System.arraycopy(this.coordinates, 0, grown, head, this.start);
+    this.coordinates = grown;
+    this.start = 0;
+  }
+  
+  /**
+   * The view returned by {@link #asList()}.
+   */
+  private class View extends AbstractList<Position>
+  {
+    @Override
+    public Position get(final int _index)
+    {
+      if (_index < 0 || _index >= WaypointBuffer.this.size) {
+        throw new IndexOutOfBoundsException("Waypoint " + _index + " of " 
+                + WaypointBuffer.this.size);
+      }
+      return new Position(WaypointBuffer.this.getX(_index), WaypointBuffer.this.getY(_index));
+    }
+    
+    @Override
+    public int size()
+    {
+      return WaypointBuffer.this.size;
+    }
+  }
+}
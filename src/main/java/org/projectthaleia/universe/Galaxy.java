@@ -0,0 +1,518 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2011 Simon Hardijanto
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.projectthaleia.universe;
+
+import com.google.inject.Inject;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import org.projectthaleia.core.StateHash;
+import org.projectthaleia.core.TickPhase;
+import org.projectthaleia.core.TickProfiler;
+import org.projectthaleia.core.Timeline;
+import org.projectthaleia.spaceprobes.FleetMovement;
+
+/**
+ * Contains all star systems of a game.
+ * <p>
+ * Star systems don't influence each other within one update, so they can be 
+ * updated in parallel. Each system is updated by exactly one thread and in the
+ * same way as in a serial update, so both produce identical results.
+ * </p>
+ * <p>
+ * The space probe groups of all systems are moved by one 
+ * {@link FleetMovement} at the start of every update, before the systems 
+ * are updated.
+ * </p>
+ * <p>
+ * The systems are grouped into sectors of {@link #SECTOR_SIZE} systems in 
+ * the order they were added. Only a limited number of sectors, the sector 
+ * budget, is kept in memory; the least recently used ones are paged out to 
+ * disk. Sectors are paged in again when one of their systems is asked for. 
+ * While a sector is paged out its systems stand still and catch up on the 
+ * missed game time in one step when they are paged in. The state hash of a 
+ * paged out system is derived from the hash it had when it was paged out 
+ * and the missed game time, the same way as for a system in memory, so it 
+ * does not depend on the sector budget. Sectors with a system that is 
+ * {@link StarSystem#isInUse() in use}, e.g. observed or with a fleet or a 
+ * colony, are never paged out, even if that exceeds the budget.
+ * </p>
+ * <p>
+ * A system that is not in use may be paged out whenever another sector is 
+ * paged in and comes back as a different object. Put a system in use to keep
+ * referring to it.
+ * </p>
+ * @author Simon Hardijanto
+ */
+public class Galaxy
+{
+  /** The number of star systems in a sector */
+  public static final int SECTOR_SIZE = 1024;
+  
+  /**
+   * Adds a star system to the galaxy.
+   * @param _starSystem the new star system. Must not already be part of the 
+   * galaxy.
+   */
+  public synchronized void addStarSystem(final StarSystem _starSystem)
+  {
+    if (_starSystem == null) {
+      throw new NullPointerException("Cannot add null as star system to " + this);
+    }
+    
+    final int count = this.starSystemCount;
+    if (count % SECTOR_SIZE == 0) {
+      this.sectors.add(new Sector(this.sectors.size()));
+    }
+    this.pageIn(this.sectors.get(count / SECTOR_SIZE)).add(_starSystem);
+    _starSystem.setFleetMovement(this.fleetMovement);
+    if (this.timeline != null) {
+      _starSystem.setTimeline(this.timeline);
+    }
+    this.starSystemCount = count + 1;
+    this.loadedStarSystems = null;
+  }
+  
+  /**
+   * All star systems of the galaxy. Getting a system of a paged out sector
+   * pages it in, so going through all of them reads and writes every sector
+   * on disk. See {@link #getLoadedStarSystems()}.
+   * @return an unmodifiable list of star systems
+   */
+  public List<StarSystem> getStarSystems()
+  {
+    return this.starSystemList;
+  }
+  
+  /**
+   * The star systems of the sectors in memory, for going through the galaxy
+   * without paging. Systems that are {@link StarSystem#isInUse() in use} are
+   * always among them. The list is not changed by later paging.
+   * @return an unmodifiable list of star systems in the order they were added
+   */
+  public synchronized List<StarSystem> getLoadedStarSystems()
+  {
+    if (this.loadedStarSystems == null) {
+      final List<StarSystem> result = new ArrayList<StarSystem>(
+              this.loadedSectors.size() * SECTOR_SIZE);
+      for (Sector sector : this.sectors) {
+        if (sector.starSystems != null) {
+          result.addAll(sector.starSystems);
+        }
+      }
+      this.loadedStarSystems = Collections.unmodifiableList(result);
+    }
+    return this.loadedStarSystems;
+  }
+  
+  /**
+   * The number of star systems.
+   * @return the number of star systems. Is never negative.
+   */
+  public synchronized int getStarSystemCount()
+  {
+    return this.starSystemCount;
+  }
+  
+  /**
+   * Updates all star systems a certain step in time. Uses several threads if
+   * parallel updates are enabled and there are enough star systems. Only the
+   * systems of sectors in memory are updated.
+   * @param _delta the number of seconds (game time) passed since the last update
+   */
+  public synchronized void update(final long _delta)
+  {
+    for (Sector sector : this.sectors) {
+      if (sector.starSystems == null) {
+        sector.pendingDelta += _delta;
+      }
+    }
+    
+    final TickProfiler profiler = this.profiler;
+    final long start = profiler.start();
+    this.fleetMovement.update(_delta);
+    profiler.stop(TickPhase.SPACE_PROBE_GROUPS, start);
+    
+    final List<StarSystem> starSystems = this.getLoadedStarSystems();
+    if (this.isParallel && starSystems.size() > SERIAL_THRESHOLD) {
+      this.pool.invoke(new UpdateTask(starSystems, 0, starSystems.size(), 
+                                      _delta, this.profiler));
+    } else {
+      updateSerially(starSystems, 0, starSystems.size(), _delta, 
+                     this.profiler);
+    }
+  }
+  
+  /**
+   * Sets the profiler that measures the updates of the star systems.
+   * @param _profiler the profiler. Must not be null.
+   */
+  public void setProfiler(final TickProfiler _profiler)
+  {
+    if (_profiler == null) {
+      throw new NullPointerException("Profiler of " + this + " must not be null.");
+    }
+    this.profiler = _profiler;
+  }
+  
+  /**
+   * Lets a timeline finish the buildings of all colonies in the galaxy, 
+   * including those on star systems added or colonies founded later.
+   * @param _timeline the timeline of the game. Must not be null.
+   */
+  public synchronized void setTimeline(final Timeline _timeline)
+  {
+    if (_timeline == null) {
+      throw new NullPointerException("Timeline of " + this + " must not be null.");
+    }
+    this.timeline = _timeline;
+    // paged out systems have no colonies and get the timeline when paged in
+    for (StarSystem system : this.getLoadedStarSystems()) {
+      system.setTimeline(_timeline);
+    }
+  }
+  
+  /**
+   * A hash of the state of all star systems as of their last update. Each 
+   * system hashes its own state during its update, so this only combines 
+   * them in a fixed order. Parallel and serial updates give the same hash.
+   * Paged out systems are hashed from the state they were paged out in and 
+   * the game time they missed since, see {@link StarSystem#getStateHash()}.
+   * @return the hash
+   * @see StateHash
+   */
+  public synchronized long getStateHash()
+  {
+    long result = StateHash.INITIAL;
+    for (Sector sector : this.sectors) {
+      if (sector.starSystems != null) {
+        result = hashStates(result, sector.starSystems);
+      } else {
+        for (int i = 0; i < sector.pagedOutHashes.length; ++i) {
+          result = StateHash.mix(result, StateHash.mix(sector.pagedOutHashes[i], 
+                  sector.pagedOutGameTimes[i] + sector.pendingDelta));
+        }
+      }
+    }
+    return result;
+  }
+  
+  /**
+   * Are star systems updated in parallel?
+   * @return <strong>true</strong> if updates may use several threads
+   */
+  public boolean isParallel()
+  {
+    return this.isParallel;
+  }
+  
+  /**
+   * Enables or disables parallel updates.
+   * @param _isParallel <strong>false</strong> to update all systems on the 
+   * calling thread
+   */
+  public void setParallel(final boolean _isParallel)
+  {
+    this.isParallel = _isParallel;
+    this.fleetMovement.setParallel(_isParallel);
+  }
+  
+  /**
+   * The number of sectors kept in memory at most, unless more are in use.
+   * @return the number of sectors. Is always positive.
+   */
+  public synchronized int getSectorBudget()
+  {
+    return this.sectorBudget;
+  }
+  
+  /**
+   * Limits the number of sectors kept in memory. Pages out the least 
+   * recently used sectors right away if there are too many.
+   * @param _sectorBudget the number of sectors. Must be positive.
+   */
+  public synchronized void setSectorBudget(final int _sectorBudget)
+  {
+    if (_sectorBudget <= 0) {
+      throw new IllegalArgumentException("Sector budget of " + this 
+              + " must be positive. Was " + _sectorBudget);
+    }
+    this.sectorBudget = _sectorBudget;
+    this.pageOutOverBudget(null);
+  }
+  
+  /**
+   * The number of sectors currently in memory.
+   * @return the number of sectors. Is never negative.
+   */
+  public synchronized int getLoadedSectorCount()
+  {
+    return this.loadedSectors.size();
+  }
+  
+  //------------ PACKAGE PRIVATE ------------
+  /** The sector budget of new galaxies, enough for 65536 star systems */
+  static final int DEFAULT_SECTOR_BUDGET = 64;
+  
+  @Inject
+  Galaxy()
+  {
+    this(ForkJoinPool.commonPool());
+  }
+  
+  Galaxy(final ForkJoinPool _pool)
+  {
+    this(_pool, new SectorStore());
+  }
+  
+  Galaxy(final ForkJoinPool _pool, final SectorStore _sectorStore)
+  {
+    if (_pool == null) {
+      throw new NullPointerException("Galaxy needs a thread pool for parallel updates.");
+    }
+    if (_sectorStore == null) {
+      throw new NullPointerException("Galaxy needs a store for paged out sectors.");
+    }
+    
+    this.pool = _pool;
+    this.sectorStore = _sectorStore;
+    this.sectors = new ArrayList<Sector>();
+    this.loadedSectors = new LinkedHashMap<Integer, Sector>(16, 0.75f, true);
+    this.sectorBudget = DEFAULT_SECTOR_BUDGET;
+    this.starSystemList = new StarSystemList();
+    this.fleetMovement = new FleetMovement(_pool);
+    this.isParallel = true;
+    this.profiler = new TickProfiler(false);
+  }
+
+  //---------------- PRIVATE ----------------
+  /** Number of star systems up to which a single thread does the update */
+  private static final int SERIAL_THRESHOLD = 32;
+  
+  private final ForkJoinPool pool;
+  private final SectorStore sectorStore;
+  private final List<Sector> sectors;
+  /** The sectors in memory from the least to the most recently used */
+  private final Map<Integer, Sector> loadedSectors;
+  private final List<StarSystem> starSystemList;
+  private final FleetMovement fleetMovement;
+  private int sectorBudget;
+  private int starSystemCount;
+  /** Set once the galaxy is part of a game */
+  private Timeline timeline;
+  /** The systems of all sectors in memory. Rebuilt when sectors are paged. */
+  private List<StarSystem> loadedStarSystems;
+  
+  private volatile boolean isParallel;
+  private volatile TickProfiler profiler;
+  
+  private static void updateSerially(final List<StarSystem> _starSystems, 
+                                     final int _from, final int _to, 
+                                     final long _delta, 
+                                     final TickProfiler _profiler)
+  {
+    for (int i = _from; i < _to; ++i) {
+      _starSystems.get(i).update(_delta, _profiler);
+    }
+  }
+  
+  private static long hashStates(final long _hash, final List<StarSystem> _starSystems)
+  {
+    long result = _hash;
+    for (StarSystem system : _starSystems) {
+      result = StateHash.mix(result, system.getStateHash());
+    }
+    return result;
+  }
+  
+  /**
+   * Brings a sector into memory if necessary and marks it as the most 
+   * recently used one.
+   * @return the systems of the sector
+   */
+  private List<StarSystem> pageIn(final Sector _sector)
+  {
+    if (this.loadedSectors.get(_sector.index) != null) {
+      return _sector.starSystems;
+    }
+    
+    if (_sector.isWritten) {
+      _sector.starSystems = this.sectorStore.read(_sector.index);
+      for (StarSystem system : _sector.starSystems) {
+        system.setFleetMovement(this.fleetMovement);
+        if (this.timeline != null) {
+          system.setTimeline(this.timeline);
+        }
+        // catch up on the time missed while paged out
+        if (_sector.pendingDelta != 0) {
+          system.update(_sector.pendingDelta);
+        }
+      }
+    } else {
+      _sector.starSystems = new ArrayList<StarSystem>(SECTOR_SIZE);
+    }
+    _sector.pendingDelta = 0;
+    _sector.pagedOutHashes = null;
+    _sector.pagedOutGameTimes = null;
+    this.loadedSectors.put(_sector.index, _sector);
+    this.loadedStarSystems = null;
+    this.pageOutOverBudget(_sector);
+    return _sector.starSystems;
+  }
+  
+  /**
+   * Pages out the least recently used sectors that are not in use until the
+   * budget is met.
+   * @param _keep a sector that must stay in memory or <strong>null</strong>
+   */
+  private void pageOutOverBudget(final Sector _keep)
+  {
+    final Iterator<Sector> iterator = this.loadedSectors.values().iterator();
+    while (this.loadedSectors.size() > this.sectorBudget && iterator.hasNext()) {
+      final Sector sector = iterator.next();
+      if (sector == _keep || sector.isInUse()) {
+        continue;
+      }
+      
+      this.sectorStore.write(sector.index, sector.starSystems);
+      sector.isWritten = true;
+      sector.pagedOutHashes = new long[sector.starSystems.size()];
+      sector.pagedOutGameTimes = new long[sector.starSystems.size()];
+      for (int i = 0; i < sector.pagedOutHashes.length; ++i) {
+        sector.pagedOutHashes[i] = sector.starSystems.get(i).getTimelessStateHash();
+        sector.pagedOutGameTimes[i] = sector.starSystems.get(i).getGameTime();
+      }
+      sector.starSystems = null;
+      iterator.remove();
+      this.loadedStarSystems = null;
+    }
+  }
+  
+  /**
+   * A group of star systems that is paged in and out together.
+   */
+  private static class Sector
+  {
+    Sector(final int _index)
+    {
+      this.index = _index;
+    }
+    
+    boolean isInUse()
+    {
+      for (StarSystem system : this.starSystems) {
+        if (system.isInUse()) {
+          return true;
+        }
+      }
+      return false;
+    }
+    
+    final int index;
+    /** <strong>null</strong> while the sector is paged out */
+    List<StarSystem> starSystems;
+    /** Has the sector been written to the store before? */
+    boolean isWritten;
+    /** Game time passed since the sector was paged out. Unit: seconds */
+    long pendingDelta;
+    /** 
+     * The state hashes without the game time and the game times of the 
+     * systems when they were paged out, see {@link StarSystem#getStateHash()}
+     */
+    long[] pagedOutHashes;
+    long[] pagedOutGameTimes;
+  }
+  
+  /**
+   * The view of all star systems returned by {@link #getStarSystems()}.
+   */
+  private class StarSystemList extends AbstractList<StarSystem>
+  {
+    @Override
+    public StarSystem get(final int _index)
+    {
+      synchronized (Galaxy.this) {
+        if (_index < 0 || _index >= Galaxy.this.starSystemCount) {
+          throw new IndexOutOfBoundsException("Star system " + _index + " of " 
+                  + Galaxy.this.starSystemCount);
+        }
+        return Galaxy.this.pageIn(Galaxy.this.sectors.get(_index / SECTOR_SIZE))
+                .get(_index % SECTOR_SIZE);
+      }
+    }
+    
+    @Override
+    public int size()
+    {
+      return Galaxy.this.getStarSystemCount();
+    }
+  }
+  
+  /**
+   * Splits the list of star systems in halves until they are small enough to
+   * be updated serially.
+   */
+  private static class UpdateTask extends RecursiveAction
+  {
+    UpdateTask(final List<StarSystem> _starSystems, final int _from, final int _to, 
+               final long _delta, final TickProfiler _profiler)
+    {
+      this.starSystems = _starSystems;
+      this.from = _from;
+      this.to = _to;
+      this.delta = _delta;
+      this.profiler = _profiler;
+    }
+    
+    @Override
+    protected void compute()
+    {
+      if (this.to - this.from <= SERIAL_THRESHOLD) {
+        updateSerially(this.starSystems, this.from, this.to, this.delta, 
+                       this.profiler);
+        return;
+      }
+      
+      final int middle = (this.from + this.to) >>> 1;
+      invokeAll(new UpdateTask(this.starSystems, this.from, middle, this.delta, 
+                               this.profiler),
+                new UpdateTask(this.starSystems, middle, this.to, this.delta, 
+                               this.profiler));
+    }
+    
+    private static final long serialVersionUID = 1L;
+    
+    private final List<StarSystem> starSystems;
+    private final int from;
+    private final int to;
+    private final long delta;
+    private final TickProfiler profiler;
+  }
+}
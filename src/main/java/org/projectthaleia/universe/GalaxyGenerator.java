@@ -0,0 +1,188 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2011 Simon Hardijanto
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.projectthaleia.universe;
+
+import com.google.inject.Inject;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import org.projectthaleia.core.RandomSource;
+
+/**
+ * Fills a galaxy with generated star systems.
+ * <p>
+ * The systems are generated in sectors of {@link Galaxy#SECTOR_SIZE}. Each 
+ * sector draws from its own stream of the {@link RandomSource}, so sectors 
+ * can be generated in parallel and in any order, and the same seed always 
+ * gives the same galaxy, however many threads there are.
+ * </p>
+ * <p>
+ * Galaxies are populated a few sectors at a time, so the galaxy can page 
+ * out sectors while the rest is still being generated.
+ * </p>
+ * @author Simon Hardijanto
+ */
+public class GalaxyGenerator
+{
+  /**
+   * Generates star systems and adds them to a galaxy in a fixed order.
+   * @param _galaxy the galaxy
+   * @param _starSystemCount the number of systems to generate
+   */
+  public void populate(final Galaxy _galaxy, final int _starSystemCount)
+  {
+    if (_galaxy == null) {
+      throw new NullPointerException("Cannot populate no galaxy.");
+    }
+    if (_starSystemCount < 0) {
+      throw new IllegalArgumentException("Cannot generate a negative number of "
+              + "star systems. Was " + _starSystemCount);
+    }
+    
+    // one sector per thread at a time
+    final int batchSize = this.pool.getParallelism() * SECTOR_SIZE;
+    for (int first = 0; first < _starSystemCount; first += batchSize) {
+      final int count = Math.min(batchSize, _starSystemCount - first);
+      for (StarSystem system : this.generate(first, count)) {
+        _galaxy.addStarSystem(system);
+      }
+    }
+  }
+  
+  /**
+   * Generates star systems.
+   * @param _starSystemCount the number of systems to generate
+   * @return the systems, ordered by sector
+   */
+  public StarSystem[] generate(final int _starSystemCount)
+  {
+    if (_starSystemCount < 0) {
+      throw new IllegalArgumentException("Cannot generate a negative number of "
+              + "star systems. Was " + _starSystemCount);
+    }
+    
+    return this.generate(0, _starSystemCount);
+  }
+  
+  //------------ PACKAGE PRIVATE ------------
+  @Inject
+  GalaxyGenerator(final RandomSource _randomSource)
+  {
+    this(_randomSource, ForkJoinPool.commonPool());
+  }
+  
+  GalaxyGenerator(final RandomSource _randomSource, final ForkJoinPool _pool)
+  {
+    if (_randomSource == null) {
+      throw new NullPointerException("Galaxy generator needs a source of random numbers.");
+    }
+    if (_pool == null) {
+      throw new NullPointerException("Galaxy generator needs a thread pool.");
+    }
+    
+    this.randomSource = _randomSource;
+    this.pool = _pool;
+  }
+  
+  //---------------- PRIVATE ----------------
+  /** Keeps the streams of the sectors apart from other users of the source */
+  private static final long SECTOR_STREAMS = 0x5EC7025EC7025EC7L;
+  
+  /** Number of star systems generated from one random stream */
+  private static final int SECTOR_SIZE = Galaxy.SECTOR_SIZE;
+  
+  private final RandomSource randomSource;
+  private final ForkJoinPool pool;
+  
+  /**
+   * Generates a range of star systems.
+   * @param _first the number of the first system. Must start a sector.
+   */
+  private StarSystem[] generate(final int _first, final int _count)
+  {
+    final StarSystem[] result = new StarSystem[_count];
+    final int firstSector = _first / SECTOR_SIZE;
+    final int sectors = (_count + SECTOR_SIZE - 1) / SECTOR_SIZE;
+    if (sectors <= 1) {
+      generateSectors(this.randomSource, result, _first, firstSector, firstSector + sectors);
+    } else {
+      this.pool.invoke(new GenerateTask(this.randomSource, result, _first, 
+                                        firstSector, firstSector + sectors));
+    }
+    return result;
+  }
+  
+  /**
+   * @param _offset the number of the system in the first element of the result
+   */
+  private static void generateSectors(final RandomSource _randomSource, 
+                                      final StarSystem[] _result, final int _offset,
+                                      final int _from, final int _to)
+  {
+    for (int sector = _from; sector < _to; ++sector) {
+      final Random random = _randomSource.fork(SECTOR_STREAMS + sector);
+      final int end = Math.min(_offset + _result.length, (sector + 1) * SECTOR_SIZE);
+      for (int i = sector * SECTOR_SIZE; i < end; ++i) {
+        _result[i - _offset] = StarSystem.generateStarSystem(random);
+      }
+    }
+  }
+  
+  /**
+   * Splits the sectors in halves until each task generates one sector.
+   */
+  private static class GenerateTask extends RecursiveAction
+  {
+    GenerateTask(final RandomSource _randomSource, final StarSystem[] _result, 
+                 final int _offset, final int _from, final int _to)
+    {
+      this.randomSource = _randomSource;
+      this.result = _result;
+      this.offset = _offset;
+      this.from = _from;
+      this.to = _to;
+    }
+    
+    @Override
+    protected void compute()
+    {
+      if (this.to - this.from <= 1) {
+        generateSectors(this.randomSource, this.result, this.offset, this.from, this.to);
+        return;
+      }
+      
+      final int middle = (this.from + this.to) >>> 1;
+      invokeAll(new GenerateTask(this.randomSource, this.result, this.offset, this.from, middle),
+                new GenerateTask(this.randomSource, this.result, this.offset, middle, this.to));
+    }
+    
+    private static final long serialVersionUID = 1L;
+    
+    private final RandomSource randomSource;
+    private final StarSystem[] result;
+    private final int offset;
+    private final int from;
+    private final int to;
+  }
+}
@@ -24,14 +24,19 @@
 
 package org.projectthaleia.universe;
 
-import org.projectthaleia.spaceprobes.SpaceProbeGroup;
-
 /**
- *
+ * Is told about the changes of a {@link StarSystem} once per update, on the 
+ * thread that updates the system.
  * @author Simon Hardijanto
  */
 public interface IStarSystemChangedListener
 {
-  public void spaceProbeGroupAdded(SpaceProbeGroup _spaceProbeGroup);
-  public void spaceProbeGroupRemoved(SpaceProbeGroup _spaceProbeGroup);
+  /**
+   * Called at the end of an update if anything changed since the last call.
+   * The snapshot of the system is already current. A listener that was just 
+   * added is first called at the start of the update with the groups already
+   * in the system, before the snapshot includes them.
+   * @param _changes the changes. Never empty.
+   */
+  public void starSystemChanged(StarSystemChanges _changes);
 }
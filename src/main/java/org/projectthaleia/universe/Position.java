@@ -27,15 +27,21 @@ import org.projectthaleia.core.Immutable;
 
 /**
  * Records the position of an object within a star system.
+ * <p>
+ * Coordinates are whole kilometres in 64 bits, which covers about a million 
+ * light years. Distances are calculated in doubles, so they don't overflow
+ * either. The static helpers work on plain coordinates and don't create 
+ * positions, for code that moves many objects per update.
+ * </p>
  * @author Simon Hardijanto
  */
 @Immutable
 public class Position
 {
-  public final int x;
-  public final int y;
+  public final long x;
+  public final long y;
   
-  public Position(int _x, int _y)
+  public Position(final long _x, final long _y)
   {
     this.x = _x;
     this.y = _y;
@@ -56,10 +62,42 @@ public class Position
       throw new NullPointerException("Cannot measure distance to null object.");
     }
     
-    int dx = Math.abs(_other.x - this.x);
-    int dy = Math.abs(_other.y - this.y);
-    
-    return Math.sqrt(dx * dx + dy * dy);
+    return distance(this.x, this.y, _other.x, _other.y);
+  }
+  
+  /**
+   * The distance between two points.
+   * @return the distance in km
+   */
+  public static double distance(final long _x1, final long _y1, 
+                                final long _x2, final long _y2)
+  {
+    return Math.sqrt(distanceSquared(_x1, _y1, _x2, _y2));
+  }
+  
+  /**
+   * The square of the distance between two points, e.g. for comparing 
+   * distances without taking the square root.
+   * @return the squared distance in km²
+   */
+  public static double distanceSquared(final long _x1, final long _y1, 
+                                       final long _x2, final long _y2)
+  {
+    final double dx = _x2 - _x1;
+    final double dy = _y2 - _y1;
+    return dx*dx + dy*dy;
+  }
+  
+  /**
+   * A coordinate between two others.
+   * @param _from the coordinate at 0
+   * @param _to the coordinate at 1
+   * @param _fraction where between both, usually from 0 to 1
+   * @return the coordinate, rounded towards <code>_from</code>
+   */
+  public static long interpolate(final long _from, final long _to, final double _fraction)
+  {
+    return _from + (long) ((_to - _from) * _fraction);
   }
 
   @Override
@@ -87,8 +125,8 @@ public class Position
   public int hashCode()
   {
     int hash = 7;
-    hash = 43 * hash + this.x;
-    hash = 43 * hash + this.y;
+    hash = 43 * hash + (int) (this.x ^ (this.x >>> 32));
+    hash = 43 * hash + (int) (this.y ^ (this.y >>> 32));
     return hash;
   }
   
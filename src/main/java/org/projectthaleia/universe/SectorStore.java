@@ -0,0 +1,130 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2011 Simon Hardijanto
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.projectthaleia.universe;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the star systems of paged out sectors of a {@link Galaxy} in files,
+ * one file per sector, in the compact form of 
+ * {@link StarSystem#writeTo(java.io.DataOutput)}.
+ * <p>
+ * The files are temporary and deleted when the JVM exits. Not thread safe.
+ * </p>
+ * @author Simon Hardijanto
+ */
+class SectorStore
+{
+  /**
+   * Creates a store in a new temporary directory. The directory is only 
+   * created once the first sector is written.
+   */
+  SectorStore()
+  {
+    this(null);
+  }
+  
+  /**
+   * Creates a store in an existing directory.
+   * @param _directory the directory or <strong>null</strong> for a new 
+   * temporary one
+   */
+  SectorStore(final File _directory)
+  {
+    this.directory = _directory;
+  }
+  
+  /**
+   * Writes the star systems of a sector, replacing what was written before.
+   * @param _sector the index of the sector
+   * @param _starSystems the systems. None may be {@link StarSystem#isInUse() in use}.
+   * @throws UncheckedIOException if writing fails
+   */
+  void write(final int _sector, final List<StarSystem> _starSystems)
+  {
+    final File file = this.fileOf(_sector);
+    try (DataOutputStream out = new DataOutputStream(
+            new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE))) {
+      out.writeInt(_starSystems.size());
+      for (StarSystem system : _starSystems) {
+        system.writeTo(out);
+      }
+    } catch (IOException ex) {
+      throw new UncheckedIOException("Cannot write sector " + _sector + " to " + file, ex);
+    }
+    file.deleteOnExit();
+  }
+  
+  /**
+   * Reads the star systems of a sector as they were written last.
+   * @param _sector the index of the sector
+   * @return new star systems in the order they were written
+   * @throws UncheckedIOException if reading fails, e.g. because the sector 
+   * was never written
+   */
+  List<StarSystem> read(final int _sector)
+  {
+    final File file = this.fileOf(_sector);
+    try (DataInputStream in = new DataInputStream(
+            new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE))) {
+      final int count = in.readInt();
+      final List<StarSystem> result = new ArrayList<StarSystem>(count);
+      for (int i = 0; i < count; ++i) {
+        result.add(StarSystem.readFrom(in));
+      }
+      return result;
+    } catch (IOException ex) {
+      throw new UncheckedIOException("Cannot read sector " + _sector + " from " + file, ex);
+    }
+  }
+  
+  //---------------- PRIVATE ----------------
+  private static final int BUFFER_SIZE = 1 << 16;
+  
+  private File directory;
+  
+  private File fileOf(final int _sector)
+  {
+    if (this.directory == null) {
+      try {
+        this.directory = Files.createTempDirectory("thaleia-sectors").toFile();
+      } catch (IOException ex) {
+        throw new UncheckedIOException("Cannot create directory for sectors.", ex);
+      }
+      this.directory.deleteOnExit();
+    }
+    return new File(this.directory, "sector-" + _sector + ".bin");
+  }
+}
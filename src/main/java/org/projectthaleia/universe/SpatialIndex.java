@@ -0,0 +1,345 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2011 Simon Hardijanto
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.projectthaleia.universe;
+
+import java.util.Arrays;
+import org.projectthaleia.core.Immutable;
+
+/**
+ * Finds the objects of a star system by their position without looking at 
+ * all of them. The objects are sorted into a uniform grid over their 
+ * bounding box with about {@link #ITEMS_PER_CELL} objects per cell, so a 
+ * query only looks at the cells it overlaps.
+ * <p>
+ * The index knows objects only by their number, i.e. their index in the 
+ * arrays of coordinates it was built from. Queries return the numbers of 
+ * the objects found. Positions don't change after building, so an index 
+ * is built anew for every state it is asked about.
+ * </p>
+ * @author Simon Hardijanto
+ */
+@Immutable
+public final class SpatialIndex
+{
+  public static final SpatialIndex EMPTY = new SpatialIndex(new double[0], new double[0]);
+  
+  /**
+   * Indexes a set of points.
+   * @param _xs the x coordinates of the objects
+   * @param _ys the y coordinates of the objects. As many as x coordinates.
+   */
+  public SpatialIndex(final double[] _xs, final double[] _ys)
+  {
+    if (_xs.length != _ys.length) {
+      throw new IllegalArgumentException("Need as many x as y coordinates. Were " 
+              + _xs.length + " and " + _ys.length);
+    }
+    
+    final int count = _xs.length;
+    double minX = Double.POSITIVE_INFINITY;
+    double minY = Double.POSITIVE_INFINITY;
+    double maxX = Double.NEGATIVE_INFINITY;
+    double maxY = Double.NEGATIVE_INFINITY;
+    for (int i = 0; i < count; ++i) {
+      minX = Math.min(minX, _xs[i]);
+      minY = Math.min(minY, _ys[i]);
+      maxX = Math.max(maxX, _xs[i]);
+      maxY = Math.max(maxY, _ys[i]);
+    }
+    
+    final int side = Math.max(1, (int) Math.ceil(Math.sqrt((double) count / ITEMS_PER_CELL)));
+    this.columns = side;
+    this.rows = side;
+    this.minX = count == 0 ? 0 : minX;
+    this.minY = count == 0 ? 0 : minY;
+    this.cellWidth = count == 0 || maxX == minX ? 1 : (maxX - minX) / side;
+    this.cellHeight = count == 0 || maxY == minY ? 1 : (maxY - minY) / side;
+    
+    // counting sort by cell, so the objects of a cell are next to each other
+    final int[] cells = new int[count];
+    this.cellStarts = new int[this.columns * this.rows + 1];
+    for (int i = 0; i < count; ++i) {
+      cells[i] = this.cellOf(this.columnOf(_xs[i]), this.rowOf(_ys[i]));
+      ++this.cellStarts[cells[i] + 1];
+    }
+    for (int c = 0; c < this.columns * this.rows; ++c) {
+      this.cellStarts[c + 1] += this.cellStarts[c];
+    }
+    final int[] next = Arrays.copyOf(this.cellStarts, this.cellStarts.length - 1);
+    this.ids = new int[count];
+    this.xs = new double[count];
+    this.ys = new double[count];
+    for (int i = 0; i < count; ++i) {
+      final int slot = next[cells[i]]++;
+      this.ids[slot] = i;
+      this.xs[slot] = _xs[i];
+      this.ys[slot] = _ys[i];
+    }
+  }
+  
+  /**
+   * The number of indexed objects.
+   * @return the number of objects. Is never negative.
+   */
+  public int size()
+  {
+    return this.ids.length;
+  }
+  
+  /**
+   * Finds all objects within a rectangle, including its border.
+   * @return the numbers of the objects in ascending order
+   */
+  public int[] findInRectangle(final double _minX, final double _minY, 
+                               final double _maxX, final double _maxY)
+  {
+    final IdBuffer result = new IdBuffer();
+    if (this.size() == 0 || _minX > _maxX || _minY > _maxY) {
+      return result.toSortedArray();
+    }
+    
+    final int firstColumn = this.columnOf(_minX);
+    final int lastColumn = this.columnOf(_maxX);
+    final int firstRow = this.rowOf(_minY);
+    final int lastRow = this.rowOf(_maxY);
+    for (int row = firstRow; row <= lastRow; ++row) {
+      for (int column = firstColumn; column <= lastColumn; ++column) {
+        final int cell = this.cellOf(column, row);
+        for (int i = this.cellStarts[cell]; i < this.cellStarts[cell + 1]; ++i) {
+          if (this.xs[i] >= _minX && this.xs[i] <= _maxX 
+                  && this.ys[i] >= _minY && this.ys[i] <= _maxY) {
+            result.add(this.ids[i]);
+          }
+        }
+      }
+    }
+    return result.toSortedArray();
+  }
+  
+  /**
+   * Finds all objects within a distance of a point, including those right 
+   * at that distance.
+   * @param _radius the distance. Must not be negative.
+   * @return the numbers of the objects in ascending order
+   */
+  public int[] findWithin(final double _x, final double _y, final double _radius)
+  {
+    if (_radius < 0) {
+      throw new IllegalArgumentException("Radius must not be negative. Was " + _radius);
+    }
+    
+    final IdBuffer result = new IdBuffer();
+    if (this.size() == 0) {
+      return result.toSortedArray();
+    }
+    
+    final double radiusSquared = _radius * _radius;
+    final int firstColumn = this.columnOf(_x - _radius);
+    final int lastColumn = this.columnOf(_x + _radius);
+    final int firstRow = this.rowOf(_y - _radius);
+    final int lastRow = this.rowOf(_y + _radius);
+    for (int row = firstRow; row <= lastRow; ++row) {
+      for (int column = firstColumn; column <= lastColumn; ++column) {
+        final int cell = this.cellOf(column, row);
+        for (int i = this.cellStarts[cell]; i < this.cellStarts[cell + 1]; ++i) {
+          final double dx = this.xs[i] - _x;
+          final double dy = this.ys[i] - _y;
+          if (dx*dx + dy*dy <= radiusSquared) {
+            result.add(this.ids[i]);
+          }
+        }
+      }
+    }
+    return result.toSortedArray();
+  }
+  
+  /**
+   * Finds the objects closest to a point. Searches the cells in rings 
+   * around the point until no closer object can be left outside.
+   * @param _count the number of objects to find. Must not be negative.
+   * @return the numbers of at most <code>_count</code> objects, the closest 
+   * first. Objects at the same distance are ordered by number.
+   */
+  public int[] findNearest(final double _x, final double _y, final int _count)
+  {
+    if (_count < 0) {
+      throw new IllegalArgumentException("Cannot find a negative number of objects. Was " 
+              + _count);
+    }
+    
+    final int count = Math.min(_count, this.size());
+    final int[] nearest = new int[count];
+    final double[] distances = new double[count];
+    int found = 0;
+    if (count == 0) {
+      return nearest;
+    }
+    
+    final int centerColumn = this.columnOf(_x);
+    final int centerRow = this.rowOf(_y);
+    for (int ring = 0; ; ++ring) {
+      final int firstColumn = centerColumn - ring;
+      final int lastColumn = centerColumn + ring;
+      final int firstRow = centerRow - ring;
+      final int lastRow = centerRow + ring;
+      for (int row = Math.max(0, firstRow); row <= Math.min(this.rows - 1, lastRow); ++row) {
+        final boolean isEdgeRow = row == firstRow || row == lastRow;
+        for (int column = Math.max(0, firstColumn); 
+                column <= Math.min(this.columns - 1, lastColumn); ++column) {
+          // the inside of the ring has been searched already
+          if (!isEdgeRow && column != firstColumn && column != lastColumn) {
+            continue;
+          }
+          final int cell = this.cellOf(column, row);
+          for (int i = this.cellStarts[cell]; i < this.cellStarts[cell + 1]; ++i) {
+            final double dx = this.xs[i] - _x;
+            final double dy = this.ys[i] - _y;
+            found = insert(nearest, distances, found, this.ids[i], dx*dx + dy*dy);
+          }
+        }
+      }
+      
+      final boolean coversGrid = firstColumn <= 0 && firstRow <= 0 
+              && lastColumn >= this.columns - 1 && lastRow >= this.rows - 1;
+      if (coversGrid || (found == count 
+              && distances[count - 1] < this.squaredGapAround(_x, _y, ring))) {
+        return nearest;
+      }
+    }
+  }
+  
+  //---------------- PRIVATE ----------------
+  /** The average number of objects in a cell the grid is laid out for */
+  private static final int ITEMS_PER_CELL = 2;
+  
+  private final int columns;
+  private final int rows;
+  private final double minX;
+  private final double minY;
+  private final double cellWidth;
+  private final double cellHeight;
+  /** Where the objects of each cell start in the arrays below */
+  private final int[] cellStarts;
+  /** The numbers and coordinates of the objects, sorted by cell */
+  private final int[] ids;
+  private final double[] xs;
+  private final double[] ys;
+  
+  private int columnOf(final double _x)
+  {
+    final double column = Math.floor((_x - this.minX) / this.cellWidth);
+    return (int) Math.max(0, Math.min(this.columns - 1, column));
+  }
+  
+  private int rowOf(final double _y)
+  {
+    final double row = Math.floor((_y - this.minY) / this.cellHeight);
+    return (int) Math.max(0, Math.min(this.rows - 1, row));
+  }
+  
+  private int cellOf(final int _column, final int _row)
+  {
+    return _row * this.columns + _column;
+  }
+  
+  /**
+   * The squared distance from a point to the closest cell outside of the 
+   * cells searched so far. Sides on the border of the grid have nothing 
+   * beyond them.
+   */
+  private double squaredGapAround(final double _x, final double _y, final int _ring)
+  {
+    final int centerColumn = this.columnOf(_x);
+    final int centerRow = this.rowOf(_y);
+    double gap = Double.POSITIVE_INFINITY;
+    if (centerColumn - _ring > 0) {
+      gap = Math.min(gap, _x - (this.minX + (centerColumn - _ring) * this.cellWidth));
+    }
+    if (centerColumn + _ring < this.columns - 1) {
+      gap = Math.min(gap, this.minX + (centerColumn + _ring + 1) * this.cellWidth - _x);
+    }
+    if (centerRow - _ring > 0) {
+      gap = Math.min(gap, _y - (this.minY + (centerRow - _ring) * this.cellHeight));
+    }
+    if (centerRow + _ring < this.rows - 1) {
+      gap = Math.min(gap, this.minY + (centerRow + _ring + 1) * this.cellHeight - _y);
+    }
+    return gap < 0 ? 0 : gap * gap;
+  }
+  
+  /**
+   * Inserts an object into the sorted list of the closest ones found so far
+   * if it is closer than the last one.
+   * @return the new number of objects in the list
+   */
+  private static int insert(final int[] _ids, final double[] _distances, 
+                            final int _found, final int _id, final double _distance)
+  {
+    int i = _found;
+    if (i == _ids.length) {
+      if (!isCloser(_distance, _id, _distances[i - 1], _ids[i - 1])) {
+        return _found;
+      }
+      --i;
+    }
+    while (i > 0 && isCloser(_distance, _id, _distances[i - 1], _ids[i - 1])) {
+      _ids[i] = _ids[i - 1];
+      _distances[i] = _distances[i - 1];
+      --i;
+    }
+    _ids[i] = _id;
+    _distances[i] = _distance;
+    return Math.min(_found + 1, _ids.length);
+  }
+  
+  private static boolean isCloser(final double _distance, final int _id, 
+                                  final double _otherDistance, final int _otherId)
+  {
+    return _distance < _otherDistance || (_distance == _otherDistance && _id < _otherId);
+  }
+  
+  /**
+   * Collects the numbers of found objects.
+   */
+  private static class IdBuffer
+  {
+    void add(final int _id)
+    {
+      if (this.size == this.ids.length) {
+        this.ids = Arrays.copyOf(this.ids, Math.max(8, 2*this.size));
+      }
+      this.ids[this.size++] = _id;
+    }
+    
+    int[] toSortedArray()
+    {
+      final int[] result = Arrays.copyOf(this.ids, this.size);
+      Arrays.sort(result);
+      return result;
+    }
+    
+    private int[] ids = new int[0];
+    private int size;
+  }
+}
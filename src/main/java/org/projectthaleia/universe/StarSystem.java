@@ -25,15 +25,41 @@ package org.projectthaleia.universe;
 
 import com.google.inject.Inject;
 import com.google.inject.assistedinject.Assisted;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.projectthaleia.core.StateHash;
+import org.projectthaleia.core.TickPhase;
+import org.projectthaleia.core.TickProfiler;
+import org.projectthaleia.core.Timeline;
+import org.projectthaleia.spaceprobes.FleetMovement;
+import org.projectthaleia.spaceprobes.ISpaceProbeGroupStartedListener;
 import org.projectthaleia.spaceprobes.SpaceProbeGroup;
+import org.projectthaleia.universe.planet.OrbitStore;
 import org.projectthaleia.universe.planet.Planet;
 import org.projectthaleia.universe.sun.Sun;
 
 /**
- *
+ * A sun, or two, with its planets, moons and the space probe groups in it.
+ * <p>
+ * A system with nothing going on is dormant: nobody is watching it and none 
+ * of its space probe groups is moving. Colonies don't keep a system awake, 
+ * their buildings are finished by the timeline of the game. Updates of a 
+ * dormant system only defer the passed game time in its {@link OrbitStore}.
+ * Its planets catch up on it in one step during the first update after 
+ * something wakes the system up, e.g. a new listener. Until then reading a 
+ * planet computes where it is at the current game time on demand, so 
+ * dormancy can't be told from the outside. Catching up only ever happens on
+ * the thread that updates the system.
+ * </p>
  * @author Simon Hardijanto
  */
 public class StarSystem
@@ -68,16 +94,51 @@ public class StarSystem
   }
 
   /**
-   * Adds a new planet to the system.
-   * @param _planet the new planet. Must not be already present in the system.
+   * Adds a new planet to the system. Its orbit is moved into the 
+   * {@link OrbitStore} of the system.
+   * @param _planet the new planet. Must not be already present in this or 
+   * any other system.
    */
   public void addPlanet(final Planet _planet)
   {
+    this.catchUp();
+    this.orbits.add(_planet);
     this.planets.add(_planet);
+    this.isStateHashStale = true;
+    if (this.timeline != null) {
+      _planet.setTimeline(this.timeline);
+    }
+    this.planetIndex = null;
+    this.publishSnapshotIfObserved();
   }
   
   /**
-   * A list of planets present in the system.
+   * Adds a moon that orbits a planet of the system.
+   * @param _planet the planet the moon orbits. Must be in the system.
+   * @param _moon the new moon. Must not be already present in this or any 
+   * other system.
+   */
+  public void addMoon(final Planet _planet, final Planet _moon)
+  {
+    if (!this.planets.contains(_planet)) {
+      throw new IllegalArgumentException("Cannot add moon " + _moon 
+              + " to planet " + _planet + " which is not in " + this);
+    }
+    this.catchUp();
+    this.orbits.add(_moon, _planet);
+    this.planets.add(_moon);
+    this.isStateHashStale = true;
+    if (this.timeline != null) {
+      _moon.setTimeline(this.timeline);
+    }
+    this.planetIndex = null;
+    this.publishSnapshotIfObserved();
+  }
+  
+  /**
+   * A list of planets present in the system. Planets come before their moons.
+   * The planets of a dormant system report where they are at the current 
+   * game time, see the class documentation.
    * @return the list of all planets.
    */
   public List<Planet> getPlanets()
@@ -94,24 +155,145 @@ public class StarSystem
     return this.sun;
   }
   
+  /**
+   * The second sun of a binary system.
+   * @return the second sun or <strong>null</strong> if the system only has one
+   */
+  public Sun getCompanionStar()
+  {
+    return this.companionStar;
+  }
+  
+  /**
+   * Turns the system into a binary system. Both suns orbit the center of the 
+   * system, their barycenter, on opposite sides, and so do all planets that 
+   * aren't moons.
+   * @param _companionStar the second sun
+   * @param _separation the distance between both suns in km
+   * @param _orbitalPeriod the time the suns take for one orbit in days
+   * @param _massRatio the mass of the companion divided by the mass of the 
+   * primary sun. Between 0 (exclusive) and 1.
+   */
+  public void setCompanionStar(final Sun _companionStar, final long _separation, 
+          final int _orbitalPeriod, final float _massRatio)
+  {
+    if (_companionStar == null) {
+      throw new NullPointerException("Companion star of " + this 
+              + " must not be null.");
+    }
+    if (this.companionStar != null) {
+      throw new IllegalStateException(this + " already has a companion star.");
+    }
+    if (_massRatio <= 0 || _massRatio > 1) {
+      throw new IllegalArgumentException("Mass ratio of the suns of " + this 
+              + " has to be between 0 (exclusive) and 1. Was " + _massRatio);
+    }
+    
+    this.catchUp();
+    // the heavier sun is closer to the barycenter
+    final long primaryDistance = Math.max(1, Math.round(_separation * (double) _massRatio / (1 + _massRatio)));
+    final long companionDistance = Math.max(1, _separation - primaryDistance);
+    this.sunOrbit = this.orbits.addOrbit(primaryDistance, _orbitalPeriod, Math.PI);
+    this.companionStarOrbit = this.orbits.addOrbit(companionDistance, _orbitalPeriod, 0);
+    this.companionStar = _companionStar;
+    this.isStateHashStale = true;
+    this.publishSnapshotIfObserved();
+  }
+  
   /**
    * Updates all objects in the system a certain step in time.
    * @param _delta the number of seconds (game time) passed since the last update
    */
   public void update(long _delta)
   {
-    for (Planet p : this.planets) {
-      p.update(_delta);
+    this.update(_delta, UNPROFILED);
+  }
+  
+  /**
+   * Updates all objects in the system a certain step in time and measures 
+   * how long each kind of object took.
+   * @param _delta the number of seconds (game time) passed since the last update
+   * @param _profiler receives the measurements
+   */
+  public void update(final long _delta, final TickProfiler _profiler)
+  {
+    if (this.wakeUpRequested) {
+      // cleared first, so requests made while applying wait for the next update
+      this.wakeUpRequested = false;
+      this.applyListenerChanges();
+    }
+    if (!this.isActive()) {
+      this.orbits.defer(_delta);
+      return;
     }
+    this.catchUp();
     
+    long start = _profiler.start();
+    this.orbits.update(_delta);
+    _profiler.stop(TickPhase.PLANETS, start);
+    this.planetIndex = null;
+    this.spaceProbeGroupIndex = null;
+    
+    start = _profiler.start();
+    boolean hasActiveGroups = false;
     for (SpaceProbeGroup spg : this.spaceProbeGroups) {
       spg.update(_delta);
+      // a group that just stopped still has to settle at its position
+      hasActiveGroups = hasActiveGroups || !spg.isStopped() || spg.hasMoved();
     }
+    this.hasActiveGroups = hasActiveGroups;
+    _profiler.stop(TickPhase.SPACE_PROBE_GROUPS, start);
+    
+    start = _profiler.start();
+    this.publishSnapshotIfObserved();
+    this.deliverChanges(true);
+    _profiler.stop(TickPhase.SNAPSHOTS, start);
     
+    this.stateHash = this.hashState();
+    this.isStateHashStale = false;
+  }
+  
+  /**
+   * A hash of the state of all planets and space probe groups. Systems that 
+   * went through the same updates from the same start have the same hash. 
+   * The planets are hashed by their orbits and the game time, see 
+   * {@link OrbitStore#hashState(long)}, so a dormant system has the same 
+   * hash as one that was watched all the time. Only for the thread that 
+   * updates the system.
+   * @return the hash
+   * @see StateHash
+   */
+  public long getStateHash()
+  {
+    return StateHash.mix(this.getTimelessStateHash(), this.orbits.getGameTime());
+  }
+  
+  /**
+   * Is the system dormant, i.e. have updates been skipped since its planets 
+   * were last moved?
+   * @return <strong>true</strong> if the planets have to catch up before 
+   * they are current
+   */
+  public boolean isDormant()
+  {
+    return this.orbits.hasDeferredTime();
   }
   
   /**
-   * Adds a group of space probes to the system.
+   * The state of the system's planets and space probe groups as of the last 
+   * update. Can be read from any thread without locking. Only kept current 
+   * while there are {@link IStarSystemChangedListener}s, i.e. while someone is 
+   * watching the system.
+   * @return the latest snapshot. Is never null.
+   */
+  public StarSystemSnapshot getSnapshot()
+  {
+    return this.snapshot;
+  }
+  
+  /**
+   * Adds a group of space probes to the system. Listeners are told at the 
+   * end of the next update.
    * @param _group the created or moved group
    */
   public void addSpaceProbeGroup(final SpaceProbeGroup _group)
@@ -121,16 +303,26 @@ public class StarSystem
               + "in " + this);
     }
     
+    this.catchUp();
     this.spaceProbeGroups.add(_group);
+    this.spaceProbeGroupIndex = null;
+    this.isStateHashStale = true;
+    _group.setStartedListener(this.groupStartedListener);
+    if (!_group.isStopped() || _group.hasMoved()) {
+      this.hasActiveGroups = true;
+    }
+    if (this.fleetMovement != null) {
+      this.fleetMovement.attach(_group);
+    }
     
-    //notify listeners
-    for (IStarSystemChangedListener listener : this.starSystemChangedListeners) {
-      listener.spaceProbeGroupAdded(_group);
+    if (this.isObserved()) {
+      this.addedSpaceProbeGroups.add(_group);
     }
   }
   
   /**
-   * Removes a group of space probes from the system.
+   * Removes a group of space probes from the system. Listeners are told at 
+   * the end of the next update.
    * @param _group the deleted or removed group
    */
   public void removeSpaceProbeGroup(final SpaceProbeGroup _group)
@@ -146,10 +338,16 @@ public class StarSystem
       throw new IllegalArgumentException("Trying to remove space probe group in " 
               + this + " that is not present in this star system.");
     }
+    this.spaceProbeGroupIndex = null;
+    this.isStateHashStale = true;
+    _group.setStartedListener(null);
+    if (this.fleetMovement != null) {
+      this.fleetMovement.detach(_group);
+    }
 
-    //notify listeners
-    for (IStarSystemChangedListener listener : this.starSystemChangedListeners) {
-      listener.spaceProbeGroupRemoved(_group);
+    // a group added since the last update is simply forgotten
+    if (this.isObserved() && !this.addedSpaceProbeGroups.remove(_group)) {
+      this.removedSpaceProbeGroups.add(_group);
     }
   }
   
@@ -162,8 +360,63 @@ public class StarSystem
     return Collections.unmodifiableList(this.spaceProbeGroups);
   }
 
+  /**
+   * Finds the planets and moons within a distance of a position, e.g. in 
+   * sensor range. Uses a {@link SpatialIndex} of the positions as of the last
+   * update or change of the system. Only for the thread that updates the 
+   * system.
+   * @param _center the position
+   * @param _radius the distance in km. Must not be negative.
+   * @return the planets in the order of {@link #getPlanets()}
+   */
+  public List<Planet> findPlanetsWithin(final Position _center, final long _radius)
+  {
+    final int[] found = this.getPlanetIndex().findWithin(_center.x, _center.y, _radius);
+    final List<Planet> result = new ArrayList<Planet>(found.length);
+    for (int i : found) {
+      result.add(this.planets.get(i));
+    }
+    return result;
+  }
+  
+  /**
+   * Finds the space probe groups within a distance of a position, e.g. for
+   * detecting encounters. Groups that have not been placed are never found.
+   * Only for the thread that updates the system.
+   * @param _center the position
+   * @param _radius the distance in km. Must not be negative.
+   * @return the groups in the order of {@link #getSpaceProbeGroups()}
+   */
+  public List<SpaceProbeGroup> findSpaceProbeGroupsWithin(final Position _center, 
+                                                          final long _radius)
+  {
+    return this.toSpaceProbeGroups(
+            this.getSpaceProbeGroupIndex().findWithin(_center.x, _center.y, _radius));
+  }
+  
+  /**
+   * Finds the space probe groups closest to a position. Groups that have not 
+   * been placed are never found. Only for the thread that updates the system.
+   * @param _center the position
+   * @param _count the number of groups to find. Must not be negative.
+   * @return at most <code>_count</code> groups, the closest first
+   */
+  public List<SpaceProbeGroup> findNearestSpaceProbeGroups(final Position _center, 
+                                                           final int _count)
+  {
+    return this.toSpaceProbeGroups(
+            this.getSpaceProbeGroupIndex().findNearest(_center.x, _center.y, _count));
+  }
+  
   /**
    * Adds a listener who needs to be notified about changes in the system.
+   * Can be called from any thread, the listener is added by the thread that 
+   * updates the system at the start of its next update. From then on the 
+   * system publishes a snapshot at the end of every update, the first one 
+   * included. The listener is first told about the groups already in the 
+   * system, as if they had just been added, and after that only about 
+   * changes after it was added; changes still waiting for the next update go 
+   * to the other listeners first.
    * @param _listener the new listener
    */
   public void addStarSystemChangedListener(final IStarSystemChangedListener _listener)
@@ -172,11 +425,14 @@ public class StarSystem
       throw new NullPointerException("IStarSystemChangedListener being added to "
               + this + " must not be null.");
     }
-    this.starSystemChangedListeners.add(_listener);
+    this.listenerChanges.add(new ListenerChange(_listener, true));
+    this.wakeUpRequested = true;
   }
   
   /**
-   * Removes a subscribed listener.
+   * Removes a subscribed listener. Can be called from any thread, the 
+   * listener is removed at the start of the next update and may be told 
+   * about changes until then.
    * @param _listener the listener to be removed
    */
   public void removeStarSystemChangedListener(final IStarSystemChangedListener _listener)
@@ -185,7 +441,8 @@ public class StarSystem
       throw new NullPointerException("IStarSystemChangedListener being removed "
               + "from " + this + " must not be null.");
     }
-    this.starSystemChangedListeners.remove(_listener);
+    this.listenerChanges.add(new ListenerChange(_listener, false));
+    this.wakeUpRequested = true;
   }
   
   /**
@@ -202,28 +459,457 @@ public class StarSystem
     return result;
   }
   
+  /**
+   * Creates a solar system with a random sun and a random number of planets 
+   * and moons. Some systems have two suns.
+   * @param _random the source of all random decisions
+   * @return the star system
+   */
+  public static StarSystem generateStarSystem(final Random _random)
+  {
+    final StarSystem result = new StarSystem("System " + (_random.nextInt(9000) + 1000), 
+                                             Sun.generateSun(_random));
+    if (_random.nextInt(BINARY_SYSTEM_ODDS) == 0) {
+      result.setCompanionStar(Sun.generateSun(_random), 5 + _random.nextInt(20), 
+              10 + _random.nextInt(50), 0.2f + 0.8f * _random.nextFloat());
+    }
+    final int planets = 1 + _random.nextInt(8);
+    // created right in the store of the system instead of being moved there
+    for (int i = 0; i < planets; ++i) {
+      final Planet planet = Planet.generatePlanet(_random, result.orbits);
+      result.planets.add(planet);
+      final int moons = _random.nextInt(3);
+      for (int j = 0; j < moons; ++j) {
+        result.planets.add(Planet.generateMoon(_random, planet));
+      }
+    }
+    return result;
+  }
+  
   //------------ PACKAGE PRIVATE ------------
   @Inject
   StarSystem(@Assisted String _name, @Assisted final Sun _sun)
   {
-    this.name = _name;
-    this.sun = _sun;
-    this.planets = new ArrayList<Planet>();
-    this.spaceProbeGroups = new ArrayList<SpaceProbeGroup>();
+    this(_name, _sun, new OrbitStore(), new ArrayList<Planet>());
+  }
+  
+  /**
+   * Is anything going on in the system that its objects have to be kept in
+   * memory for? That are listeners, space probe groups and colonies, which
+   * are referred to from outside of the system.
+   * @return <strong>false</strong> if the system only consists of its suns 
+   * and planets
+   */
+  boolean isInUse()
+  {
+    if (this.isObserved() || !this.spaceProbeGroups.isEmpty()) {
+      return true;
+    }
+    for (Planet planet : this.planets) {
+      if (!planet.getColonies().isEmpty()) {
+        return true;
+      }
+    }
+    return false;
+  }
+  
+  /**
+   * The state hash without the game time the planets are at. Paged out 
+   * systems are hashed from it, see {@link #getStateHash()}.
+   * @return the hash
+   */
+  long getTimelessStateHash()
+  {
+    if (this.isStateHashStale) {
+      this.stateHash = this.hashState();
+      this.isStateHashStale = false;
+    }
+    return this.stateHash;
+  }
+  
+  /**
+   * The game time the planets of the system are at, including the time a 
+   * dormant system has not caught up on.
+   * @return the game time since the start in seconds
+   */
+  long getGameTime()
+  {
+    return this.orbits.getGameTime();
+  }
+  
+  /**
+   * Hands the space probe groups of the system, present and future ones, to 
+   * a fleet movement that moves them together with the groups of other 
+   * systems.
+   * @param _fleetMovement the movement. The system must not have another one.
+   */
+  void setFleetMovement(final FleetMovement _fleetMovement)
+  {
+    if (_fleetMovement == null) {
+      throw new NullPointerException("Fleet movement of " + this + " must not be null.");
+    }
+    if (this.fleetMovement != null && this.fleetMovement != _fleetMovement) {
+      throw new IllegalStateException(this + " already has a fleet movement.");
+    }
+    this.fleetMovement = _fleetMovement;
+    for (SpaceProbeGroup group : this.spaceProbeGroups) {
+      _fleetMovement.attach(group);
+    }
+  }
+  
+  /**
+   * Puts the colonies on the planets of the system, present and future ones,
+   * on the timeline of the game.
+   * @param _timeline the timeline. Must not be null.
+   */
+  void setTimeline(final Timeline _timeline)
+  {
+    if (_timeline == null) {
+      throw new NullPointerException("Cannot put colonies of " + this 
+              + " on no timeline.");
+    }
+    this.timeline = _timeline;
+    for (Planet planet : this.planets) {
+      planet.setTimeline(_timeline);
+    }
+  }
+  
+  /**
+   * Writes the suns and planets of the system in a compact binary form. 
+   * Space probe groups, colonies and listeners are not written, so the 
+   * system must not be {@link #isInUse() in use}.
+   * @param _out the destination
+   * @throws IOException if writing fails
+   * @see #readFrom(DataInput)
+   */
+  void writeTo(final DataOutput _out) throws IOException
+  {
+    if (this.isInUse()) {
+      throw new IllegalStateException("Cannot write " + this + " while it is in use.");
+    }
+    // a dormant system is written as it is and stays dormant
     
-    this.starSystemChangedListeners = new ArrayList<IStarSystemChangedListener>(1);
-            
-    validate();
+    _out.writeUTF(this.name);
+    this.sun.writeTo(_out);
+    _out.writeBoolean(this.companionStar != null);
+    if (this.companionStar != null) {
+      this.companionStar.writeTo(_out);
+    }
+    _out.writeInt(this.sunOrbit);
+    _out.writeInt(this.companionStarOrbit);
+    this.orbits.writeTo(_out);
+    _out.writeLong(this.getTimelessStateHash());
+  }
+  
+  /**
+   * Reads a star system written by {@link #writeTo(DataOutput)}. It 
+   * continues exactly where it was written.
+   * @param _in the source
+   * @return a new star system
+   * @throws IOException if reading fails
+   */
+  static StarSystem readFrom(final DataInput _in) throws IOException
+  {
+    final String name = _in.readUTF();
+    final Sun sun = Sun.readFrom(_in);
+    final Sun companionStar = _in.readBoolean() ? Sun.readFrom(_in) : null;
+    final int sunOrbit = _in.readInt();
+    final int companionStarOrbit = _in.readInt();
+    final OrbitStore orbits = OrbitStore.readFrom(_in);
+    
+    final StarSystem result = new StarSystem(name, sun, orbits, 
+            orbits.restorePlanets(sunOrbit, companionStarOrbit));
+    result.companionStar = companionStar;
+    result.sunOrbit = sunOrbit;
+    result.companionStarOrbit = companionStarOrbit;
+    result.stateHash = _in.readLong();
+    result.isStateHashStale = false;
+    return result;
   }
 
   //---------------- PRIVATE ----------------
+  /** Used for updates nobody measures */
+  private static final TickProfiler UNPROFILED = new TickProfiler(false);
+  /** The suns of systems with only one sun stay in the center */
+  private static final int NO_ORBIT = -1;
+  private static final double[] NO_SUN_POSITIONS = new double[0];
+  /** One in this many generated systems has two suns */
+  private static final int BINARY_SYSTEM_ODDS = 3;
+  
   private final List<Planet> planets;
+  private final OrbitStore orbits;
   private final Sun sun;
   private final List<SpaceProbeGroup> spaceProbeGroups;
+  /** Moves the groups if set, <strong>null</strong> if they move themselves */
+  private FleetMovement fleetMovement;
+  /** Finishes the buildings of the colonies if set */
+  private Timeline timeline;
+  private Sun companionStar;
+  /** The indices of the orbits of the suns in the orbit store */
+  private int sunOrbit;
+  private int companionStarOrbit;
 
+  /** Only used by the thread that updates the system */
   private final List<IStarSystemChangedListener> starSystemChangedListeners;
+  /** Listeners added and removed by other threads since the last update */
+  private final Queue<ListenerChange> listenerChanges;
+  /** 
+   * Changes since the listeners were last told. Only recorded while there 
+   * are listeners or listeners waiting to be added.
+   */
+  private final Set<SpaceProbeGroup> addedSpaceProbeGroups;
+  private final Set<SpaceProbeGroup> removedSpaceProbeGroups;
   
   private String name;
+  /** Written by the simulation, read by the graphics */
+  private volatile StarSystemSnapshot snapshot;
+  /** The hash without the game time */
+  private long stateHash;
+  /** Set when the system changed since its hash was computed */
+  private boolean isStateHashStale;
+  /** Set when listeners change on other threads, handled by the next update */
+  private volatile boolean wakeUpRequested;
+  /** 
+   * Is a group moving or settling? Set by the groups when they start and 
+   * cleared by the update that finds them all stopped.
+   */
+  private boolean hasActiveGroups;
+  /** Wakes the system up when one of its groups starts */
+  private final ISpaceProbeGroupStartedListener groupStartedListener;
+  /** Built when first queried after a change, <strong>null</strong> until then */
+  private SpatialIndex planetIndex;
+  private SpatialIndex spaceProbeGroupIndex;
+  /** The groups in the order of their numbers in the index */
+  private SpaceProbeGroup[] indexedSpaceProbeGroups;
+  
+  private StarSystem(final String _name, final Sun _sun, final OrbitStore _orbits, 
+                     final List<Planet> _planets)
+  {
+    this.name = _name;
+    this.sun = _sun;
+    this.planets = _planets;
+    this.orbits = _orbits;
+    this.spaceProbeGroups = new ArrayList<SpaceProbeGroup>();
+    this.sunOrbit = NO_ORBIT;
+    this.companionStarOrbit = NO_ORBIT;
+    
+    this.starSystemChangedListeners = new ArrayList<IStarSystemChangedListener>();
+    this.listenerChanges = new ConcurrentLinkedQueue<ListenerChange>();
+    this.addedSpaceProbeGroups = new LinkedHashSet<SpaceProbeGroup>();
+    this.removedSpaceProbeGroups = new LinkedHashSet<SpaceProbeGroup>();
+    this.snapshot = StarSystemSnapshot.EMPTY;
+    this.stateHash = StateHash.INITIAL;
+    this.isStateHashStale = true;
+    this.groupStartedListener = new ISpaceProbeGroupStartedListener() {
+      @Override
+      public void spaceProbeGroupStarted(final SpaceProbeGroup _group)
+      {
+        StarSystem.this.hasActiveGroups = true;
+      }
+    };
+            
+    validate();
+  }
+  
+  /**
+   * Does anything in the system have to be updated every tick? See the 
+   * class documentation.
+   */
+  private boolean isActive()
+  {
+    return this.hasActiveGroups || !this.starSystemChangedListeners.isEmpty();
+  }
+  
+  /**
+   * Moves everything to where it would be if the system had been updated 
+   * while it was dormant.
+   */
+  private void catchUp()
+  {
+    if (!this.orbits.hasDeferredTime()) {
+      return;
+    }
+    this.orbits.catchUp();
+    // the groups were stopped all the time, they only settle where they are
+    for (SpaceProbeGroup spg : this.spaceProbeGroups) {
+      spg.update(0);
+    }
+    this.planetIndex = null;
+    this.spaceProbeGroupIndex = null;
+    this.isStateHashStale = true;
+  }
+  
+  private long hashState()
+  {
+    long result = this.orbits.hashState(StateHash.INITIAL);
+    for (SpaceProbeGroup spg : this.spaceProbeGroups) {
+      result = spg.hashState(result);
+    }
+    return result;
+  }
+  
+  private SpatialIndex getPlanetIndex()
+  {
+    this.catchUp();
+    if (this.planetIndex == null) {
+      final double[] xs = new double[this.planets.size()];
+      final double[] ys = new double[this.planets.size()];
+      for (int i = 0; i < xs.length; ++i) {
+        xs[i] = this.planets.get(i).getX();
+        ys[i] = this.planets.get(i).getY();
+      }
+      this.planetIndex = new SpatialIndex(xs, ys);
+    }
+    return this.planetIndex;
+  }
+  
+  private SpatialIndex getSpaceProbeGroupIndex()
+  {
+    if (this.spaceProbeGroupIndex == null) {
+      // groups that have not been placed yet are left out
+      final List<SpaceProbeGroup> placed = new ArrayList<SpaceProbeGroup>(this.spaceProbeGroups.size());
+      for (SpaceProbeGroup group : this.spaceProbeGroups) {
+        if (group.getPosition() != null) {
+          placed.add(group);
+        }
+      }
+      final double[] xs = new double[placed.size()];
+      final double[] ys = new double[placed.size()];
+      for (int i = 0; i < xs.length; ++i) {
+        xs[i] = placed.get(i).getPosition().x;
+        ys[i] = placed.get(i).getPosition().y;
+      }
+      this.indexedSpaceProbeGroups = placed.toArray(new SpaceProbeGroup[placed.size()]);
+      this.spaceProbeGroupIndex = new SpatialIndex(xs, ys);
+    }
+    return this.spaceProbeGroupIndex;
+  }
+  
+  private List<SpaceProbeGroup> toSpaceProbeGroups(final int[] _found)
+  {
+    final List<SpaceProbeGroup> result = new ArrayList<SpaceProbeGroup>(_found.length);
+    for (int i : _found) {
+      result.add(this.indexedSpaceProbeGroups[i]);
+    }
+    return result;
+  }
+  
+  /**
+   * Tells the listeners what changed since they were last told, if anything.
+   * @param _afterUpdate are the groups that moved during the update part of
+   * the changes?
+   */
+  private void deliverChanges(final boolean _afterUpdate)
+  {
+    if (this.starSystemChangedListeners.isEmpty()) {
+      return;
+    }
+    
+    final List<SpaceProbeGroup> moved = new ArrayList<SpaceProbeGroup>();
+    if (_afterUpdate) {
+      for (SpaceProbeGroup group : this.spaceProbeGroups) {
+        if (group.hasMoved() && !this.addedSpaceProbeGroups.contains(group)) {
+          moved.add(group);
+        }
+      }
+    }
+    if (moved.isEmpty() && this.addedSpaceProbeGroups.isEmpty() 
+            && this.removedSpaceProbeGroups.isEmpty()) {
+      return;
+    }
+    
+    final StarSystemChanges changes = new StarSystemChanges(
+            new ArrayList<SpaceProbeGroup>(this.addedSpaceProbeGroups), 
+            new ArrayList<SpaceProbeGroup>(this.removedSpaceProbeGroups), moved);
+    this.addedSpaceProbeGroups.clear();
+    this.removedSpaceProbeGroups.clear();
+    for (IStarSystemChangedListener listener : this.starSystemChangedListeners) {
+      listener.starSystemChanged(changes);
+    }
+  }
+  
+  /**
+   * Tells a new listener about the groups that are already in the system, so 
+   * it never has to read them from another thread.
+   */
+  private void deliverCurrentState(final IStarSystemChangedListener _listener)
+  {
+    if (this.spaceProbeGroups.isEmpty()) {
+      return;
+    }
+    
+    _listener.starSystemChanged(new StarSystemChanges(
+            new ArrayList<SpaceProbeGroup>(this.spaceProbeGroups), 
+            Collections.<SpaceProbeGroup>emptyList(), Collections.<SpaceProbeGroup>emptyList()));
+  }
+  
+  /**
+   * Are there listeners, or listeners waiting to be added, that changes have 
+   * to be recorded for?
+   */
+  private boolean isObserved()
+  {
+    return !this.starSystemChangedListeners.isEmpty() || !this.listenerChanges.isEmpty();
+  }
+  
+  /**
+   * Adds and removes the listeners in the order other threads asked for it.
+   */
+  private void applyListenerChanges()
+  {
+    ListenerChange change = this.listenerChanges.poll();
+    while (change != null) {
+      if (change.isAdded) {
+        // changes from before the listener was added go to the others, the
+        // new one learns about them from the current state
+        this.deliverChanges(false);
+        this.addedSpaceProbeGroups.clear();
+        this.removedSpaceProbeGroups.clear();
+        this.starSystemChangedListeners.add(change.listener);
+        this.deliverCurrentState(change.listener);
+      } else {
+        this.starSystemChangedListeners.remove(change.listener);
+      }
+      change = this.listenerChanges.poll();
+    }
+    if (!this.isObserved()) {
+      this.addedSpaceProbeGroups.clear();
+      this.removedSpaceProbeGroups.clear();
+    }
+  }
+  
+  private void publishSnapshotIfObserved()
+  {
+    if (!this.starSystemChangedListeners.isEmpty()) {
+      this.publishSnapshot();
+    }
+  }
+  
+  private void publishSnapshot()
+  {
+    this.snapshot = StarSystemSnapshot.capture(this.planets, this.spaceProbeGroups, 
+            this.captureSunPositions());
+  }
+  
+  /**
+   * The current and previous positions of the suns in the layout of 
+   * {@link StarSystemSnapshot#capture(List, List, double[])}.
+   */
+  private double[] captureSunPositions()
+  {
+    if (this.companionStar == null) {
+      return NO_SUN_POSITIONS;
+    }
+    final int[] orbitsOfSuns = { this.sunOrbit, this.companionStarOrbit };
+    final double[] result = new double[4 * orbitsOfSuns.length];
+    for (int i = 0; i < orbitsOfSuns.length; ++i) {
+      result[4*i]     = this.orbits.getX(orbitsOfSuns[i]);
+      result[4*i + 1] = this.orbits.getY(orbitsOfSuns[i]);
+      result[4*i + 2] = this.orbits.getPreviousX(orbitsOfSuns[i]);
+      result[4*i + 3] = this.orbits.getPreviousY(orbitsOfSuns[i]);
+    }
+    return result;
+  }
   
   private void validate()
   {
@@ -232,5 +918,20 @@ public class StarSystem
               "A star system's sun must not be null. Star system: " + this);
     }
   }
+  
+  /**
+   * A listener to be added or removed by the next update.
+   */
+  private static class ListenerChange
+  {
+    ListenerChange(final IStarSystemChangedListener _listener, final boolean _isAdded)
+    {
+      this.listener = _listener;
+      this.isAdded = _isAdded;
+    }
+    
+    final IStarSystemChangedListener listener;
+    final boolean isAdded;
+  }
 
 }
@@ -0,0 +1,96 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2011 Simon Hardijanto
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.projectthaleia.universe;
+
+import java.util.Collections;
+import java.util.List;
+import org.projectthaleia.core.Immutable;
+import org.projectthaleia.spaceprobes.SpaceProbeGroup;
+
+/**
+ * All changes of a {@link StarSystem} during one update, delivered to its 
+ * {@link IStarSystemChangedListener}s at once. Changes that cancel each other
+ * out, like a group that was added and removed again, are left out.
+ * <p>
+ * Listeners should apply the removals before the additions: a group that was
+ * removed and added back is in both lists.
+ * </p>
+ * @author Simon Hardijanto
+ */
+@Immutable
+public class StarSystemChanges
+{
+  /**
+   * The groups added to the system.
+   * @return the groups in the order they were added. May be empty.
+   */
+  public List<SpaceProbeGroup> getAddedSpaceProbeGroups()
+  {
+    return this.addedSpaceProbeGroups;
+  }
+  
+  /**
+   * The groups removed from the system.
+   * @return the groups in the order they were removed. May be empty.
+   */
+  public List<SpaceProbeGroup> getRemovedSpaceProbeGroups()
+  {
+    return this.removedSpaceProbeGroups;
+  }
+  
+  /**
+   * The groups that were in the system before and changed their position 
+   * during the update.
+   * @return the groups in the order of the system. May be empty.
+   */
+  public List<SpaceProbeGroup> getMovedSpaceProbeGroups()
+  {
+    return this.movedSpaceProbeGroups;
+  }
+  
+  /**
+   * Did anything change at all?
+   * @return <strong>true</strong> if all lists are empty
+   */
+  public boolean isEmpty()
+  {
+    return this.addedSpaceProbeGroups.isEmpty() && this.removedSpaceProbeGroups.isEmpty()
+            && this.movedSpaceProbeGroups.isEmpty();
+  }
+  
+  //------------ PACKAGE PRIVATE ------------
+  StarSystemChanges(final List<SpaceProbeGroup> _added, 
+                    final List<SpaceProbeGroup> _removed, 
+                    final List<SpaceProbeGroup> _moved)
+  {
+    this.addedSpaceProbeGroups = Collections.unmodifiableList(_added);
+    this.removedSpaceProbeGroups = Collections.unmodifiableList(_removed);
+    this.movedSpaceProbeGroups = Collections.unmodifiableList(_moved);
+  }
+  
+  //---------------- PRIVATE ----------------
+  private final List<SpaceProbeGroup> addedSpaceProbeGroups;
+  private final List<SpaceProbeGroup> removedSpaceProbeGroups;
+  private final List<SpaceProbeGroup> movedSpaceProbeGroups;
+}
@@ -0,0 +1,410 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2011 Simon Hardijanto
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.projectthaleia.universe;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.projectthaleia.core.Immutable;
+import org.projectthaleia.spaceprobes.SpaceProbeGroup;
+import org.projectthaleia.universe.planet.Planet;
+
+/**
+ * The state of all moving objects of a {@link StarSystem} at the end of an 
+ * update. Published by the simulation and read by the graphics, so painting 
+ * never sees a half updated system and never has to wait for the simulation.
+ * <p>
+ * Besides the current state it records the state of the previous update to
+ * allow interpolating between both.
+ * </p>
+ * @author Simon Hardijanto
+ */
+@Immutable
+public final class StarSystemSnapshot
+{
+  public static final StarSystemSnapshot EMPTY = new StarSystemSnapshot(
+          new Planet[0], new double[0], new double[0], new double[0], new int[0],
+          new SpaceProbeGroup[0], new String[0], 
+          new long[0], new long[0], new long[0], new long[0], new double[0]);
+  
+  /**
+   * The number of planets in the system.
+   * @return the number of planets. Is never negative.
+   */
+  public int getPlanetCount()
+  {
+    return this.planets.length;
+  }
+  
+  public Planet getPlanet(final int _index)
+  {
+    return this.planets[_index];
+  }
+  
+  /**
+   * The position of a planet on its orbit.
+   * @param _index the index of the planet
+   * @return the position in radians
+   */
+  public double getPlanetPositionInRad(final int _index)
+  {
+    return this.planetPositions[_index];
+  }
+  
+  /**
+   * The position of a planet on its orbit between the previous and the 
+   * current update.
+   * @param _index the index of the planet
+   * @param _interpolation 0 for the previous, 1 for the current update
+   * @return the position in radians
+   */
+  public double getInterpolatedPlanetPositionInRad(final int _index, final float _interpolation)
+  {
+    final double previous = this.previousPlanetPositions[_index];
+    return previous + (this.planetPositions[_index] - previous) * _interpolation;
+  }
+  
+  /**
+   * The x coordinate of a planet between the previous and the current 
+   * update, relative to the center of the system.
+   * @param _index the index of the planet
+   * @param _interpolation 0 for the previous, 1 for the current update
+   * @return the x coordinate in km
+   */
+  public double getInterpolatedPlanetX(final int _index, final float _interpolation)
+  {
+    return this.interpolate(this.planetCoordinates, 4*_index, _interpolation);
+  }
+  
+  /**
+   * The y coordinate of a planet between the previous and the current 
+   * update, relative to the center of the system.
+   * @param _index the index of the planet
+   * @param _interpolation 0 for the previous, 1 for the current update
+   * @return the y coordinate in km
+   */
+  public double getInterpolatedPlanetY(final int _index, final float _interpolation)
+  {
+    return this.interpolate(this.planetCoordinates, 4*_index + 1, _interpolation);
+  }
+  
+  /**
+   * The index of the planet a moon orbits.
+   * @param _index the index of the moon
+   * @return the index of its planet or -1 if it orbits the center of the 
+   * system. Always less than the index of the moon.
+   */
+  public int getPlanetParent(final int _index)
+  {
+    return this.planetParents[_index];
+  }
+  
+  /**
+   * The x coordinate of a sun between the previous and the current update. 
+   * The sun of a system with only one sun is always in the center.
+   * @param _index 0 for the primary sun, 1 for the companion star
+   * @param _interpolation 0 for the previous, 1 for the current update
+   * @return the x coordinate in km
+   */
+  public double getInterpolatedSunX(final int _index, final float _interpolation)
+  {
+    if (4*_index >= this.sunCoordinates.length) {
+      return 0;
+    }
+    return this.interpolate(this.sunCoordinates, 4*_index, _interpolation);
+  }
+  
+  /**
+   * The y coordinate of a sun between the previous and the current update. 
+   * @param _index 0 for the primary sun, 1 for the companion star
+   * @param _interpolation 0 for the previous, 1 for the current update
+   * @return the y coordinate in km
+   * @see #getInterpolatedSunX(int, float)
+   */
+  public double getInterpolatedSunY(final int _index, final float _interpolation)
+  {
+    if (4*_index >= this.sunCoordinates.length) {
+      return 0;
+    }
+    return this.interpolate(this.sunCoordinates, 4*_index + 1, _interpolation);
+  }
+  
+  /**
+   * The number of space probe groups in the system.
+   * @return the number of groups. Is never negative.
+   */
+  public int getSpaceProbeGroupCount()
+  {
+    return this.spaceProbeGroups.length;
+  }
+  
+  public SpaceProbeGroup getSpaceProbeGroup(final int _index)
+  {
+    return this.spaceProbeGroups[_index];
+  }
+  
+  public String getSpaceProbeGroupName(final int _index)
+  {
+    return this.spaceProbeGroupNames[_index];
+  }
+  
+  public long getSpaceProbeGroupX(final int _index)
+  {
+    return this.spaceProbeGroupXs[_index];
+  }
+  
+  public long getSpaceProbeGroupY(final int _index)
+  {
+    return this.spaceProbeGroupYs[_index];
+  }
+  
+  /**
+   * The x coordinate of a group between the previous and the current update.
+   * @param _index the index of the group
+   * @param _interpolation 0 for the previous, 1 for the current update
+   * @return the x coordinate in km
+   */
+  public long getInterpolatedSpaceProbeGroupX(final int _index, final float _interpolation)
+  {
+    return Position.interpolate(this.previousSpaceProbeGroupXs[_index], 
+                                this.spaceProbeGroupXs[_index], _interpolation);
+  }
+  
+  /**
+   * The y coordinate of a group between the previous and the current update.
+   * @param _index the index of the group
+   * @param _interpolation 0 for the previous, 1 for the current update
+   * @return the y coordinate in km
+   */
+  public long getInterpolatedSpaceProbeGroupY(final int _index, final float _interpolation)
+  {
+    return Position.interpolate(this.previousSpaceProbeGroupYs[_index], 
+                                this.spaceProbeGroupYs[_index], _interpolation);
+  }
+  
+  /**
+   * Indexes the current positions of the planets. Built on first use.
+   * @return the index. The numbers of its objects are the indices of the 
+   * planets in this snapshot.
+   */
+  public SpatialIndex getPlanetIndex()
+  {
+    SpatialIndex result = this.planetIndex;
+    if (result == null) {
+      final double[] xs = new double[this.planets.length];
+      final double[] ys = new double[this.planets.length];
+      for (int i = 0; i < xs.length; ++i) {
+        xs[i] = this.planetCoordinates[4*i];
+        ys[i] = this.planetCoordinates[4*i + 1];
+      }
+      result = new SpatialIndex(xs, ys);
+      this.planetIndex = result;
+    }
+    return result;
+  }
+  
+  /**
+   * Indexes the current positions of the space probe groups. Built on first
+   * use.
+   * @return the index. The numbers of its objects are the indices of the 
+   * groups in this snapshot.
+   */
+  public SpatialIndex getSpaceProbeGroupIndex()
+  {
+    SpatialIndex result = this.spaceProbeGroupIndex;
+    if (result == null) {
+      final double[] xs = new double[this.spaceProbeGroups.length];
+      final double[] ys = new double[this.spaceProbeGroups.length];
+      for (int i = 0; i < xs.length; ++i) {
+        xs[i] = this.spaceProbeGroupXs[i];
+        ys[i] = this.spaceProbeGroupYs[i];
+      }
+      result = new SpatialIndex(xs, ys);
+      this.spaceProbeGroupIndex = result;
+    }
+    return result;
+  }
+  
+  /**
+   * Records the current state of the given objects of a system with one sun.
+   * @param _planets the planets of the system
+   * @param _spaceProbeGroups the space probe groups of the system
+   * @return the new snapshot
+   */
+  public static StarSystemSnapshot capture(final List<Planet> _planets, 
+                                           final List<SpaceProbeGroup> _spaceProbeGroups)
+  {
+    return capture(_planets, _spaceProbeGroups, new double[0]);
+  }
+  
+  /**
+   * Records the current state of the given objects.
+   * @param _planets the planets of the system. Planets have to come before 
+   * their moons.
+   * @param _spaceProbeGroups the space probe groups of the system
+   * @param _sunCoordinates for each sun that moves the current x and y and 
+   * the previous x and y coordinate in km. Empty if there is only one sun.
+   * @return the new snapshot
+   */
+  public static StarSystemSnapshot capture(final List<Planet> _planets, 
+                                           final List<SpaceProbeGroup> _spaceProbeGroups,
+                                           final double[] _sunCoordinates)
+  {
+    final int planetCount = _planets.size();
+    final Planet[] planets = new Planet[planetCount];
+    final double[] positions = new double[planetCount];
+    final double[] previousPositions = new double[planetCount];
+    final double[] coordinates = new double[4*planetCount];
+    final int[] parents = new int[planetCount];
+    Map<Planet, Integer> indices = null;
+    for (int j = 0; j < planetCount; ++j) {
+      final Planet p = _planets.get(j);
+      planets[j] = p;
+      positions[j] = p.getPositionInRad();
+      previousPositions[j] = p.getPreviousPositionInRad();
+      coordinates[4*j]     = p.getX();
+      coordinates[4*j + 1] = p.getY();
+      coordinates[4*j + 2] = p.getPreviousX();
+      coordinates[4*j + 3] = p.getPreviousY();
+      
+      final Planet parent = p.getParent();
+      parents[j] = -1;
+      if (parent != null) {
+        // only systems with moons need the lookup
+        if (indices == null) {
+          indices = new IdentityHashMap<Planet, Integer>();
+          for (int k = 0; k < j; ++k) {
+            indices.put(planets[k], k);
+          }
+        }
+        final Integer parentIndex = indices.get(parent);
+        if (parentIndex == null) {
+          throw new IllegalArgumentException("Planet " + parent + " of moon " 
+                  + p + " has to come before the moon.");
+        }
+        parents[j] = parentIndex;
+      }
+      if (indices != null) {
+        indices.put(p, j);
+      }
+    }
+    
+    // groups that have not been placed yet are left out
+    int groupCount = 0;
+    for (SpaceProbeGroup g : _spaceProbeGroups) {
+      if (g.getPosition() != null) {
+        ++groupCount;
+      }
+    }
+    final SpaceProbeGroup[] groups = new SpaceProbeGroup[groupCount];
+    final String[] names = new String[groupCount];
+    final long[] xs = new long[groupCount];
+    final long[] ys = new long[groupCount];
+    final long[] previousXs = new long[groupCount];
+    final long[] previousYs = new long[groupCount];
+    int i = 0;
+    for (SpaceProbeGroup g : _spaceProbeGroups) {
+      final Position current = g.getPosition();
+      if (current == null) {
+        continue;
+      }
+      final Position previous = g.getPreviousPosition() != null ? g.getPreviousPosition() : current;
+      groups[i] = g;
+      names[i] = g.getName();
+      xs[i] = current.x;
+      ys[i] = current.y;
+      previousXs[i] = previous.x;
+      previousYs[i] = previous.y;
+      ++i;
+    }
+    
+    return new StarSystemSnapshot(planets, positions, previousPositions, 
+                                  coordinates, parents,
+                                  groups, names, xs, ys, previousXs, previousYs,
+                                  _sunCoordinates.clone());
+  }
+  
+  //---------------- PRIVATE ----------------
+  private final Planet[] planets;
+  /** Unit: radians */
+  private final double[] planetPositions;
+  private final double[] previousPlanetPositions;
+  /** For each planet x, y, previous x and previous y. Unit: km */
+  private final double[] planetCoordinates;
+  private final int[] planetParents;
+  
+  private final SpaceProbeGroup[] spaceProbeGroups;
+  private final String[] spaceProbeGroupNames;
+  /** Unit: km */
+  private final long[] spaceProbeGroupXs;
+  private final long[] spaceProbeGroupYs;
+  private final long[] previousSpaceProbeGroupXs;
+  private final long[] previousSpaceProbeGroupYs;
+  /** For each moving sun x, y, previous x and previous y. Unit: km */
+  private final double[] sunCoordinates;
+  /** 
+   * Derived from the coordinates when first asked for. Threads that race 
+   * build equal indices, so no locking is needed.
+   */
+  private volatile SpatialIndex planetIndex;
+  private volatile SpatialIndex spaceProbeGroupIndex;
+  
+  private StarSystemSnapshot(final Planet[] _planets, 
+                             final double[] _planetPositions, 
+                             final double[] _previousPlanetPositions, 
+                             final double[] _planetCoordinates,
+                             final int[] _planetParents,
+                             final SpaceProbeGroup[] _spaceProbeGroups, 
+                             final String[] _spaceProbeGroupNames, 
+                             final long[] _spaceProbeGroupXs, 
+                             final long[] _spaceProbeGroupYs, 
+                             final long[] _previousSpaceProbeGroupXs, 
+                             final long[] _previousSpaceProbeGroupYs,
+                             final double[] _sunCoordinates)
+  {
+    this.planets = _planets;
+    this.planetPositions = _planetPositions;
+    this.previousPlanetPositions = _previousPlanetPositions;
+    this.planetCoordinates = _planetCoordinates;
+    this.planetParents = _planetParents;
+    this.spaceProbeGroups = _spaceProbeGroups;
+    this.spaceProbeGroupNames = _spaceProbeGroupNames;
+    this.spaceProbeGroupXs = _spaceProbeGroupXs;
+    this.spaceProbeGroupYs = _spaceProbeGroupYs;
+    this.previousSpaceProbeGroupXs = _previousSpaceProbeGroupXs;
+    this.previousSpaceProbeGroupYs = _previousSpaceProbeGroupYs;
+    this.sunCoordinates = _sunCoordinates;
+  }
+  
+  /**
+   * Interpolates between a current and a previous coordinate that are stored
+   * two places apart.
+   */
+  private double interpolate(final double[] _coordinates, final int _current, 
+          final float _interpolation)
+  {
+    final double previous = _coordinates[_current + 2];
+    return previous + (_coordinates[_current] - previous) * _interpolation;
+  }
+}
@@ -33,5 +33,13 @@ import org.projectthaleia.universe.Position;
 public interface IStarSystemGraphic
 {
   public void paint(final Graphics2D _g, final Position _offset);
+  /**
+   * Paints the graphic in a state between the last and the current update.
+   * @param _g the graphics context
+   * @param _offset the offset in pixels
+   * @param _interpolation 0 for the state at the last update, 1 for the 
+   * current state
+   */
+  public void paint(final Graphics2D _g, final Position _offset, final float _interpolation);
   public boolean hit(final Position _position);
 }
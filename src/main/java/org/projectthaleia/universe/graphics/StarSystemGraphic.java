@@ -26,22 +26,28 @@ package org.projectthaleia.universe.graphics;
 import com.google.inject.Inject;
 import com.google.inject.assistedinject.Assisted;
 import java.awt.Graphics2D;
-import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.projectthaleia.spaceprobes.SpaceProbeGraphicFactory;
 import org.projectthaleia.spaceprobes.SpaceProbeGroup;
 import org.projectthaleia.spaceprobes.SpaceProbeGroupGraphic;
 import org.projectthaleia.universe.IStarSystemChangedListener;
 import org.projectthaleia.universe.Position;
+import org.projectthaleia.universe.SpatialIndex;
 import org.projectthaleia.universe.StarSystem;
+import org.projectthaleia.universe.StarSystemChanges;
+import org.projectthaleia.universe.StarSystemSnapshot;
 import org.projectthaleia.universe.planet.Planet;
 import org.projectthaleia.universe.planet.PlanetGraphic;
 import org.projectthaleia.universe.sun.Sun;
 import org.projectthaleia.universe.sun.SunGraphic;
 
 /**
- *
+ * Paints a star system. Positions are always taken from the latest 
+ * {@link StarSystemSnapshot} published by the simulation, never from the 
+ * objects that are being updated at the same time. Planet graphics are 
+ * created for the planets of the snapshot, group graphics for the groups the
+ * system tells the graphic about once it is registered as a listener.
  * @author Simon Hardijanto
  */
 public class StarSystemGraphic implements IStarSystemChangedListener
@@ -49,6 +55,21 @@ public class StarSystemGraphic implements IStarSystemChangedListener
 
   // Implements IStarSystemChangedListener -------------------------------------
   @Override
+  public void starSystemChanged(final StarSystemChanges _changes)
+  {
+    for (SpaceProbeGroup group : _changes.getRemovedSpaceProbeGroups()) {
+      this.spaceProbeGroupRemoved(group);
+    }
+    for (SpaceProbeGroup group : _changes.getAddedSpaceProbeGroups()) {
+      this.spaceProbeGroupAdded(group);
+    }
+  }
+  // End of IStarSystemChangedListener -----------------------------------------
+  
+  /**
+   * Creates the graphic of a group that entered the system.
+   * @param _spaceProbeGroup the new group
+   */
   public void spaceProbeGroupAdded(final SpaceProbeGroup _spaceProbeGroup)
   {
     if (_spaceProbeGroup == null) {
@@ -57,10 +78,15 @@ public class StarSystemGraphic implements IStarSystemChangedListener
     }
     
     SpaceProbeGroupGraphic groupGraphic = this.spaceProbeGraphicFactory.create(_spaceProbeGroup);
-    this.spaceProbeGroupGraphics.add(groupGraphic);
+    if (groupGraphic != null) {
+      this.spaceProbeGroupGraphics.put(_spaceProbeGroup, groupGraphic);
+    }
   }
 
-  @Override
+  /**
+   * Drops the graphic of a group that left the system.
+   * @param _spaceProbeGroup the removed group
+   */
   public void spaceProbeGroupRemoved(final SpaceProbeGroup _spaceProbeGroup)
   {
     if (_spaceProbeGroup == null) {
@@ -68,16 +94,8 @@ public class StarSystemGraphic implements IStarSystemChangedListener
               + this + " must not be null.");
     }
 
-    for (Iterator<SpaceProbeGroupGraphic> it = this.spaceProbeGroupGraphics.iterator(); it.hasNext(); ) {
-      SpaceProbeGroupGraphic groupGraphic = it.next();
-      if (groupGraphic.getSpaceProbeGroup() == _spaceProbeGroup) {
-        it.remove();
-        break;
-      }
-    }
+    this.spaceProbeGroupGraphics.remove(_spaceProbeGroup);
   }
-
-  // End of IStarSystemChangedListener -----------------------------------------
   
   public StarSystem getStarSystem()
   {
@@ -85,6 +103,18 @@ public class StarSystemGraphic implements IStarSystemChangedListener
   }
   
   public void paint(final Graphics2D _g, final Position _offset)
+  {
+    this.paint(_g, _offset, 1.0f);
+  }
+  
+  /**
+   * Paints the system in a state between the last and the current update.
+   * @param _g the graphics context
+   * @param _offset the offset in pixels
+   * @param _interpolation 0 for the state at the last update, 1 for the 
+   * current state
+   */
+  public void paint(final Graphics2D _g, final Position _offset, final float _interpolation)
   {
     if (_g == null) {
       throw new NullPointerException("Graphics context must not be null.");
@@ -93,17 +123,44 @@ public class StarSystemGraphic implements IStarSystemChangedListener
       throw new NullPointerException("Offset must not be null.");
     }
     
-    // paint sun
-    this.sunGraphic.paint(_g, _offset);
+    final StarSystemSnapshot snapshot = this.starSystem.getSnapshot();
     
-    // paint planets
-    for (IStarSystemGraphic graphic : this.planetGraphics) {
-      graphic.paint(_g, _offset);
+    // paint suns
+    if (this.companionStarGraphic == null) {
+      this.sunGraphic.paint(_g, _offset);
+    } else {
+      this.sunGraphic.paint(_g, this.toScreen(_offset, 
+              snapshot.getInterpolatedSunX(0, _interpolation), 
+              snapshot.getInterpolatedSunY(0, _interpolation)));
+      this.companionStarGraphic.paint(_g, this.toScreen(_offset, 
+              snapshot.getInterpolatedSunX(1, _interpolation), 
+              snapshot.getInterpolatedSunY(1, _interpolation)));
+    }
+    
+    // paint planets and moons at the positions resolved by the simulation
+    for (int i = 0; i < snapshot.getPlanetCount(); ++i) {
+      final PlanetGraphic graphic = this.getPlanetGraphic(snapshot.getPlanet(i));
+      if (graphic != null) {
+        final int parent = snapshot.getPlanetParent(i);
+        final double centerX = parent < 0 ? 0 : snapshot.getInterpolatedPlanetX(parent, _interpolation);
+        final double centerY = parent < 0 ? 0 : snapshot.getInterpolatedPlanetY(parent, _interpolation);
+        graphic.paintAt(_g, _offset, 
+                (int) snapshot.getInterpolatedPlanetX(i, _interpolation),
+                (int) snapshot.getInterpolatedPlanetY(i, _interpolation),
+                (int) centerX, (int) centerY);
+      }
     }
     
     // paint space probe groups
-    for (IStarSystemGraphic group : this.spaceProbeGroupGraphics) {
-      group.paint(_g, _offset);
+    for (int i = 0; i < snapshot.getSpaceProbeGroupCount(); ++i) {
+      final SpaceProbeGroupGraphic graphic = 
+              this.spaceProbeGroupGraphics.get(snapshot.getSpaceProbeGroup(i));
+      if (graphic != null) {
+        graphic.paintAt(_g, _offset, 
+                snapshot.getInterpolatedSpaceProbeGroupX(i, _interpolation),
+                snapshot.getInterpolatedSpaceProbeGroupY(i, _interpolation),
+                snapshot.getSpaceProbeGroupName(i));
+      }
     }
   }
   
@@ -117,6 +174,9 @@ public class StarSystemGraphic implements IStarSystemChangedListener
     if (this.sunGraphic.hit(_position)) {
       return this.sunGraphic.getSun();
     }
+    if (this.companionStarGraphic != null && this.companionStarGraphic.hit(_position)) {
+      return this.companionStarGraphic.getSun();
+    }
     
     return null;
   }
@@ -128,10 +188,16 @@ public class StarSystemGraphic implements IStarSystemChangedListener
    */
   public Planet wasPlanetHit(final Position _position)
   {
+    final StarSystemSnapshot snapshot = this.starSystem.getSnapshot();
     
-    for (PlanetGraphic pg : this.planetGraphics) {
-      if (pg.hit(_position)) {
-        return pg.getPlanet();
+    // only planets near the position can have been hit
+    for (int i : findCandidates(snapshot.getPlanetIndex(), _position)) {
+      final Planet planet = snapshot.getPlanet(i);
+      final PlanetGraphic graphic = this.getPlanetGraphic(planet);
+      if (graphic != null && graphic.hitAt(_position, 
+              (int) snapshot.getInterpolatedPlanetX(i, 1.0f), 
+              (int) snapshot.getInterpolatedPlanetY(i, 1.0f))) {
+        return planet;
       }
     }
     return null;
@@ -144,9 +210,14 @@ public class StarSystemGraphic implements IStarSystemChangedListener
    */
   public SpaceProbeGroup wasSpaceProbeGroupHit(final Position _position)
   {
-    for (SpaceProbeGroupGraphic spgg : this.spaceProbeGroupGraphics) {
-      if (spgg.hit(_position)) {
-        return spgg.getSpaceProbeGroup();
+    final StarSystemSnapshot snapshot = this.starSystem.getSnapshot();
+    
+    for (int i : findCandidates(snapshot.getSpaceProbeGroupIndex(), _position)) {
+      final SpaceProbeGroup group = snapshot.getSpaceProbeGroup(i);
+      final SpaceProbeGroupGraphic graphic = this.spaceProbeGroupGraphics.get(group);
+      if (graphic != null && graphic.hitAt(_position, 
+              snapshot.getSpaceProbeGroupX(i), snapshot.getSpaceProbeGroupY(i))) {
+        return group;
       }
     }
     
@@ -162,35 +233,60 @@ public class StarSystemGraphic implements IStarSystemChangedListener
     this.starSystemGraphicFactory = _starSystemGraphicFactory;
     this.spaceProbeGraphicFactory = _spaceProbeGroupGraphicFactory;
     this.starSystem = _starSystem;
-    this.planetGraphics = new LinkedList<PlanetGraphic>();
-    this.spaceProbeGroupGraphics = new LinkedList<SpaceProbeGroupGraphic>();
+    this.planetGraphics = new ConcurrentHashMap<Planet, PlanetGraphic>();
+    // filled by the simulation thread, read by the event dispatch thread
+    this.spaceProbeGroupGraphics = new ConcurrentHashMap<SpaceProbeGroup, SpaceProbeGroupGraphic>();
     
     this.sunGraphic = this.starSystemGraphicFactory.create(this.starSystem.getSun());
-    this.createPlanetGraphics();
-    this.createSpaceProbeGroupGraphics();
+    final Sun companionStar = this.starSystem.getCompanionStar();
+    this.companionStarGraphic = companionStar != null 
+            ? this.starSystemGraphicFactory.create(companionStar) : null;
   }
   
   //----------------  PRIVATE  ----------------
+  /** 
+   * Objects further away than this from a click in either direction can't 
+   * have been hit. Larger than the hitbox of any graphic. Unit: km
+   */
+  private static final int PICKING_DISTANCE = 16;
+  
   private final StarSystemGraphicFactory starSystemGraphicFactory;
   private final SpaceProbeGraphicFactory spaceProbeGraphicFactory;
   private final StarSystem starSystem;
   private final SunGraphic sunGraphic;
-  private final List<PlanetGraphic> planetGraphics;
-  private final List<SpaceProbeGroupGraphic> spaceProbeGroupGraphics;
+  /** Only set for binary systems */
+  private final SunGraphic companionStarGraphic;
+  private final Map<Planet, PlanetGraphic> planetGraphics;
+  private final Map<SpaceProbeGroup, SpaceProbeGroupGraphic> spaceProbeGroupGraphics;
 
-  private void createPlanetGraphics()
+  /**
+   * The objects close enough to a position to have been hit, in the order 
+   * of the snapshot.
+   */
+  private static int[] findCandidates(final SpatialIndex _index, final Position _position)
   {
-    for (Planet p : this.starSystem.getPlanets()) {
-      PlanetGraphic planetGraphic = this.starSystemGraphicFactory.create(p);
-      this.planetGraphics.add(planetGraphic);
-    }
+    return _index.findInRectangle(_position.x - PICKING_DISTANCE, _position.y - PICKING_DISTANCE, 
+                                  _position.x + PICKING_DISTANCE, _position.y + PICKING_DISTANCE);
   }
   
-  private void createSpaceProbeGroupGraphics()
+  private Position toScreen(final Position _offset, final double _x, final double _y)
   {
-    for (SpaceProbeGroup g : this.starSystem.getSpaceProbeGroups()) {
-      SpaceProbeGroupGraphic groupGraphic = this.spaceProbeGraphicFactory.create(g);
-      this.spaceProbeGroupGraphics.add(groupGraphic);
+    return new Position(_offset.x + (long) _x, _offset.y + (long) _y);
+  }
+  
+  /**
+   * The graphic of a planet of the snapshot, created on first use.
+   * @return the graphic or <strong>null</strong> if the planet has none
+   */
+  private PlanetGraphic getPlanetGraphic(final Planet _planet)
+  {
+    PlanetGraphic result = this.planetGraphics.get(_planet);
+    if (result == null) {
+      result = this.starSystemGraphicFactory.create(_planet);
+      if (result != null) {
+        this.planetGraphics.put(_planet, result);
+      }
     }
+    return result;
   }
 }
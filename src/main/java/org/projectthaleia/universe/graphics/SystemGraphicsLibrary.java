@@ -25,12 +25,19 @@ package org.projectthaleia.universe.graphics;
 
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import org.projectthaleia.universe.StarSystem;
 
 /**
- *
+ * Keeps the graphics of the most recently shown star systems.
+ * <p>
+ * A graphic observes its star system, which keeps the system's sector of the
+ * {@link org.projectthaleia.universe.Galaxy} in memory. So the library only 
+ * holds a limited number of graphics and stops the least recently used one 
+ * from observing its system when it has to make room, which lets the galaxy
+ * page the system out again.
+ * </p>
  * @author Simon Hardijanto
  */
 @Singleton
@@ -47,19 +54,51 @@ public class SystemGraphicsLibrary
     
     return systemGraphic;
   }
+  
+  /**
+   * The number of graphics in the library.
+   * @return the number of graphics. Is never negative.
+   */
+  public int size()
+  {
+    return this.starSystemsLibrary.size();
+  }
 
   //------------ PACKAGE PRIVATE --------------
+  /** The number of graphics kept by default */
+  static final int DEFAULT_CAPACITY = 16;
+  
   @Inject
   SystemGraphicsLibrary(final StarSystemGraphicFactory _starSystemGraphicFactory)
+  {
+    this(_starSystemGraphicFactory, DEFAULT_CAPACITY);
+  }
+  
+  SystemGraphicsLibrary(final StarSystemGraphicFactory _starSystemGraphicFactory,
+                        final int _capacity)
   {
     this.starSystemGraphicFactory = _starSystemGraphicFactory;
-    this.starSystemsLibrary = new HashMap<StarSystem, StarSystemGraphic>();
+    this.capacity = _capacity;
+    this.starSystemsLibrary = new LinkedHashMap<StarSystem, StarSystemGraphic>(16, 0.75f, true)
+    {
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<StarSystem, StarSystemGraphic> _eldest)
+      {
+        if (size() <= SystemGraphicsLibrary.this.capacity) {
+          return false;
+        }
+        _eldest.getKey().removeStarSystemChangedListener(_eldest.getValue());
+        return true;
+      }
+    };
     
     validate();
   }
 
   //----------------  PRIVATE  ----------------
   private final StarSystemGraphicFactory starSystemGraphicFactory;
+  private final int capacity;
+  /** From the least to the most recently used graphic */
   private final Map<StarSystem, StarSystemGraphic> starSystemsLibrary;
 
   private void validate()
@@ -68,6 +107,10 @@ public class SystemGraphicsLibrary
       throw new NullPointerException(
               "System graphics library must have a graphic factory. System graphics lib: " + this);
     }
+    if (this.capacity <= 0) {
+      throw new IllegalArgumentException(
+              "System graphics library must hold at least one graphic. Was " + this.capacity);
+    }
   }
 
   private StarSystemGraphic createNewSystemGraphic(final StarSystem _starSystem)
@@ -29,6 +29,9 @@ import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import javax.swing.JPanel;
+import org.projectthaleia.core.PhaseStatistics;
+import org.projectthaleia.core.TickPhase;
+import org.projectthaleia.core.TickProfiler;
 import org.projectthaleia.game.graphics.GameGraphics;
 import org.projectthaleia.universe.Position;
 
@@ -42,6 +45,8 @@ public class UniversePanel extends JPanel
   public void paintComponent(final Graphics _g)
   {
     final Graphics2D g = (Graphics2D) _g;
+    final TickProfiler profiler = this.gameGraphics.getProfiler();
+    final long start = profiler != null ? profiler.start() : 0;
     
     // clear background
     g.setBackground(Color.BLACK);
@@ -50,15 +55,44 @@ public class UniversePanel extends JPanel
     final StarSystemGraphic starSystemGraphic = 
                                 this.gameGraphics.getCurrentStarSystemGraphic();
     
-    // don't continue if there's no star system set
-    if (starSystemGraphic == null){
-      return;
+    // paint planets etc in system if there's a star system set
+    if (starSystemGraphic != null) {
+      final Position offset = new Position(this.center.x + this.scrolling.x,
+                                           this.center.y + this.scrolling.y);
+      starSystemGraphic.paint(g, offset, this.gameGraphics.getInterpolation());
     }
     
-    // paint planets etc in system
-    final Position offset = new Position(this.center.x + this.scrolling.x,
-                                         this.center.y + this.scrolling.y);
-    starSystemGraphic.paint(g, offset);
+    if (profiler != null) {
+      profiler.stop(TickPhase.PAINT, start);
+      if (this.isProfilerOverlayVisible) {
+        this.paintProfilerOverlay(g, profiler);
+      }
+    }
+  }
+  
+  /**
+   * Is the time spent in each phase of an update shown on top of the star 
+   * system?
+   * @return <strong>true</strong> if the overlay is painted
+   */
+  public boolean isProfilerOverlayVisible()
+  {
+    return this.isProfilerOverlayVisible;
+  }
+  
+  /**
+   * Shows or hides the time spent in each phase of an update. The profiler of
+   * the game only measures while the overlay is shown, unless it has been 
+   * enabled over JMX.
+   * @param _isVisible <strong>true</strong> to paint the overlay
+   */
+  public void setProfilerOverlayVisible(final boolean _isVisible)
+  {
+    final TickProfiler profiler = this.gameGraphics.getProfiler();
+    if (profiler != null && _isVisible != this.isProfilerOverlayVisible) {
+      profiler.setEnabled(_isVisible);
+    }
+    this.isProfilerOverlayVisible = _isVisible;
   }
   
   //------------- PACKAGE PRIVATE -----------
@@ -125,9 +159,24 @@ public class UniversePanel extends JPanel
   }
 
   //---------------- PRIVATE ----------------
+  private static final int OVERLAY_LINE_HEIGHT = 14;
+  
   private final GameGraphics gameGraphics;
 
   private Position center;
   private Position scrolling;
+  private boolean isProfilerOverlayVisible;
+  
+  private void paintProfilerOverlay(final Graphics2D _g, final TickProfiler _profiler)
+  {
+    _g.setColor(Color.GREEN);
+    int y = OVERLAY_LINE_HEIGHT;
+    _g.drawString(_profiler.getTickCount() + " updates, " 
+            + _profiler.getSkippedFrames() + " frames skipped", 5, y);
+    for (PhaseStatistics statistics : _profiler.getPhaseStatistics()) {
+      y += OVERLAY_LINE_HEIGHT;
+      _g.drawString(statistics.toString(), 5, y);
+    }
+  }
 
 }
@@ -81,6 +81,9 @@ public class UniversePanelController extends MouseAdapter implements KeyListener
       this.universePanel.scrollNorth(SCROLL_AMOUNT);
     } else if (_e.getKeyCode() == KeyEvent.VK_DOWN) {
       this.universePanel.scrollSouth(SCROLL_AMOUNT);
+    } else if (_e.getKeyCode() == KeyEvent.VK_F3) {
+      this.universePanel.setProfilerOverlayVisible(
+              !this.universePanel.isProfilerOverlayVisible());
     }
   }
 
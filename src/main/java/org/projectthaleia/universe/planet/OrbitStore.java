@@ -0,0 +1,657 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2011 Simon Hardijanto
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.projectthaleia.universe.planet;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.projectthaleia.core.StateHash;
+
+/**
+ * The orbits of many planets kept side by side in primitive arrays, one array
+ * per property. Updating all of them is a single loop over a few arrays 
+ * instead of a call on every planet object, and the orbits don't add an 
+ * object per planet for the garbage collector to trace.
+ * <p>
+ * A {@link Planet} only refers to its slot in a store. A planet created on 
+ * its own only keeps the elements of its orbit until a 
+ * {@link org.projectthaleia.universe.StarSystem} puts it into one shared 
+ * store with {@link #add(Planet)}; it only gets a store of its own if it is 
+ * used before that.
+ * </p>
+ * <p>
+ * An orbit either goes around the center of the star system, the barycenter
+ * of its suns, or around another orbit of the store, e.g. a moon around its 
+ * planet. Parents always come before their children, so a single pass in 
+ * order resolves the positions of all bodies in the star system.
+ * </p>
+ * <p>
+ * The game time of a store that nobody watches can be deferred with 
+ * {@link #defer(long)} instead of moving its bodies every update. Reads 
+ * compute where the bodies are at the current game time on demand without 
+ * changing the store, until {@link #catchUp()} moves them there for good.
+ * </p>
+ * <p>
+ * Not thread safe. Only one thread may add and update, others may read.
+ * </p>
+ * @author Simon Hardijanto
+ */
+public class OrbitStore
+{
+  /**
+   * Creates an empty store.
+   */
+  public OrbitStore()
+  {
+    this(INITIAL_CAPACITY);
+  }
+  
+  /**
+   * The number of orbits in the store.
+   * @return the number of orbits
+   */
+  public int size()
+  {
+    return this.size;
+  }
+  
+  /**
+   * Moves the orbit of a planet around the center of the star system into 
+   * this store. From now on the planet is moved by {@link #update(long)} of 
+   * this store.
+   * @param _planet the planet. Must not be in another shared store already.
+   */
+  public void add(final Planet _planet)
+  {
+    if (_planet == null) {
+      throw new NullPointerException("Cannot add no planet to orbit store.");
+    }
+    _planet.moveOrbitTo(this, null);
+  }
+  
+  /**
+   * Moves the orbit of a moon into this store.
+   * @param _moon the moon. Must not be in another shared store already.
+   * @param _parent the planet the moon orbits. Must be in this store.
+   * @see #add(Planet)
+   */
+  public void add(final Planet _moon, final Planet _parent)
+  {
+    if (_moon == null) {
+      throw new NullPointerException("Cannot add no moon to orbit store.");
+    }
+    if (_parent == null) {
+      throw new NullPointerException("Cannot add moon " + _moon 
+              + " without a planet to orbit store.");
+    }
+    _moon.moveOrbitTo(this, _parent);
+  }
+  
+  /**
+   * Adds an orbit around the center of the star system that no planet is 
+   * placed on, e.g. of one of the suns of a binary system.
+   * @param _semiMajorAxis the semi major axis in km
+   * @param _sidericPeriod the orbital period in days
+   * @param _startingPosition the position at the start of the game in radians
+   * @return the index of the orbit
+   */
+  public int addOrbit(final long _semiMajorAxis, final int _sidericPeriod, 
+          final double _startingPosition)
+  {
+    return this.add(_semiMajorAxis, 0, _sidericPeriod, _startingPosition, NO_PARENT);
+  }
+  
+  /**
+   * The x coordinate of a body relative to the center of the star system.
+   * @param _index the index of the orbit
+   * @return the coordinate in km
+   */
+  public double getX(final int _index)
+  {
+    if (this.deferredTime != 0) {
+      return this.coordinateAt(_index, this.deferredTime, true);
+    }
+    return this.x[_index];
+  }
+  
+  /**
+   * The y coordinate of a body relative to the center of the star system.
+   * @param _index the index of the orbit
+   * @return the coordinate in km
+   */
+  public double getY(final int _index)
+  {
+    if (this.deferredTime != 0) {
+      return this.coordinateAt(_index, this.deferredTime, false);
+    }
+    return this.y[_index];
+  }
+  
+  /**
+   * The x coordinate of a body before the last update. While game time is 
+   * deferred the bodies stand still, so this is the current one.
+   * @param _index the index of the orbit
+   * @return the coordinate in km
+   */
+  public double getPreviousX(final int _index)
+  {
+    if (this.deferredTime != 0) {
+      return this.getX(_index);
+    }
+    return this.previousX[_index];
+  }
+  
+  /**
+   * The y coordinate of a body before the last update.
+   * @param _index the index of the orbit
+   * @return the coordinate in km
+   * @see #getPreviousX(int)
+   */
+  public double getPreviousY(final int _index)
+  {
+    if (this.deferredTime != 0) {
+      return this.getY(_index);
+    }
+    return this.previousY[_index];
+  }
+  
+  /**
+   * Lets game time pass without moving the bodies yet. They are moved in one
+   * step by the next {@link #update(long)} or {@link #catchUp()}.
+   * @param _delta the number of seconds (game time) passed since the last update
+   */
+  public void defer(final long _delta)
+  {
+    this.deferredTime += _delta;
+  }
+  
+  /**
+   * Is there game time the bodies have not been moved for?
+   * @return <strong>true</strong> if time has been deferred since the last 
+   * update
+   */
+  public boolean hasDeferredTime()
+  {
+    return this.deferredTime != 0;
+  }
+  
+  /**
+   * Moves all bodies to where they are at the current game time.
+   */
+  public void catchUp()
+  {
+    if (this.deferredTime != 0) {
+      this.update(0);
+    }
+  }
+  
+  /**
+   * The game time the store is at, including deferred time.
+   * @return the game time since the start in seconds
+   */
+  public long getGameTime()
+  {
+    return this.gameTime + this.deferredTime;
+  }
+  
+  /**
+   * Adds the state of all orbits to a hash of the simulation state. Only the
+   * elements of the orbits and how far each is ahead of the store are 
+   * hashed, so the hash stays the same as the store moves on and doesn't 
+   * depend on whether game time was deferred. The positions follow from the
+   * elements and the game time, see {@link #getGameTime()}.
+   * @param _hash the hash so far
+   * @return the new hash
+   * @see org.projectthaleia.core.StateHash
+   */
+  public long hashState(final long _hash)
+  {
+    long result = _hash;
+    for (int i = 0; i < this.size; ++i) {
+      result = this.hashElements(i, result);
+      result = StateHash.mix(result, this.elapsedTime[i] - this.gameTime);
+    }
+    return result;
+  }
+  
+  /**
+   * Moves all planets of the store along their orbits.
+   * @param _delta the number of seconds (game time) passed since the last update
+   * @see Planet#update(long)
+   */
+  public void update(final long _delta)
+  {
+    final long delta = _delta + this.deferredTime;
+    this.deferredTime = 0;
+    this.gameTime += delta;
+    for (int i = 0; i < this.size; ++i) {
+      this.elapsedTime[i] += delta;
+      this.previousPosition[i] = this.position[i];
+      this.position[i] = this.solve(i, this.elapsedTime[i], true);
+      // the parent comes first and has already been moved
+      this.resolve(i);
+    }
+  }
+
+  /**
+   * Writes all orbits in a compact binary form. Coordinates are left out, 
+   * they are derived from the positions again when reading.
+   * @param _out the destination
+   * @throws IOException if writing fails
+   * @see #readFrom(DataInput)
+   */
+  public void writeTo(final DataOutput _out) throws IOException
+  {
+    _out.writeInt(this.size);
+    _out.writeLong(this.gameTime);
+    _out.writeLong(this.deferredTime);
+    for (int i = 0; i < this.size; ++i) {
+      _out.writeLong(this.semiMajorAxis[i]);
+      _out.writeFloat(this.eccentricity[i]);
+      _out.writeInt(this.sidericPeriod[i]);
+      _out.writeDouble(this.startingPosition[i]);
+      _out.writeLong(this.elapsedTime[i]);
+      _out.writeDouble(this.position[i]);
+      _out.writeDouble(this.previousPosition[i]);
+      _out.writeDouble(this.lastMeanAnomaly[i]);
+      _out.writeDouble(this.lastEccentricAnomaly[i]);
+      _out.writeInt(this.parent[i]);
+    }
+  }
+  
+  /**
+   * Reads orbits written by {@link #writeTo(DataOutput)}. The orbits continue
+   * exactly where they were written, so the store behaves as if it had never
+   * been written.
+   * @param _in the source
+   * @return a new store
+   * @throws IOException if reading fails
+   */
+  public static OrbitStore readFrom(final DataInput _in) throws IOException
+  {
+    final int size = _in.readInt();
+    final OrbitStore result = new OrbitStore(Math.max(1, size));
+    result.gameTime = _in.readLong();
+    result.deferredTime = _in.readLong();
+    for (int n = 0; n < size; ++n) {
+      final int i = result.append(_in.readLong(), _in.readFloat(), _in.readInt(), 
+              _in.readDouble(), NO_PARENT);
+      result.elapsedTime[i] = _in.readLong();
+      result.position[i] = _in.readDouble();
+      result.previousPosition[i] = _in.readDouble();
+      result.lastMeanAnomaly[i] = _in.readDouble();
+      result.lastEccentricAnomaly[i] = _in.readDouble();
+      final int parent = _in.readInt();
+      if (parent >= i) {
+        throw new IOException("Parent orbit " + parent + " of orbit " + i 
+                + " has to come before it.");
+      }
+      result.parent[i] = parent;
+      // the same arithmetic as during the update gives the same coordinates
+      result.resolve(i, result.previousPosition[i], result.previousX, result.previousY);
+      result.resolve(i, result.position[i], result.x, result.y);
+    }
+    return result;
+  }
+  
+  /**
+   * Recreates the planets on the orbits of a store that was read with 
+   * {@link #readFrom(DataInput)}.
+   * @param _orbitsWithoutPlanet the indices of the orbits no planet is placed
+   * on, e.g. of the suns of a binary system
+   * @return the planets in the order of their orbits
+   */
+  public List<Planet> restorePlanets(final int... _orbitsWithoutPlanet)
+  {
+    final Planet[] planets = new Planet[this.size];
+    final List<Planet> result = new ArrayList<Planet>(this.size);
+    for (int i = 0; i < this.size; ++i) {
+      boolean hasPlanet = true;
+      for (int orbit : _orbitsWithoutPlanet) {
+        hasPlanet &= orbit != i;
+      }
+      if (hasPlanet) {
+        final int p = this.parent[i];
+        planets[i] = new Planet(this, i, p == NO_PARENT ? null : planets[p]);
+        result.add(planets[i]);
+      }
+    }
+    return result;
+  }
+
+  //------------- PACKAGE PRIVATE -----------
+  OrbitStore(final int _capacity)
+  {
+    this.semiMajorAxis = new long[_capacity];
+    this.eccentricity = new float[_capacity];
+    this.sidericPeriod = new int[_capacity];
+    this.startingPosition = new double[_capacity];
+    this.periodInSeconds = new double[_capacity];
+    this.beta = new double[_capacity];
+    this.elapsedTime = new long[_capacity];
+    this.position = new double[_capacity];
+    this.previousPosition = new double[_capacity];
+    this.lastMeanAnomaly = new double[_capacity];
+    this.lastEccentricAnomaly = new double[_capacity];
+    this.parent = new int[_capacity];
+    this.x = new double[_capacity];
+    this.y = new double[_capacity];
+    this.previousX = new double[_capacity];
+    this.previousY = new double[_capacity];
+  }
+  
+  /**
+   * Adds an orbit at the game time the store has been updated to, so the 
+   * body is where it would be if the orbit had been in the store since the 
+   * start of the game.
+   * @param _parent the index of the orbit this one goes around or 
+   * {@link #NO_PARENT}
+   * @return the index of the orbit
+   */
+  int add(final long _semiMajorAxis, final float _eccentricity, 
+          final int _sidericPeriod, final double _startingPosition, final int _parent)
+  {
+    final int i = this.append(_semiMajorAxis, _eccentricity, _sidericPeriod, 
+            _startingPosition, _parent);
+    // deferred time counts, the new orbit is moved on with the others
+    this.elapsedTime[i] = this.gameTime;
+    this.position[i] = this.solve(i, this.gameTime, true);
+    this.previousPosition[i] = this.position[i];
+    this.resolve(i);
+    this.previousX[i] = this.x[i];
+    this.previousY[i] = this.y[i];
+    return i;
+  }
+  
+  /**
+   * Adds a copy of an orbit in another store.
+   * @param _parent the index of the parent orbit in this store or 
+   * {@link #NO_PARENT}
+   * @return the index of the copy
+   */
+  int addCopyOf(final OrbitStore _from, final int _index, final int _parent)
+  {
+    final int i = this.append(_from.semiMajorAxis[_index], _from.eccentricity[_index], 
+            _from.sidericPeriod[_index], _from.startingPosition[_index], _parent);
+    this.elapsedTime[i] = _from.elapsedTime[_index];
+    this.position[i] = _from.position[_index];
+    this.previousPosition[i] = _from.previousPosition[_index];
+    this.resolve(i);
+    this.previousX[i] = this.x[i];
+    this.previousY[i] = this.y[i];
+    return i;
+  }
+  
+  long getSemiMajorAxis(final int _index)
+  {
+    return this.semiMajorAxis[_index];
+  }
+  
+  float getEccentricity(final int _index)
+  {
+    return this.eccentricity[_index];
+  }
+  
+  int getSidericPeriod(final int _index)
+  {
+    return this.sidericPeriod[_index];
+  }
+  
+  double getPosition(final int _index)
+  {
+    if (this.deferredTime != 0) {
+      return this.solve(_index, this.elapsedTime[_index] + this.deferredTime, false);
+    }
+    return this.position[_index];
+  }
+  
+  double getPreviousPosition(final int _index)
+  {
+    if (this.deferredTime != 0) {
+      return this.getPosition(_index);
+    }
+    return this.previousPosition[_index];
+  }
+  
+  double getPositionAt(final int _index, final long _gameTime)
+  {
+    return this.solve(_index, _gameTime, false);
+  }
+  
+  long hashState(final int _index, final long _hash)
+  {
+    return StateHash.mix(this.hashElements(_index, _hash), 
+            this.elapsedTime[_index] + this.deferredTime);
+  }
+
+  int getParent(final int _index)
+  {
+    return this.parent[_index];
+  }
+  
+  /** The parent index of orbits around the center of the star system */
+  static final int NO_PARENT = -1;
+  
+  //---------------- PRIVATE ----------------
+  private static final int INITIAL_CAPACITY = 8;
+  private static final double SECONDS_PER_DAY = 60*60*24;
+  private static final double KEPLER_TOLERANCE = 1e-12;
+  private static final int KEPLER_MAX_ITERATIONS = 50;
+  /** Seeding from the last solution only pays off for nearby times */
+  private static final double KEPLER_SEED_RANGE = 0.5;
+  
+  /** Unit: km */
+  private long[] semiMajorAxis;
+  /** Range: 0 - 1 (exclusive) */
+  private float[] eccentricity;
+  /** Unit: days */
+  private int[] sidericPeriod;
+  /** The mean anomaly at the start of the game. Unit: radians */
+  private double[] startingPosition;
+  /** Unit: seconds */
+  private double[] periodInSeconds;
+  /** Derived from the eccentricity for converting to the true anomaly */
+  private double[] beta;
+  /** Game time passed since the start. Unit: seconds */
+  private long[] elapsedTime;
+  /** Unit: radians */
+  private double[] position;
+  /** The position before the last update. Unit: radians */
+  private double[] previousPosition;
+  /** The last solution of Kepler's equation, which the next one starts from */
+  private double[] lastMeanAnomaly;
+  private double[] lastEccentricAnomaly;
+  /** The index of the orbit this one goes around or {@link #NO_PARENT} */
+  private int[] parent;
+  /** Relative to the center of the star system. Unit: km */
+  private double[] x;
+  private double[] y;
+  /** The coordinates before the last update. Unit: km */
+  private double[] previousX;
+  private double[] previousY;
+  private int size;
+  /** Game time passed since the start. Unit: seconds */
+  private long gameTime;
+  /** Game time passed that the bodies have not been moved for. Unit: seconds */
+  private long deferredTime;
+  
+  private long hashElements(final int _index, final long _hash)
+  {
+    long result = StateHash.mix(_hash, this.semiMajorAxis[_index]);
+    result = StateHash.mix(result, this.eccentricity[_index]);
+    result = StateHash.mix(result, this.sidericPeriod[_index]);
+    return StateHash.mix(result, this.startingPosition[_index]);
+  }
+  
+  /**
+   * A coordinate of a body at the current game time, computed without 
+   * changing the store.
+   * @param _deferredTime the game time the store is behind
+   * @param _isX <strong>true</strong> for the x, <strong>false</strong> for 
+   * the y coordinate
+   */
+  private double coordinateAt(final int _index, final long _deferredTime, 
+          final boolean _isX)
+  {
+    final double angle = this.solve(_index, this.elapsedTime[_index] + _deferredTime, false);
+    final double distance = Planet.distanceAt(this.semiMajorAxis[_index], 
+            this.eccentricity[_index], angle);
+    final int p = this.parent[_index];
+    final double parentCoordinate = p == NO_PARENT ? 0 : this.coordinateAt(p, _deferredTime, _isX);
+    return distance * (_isX ? Math.cos(angle) : Math.sin(angle)) + parentCoordinate;
+  }
+  
+  /**
+   * Places a body at its position on its orbit around its parent.
+   */
+  private void resolve(final int _index)
+  {
+    this.previousX[_index] = this.x[_index];
+    this.previousY[_index] = this.y[_index];
+    this.resolve(_index, this.position[_index], this.x, this.y);
+  }
+  
+  /**
+   * Places a body at an angle on its orbit, relative to the coordinates of 
+   * its parent in the same columns.
+   */
+  private void resolve(final int _index, final double _angle, 
+          final double[] _x, final double[] _y)
+  {
+    final double distance = Planet.distanceAt(this.semiMajorAxis[_index], 
+            this.eccentricity[_index], _angle);
+    final int p = this.parent[_index];
+    _x[_index] = distance * Math.cos(_angle) + (p == NO_PARENT ? 0 : _x[p]);
+    _y[_index] = distance * Math.sin(_angle) + (p == NO_PARENT ? 0 : _y[p]);
+  }
+  
+  /**
+   * The position on an orbit in radians, seen from the sun, at any game time.
+   * @param _remember whether the solution is the seed for the next one. Only
+   * the thread that updates the store may remember.
+   */
+  private double solve(final int _index, final long _gameTime, final boolean _remember)
+  {
+    final double meanAnomaly = this.startingPosition[_index] 
+            + 2*Math.PI * (_gameTime / this.periodInSeconds[_index]);
+    final float e = this.eccentricity[_index];
+    if (e == 0) {
+      return meanAnomaly;
+    }
+    
+    final double eccentricAnomaly = this.solveKepler(_index, e, meanAnomaly, _remember);
+    // true anomaly, continuous in the eccentric anomaly
+    final double b = this.beta[_index];
+    return eccentricAnomaly + 2*Math.atan2(b * Math.sin(eccentricAnomaly), 
+            1 - b * Math.cos(eccentricAnomaly));
+  }
+  
+  /**
+   * Solves Kepler's equation E - e sin(E) = M with Newton's method. It starts
+   * from the last solution if that was for a nearby time, which takes one or 
+   * two iterations during regular updates.
+   * @return the eccentric anomaly E in radians
+   */
+  private double solveKepler(final int _index, final float _eccentricity, 
+          final double _meanAnomaly, final boolean _remember)
+  {
+    final double lastMean = this.lastMeanAnomaly[_index];
+    double anomaly;
+    if (Math.abs(_meanAnomaly - lastMean) < KEPLER_SEED_RANGE) {
+      anomaly = this.lastEccentricAnomaly[_index] + (_meanAnomaly - lastMean);
+    } else if (_eccentricity < 0.8) {
+      anomaly = _meanAnomaly + _eccentricity * Math.sin(_meanAnomaly);
+    } else {
+      // on very elongated orbits Newton's method overshoots from the usual 
+      // guess, the middle of the revolution is safe
+      anomaly = 2*Math.PI * Math.floor(_meanAnomaly / (2*Math.PI)) + Math.PI;
+    }
+    
+    for (int i = 0; i < KEPLER_MAX_ITERATIONS; ++i) {
+      final double step = (anomaly - _eccentricity * Math.sin(anomaly) - _meanAnomaly) 
+              / (1 - _eccentricity * Math.cos(anomaly));
+      anomaly -= step;
+      if (Math.abs(step) < KEPLER_TOLERANCE) {
+        break;
+      }
+    }
+    
+    if (_remember) {
+      this.lastMeanAnomaly[_index] = _meanAnomaly;
+      this.lastEccentricAnomaly[_index] = anomaly;
+    }
+    return anomaly;
+  }
+  
+  /**
+   * Adds the elements of an orbit without placing the body on it yet.
+   * @return the index of the orbit
+   */
+  private int append(final long _semiMajorAxis, final float _eccentricity, 
+          final int _sidericPeriod, final double _startingPosition, final int _parent)
+  {
+    if (_parent >= this.size) {
+      throw new IllegalArgumentException("Parent orbit " + _parent 
+              + " has to be added before its children.");
+    }
+    if (this.size == this.semiMajorAxis.length) {
+      this.grow();
+    }
+    final int i = this.size;
+    this.semiMajorAxis[i] = _semiMajorAxis;
+    this.eccentricity[i] = _eccentricity;
+    this.sidericPeriod[i] = _sidericPeriod;
+    this.startingPosition[i] = _startingPosition;
+    this.periodInSeconds[i] = _sidericPeriod * SECONDS_PER_DAY;
+    this.beta[i] = _eccentricity / (1 + Math.sqrt(1 - _eccentricity*_eccentricity));
+    this.lastMeanAnomaly[i] = Double.NaN;
+    this.parent[i] = _parent;
+    this.size++;
+    return i;
+  }
+  
+  private void grow()
+  {
+    final int capacity = Math.max(INITIAL_CAPACITY, this.semiMajorAxis.length * 2);
+    this.semiMajorAxis = Arrays.copyOf(this.semiMajorAxis, capacity);
+    this.eccentricity = Arrays.copyOf(this.eccentricity, capacity);
+    this.sidericPeriod = Arrays.copyOf(this.sidericPeriod, capacity);
+    this.startingPosition = Arrays.copyOf(this.startingPosition, capacity);
+    this.periodInSeconds = Arrays.copyOf(this.periodInSeconds, capacity);
+    this.beta = Arrays.copyOf(this.beta, capacity);
+    this.elapsedTime = Arrays.copyOf(this.elapsedTime, capacity);
+    this.position = Arrays.copyOf(this.position, capacity);
+    this.previousPosition = Arrays.copyOf(this.previousPosition, capacity);
+    this.lastMeanAnomaly = Arrays.copyOf(this.lastMeanAnomaly, capacity);
+    this.lastEccentricAnomaly = Arrays.copyOf(this.lastEccentricAnomaly, capacity);
+    this.parent = Arrays.copyOf(this.parent, capacity);
+    this.x = Arrays.copyOf(this.x, capacity);
+    this.y = Arrays.copyOf(this.y, capacity);
+    this.previousX = Arrays.copyOf(this.previousX, capacity);
+    this.previousY = Arrays.copyOf(this.previousY, capacity);
+  }
+}
@@ -26,7 +26,9 @@ package org.projectthaleia.universe.planet;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 import org.projectthaleia.colony.Colony;
+import org.projectthaleia.core.Timeline;
 import org.projectthaleia.factions.Empire;
 import org.projectthaleia.universe.Position;
 
@@ -39,18 +41,19 @@ public class Planet
   /**
    * The orbit's semi major axis in kilometers.
    */
-  public int getSemiMajorAxis()
+  public long getSemiMajorAxis()
   {
-    return this.semiMajorAxis;
+    return this.getOrbits().getSemiMajorAxis(this.orbitIndex);
   }
   
   /**
-   * The orbit's eccentricity
-   * @return a number between 0 and 1
+   * The orbit's eccentricity. The point of the orbit closest to the sun lies
+   * on the positive x axis.
+   * @return a number from 0 (inclusive) to 1 (exclusive)
    */
   public float getEccentricity()
   {
-    return this.eccentricity;
+    return this.getOrbits().getEccentricity(this.orbitIndex);
   }
   
   /**
@@ -59,16 +62,51 @@ public class Planet
    */
   public int getSidericPeriod()
   {
-    return this.sidericPeriod;
+    return this.getOrbits().getSidericPeriod(this.orbitIndex);
   }
   
   /**
-   * The current position of the planet on its orbit in radians.
+   * The planet this one orbits as a moon.
+   * @return the planet or <strong>null</strong> if this one orbits the 
+   * center of the star system
+   */
+  public Planet getParent()
+  {
+    return this.parent;
+  }
+  
+  /**
+   * The current position of the planet on its orbit in radians, seen from 
+   * the body it orbits. The value grows with every revolution instead of wrapping 
+   * around, so it can be interpolated.
    * @return the position in radians
    */
   public double getPositionInRad()
   {
-    return this.position;
+    return this.getOrbits().getPosition(this.orbitIndex);
+  }
+  
+  /**
+   * The position of the planet on its orbit before the last update.
+   * @return the position in radians
+   */
+  public double getPreviousPositionInRad()
+  {
+    return this.getOrbits().getPreviousPosition(this.orbitIndex);
+  }
+  
+  /**
+   * The position of the planet on its orbit in radians somewhere between the 
+   * last and the current update. Used to draw smooth movement at a frame rate
+   * higher than the update rate.
+   * @param _interpolation 0 for the position at the last update, 1 for the 
+   * current position
+   * @return the position in radians
+   */
+  public double getInterpolatedPositionInRad(final float _interpolation)
+  {
+    final double previous = this.getPreviousPositionInRad();
+    return previous + (this.getPositionInRad() - previous) * _interpolation;
   }
   
   /**
@@ -78,23 +116,115 @@ public class Planet
    */
   public Position getPosition()
   {
-    final int radius = this.getSemiMajorAxis();
-    final double rads = this.getPositionInRad();
-    final int x = (int) (radius * Math.cos(rads));
-    final int y = (int) (radius * Math.sin(rads));
-    Position result = new Position(x, y);
-    
-    return result;
+    return new Position((long) this.getX(), (long) this.getY());
   }
   
+  /**
+   * The current x coordinate relative to the center of the star system.
+   * @return the coordinate in km
+   */
+  public double getX()
+  {
+    return this.getOrbits().getX(this.orbitIndex);
+  }
+  
+  /**
+   * The current y coordinate relative to the center of the star system.
+   * @return the coordinate in km
+   */
+  public double getY()
+  {
+    return this.getOrbits().getY(this.orbitIndex);
+  }
+  
+  /**
+   * The x coordinate before the last update.
+   * @return the coordinate in km
+   */
+  public double getPreviousX()
+  {
+    return this.getOrbits().getPreviousX(this.orbitIndex);
+  }
+  
+  /**
+   * The y coordinate before the last update.
+   * @return the coordinate in km
+   */
+  public double getPreviousY()
+  {
+    return this.getOrbits().getPreviousY(this.orbitIndex);
+  }
+  
+  /**
+   * The position of the planet on its orbit in radians, seen from the sun, 
+   * at any game time. Solves Kepler's equation, so it costs the same for any 
+   * time and does not depend on any update.
+   * @param _gameTime the game time since the start in seconds
+   * @return the position in radians
+   * @see #getPositionInRad()
+   */
+  public double getPositionInRadAt(final long _gameTime)
+  {
+    return this.getOrbits().getPositionAt(this.orbitIndex, _gameTime);
+  }
+  
+  /**
+   * The position of the planet in km at any game time, relative to the 
+   * center of the star system.
+   * @param _gameTime the game time since the start in seconds
+   * @return the position in km
+   * @see #getPositionInRadAt(long)
+   */
+  public Position getPositionAt(final long _gameTime)
+  {
+    double x = 0;
+    double y = 0;
+    for (Planet body = this; body != null; body = body.parent) {
+      final double rads = body.getPositionInRadAt(_gameTime);
+      final double distance = distanceAt(body.getSemiMajorAxis(), body.getEccentricity(), rads);
+      x += distance * Math.cos(rads);
+      y += distance * Math.sin(rads);
+    }
+    return new Position((long) x, (long) y);
+  }
+  
+  /**
+   * Moves the planet along its orbit. The new position only depends on the
+   * game time passed since the start, not on how it was split into updates,
+   * so rounding errors don't add up.
+   * <p>
+   * Planets in the shared {@link OrbitStore} of a star system are moved by 
+   * the store instead.
+   * </p>
+   * @param _delta the number of seconds (game time) passed since the last update
+   * @throws IllegalStateException if the planet is in a shared store
+   */
   public void update(final long _delta)
   {
-    double timeInDays = _delta/(double) (60*60*24);
-    double progress = timeInDays/this.sidericPeriod;
-    double progressInRadians = progress * 2*Math.PI;
-    this.position += progressInRadians;
+    if (this.isInSharedStore) {
+      throw new IllegalStateException(this + " is moved by the shared orbit "
+              + "store of its star system.");
+    }
+    // the store of its own only holds this orbit
+    this.getOrbits().update(_delta);
   }
   
+  /**
+   * Adds the state of the planet to a hash of the simulation state.
+   * @param _hash the hash so far
+   * @return the new hash
+   * @see org.projectthaleia.core.StateHash
+   */
+  public long hashState(final long _hash)
+  {
+    return this.getOrbits().hashState(this.orbitIndex, _hash);
+  }
+  
+  /**
+   * Founds a colony on the planet. If the planet is on a timeline, the 
+   * building queue of the colony is put on it.
+   * @param _colony the new colony
+   */
   public void addColony(final Colony _colony)
   {
     if (_colony == null) {
@@ -102,6 +232,26 @@ public class Planet
     }
     
     this.colonies.add(_colony);
+    if (this.timeline != null) {
+      _colony.getBuildingQueue().setTimeline(this.timeline);
+    }
+  }
+  
+  /**
+   * Puts the building queues of the colonies on the planet, present and 
+   * future ones, on the timeline of the game.
+   * @param _timeline the timeline. Must not be null.
+   */
+  public void setTimeline(final Timeline _timeline)
+  {
+    if (_timeline == null) {
+      throw new NullPointerException("Cannot put colonies of " + this 
+              + " on no timeline.");
+    }
+    this.timeline = _timeline;
+    for (Colony colony : this.colonies) {
+      colony.getBuildingQueue().setTimeline(_timeline);
+    }
   }
 
   public List<Colony> getColonies()
@@ -132,52 +282,244 @@ public class Planet
     return p;
   }
   
+  /**
+   * Creates a planet on a random, slightly elliptic orbit. Planets further 
+   * out take longer to orbit their sun.
+   * @param _random the source of all random decisions
+   * @return the planet
+   */
+  public static Planet generatePlanet(final Random _random)
+  {
+    return generatePlanet(_random, null);
+  }
+  
+  /**
+   * Creates a planet on a random orbit right in a shared store, which saves
+   * moving it there when generating large galaxies.
+   * @param _random the source of all random decisions
+   * @param _orbits the store of the star system the planet is meant for
+   * @return the planet
+   * @see #generatePlanet(Random)
+   */
+  public static Planet generatePlanet(final Random _random, final OrbitStore _orbits)
+  {
+    final int semiMajorAxis = 50 + _random.nextInt(350);
+    // Kepler's third law, scaled to 365 days at 100 km
+    final int sidericPeriod = (int) Math.round(365 * Math.pow(semiMajorAxis / 100.0, 1.5));
+    final double startingPosition = _random.nextDouble() * 2*Math.PI;
+    final float eccentricity = _random.nextFloat() * MAX_GENERATED_ECCENTRICITY;
+    return new Planet(_orbits, null, semiMajorAxis, eccentricity, sidericPeriod, startingPosition);
+  }
+  
+  /**
+   * Creates a moon on a random orbit close to its planet. Add it to a star 
+   * system with {@link org.projectthaleia.universe.StarSystem#addMoon(Planet, Planet)}.
+   * @param _random the source of all random decisions
+   * @return the moon
+   */
+  public static Planet generateMoon(final Random _random)
+  {
+    final int semiMajorAxis = 3 + _random.nextInt(10);
+    final int sidericPeriod = 1 + _random.nextInt(30);
+    final double startingPosition = _random.nextDouble() * 2*Math.PI;
+    final float eccentricity = _random.nextFloat() * MAX_GENERATED_MOON_ECCENTRICITY;
+    return new Planet(semiMajorAxis, eccentricity, sidericPeriod, startingPosition);
+  }
+  
+  /**
+   * Creates a moon on a random orbit right in the shared store of its planet.
+   * @param _random the source of all random decisions
+   * @param _planet the planet the moon orbits. Must be in a shared store.
+   * @return the moon
+   * @see #generateMoon(Random)
+   */
+  public static Planet generateMoon(final Random _random, final Planet _planet)
+  {
+    if (!_planet.isInSharedStore) {
+      throw new IllegalArgumentException("Cannot generate moon for planet " 
+              + _planet + " that is not in a shared orbit store.");
+    }
+    final int semiMajorAxis = 3 + _random.nextInt(10);
+    final int sidericPeriod = 1 + _random.nextInt(30);
+    final double startingPosition = _random.nextDouble() * 2*Math.PI;
+    final float eccentricity = _random.nextFloat() * MAX_GENERATED_MOON_ECCENTRICITY;
+    return new Planet(_planet.orbits, _planet, semiMajorAxis, eccentricity, 
+            sidericPeriod, startingPosition);
+  }
+  
   //------------- PACKAGE PRIVATE -----------  
-  Planet(int _semiMajorAxis, float _eccentricity, int _sidericPeriod, double _startingPosition)
+  Planet(long _semiMajorAxis, float _eccentricity, int _sidericPeriod, double _startingPosition)
+  {
+    this(null, null, _semiMajorAxis, _eccentricity, _sidericPeriod, _startingPosition);
+  }
+  
+  /**
+   * A view of an orbit that is already in a shared store.
+   * @param _parent the planet this one orbits or <strong>null</strong>
+   */
+  Planet(final OrbitStore _orbits, final int _orbitIndex, final Planet _parent)
   {
-    this.semiMajorAxis = _semiMajorAxis;
-    this.eccentricity = _eccentricity;
-    this.sidericPeriod = _sidericPeriod;
-    this.startingPosition = _startingPosition;
+    this.isInSharedStore = true;
+    this.orbits = _orbits;
+    this.orbitIndex = _orbitIndex;
+    this.parent = _parent;
     this.colonies = new ArrayList<Colony>();
-    
-    this.position = this.startingPosition;
-    
-    validate();
+  }
+  
+  /**
+   * Moves the orbit into a shared store, which updates it from now on.
+   * @param _parent the planet this one orbits or <strong>null</strong>
+   */
+  void moveOrbitTo(final OrbitStore _orbits, final Planet _parent)
+  {
+    if (this.isInSharedStore) {
+      throw new IllegalArgumentException("Orbit of " + this 
+              + " is already kept in a shared store.");
+    }
+    if (_parent != null && _parent.orbits != _orbits) {
+      throw new IllegalArgumentException("Planet " + _parent + " orbited by " 
+              + this + " has to be in the same orbit store.");
+    }
+    final int parentIndex = _parent != null ? _parent.orbitIndex : OrbitStore.NO_PARENT;
+    if (this.pendingOrbit != null) {
+      this.orbitIndex = this.pendingOrbit.addTo(_orbits, parentIndex);
+      this.pendingOrbit = null;
+    } else {
+      this.orbitIndex = _orbits.addCopyOf(this.orbits, this.orbitIndex, parentIndex);
+    }
+    this.orbits = _orbits;
+    this.parent = _parent;
+    this.isInSharedStore = true;
+  }
+  
+  /**
+   * The distance from the sun in km of a point on an orbit.
+   * @param _semiMajorAxis the orbit's semi major axis in km
+   * @param _eccentricity the orbit's eccentricity
+   * @param _positionInRad the position on the orbit in radians, seen from 
+   * the sun
+   * @return the distance in km
+   */
+  static double distanceAt(final long _semiMajorAxis, final float _eccentricity, 
+          final double _positionInRad)
+  {
+    // in double, a float loses whole km on orbits of a few AU
+    final double e = _eccentricity;
+    return _semiMajorAxis * (1 - e*e) / (1 + e * Math.cos(_positionInRad));
   }
   
   //---------------- PRIVATE ----------------
-  /** Unit: km */
-  private final int semiMajorAxis;
-  /** Range: 0 - 1 */
-  private final float eccentricity;
-  /** Unit: days */
-  private final int sidericPeriod;
-  /** Unit: radians */
-  private final double startingPosition;
+  private static final float MAX_GENERATED_ECCENTRICITY = 0.2f;
+  private static final float MAX_GENERATED_MOON_ECCENTRICITY = 0.1f;
 
   private final List<Colony> colonies;
+  /** The timeline of the game or <strong>null</strong> until there is one */
+  private Timeline timeline;
+  
+  /**
+   * Where the orbit is kept. Written by the thread building the system.
+   * <strong>null</strong> while the orbit is pending.
+   */
+  private volatile OrbitStore orbits;
+  /**
+   * The elements of an orbit that has not been placed in a store yet, 
+   * <strong>null</strong> once it has
+   */
+  private OrbitElements pendingOrbit;
+  private volatile int orbitIndex;
+  private boolean isInSharedStore;
+  private volatile Planet parent;
+  
+  /**
+   * @param _orbits the shared store to put the orbit in or <strong>null</strong>
+   * to keep the elements until the planet is added to a star system
+   * @param _parent the planet this one orbits or <strong>null</strong>
+   */
+  private Planet(final OrbitStore _orbits, final Planet _parent, 
+          final long _semiMajorAxis, final float _eccentricity, 
+          final int _sidericPeriod, final double _startingPosition)
+  {
+    validate(_semiMajorAxis, _eccentricity, _sidericPeriod, _startingPosition);
+    
+    final OrbitElements elements = new OrbitElements(_semiMajorAxis, _eccentricity, 
+            _sidericPeriod, _startingPosition);
+    this.isInSharedStore = _orbits != null;
+    this.parent = _parent;
+    if (this.isInSharedStore) {
+      this.orbitIndex = elements.addTo(_orbits, 
+              _parent != null ? _parent.orbitIndex : OrbitStore.NO_PARENT);
+      this.orbits = _orbits;
+    } else {
+      this.pendingOrbit = elements;
+    }
+    this.colonies = new ArrayList<Colony>();
+  }
   
-  private double position;
+  /**
+   * The store the orbit is kept in. A planet that is used before it is 
+   * added to a star system gets a store of its own.
+   */
+  private OrbitStore getOrbits()
+  {
+    if (this.pendingOrbit != null) {
+      final OrbitStore own = new OrbitStore(1);
+      this.orbitIndex = this.pendingOrbit.addTo(own, OrbitStore.NO_PARENT);
+      this.pendingOrbit = null;
+      this.orbits = own;
+    }
+    return this.orbits;
+  }
   
-  private void validate()
+  private static void validate(final long _semiMajorAxis, final float _eccentricity, 
+          final int _sidericPeriod, final double _startingPosition)
   {
-    if (this.semiMajorAxis <= 0) {
+    if (_semiMajorAxis <= 0) {
       throw new IllegalArgumentException(
-              "Semi major axis of the planet's orbit must not be < 0. Was " + this.semiMajorAxis);
+              "Semi major axis of the planet's orbit must not be < 0. Was " + _semiMajorAxis);
     }
-    if (this.eccentricity < 0 || this.eccentricity > 1) {
+    if (_eccentricity < 0 || _eccentricity >= 1) {
       throw new IllegalArgumentException(
-              "Eccentricity of the planet's orbit has to between 0 and 1. Was " + this.eccentricity);
+              "Eccentricity of the planet's orbit has to be at least 0 and less than 1. Was " + _eccentricity);
     }
-    if (this.sidericPeriod <= 0) {
+    if (_sidericPeriod <= 0) {
       throw new IllegalArgumentException(
-              "Sideric period of the planet's orbit must not be < 0. Was " + this.sidericPeriod);
+              "Sideric period of the planet's orbit must not be < 0. Was " + _sidericPeriod);
     }
-    if (this.startingPosition < 0 || this.startingPosition > Math.PI*2) {
+    if (_startingPosition < 0 || _startingPosition > Math.PI*2) {
       throw new IllegalArgumentException(
-              "Starting position has to be between 0 and " + Math.PI*2 + " (2π). Was " + this.startingPosition);
+              "Starting position has to be between 0 and " + Math.PI*2 + " (2π). Was " + _startingPosition);
     }
   }
+  
+  /**
+   * The elements of an orbit, kept until it is placed in a store.
+   */
+  private static class OrbitElements
+  {
+    OrbitElements(final long _semiMajorAxis, final float _eccentricity, 
+                  final int _sidericPeriod, final double _startingPosition)
+    {
+      this.semiMajorAxis = _semiMajorAxis;
+      this.eccentricity = _eccentricity;
+      this.sidericPeriod = _sidericPeriod;
+      this.startingPosition = _startingPosition;
+    }
+    
+    /**
+     * Adds an orbit with these elements that starts at the beginning of the 
+     * game.
+     * @return the index of the orbit in the store
+     */
+    int addTo(final OrbitStore _orbits, final int _parent)
+    {
+      return _orbits.add(this.semiMajorAxis, this.eccentricity, this.sidericPeriod, 
+              this.startingPosition, _parent);
+    }
+    
+    private final long semiMajorAxis;
+    private final float eccentricity;
+    private final int sidericPeriod;
+    private final double startingPosition;
+  }
 
 }
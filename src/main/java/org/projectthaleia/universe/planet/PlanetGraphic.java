@@ -27,7 +27,6 @@ import com.google.inject.Inject;
 import com.google.inject.assistedinject.Assisted;
 import java.awt.Color;
 import java.awt.Graphics2D;
-import java.awt.Rectangle;
 import org.projectthaleia.universe.Position;
 import org.projectthaleia.universe.graphics.IStarSystemGraphic;
 
@@ -40,8 +39,17 @@ public class PlanetGraphic implements IStarSystemGraphic
   @Override
   public void paint(final Graphics2D _g, final Position _offset)
   {
-    paintOrbit(_g, _offset);
-    paintPlanet(_g, _offset);
+    final Position center = this.getOrbitCenter(_offset);
+    paintOrbit(_g, center);
+    paintPlanet(_g, center, this.planet.getPositionInRad());
+  }
+
+  @Override
+  public void paint(final Graphics2D _g, final Position _offset, final float _interpolation)
+  {
+    final Position center = this.getOrbitCenter(_offset);
+    paintOrbit(_g, center);
+    paintPlanet(_g, center, this.planet.getInterpolatedPositionInRad(_interpolation));
   }
 
   @Override
@@ -49,11 +57,41 @@ public class PlanetGraphic implements IStarSystemGraphic
   {
     Position pos = this.planet.getPosition();
     
+    return hitAt(_click, pos.x, pos.y);
+  }
+  
+  /**
+   * Paints the planet at the given position instead of its current one. 
+   * Both positions are relative to the center of the star system, as 
+   * resolved by the simulation.
+   * @param _g the graphics context
+   * @param _offset the offset in pixels
+   * @param _x the x coordinate of the planet
+   * @param _y the y coordinate of the planet
+   * @param _orbitCenterX the x coordinate of the body the planet orbits
+   * @param _orbitCenterY the y coordinate of the body the planet orbits
+   */
+  public void paintAt(final Graphics2D _g, final Position _offset, 
+          final int _x, final int _y, final int _orbitCenterX, final int _orbitCenterY)
+  {
+    paintOrbit(_g, new Position(_offset.x + _orbitCenterX, _offset.y + _orbitCenterY));
+    paintPlanetAt(_g, _offset, _x, _y);
+  }
+  
+  /**
+   * Tests whether the planet would be hit at the given position.
+   * @param _click the position to check
+   * @param _x the x coordinate of the planet relative to the center of the 
+   * star system
+   * @param _y the y coordinate of the planet
+   * @return <strong>true</strong> if hit
+   */
+  public boolean hitAt(final Position _click, final long _x, final long _y)
+  {
     final int radius = PLANET_RADIUS;
-    final int width  = radius*2;
-    Rectangle hitbox = new Rectangle(pos.x - radius, pos.y - radius, width, width);
     
-    return hitbox.contains(_click.x, _click.y);
+    return _click.x >= _x - radius && _click.x < _x + radius
+        && _click.y >= _y - radius && _click.y < _y + radius;
   }
 
   public Planet getPlanet()
@@ -77,32 +115,64 @@ public class PlanetGraphic implements IStarSystemGraphic
 
   private final Planet planet;
 
+  private double distanceAt(final double _positionInRad)
+  {
+    return Planet.distanceAt(this.planet.getSemiMajorAxis(), 
+            this.planet.getEccentricity(), _positionInRad);
+  }
+
   private void paintOrbit(final Graphics2D _g, final Position _offset)
   {
-    final int radius = this.planet.getSemiMajorAxis();
-    final int width  = radius*2;
+    final long semiMajorAxis = this.planet.getSemiMajorAxis();
+    final float eccentricity = this.planet.getEccentricity();
+    final long semiMinorAxis = Math.round(semiMajorAxis 
+            * Math.sqrt(1 - eccentricity*eccentricity));
+    // the sun is in one focus of the ellipse, not in its center
+    final long center = Math.round(-semiMajorAxis * (double) eccentricity);
     
     _g.setColor(ORBIT_COLOR);
-    _g.drawOval(_offset.x-radius, _offset.y-radius, width, width);
+    _g.drawOval((int) (_offset.x + center - semiMajorAxis), (int) (_offset.y - semiMinorAxis), 
+            (int) (semiMajorAxis*2), (int) (semiMinorAxis*2));
+  }
+
+  /**
+   * The center of the orbit on screen: the offset of the system for planets,
+   * the planet for moons.
+   */
+  private Position getOrbitCenter(final Position _offset)
+  {
+    final Planet parent = this.planet.getParent();
+    if (parent == null) {
+      return _offset;
+    }
+    return new Position(_offset.x + (long) parent.getX(), _offset.y + (long) parent.getY());
   }
 
-  private void paintPlanet(final Graphics2D _g, final Position _offset)
+  private void paintPlanet(final Graphics2D _g, final Position _orbitCenter, final double _rads)
+  {
+    final double distance = this.distanceAt(_rads);
+    final double rads = _rads;
+    final int x = (int) (distance * Math.cos(rads));
+    final int y = (int) (distance * Math.sin(rads));
+    
+    paintPlanetAt(_g, _orbitCenter, x, y);
+  }
+  
+  private void paintPlanetAt(final Graphics2D _g, final Position _offset, final int _x, final int _y)
   {
-    final int radius = this.planet.getSemiMajorAxis();
-    final double rads = this.planet.getPositionInRad();
-    final int x = (int) (radius * Math.cos(rads));
-    final int y = (int) (radius * Math.sin(rads));
+    final int x = _x;
+    final int y = _y;
     
     _g.setColor(PLANET_COLOR);
     
     // print circle
-    _g.fillOval(_offset.x + x - PLANET_RADIUS, _offset.y + y - PLANET_RADIUS, 
+    _g.fillOval((int) _offset.x + x - PLANET_RADIUS, (int) _offset.y + y - PLANET_RADIUS, 
                 PLANET_RADIUS*2, PLANET_RADIUS*2);
     
     // print name
     final int fontHeight = 5;
-    final int nameX = x + _offset.x + 2*PLANET_RADIUS;
-    final int nameY = y + _offset.y + 2*PLANET_RADIUS + fontHeight;
+    final int nameX = x + (int) _offset.x + 2*PLANET_RADIUS;
+    final int nameY = y + (int) _offset.y + 2*PLANET_RADIUS + fontHeight;
     _g.drawString("Planet", nameX, nameY);
   }
   
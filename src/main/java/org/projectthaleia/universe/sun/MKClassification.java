@@ -25,13 +25,41 @@ package org.projectthaleia.universe.sun;
 
 import java.awt.Color;
 import java.text.DecimalFormat;
+import org.projectthaleia.core.Immutable;
 
 /**
- *
+ * The Morgan-Keenan classification of a sun: its spectral type, the 
+ * subclass within the type and its luminosity class, together with the 
+ * physical data derived from them.
+ * <p>
+ * There are only a few hundred classifications, so all of them are created 
+ * up front and shared by the suns, see {@link #valueOf(SpectralType, float, Luminosity)}.
+ * The derived data are rough values for the game, not an astrophysical 
+ * model.
+ * </p>
  * @author Simon Hardijanto
  */
+@Immutable
 public class MKClassification
 {
+  /** Subclasses go from 0 to {@value} in steps of 0.5 */
+  public static final float MAX_SPECTRAL_CLASS = 9.5f;
+  
+  /**
+   * The shared classification of the catalog.
+   * @param _spectralType the spectral type
+   * @param _spectralClass the subclass from 0 to {@link #MAX_SPECTRAL_CLASS}
+   * in steps of 0.5
+   * @param _luminosity the luminosity class
+   * @return the classification. Always the same object for the same values.
+   */
+  public static MKClassification valueOf(final SpectralType _spectralType, 
+                                         final float _spectralClass, 
+                                         final Luminosity _luminosity)
+  {
+    return CATALOG[indexOf(_spectralType, _spectralClass, _luminosity)];
+  }
+  
   public SpectralType getSpectralType()
   {
     return this.spectralType;
@@ -52,15 +80,60 @@ public class MKClassification
     return this.spectralType.color;
   }
   
+  /**
+   * The surface temperature, falling from the hottest to the coolest 
+   * temperature of the spectral type over its subclasses.
+   * @return the temperature in K
+   */
+  public int getTemperature()
+  {
+    return this.temperature;
+  }
+  
+  /**
+   * The mass of the sun.
+   * @return the mass in solar masses
+   */
+  public double getMass()
+  {
+    return this.mass;
+  }
+  
+  /**
+   * The energy the sun radiates.
+   * @return the luminosity in solar luminosities
+   */
+  public double getBolometricLuminosity()
+  {
+    return this.bolometricLuminosity;
+  }
+  
+  /**
+   * The distance from the sun at which the habitable zone starts.
+   * @return the distance in AU
+   */
+  public double getHabitableZoneInnerRadius()
+  {
+    return this.habitableZoneInnerRadius;
+  }
+  
+  /**
+   * The distance from the sun at which the habitable zone ends.
+   * @return the distance in AU
+   */
+  public double getHabitableZoneOuterRadius()
+  {
+    return this.habitableZoneOuterRadius;
+  }
+  
+  /**
+   * The classification as written by astronomers, e.g. G2V.
+   * @return the label. Is created only once.
+   */
   @Override
   public String toString()
   {
-    // cuts off any .0 of the spectral classes float value
-    String spectralClassStr = new DecimalFormat("0.#").format(this.spectralClass);
-    String result = this.spectralType.toString() + 
-                    spectralClassStr + 
-                    this.luminosity.toString();
-    return result;
+    return this.label;
   }
   
   //--------------- PROTECTED ---------------
@@ -73,11 +146,72 @@ public class MKClassification
     this.spectralType = _spectralType;
     this.spectralClass = _spectralClass;
     this.luminosity = _luminosity;
+    
+    this.temperature = Math.round(_spectralType.maxTemp 
+            - (_spectralType.maxTemp - _spectralType.minTemp) * _spectralClass / MAX_SPECTRAL_CLASS);
+    // main sequence relations, T ~ M^0.505 and L ~ M^3.5
+    final double mainSequenceMass = Math.pow((double) this.temperature / SOLAR_TEMPERATURE, 1.98);
+    final double mainSequenceLuminosity = Math.pow(mainSequenceMass, 3.5);
+    this.mass = mainSequenceMass * MASS_FACTORS[_luminosity.ordinal()];
+    this.bolometricLuminosity = mainSequenceLuminosity * LUMINOSITY_FACTORS[_luminosity.ordinal()];
+    this.habitableZoneInnerRadius = Math.sqrt(this.bolometricLuminosity / 1.1);
+    this.habitableZoneOuterRadius = Math.sqrt(this.bolometricLuminosity / 0.53);
+    
+    // cuts off any .0 of the spectral classes float value
+    this.label = _spectralType.toString() 
+            + new DecimalFormat("0.#").format(_spectralClass) 
+            + _luminosity.toString();
   }
   
   //---------------- PRIVATE ----------------
+  private static final int SOLAR_TEMPERATURE = 5778;
+  private static final int SUBCLASSES = (int) (MAX_SPECTRAL_CLASS * 2) + 1;
+  /** Relative to a main sequence star of the same temperature, from 0 to VII */
+  private static final double[] MASS_FACTORS = {
+    30, 15, 8, 3, 1.3, 1, 0.8, 0.5
+  };
+  private static final double[] LUMINOSITY_FACTORS = {
+    100000, 10000, 1000, 100, 3, 1, 0.3, 0.0001
+  };
+  /** Ordered by spectral type, subclass and luminosity class */
+  private static final MKClassification[] CATALOG = createCatalog();
+  
   private final SpectralType spectralType;
   private final float spectralClass;
   private final Luminosity luminosity;
+  private final int temperature;
+  private final double mass;
+  private final double bolometricLuminosity;
+  private final double habitableZoneInnerRadius;
+  private final double habitableZoneOuterRadius;
+  private final String label;
 
+  private static MKClassification[] createCatalog()
+  {
+    final MKClassification[] result = new MKClassification[
+            SpectralType.values().length * SUBCLASSES * Luminosity.values().length];
+    for (SpectralType spectralType : SpectralType.values()) {
+      for (int i = 0; i < SUBCLASSES; ++i) {
+        for (Luminosity luminosity : Luminosity.values()) {
+          final float spectralClass = i / 2f;
+          result[indexOf(spectralType, spectralClass, luminosity)] = 
+                  new MKClassification(spectralType, spectralClass, luminosity);
+        }
+      }
+    }
+    return result;
+  }
+  
+  private static int indexOf(final SpectralType _spectralType, 
+                             final float _spectralClass, 
+                             final Luminosity _luminosity)
+  {
+    final float halfSteps = _spectralClass * 2;
+    if (!(halfSteps >= 0 && halfSteps < SUBCLASSES && halfSteps == (int) halfSteps)) {
+      throw new IllegalArgumentException("Spectral class has to be between 0 and " 
+              + MAX_SPECTRAL_CLASS + " in steps of 0.5. Was " + _spectralClass);
+    }
+    return (_spectralType.ordinal() * SUBCLASSES + (int) halfSteps) 
+            * Luminosity.values().length + _luminosity.ordinal();
+  }
 }
@@ -24,9 +24,13 @@
 package org.projectthaleia.universe.sun;
 
 import java.awt.Color;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Random;
 
 /**
- *
+ * A sun. Suns of the same classification share one {@link MKClassification}.
  * @author Simon Hardijanto
  */
 public class Sun
@@ -44,10 +48,71 @@ public class Sun
   
   public static Sun generateSun()
   {
-    Sun sun = new Sun(new MKClassification(SpectralType.M, 5, Luminosity.IV));
+    Sun sun = new Sun(MKClassification.valueOf(SpectralType.M, 5, Luminosity.IV));
     return sun;
   }
   
+  /**
+   * Creates a sun with a random classification. Spectral types are as 
+   * frequent as among the stars near Earth, so most suns are red dwarfs. 
+   * Most suns are on the main sequence.
+   * @param _random the source of all random decisions
+   * @return the sun
+   */
+  public static Sun generateSun(final Random _random)
+  {
+    SpectralType spectralType = SpectralType.M;
+    double roll = _random.nextDouble();
+    for (int i = 0; i < SPECTRAL_TYPE_FREQUENCIES.length; ++i) {
+      roll -= SPECTRAL_TYPE_FREQUENCIES[i];
+      if (roll < 0) {
+        spectralType = SpectralType.values()[i];
+        break;
+      }
+    }
+    final int spectralClass = _random.nextInt(10);
+    
+    Luminosity luminosity = Luminosity.V;
+    roll = _random.nextDouble();
+    for (int i = 0; i < LUMINOSITY_FREQUENCIES.length; ++i) {
+      roll -= LUMINOSITY_FREQUENCIES[i];
+      if (roll < 0) {
+        luminosity = GENERATED_LUMINOSITIES[i];
+        break;
+      }
+    }
+    
+    return new Sun(MKClassification.valueOf(spectralType, spectralClass, luminosity));
+  }
+  
+  /**
+   * Writes the classification of the sun in a compact binary form.
+   * @param _out the destination
+   * @throws IOException if writing fails
+   * @see #readFrom(DataInput)
+   */
+  public void writeTo(final DataOutput _out) throws IOException
+  {
+    _out.writeByte(this.mKClassification.getSpectralType().ordinal());
+    _out.writeFloat(this.mKClassification.getSpectralClass());
+    _out.writeByte(this.mKClassification.getLuminosity().ordinal());
+  }
+  
+  /**
+   * Reads a sun written by {@link #writeTo(DataOutput)}. Its classification 
+   * is the shared one of the catalog.
+   * @param _in the source
+   * @return a new sun of the same classification
+   * @throws IOException if reading fails
+   */
+  public static Sun readFrom(final DataInput _in) throws IOException
+  {
+    final SpectralType spectralType = SpectralType.values()[_in.readByte()];
+    final float spectralClass = _in.readFloat();
+    final Luminosity luminosity = Luminosity.values()[_in.readByte()];
+    return new Sun(MKClassification.valueOf(spectralType, spectralClass, luminosity));
+  }
+  
   //--------------- PROTECTED ---------------
   
   //------------- PACKAGE PRIVATE -----------
@@ -59,6 +124,17 @@ public class Sun
   }
   
   //---------------- PRIVATE ----------------
+  /** The share of each spectral type from O to M */
+  private static final double[] SPECTRAL_TYPE_FREQUENCIES = {
+    0.0000003, 0.0013, 0.006, 0.03, 0.076, 0.121, 0.7656997
+  };
+  private static final Luminosity[] GENERATED_LUMINOSITIES = {
+    Luminosity.V, Luminosity.IV, Luminosity.III, Luminosity.II, Luminosity.I, Luminosity.VII
+  };
+  private static final double[] LUMINOSITY_FREQUENCIES = {
+    0.9, 0.03, 0.04, 0.005, 0.001, 0.024
+  };
+  
   private final MKClassification mKClassification;
   
   private void validate()
@@ -43,10 +43,19 @@ public class SunGraphic implements IStarSystemGraphic
     final int radius = SUN_RADIUS;
     final int width  = radius*2;
     _g.setColor(this.sun.getColor());
-    _g.fillOval(_offset.x-radius, _offset.y-radius, width, width);
+    final int x = (int) _offset.x;
+    final int y = (int) _offset.y;
+    _g.fillOval(x-radius, y-radius, width, width);
     
     final int fontHeight = 5;
-    _g.drawString(this.sun.getMKClassification().toString(), _offset.x+width, _offset.y+width+fontHeight);
+    _g.drawString(this.sun.getMKClassification().toString(), x+width, y+width+fontHeight);
+  }
+
+  @Override
+  public void paint(final Graphics2D _g, final Position _offset, final float _interpolation)
+  {
+    // suns don't move
+    this.paint(_g, _offset);
   }
 
   @Override
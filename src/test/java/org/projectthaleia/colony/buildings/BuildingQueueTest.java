@@ -28,6 +28,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mockito;
 import org.projectthaleia.colony.Colony;
+import org.projectthaleia.core.Timeline;
 
 import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.*;
@@ -279,6 +280,95 @@ public class BuildingQueueTest
     verify(colony, never()).addBuilding(Mockito.any(IBuildable.class), anyInt());
   }
   
+  @Test
+  public void shouldRemoveFinishedBuildingFromActiveQueue()
+  {
+    Date now = new Date(10);
+    IQueueable building = mock(IQueueable.class);
+    when(building.getFinishedDate()).thenReturn(now);
+    queue.add(building);
+    
+    queue.update(now);
+    queue.update(new Date(20));
+    
+    assertThat(queue.getActiveBuildings(), not(hasItem(building)));
+    verify(colony, times(1)).addBuilding(Mockito.any(IBuildable.class), anyInt());
+  }
+  
+  @Test
+  public void shouldCatchUpOnAllBuildingsFinishedSinceLastUpdate()
+  {
+    Date firstFinished = new Date(10);
+    IQueueable building1 = mock(IQueueable.class);
+    when(building1.getFinishedDate()).thenReturn(firstFinished);
+    IQueueable building2 = mock(IQueueable.class);
+    when(building2.getFinishedDate()).thenReturn(new Date(20));
+    IQueueable building3 = mock(IQueueable.class);
+    queue.add(building1);
+    queue.add(building2);
+    queue.add(building3);
+    
+    queue.update(new Date(30));
+    
+    verify(colony, times(2)).addBuilding(Mockito.any(IBuildable.class), anyInt());
+    // each successor starts when the previous building was done
+    verify(building2).setFactoryOutput(eq(firstFinished), anyInt(), anyFloat());
+    verify(building3).setFactoryOutput(eq(new Date(20)), anyInt(), anyFloat());
+    assertThat(queue.getActiveBuildings(), contains(building3));
+  }
+  
+  // Timeline -----------------------------------------------------------------
+  @Test
+  public void shouldFinishBuildingWhenTimelineReachesIt()
+  {
+    Timeline timeline = new Timeline(0);
+    queue.setTimeline(timeline);
+    IQueueable building = mock(IQueueable.class);
+    when(building.getFinishedDate()).thenReturn(new Date(20));
+    queue.add(building);
+    
+    timeline.advanceTo(10);
+    verify(colony, never()).addBuilding(Mockito.any(IBuildable.class), anyInt());
+    
+    timeline.advanceTo(30);
+    verify(colony, times(1)).addBuilding(Mockito.any(IBuildable.class), anyInt());
+    assertThat(queue.getActiveBuildings(), not(hasItem(building)));
+  }
+  
+  @Test
+  public void shouldStartAddedBuildingAtTimeOfTimeline()
+  {
+    Timeline timeline = new Timeline(0);
+    timeline.advanceTo(50);
+    queue.setTimeline(timeline);
+    IQueueable building = mock(IQueueable.class);
+    
+    queue.add(building);
+    
+    verify(building).setFactoryOutput(eq(new Date(50)), anyInt(), anyFloat());
+  }
+  
+  @Test
+  public void shouldNotFinishRemovedBuilding()
+  {
+    Timeline timeline = new Timeline(0);
+    queue.setTimeline(timeline);
+    IQueueable building = mock(IQueueable.class);
+    when(building.getFinishedDate()).thenReturn(new Date(20));
+    queue.add(building);
+    
+    queue.remove(building);
+    timeline.advanceTo(30);
+    
+    verify(colony, never()).addBuilding(Mockito.any(IBuildable.class), anyInt());
+  }
+  
+  @Test(expected=NullPointerException.class)
+  public void shouldNotAcceptNullTimeline()
+  {
+    queue.setTimeline(null);
+  }
+  
   // Notifying listeners -------------------------------------------------------
   @Test
   public void shouldNotifyListenersOfAddedBuilding()
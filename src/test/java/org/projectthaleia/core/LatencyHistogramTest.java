@@ -0,0 +1,124 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2011 Simon Hardijanto
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.projectthaleia.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Simon Hardijanto
+ */
+public class LatencyHistogramTest
+{
+  private LatencyHistogram histogram;
+  
+  @Before
+  public void setUp()
+  {
+    histogram = new LatencyHistogram();
+  }
+  
+  @Test
+  public void shouldBeEmptyAtFirst()
+  {
+    assertEquals(0, histogram.getCount());
+    assertEquals(0, histogram.getMean());
+    assertEquals(0, histogram.getMaximum());
+    assertEquals(0, histogram.getValueAtPercentile(99));
+  }
+  
+  @Test
+  public void shouldPutEveryValueIntoItsBucket()
+  {
+    final long[] values = {0, 1, 7, 8, 15, 16, 17, 1000, 123456789L, Long.MAX_VALUE};
+    for (long value : values) {
+      final int bucket = LatencyHistogram.bucketOf(value);
+      assertThat(value, greaterThanOrEqualTo(LatencyHistogram.lowerBoundOf(bucket)));
+      assertThat(value, lessThanOrEqualTo(LatencyHistogram.upperBoundOf(bucket)));
+    }
+  }
+  
+  @Test
+  public void shouldHaveAdjacentBuckets()
+  {
+    for (int i = 1; i < LatencyHistogram.bucketOf(Long.MAX_VALUE); ++i) {
+      assertEquals(LatencyHistogram.upperBoundOf(i-1) + 1, LatencyHistogram.lowerBoundOf(i));
+    }
+  }
+  
+  @Test
+  public void shouldCalculateMeanAndMaximum()
+  {
+    histogram.record(1000);
+    histogram.record(3000);
+    
+    assertEquals(2, histogram.getCount());
+    assertEquals(2000, histogram.getMean());
+    assertEquals(3000, histogram.getMaximum());
+  }
+  
+  @Test
+  public void shouldFindPercentilesWithinPrecision()
+  {
+    for (long i = 1; i <= 1000; ++i) {
+      histogram.record(i * 1000);
+    }
+    
+    final double precision = 1.0 / LatencyHistogram.SUB_BUCKET_COUNT;
+    assertEquals(500000, histogram.getValueAtPercentile(50), 500000 * precision);
+    assertEquals(990000, histogram.getValueAtPercentile(99), 990000 * precision);
+    assertEquals(1000000, histogram.getValueAtPercentile(100));
+  }
+  
+  @Test
+  public void shouldCountNegativeValuesAsZero()
+  {
+    histogram.record(-5);
+    
+    assertEquals(1, histogram.getCount());
+    assertEquals(0, histogram.getMaximum());
+  }
+  
+  @Test(expected=IllegalArgumentException.class)
+  public void shouldNotAcceptPercentileAbove100()
+  {
+    histogram.getValueAtPercentile(101);
+  }
+  
+  @Test
+  public void shouldReset()
+  {
+    histogram.record(1000);
+    
+    histogram.reset();
+    
+    assertEquals(0, histogram.getCount());
+    assertEquals(0, histogram.getMaximum());
+    assertEquals(0, histogram.getValueAtPercentile(50));
+  }
+}
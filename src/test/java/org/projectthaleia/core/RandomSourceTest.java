@@ -0,0 +1,66 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2011 Simon Hardijanto
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.projectthaleia.core;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Simon Hardijanto
+ */
+public class RandomSourceTest
+{
+  @Test
+  public void shouldRepeatNumbersForSameSeed()
+  {
+    RandomSource first = new RandomSource(42);
+    RandomSource second = new RandomSource(42);
+    
+    assertEquals(42, first.getSeed());
+    for (int i = 0; i < 100; ++i) {
+      assertEquals(first.getRandom().nextLong(), second.getRandom().nextLong());
+    }
+  }
+  
+  @Test
+  public void shouldForkIndependentlyOfSharedStream()
+  {
+    RandomSource used = new RandomSource(42);
+    RandomSource unused = new RandomSource(42);
+    used.getRandom().nextLong();
+    
+    assertEquals(unused.fork(3).nextLong(), used.fork(3).nextLong());
+  }
+  
+  @Test
+  public void shouldForkDifferentStreams()
+  {
+    RandomSource source = new RandomSource(42);
+    
+    assertThat(source.fork(1).nextLong(), not(equalTo(source.fork(2).nextLong())));
+  }
+}
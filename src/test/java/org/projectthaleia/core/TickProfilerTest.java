@@ -0,0 +1,129 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2011 Simon Hardijanto
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.projectthaleia.core;
+
+import java.lang.management.ManagementFactory;
+import javax.management.ObjectName;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Simon Hardijanto
+ */
+public class TickProfilerTest
+{
+  private TickProfiler profiler;
+  
+  @Before
+  public void setUp()
+  {
+    profiler = new TickProfiler(true);
+  }
+  
+  @Test
+  public void shouldRecordTickPhasesOncePerTick()
+  {
+    // two star systems measured during the same update
+    profiler.stop(TickPhase.PLANETS, profiler.start());
+    profiler.stop(TickPhase.PLANETS, profiler.start());
+    
+    assertEquals(0, profiler.getHistogram(TickPhase.PLANETS).getCount());
+    
+    profiler.endTick();
+    
+    assertEquals(1, profiler.getTickCount());
+    assertEquals(1, profiler.getHistogram(TickPhase.PLANETS).getCount());
+    assertEquals(1, profiler.getHistogram(TickPhase.EVENTS).getCount());
+  }
+  
+  @Test
+  public void shouldRecordPaintingAtOnce()
+  {
+    profiler.stop(TickPhase.PAINT, profiler.start());
+    
+    assertEquals(1, profiler.getHistogram(TickPhase.PAINT).getCount());
+  }
+  
+  @Test
+  public void shouldNotMeasureWhenDisabled()
+  {
+    profiler.setEnabled(false);
+    
+    profiler.stop(TickPhase.PLANETS, profiler.start());
+    profiler.stop(TickPhase.PAINT, profiler.start());
+    profiler.endTick();
+    profiler.frameSkipped(2);
+    
+    assertEquals(0, profiler.getTickCount());
+    assertEquals(0, profiler.getSkippedFrames());
+    assertEquals(0, profiler.getHistogram(TickPhase.PLANETS).getCount());
+    assertEquals(0, profiler.getHistogram(TickPhase.PAINT).getCount());
+  }
+  
+  @Test
+  public void shouldReportEveryPhase()
+  {
+    profiler.endTick();
+    
+    assertThat(profiler.getPhaseStatistics(), hasSize(TickPhase.values().length));
+    assertEquals(1, profiler.getPhaseStatistics().get(TickPhase.UPDATE.ordinal()).getCount());
+  }
+  
+  @Test
+  public void shouldReset()
+  {
+    profiler.endTick();
+    profiler.frameSkipped(3);
+    
+    profiler.reset();
+    
+    assertEquals(0, profiler.getTickCount());
+    assertEquals(0, profiler.getSkippedFrames());
+    assertEquals(0, profiler.getHistogram(TickPhase.UPDATE).getCount());
+  }
+  
+  @Test
+  public void shouldRegisterWithPlatformMBeanServer()
+          throws Exception
+  {
+    final ObjectName name = new ObjectName(TickProfiler.OBJECT_NAME);
+    profiler.endTick();
+    
+    profiler.registerMBean();
+    try {
+      assertEquals(1L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "TickCount"));
+      // a second game replaces the first one
+      new TickProfiler(true).registerMBean();
+      assertEquals(0L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "TickCount"));
+    } finally {
+      profiler.unregisterMBean();
+    }
+    
+    assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+  }
+}
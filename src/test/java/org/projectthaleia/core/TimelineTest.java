@@ -0,0 +1,157 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2011 Simon Hardijanto
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.projectthaleia.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Simon Hardijanto
+ */
+public class TimelineTest
+{
+  Timeline timeline;
+  List<Long> fired;
+  
+  @Before
+  public void setUp()
+  {
+    timeline = new Timeline(0);
+    fired = new ArrayList<Long>();
+  }
+  
+  @Test
+  public void shouldFireDueEventsInOrder()
+  {
+    timeline.schedule(20, new Recorder());
+    timeline.schedule(10, new Recorder());
+    timeline.schedule(30, new Recorder());
+    
+    timeline.advanceTo(20);
+    
+    assertThat(fired, contains(10L, 20L));
+    assertEquals(20, timeline.getTime());
+    assertEquals(1, timeline.size());
+  }
+  
+  @Test
+  public void shouldFireEventsWithSameTimeInOrderOfScheduling()
+  {
+    final List<String> names = new ArrayList<String>();
+    timeline.schedule(10, new ITimelineEvent() {
+      @Override
+      public void fire(final long _time) { names.add("first"); }
+    });
+    timeline.schedule(10, new ITimelineEvent() {
+      @Override
+      public void fire(final long _time) { names.add("second"); }
+    });
+    
+    timeline.advanceTo(10);
+    
+    assertThat(names, contains("first", "second"));
+  }
+  
+  @Test
+  public void shouldNotFireCancelledEvent()
+  {
+    timeline.schedule(10, new Recorder()).cancel();
+    
+    timeline.advanceTo(20);
+    
+    assertThat(fired, is(empty()));
+    assertEquals(0, timeline.size());
+  }
+  
+  @Test
+  public void shouldDropCancelledEventsWhenRescheduledOften()
+  {
+    Timeline.ScheduledEvent scheduled = timeline.schedule(1000, new Recorder());
+    for (int i = 0; i < 10000; ++i) {
+      scheduled.cancel();
+      scheduled = timeline.schedule(1000 + i, new Recorder());
+    }
+    
+    assertThat(timeline.size(), lessThan(100));
+    timeline.advanceTo(20000);
+    assertThat(fired, contains(10999L));
+    assertEquals(0, timeline.size());
+  }
+  
+  @Test
+  public void shouldFireEventsScheduledByEventsWithinSameAdvance()
+  {
+    timeline.schedule(10, new ITimelineEvent() {
+      @Override
+      public void fire(final long _time)
+      {
+        assertEquals(10, timeline.getTime());
+        timeline.schedule(_time + 10, new Recorder());
+      }
+    });
+    
+    timeline.advanceTo(100);
+    
+    assertThat(fired, contains(20L));
+  }
+  
+  @Test
+  public void shouldFireEventsScheduledInThePastOnNextAdvance()
+  {
+    timeline.advanceTo(50);
+    timeline.schedule(10, new Recorder());
+    
+    timeline.advanceTo(50);
+    
+    assertThat(fired, contains(10L));
+  }
+  
+  @Test(expected=IllegalArgumentException.class)
+  public void shouldNotAdvanceBackwards()
+  {
+    timeline.advanceTo(10);
+    timeline.advanceTo(5);
+  }
+  
+  @Test(expected=NullPointerException.class)
+  public void shouldNotScheduleNull()
+  {
+    timeline.schedule(10, null);
+  }
+  
+  private class Recorder implements ITimelineEvent
+  {
+    @Override
+    public void fire(final long _time)
+    {
+      fired.add(_time);
+    }
+  }
+}
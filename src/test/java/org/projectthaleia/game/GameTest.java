@@ -0,0 +1,147 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2011 Simon Hardijanto
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.projectthaleia.game;
+
+import java.util.Date;
+import org.junit.Before;
+import org.junit.Test;
+import org.projectthaleia.colony.Colony;
+import org.projectthaleia.colony.buildings.BuildingQueue;
+import org.projectthaleia.core.TickPhase;
+import org.projectthaleia.factions.Empire;
+import org.projectthaleia.universe.Galaxy;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ *
+ * @author Simon Hardijanto
+ */
+public class GameTest
+{
+  private static final long SECONDS_PER_DAY = 60*60*24;
+  
+  private Game game;
+  private Galaxy mockGalaxy;
+  
+  @Before
+  public void setUp()
+  {
+    mockGalaxy = mock(Galaxy.class);
+    game = new Game(mock(Empire.class), mockGalaxy);
+  }
+  
+  @Test
+  public void shouldNotBePausedInitially()
+  {
+    assertFalse(game.isPaused());
+  }
+  
+  @Test
+  public void shouldPauseAndResume()
+  {
+    game.pause();
+    assertTrue(game.isPaused());
+    
+    game.resume();
+    assertFalse(game.isPaused());
+  }
+  
+  @Test
+  public void shouldAdvanceGameTime()
+  {
+    Date start = game.getDate();
+    
+    game.update(SECONDS_PER_DAY);
+    game.update(SECONDS_PER_DAY);
+    
+    assertEquals(2*SECONDS_PER_DAY, game.getGameTime());
+    assertEquals(start.getTime() + 2*SECONDS_PER_DAY*1000, game.getDate().getTime());
+  }
+  
+  @Test
+  public void shouldNotProfileByDefault()
+  {
+    game.update(SECONDS_PER_DAY);
+    
+    assertFalse(game.getProfiler().isEnabled());
+    assertEquals(0, game.getProfiler().getTickCount());
+  }
+  
+  @Test
+  public void shouldProfileEveryUpdate()
+  {
+    game.getProfiler().setEnabled(true);
+    game.update(SECONDS_PER_DAY);
+    game.update(SECONDS_PER_DAY);
+    
+    verify(mockGalaxy).setProfiler(game.getProfiler());
+    assertEquals(2, game.getProfiler().getTickCount());
+    assertEquals(2, game.getProfiler().getHistogram(TickPhase.UPDATE).getCount());
+  }
+  
+  @Test
+  public void shouldWarpInOneStep()
+  {
+    final long halfAYear = 180*SECONDS_PER_DAY;
+    
+    game.warp(halfAYear);
+    
+    verify(mockGalaxy, times(1)).update(halfAYear);
+    assertEquals(halfAYear, game.getGameTime());
+  }
+  
+  @Test(expected=IllegalArgumentException.class)
+  public void shouldNotWarpBackwards()
+  {
+    game.warp(0);
+  }
+  
+  @Test
+  public void shouldPutColoniesOfGalaxyOnTimeline()
+  {
+    verify(mockGalaxy).setTimeline(game.getTimeline());
+  }
+  
+  @Test
+  public void shouldPutBuildingQueueOfRegisteredColonyOnTimeline()
+  {
+    BuildingQueue mockQueue = mock(BuildingQueue.class);
+    Colony mockColony = mock(Colony.class);
+    when(mockColony.getBuildingQueue()).thenReturn(mockQueue);
+    
+    game.registerColony(mockColony);
+    
+    verify(mockQueue).setTimeline(game.getTimeline());
+  }
+  
+  @Test
+  public void shouldAdvanceTimelineToCurrentDate()
+  {
+    game.update(SECONDS_PER_DAY);
+    
+    assertEquals(game.getDate().getTime(), game.getTimeline().getTime());
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2011 Simon Hardijanto
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.projectthaleia.game;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ *
+ * @author Simon Hardijanto
+ */
+public class HeadlessRunnerTest
+{
+  private static final long SECONDS_PER_DAY = 60*60*24;
+  
+  private HeadlessRunner runner;
+  private Game mockGame;
+  
+  @Before
+  public void setUp()
+  {
+    runner = new HeadlessRunner(SECONDS_PER_DAY);
+    mockGame = mock(Game.class);
+    when(mockGame.isRunning()).thenReturn(true);
+  }
+
+  @Test(expected=IllegalArgumentException.class)
+  public void shouldNotAcceptZeroDelta()
+  {
+    runner = new HeadlessRunner(0);
+  }
+  
+  @Test(expected=IllegalArgumentException.class)
+  public void shouldNotRunForNegativeDays()
+  {
+    runner.runFor(mockGame, -1);
+  }
+  
+  @Test
+  public void shouldUpdateOncePerDelta()
+  {
+    SimulationReport report = runner.runFor(mockGame, 10);
+    
+    verify(mockGame, times(10)).update(SECONDS_PER_DAY);
+    assertEquals(10, report.getTicks());
+    assertEquals(10 * SECONDS_PER_DAY, report.getGameSeconds());
+    assertEquals(10.0, report.getGameDays(), 0);
+  }
+  
+  @Test
+  public void shouldShortenLastUpdate()
+  {
+    runner = new HeadlessRunner(SECONDS_PER_DAY * 3);
+    
+    runner.runFor(mockGame, 4);
+    
+    verify(mockGame).update(SECONDS_PER_DAY * 3);
+    verify(mockGame).update(SECONDS_PER_DAY);
+  }
+  
+  @Test
+  public void shouldStopWhenGameQuits()
+  {
+    when(mockGame.isRunning()).thenReturn(true).thenReturn(false);
+    
+    SimulationReport report = runner.runFor(mockGame, 10);
+    
+    assertEquals(1, report.getTicks());
+  }
+  
+  @Test
+  public void shouldRunForGivenRealTime()
+  {
+    final long wallNanos = 20000000L;
+    
+    SimulationReport report = runner.runUntil(mockGame, wallNanos);
+    
+    assertThat(report.getWallNanos(), greaterThanOrEqualTo(wallNanos));
+    assertThat(report.getTicks(), greaterThan(0L));
+    assertThat(report.getGameDaysPerSecond(), greaterThan(0.0));
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2011 Simon Hardijanto
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.projectthaleia.game;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Simon Hardijanto
+ */
+public class TickSchedulerTest
+{
+  private TickScheduler scheduler;
+  
+  @Before
+  public void setUp()
+  {
+    scheduler = new TickScheduler();
+  }
+
+  @Test(expected=IllegalArgumentException.class)
+  public void shouldNotAcceptNegativeSpinWindow()
+  {
+    scheduler = new TickScheduler(-1);
+  }
+  
+  @Test
+  public void shouldReturnAtOnceForPastDeadline() throws InterruptedException
+  {
+    scheduler.waitUntil(System.nanoTime() - 1000000L);
+    
+    assertEquals(0, scheduler.getWaitCount());
+    assertEquals(0, scheduler.getAverageJitter());
+  }
+  
+  @Test
+  public void shouldNotReturnBeforeDeadline() throws InterruptedException
+  {
+    final long deadline = System.nanoTime() + 5000000L;
+    
+    scheduler.waitUntil(deadline);
+    
+    assertThat(System.nanoTime(), greaterThanOrEqualTo(deadline));
+  }
+  
+  @Test
+  public void shouldRecordJitter() throws InterruptedException
+  {
+    scheduler.waitUntil(System.nanoTime() + 2000000L);
+    scheduler.waitUntil(System.nanoTime() + 2000000L);
+    
+    assertEquals(2, scheduler.getWaitCount());
+    assertThat(scheduler.getLastJitter(), greaterThanOrEqualTo(0L));
+    assertThat(scheduler.getMaximumJitter(), greaterThanOrEqualTo(scheduler.getLastJitter()));
+    assertThat(scheduler.getMaximumJitter(), greaterThanOrEqualTo(scheduler.getAverageJitter()));
+  }
+  
+  @Test
+  public void shouldStopWaitingWhenInterrupted() throws InterruptedException
+  {
+    final AtomicBoolean interrupted = new AtomicBoolean();
+    final AtomicBoolean flagCleared = new AtomicBoolean();
+    Thread waiting = new Thread(new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        try {
+          scheduler.waitUntil(System.nanoTime() + 60000000000L);
+        } catch (InterruptedException e) {
+          interrupted.set(true);
+          flagCleared.set(!Thread.currentThread().isInterrupted());
+        }
+      }
+    });
+    waiting.start();
+    
+    Thread.sleep(50);
+    waiting.interrupt();
+    waiting.join(5000);
+    
+    assertFalse(waiting.isAlive());
+    assertTrue(interrupted.get());
+    assertTrue(flagCleared.get());
+    assertEquals(0, scheduler.getWaitCount());
+  }
+  
+  @Test
+  public void shouldPaceAgainAfterInterrupt() throws InterruptedException
+  {
+    Thread.currentThread().interrupt();
+    try {
+      scheduler.waitUntil(System.nanoTime() + 2000000L);
+      fail("Interrupt was ignored.");
+    } catch (InterruptedException e) {
+      // expected
+    }
+    final long deadline = System.nanoTime() + 5000000L;
+    
+    scheduler.waitUntil(deadline);
+    
+    assertThat(System.nanoTime(), greaterThanOrEqualTo(deadline));
+    assertEquals(1, scheduler.getWaitCount());
+  }
+}
@@ -0,0 +1,251 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2011 Simon Hardijanto
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.projectthaleia.spaceprobes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.projectthaleia.universe.Position;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Simon Hardijanto
+ */
+public class FleetMovementTest
+{
+  private ForkJoinPool pool;
+  private FleetMovement fleetMovement;
+  
+  @Before
+  public void setUp()
+  {
+    pool = new ForkJoinPool(4);
+    fleetMovement = new FleetMovement(pool);
+  }
+  
+  @After
+  public void tearDown()
+  {
+    pool.shutdown();
+  }
+  
+  @Test(expected=NullPointerException.class)
+  public void shouldNotCreateWithoutPool()
+  {
+    new FleetMovement(null);
+  }
+  
+  @Test
+  public void shouldNotTakeSlotsForStoppedGroups()
+  {
+    SpaceProbeGroup stopped = SpaceProbeGroup.generateSpaceProbeGroup();
+    SpaceProbeGroup withoutWaypoint = SpaceProbeGroup.generateSpaceProbeGroup();
+    withoutWaypoint.setCurrentSpeed(withoutWaypoint.getMaximumSpeed());
+    
+    fleetMovement.attach(stopped);
+    fleetMovement.attach(withoutWaypoint);
+    
+    assertThat(fleetMovement.getMovingCount(), is(0));
+  }
+  
+  @Test
+  public void shouldMoveAttachedGroup()
+  {
+    SpaceProbeGroup group = createMovingGroup(new Position(1000, 50));
+    fleetMovement.attach(group);
+    
+    fleetMovement.update(1);
+    group.update(1);
+    
+    assertThat(fleetMovement.getMovingCount(), is(1));
+    assertThat(group.getPosition(), is(new Position(58, 50)));
+    assertThat(group.getPreviousPosition(), is(new Position(50, 50)));
+  }
+  
+  @Test
+  public void shouldTakeSlotWhenGroupStartsMoving()
+  {
+    SpaceProbeGroup group = SpaceProbeGroup.generateSpaceProbeGroup();
+    fleetMovement.attach(group);
+    
+    group.addWaypoint(new Position(1000, 50));
+    group.setCurrentSpeed(group.getMaximumSpeed());
+    
+    assertThat(fleetMovement.getMovingCount(), is(1));
+  }
+  
+  @Test
+  public void shouldStopAndFreeSlotAtLastWaypoint()
+  {
+    SpaceProbeGroup group = createMovingGroup(new Position(60, 50));
+    fleetMovement.attach(group);
+    
+    fleetMovement.update(1);
+    fleetMovement.update(1);
+    
+    assertThat(group.isStopped(), is(true));
+    assertThat(group.getPosition(), is(new Position(60, 50)));
+    assertThat(fleetMovement.getMovingCount(), is(0));
+  }
+  
+  @Test
+  public void shouldHeadForNextWaypoint()
+  {
+    SpaceProbeGroup group = createMovingGroup(new Position(54, 50));
+    group.addWaypoint(new Position(54, 100));
+    fleetMovement.attach(group);
+    
+    fleetMovement.update(1);
+    
+    assertThat(group.getPosition(), is(new Position(54, 54)));
+    assertThat(group.getWaypoints(), contains(new Position(54, 100)));
+    assertThat(fleetMovement.getMovingCount(), is(1));
+  }
+  
+  @Test
+  public void shouldMoveFromNewPosition()
+  {
+    SpaceProbeGroup group = createMovingGroup(new Position(1000, 50));
+    fleetMovement.attach(group);
+    fleetMovement.update(1);
+    
+    group.setPosition(new Position(1000, 100));
+    fleetMovement.update(1);
+    
+    assertThat(group.getPosition(), is(new Position(1000, 92)));
+  }
+  
+  @Test
+  public void shouldKeepMovingAfterDetach()
+  {
+    SpaceProbeGroup group = createMovingGroup(new Position(1000, 50));
+    fleetMovement.attach(group);
+    fleetMovement.update(1);
+    
+    fleetMovement.detach(group);
+    group.update(1);
+    
+    assertThat(fleetMovement.getMovingCount(), is(0));
+    assertThat(group.getPosition(), is(new Position(66, 50)));
+  }
+  
+  @Test
+  public void shouldKeepOtherGroupsWhenFreeingSlot()
+  {
+    SpaceProbeGroup arriving = createMovingGroup(new Position(54, 50));
+    SpaceProbeGroup other = createMovingGroup(new Position(50, 1000));
+    fleetMovement.attach(arriving);
+    fleetMovement.attach(other);
+    
+    fleetMovement.update(1);
+    fleetMovement.update(1);
+    
+    assertThat(fleetMovement.getMovingCount(), is(1));
+    assertThat(arriving.getPosition(), is(new Position(54, 50)));
+    assertThat(other.getPosition(), is(new Position(50, 66)));
+  }
+  
+  @Test(expected=IllegalStateException.class)
+  public void shouldNotAttachToTwoMovements()
+  {
+    SpaceProbeGroup group = SpaceProbeGroup.generateSpaceProbeGroup();
+    fleetMovement.attach(group);
+    
+    new FleetMovement(pool).attach(group);
+  }
+  
+  @Test
+  public void shouldMoveLikeGroupsMovingThemselves()
+  {
+    List<SpaceProbeGroup> attached = createCourses(10000);
+    List<SpaceProbeGroup> alone = createCourses(10000);
+    for (SpaceProbeGroup group : attached) {
+      fleetMovement.attach(group);
+    }
+    
+    for (int i = 0; i < 50; ++i) {
+      fleetMovement.update(1);
+      for (int j = 0; j < alone.size(); ++j) {
+        attached.get(j).update(1);
+        alone.get(j).update(1);
+      }
+    }
+    
+    for (int j = 0; j < alone.size(); ++j) {
+      assertThat(attached.get(j).hashState(0), is(alone.get(j).hashState(0)));
+      assertThat(attached.get(j).hasMoved(), is(alone.get(j).hasMoved()));
+    }
+  }
+  
+  @Test
+  public void shouldMoveSeriallyLikeInParallel()
+  {
+    List<SpaceProbeGroup> parallel = createCourses(10000);
+    List<SpaceProbeGroup> serial = createCourses(10000);
+    FleetMovement serialMovement = new FleetMovement(pool);
+    serialMovement.setParallel(false);
+    for (int j = 0; j < parallel.size(); ++j) {
+      fleetMovement.attach(parallel.get(j));
+      serialMovement.attach(serial.get(j));
+    }
+    
+    for (int i = 0; i < 50; ++i) {
+      fleetMovement.update(1);
+      serialMovement.update(1);
+    }
+    
+    for (int j = 0; j < parallel.size(); ++j) {
+      assertThat(parallel.get(j).hashState(0), is(serial.get(j).hashState(0)));
+    }
+  }
+  
+  // ----------- UTIL ----------------------------------------------------------
+  /** A group at (50,50) that moves 8 km per second */
+  private static SpaceProbeGroup createMovingGroup(final Position _waypoint)
+  {
+    SpaceProbeGroup result = SpaceProbeGroup.generateSpaceProbeGroup();
+    result.addWaypoint(_waypoint);
+    result.setCurrentSpeed(result.getMaximumSpeed());
+    return result;
+  }
+  
+  /** Groups with courses of different lengths, some stopping on the way */
+  private static List<SpaceProbeGroup> createCourses(final int _count)
+  {
+    List<SpaceProbeGroup> result = new ArrayList<SpaceProbeGroup>(_count);
+    for (int i = 0; i < _count; ++i) {
+      SpaceProbeGroup group = createMovingGroup(new Position(50 + i % 300, 50 - i % 70));
+      group.addWaypoint(new Position(-(i % 170), 3 * (i % 90)));
+      result.add(group);
+    }
+    return result;
+  }
+}
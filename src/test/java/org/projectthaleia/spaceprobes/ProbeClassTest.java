@@ -0,0 +1,87 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2011 Simon Hardijanto
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.projectthaleia.spaceprobes;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Simon Hardijanto
+ */
+public class ProbeClassTest
+{
+  @Test
+  public void shouldShareDesignOfSameName()
+  {
+    ProbeClass first = ProbeClass.valueOf("Shared Frigate", 300, 6000);
+    ProbeClass second = ProbeClass.valueOf("Shared Frigate", 300, 6000);
+    
+    assertSame(first, second);
+    assertThat(first.getName(), is("Shared Frigate"));
+    assertThat(first.getSize(), is(300));
+    assertThat(first.getSpeed(), is(6000));
+  }
+  
+  @Test
+  public void shouldShareGeneratedDesign()
+  {
+    assertSame(ProbeClass.generateProbeClass(), ProbeClass.generateProbeClass());
+  }
+  
+  @Test(expected=IllegalArgumentException.class)
+  public void shouldNotRegisterNameTwiceWithOtherValues()
+  {
+    ProbeClass.valueOf("Contested Frigate", 300, 6000);
+    ProbeClass.valueOf("Contested Frigate", 300, 7000);
+  }
+  
+  @Test
+  public void shouldRegisterNameAgainAfterClearing()
+  {
+    ProbeClass before = ProbeClass.valueOf("Redesigned Frigate", 300, 6000);
+    
+    ProbeClass.clearRegistry();
+    ProbeClass after = ProbeClass.valueOf("Redesigned Frigate", 300, 7000);
+    
+    assertNotSame(before, after);
+    assertThat(after.getSpeed(), is(7000));
+    assertSame(after, ProbeClass.valueOf("Redesigned Frigate", 300, 7000));
+  }
+  
+  @Test(expected=IllegalArgumentException.class)
+  public void shouldNotRegisterEmptyName()
+  {
+    ProbeClass.valueOf(" ", 300, 6000);
+  }
+  
+  @Test(expected=IllegalArgumentException.class)
+  public void shouldNotRegisterNegativeSpeed()
+  {
+    ProbeClass.valueOf("Reversing Frigate", 300, -1);
+  }
+}
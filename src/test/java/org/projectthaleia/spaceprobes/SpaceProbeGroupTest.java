@@ -23,6 +23,7 @@
  */
 package org.projectthaleia.spaceprobes;
 
+import java.util.Arrays;
 import java.util.List;
 import org.junit.Before;
 import org.junit.Test;
@@ -146,6 +147,172 @@ public class SpaceProbeGroupTest
     assertEquals(0, got);
   }
 
+  @Test
+  public void shouldRaiseMaximumSpeedWhenSlowestMemberLeaves()
+  {
+    addSpaceProbe(5000);
+    SpaceProbe slow1 = addSpaceProbe(10);
+    SpaceProbe slow2 = addSpaceProbe(10);
+    
+    spaceProbeGroup.removeSpaceProbe(slow1);
+    assertEquals(10, spaceProbeGroup.getMaximumSpeed());
+    
+    spaceProbeGroup.removeSpaceProbe(slow2);
+    assertEquals(5000, spaceProbeGroup.getMaximumSpeed());
+  }
+  
+  // mergeInto() and splitOff() tests ------------------------------------------
+  @Test
+  public void shouldMergeAllMembersIntoOtherGroup()
+  {
+    SpaceProbe slow = addSpaceProbe(10);
+    SpaceProbe fast = addSpaceProbe(5000);
+    spaceProbeGroup.addWaypoint(new Position(100, 100));
+    spaceProbeGroup.setCurrentSpeed(10);
+    SpaceProbeGroup other = new SpaceProbeGroup("Other", groupPosition);
+    
+    spaceProbeGroup.mergeInto(other);
+    
+    assertThat(other.getSpaceProbes(), containsInAnyOrder(slow, fast));
+    assertEquals(10, other.getMaximumSpeed());
+    assertThat(spaceProbeGroup.getSpaceProbes(), is(empty()));
+    assertEquals(0, spaceProbeGroup.getMaximumSpeed());
+    assertThat(spaceProbeGroup.isStopped(), is(true));
+  }
+  
+  @Test
+  public void shouldSlowDownTargetToMaximumSpeedOfMergedMembers()
+  {
+    spaceProbeGroup.addSpaceProbes(ProbeClass.valueOf("Counted Freighter", 200, 10), 3);
+    SpaceProbeGroup other = new SpaceProbeGroup("Other", groupPosition);
+    other.addSpaceProbes(ProbeClass.valueOf("Counted Corvette", 200, 7000), 5);
+    other.addWaypoint(new Position(100, 100));
+    other.setCurrentSpeed(7000);
+    
+    spaceProbeGroup.mergeInto(other);
+    
+    assertEquals(10, other.getMaximumSpeed());
+    assertEquals(10, other.getCurrentSpeed());
+  }
+  
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldNotMergeIntoItself()
+  {
+    spaceProbeGroup.mergeInto(spaceProbeGroup);
+  }
+  
+  @Test
+  public void shouldSplitOffMembersIntoNewGroup()
+  {
+    SpaceProbe slow = addSpaceProbe(10);
+    SpaceProbe fast = addSpaceProbe(5000);
+    
+    SpaceProbeGroup detachment = spaceProbeGroup.splitOff("Detachment", Arrays.asList(slow));
+    
+    assertThat(detachment.getSpaceProbes(), contains(slow));
+    assertEquals(10, detachment.getMaximumSpeed());
+    assertThat(detachment.getPosition(), is(groupPosition));
+    assertThat(spaceProbeGroup.getSpaceProbes(), contains(fast));
+    assertEquals(5000, spaceProbeGroup.getMaximumSpeed());
+  }
+  
+  @Test
+  public void shouldNotSplitOffProbesOfOtherGroups()
+  {
+    SpaceProbe member = addSpaceProbe(10);
+    SpaceProbeGroup other = new SpaceProbeGroup("Other", groupPosition);
+    SpaceProbe stranger = addSpaceProbe(10);
+    spaceProbeGroup.splitOff("Other", Arrays.asList(stranger)).mergeInto(other);
+    
+    try {
+      spaceProbeGroup.splitOff("Detachment", Arrays.asList(member, stranger));
+      fail("Split off a probe of another group");
+    } catch (IllegalArgumentException ex) {
+      assertThat(spaceProbeGroup.getSpaceProbes(), contains(member));
+    }
+  }
+  
+  // counted space probes ------------------------------------------------------
+  @Test
+  public void shouldCountShipsOfADesign()
+  {
+    ProbeClass design = ProbeClass.valueOf("Counted Corvette", 200, 7000);
+    addSpaceProbe(9000);
+    
+    spaceProbeGroup.addSpaceProbes(design, 1000000);
+    
+    assertThat(spaceProbeGroup.getCountedSpaceProbes(design), is(1000000));
+    assertThat(spaceProbeGroup.getSpaceProbeCount(), is(1000001L));
+    assertThat(spaceProbeGroup.getCountedProbeClasses(), contains(design));
+    assertEquals(7000, spaceProbeGroup.getMaximumSpeed());
+  }
+  
+  @Test
+  public void shouldForgetDesignWhenAllShipsAreLost()
+  {
+    ProbeClass design = ProbeClass.valueOf("Counted Corvette", 200, 7000);
+    spaceProbeGroup.addSpaceProbes(design, 10);
+    
+    spaceProbeGroup.removeSpaceProbes(design, 10);
+    
+    assertThat(spaceProbeGroup.getCountedProbeClasses(), is(empty()));
+    assertThat(spaceProbeGroup.getSpaceProbeCount(), is(0L));
+    assertEquals(0, spaceProbeGroup.getMaximumSpeed());
+  }
+  
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldNotRemoveMoreShipsThanCounted()
+  {
+    ProbeClass design = ProbeClass.valueOf("Counted Corvette", 200, 7000);
+    spaceProbeGroup.addSpaceProbes(design, 10);
+    
+    spaceProbeGroup.removeSpaceProbes(design, 11);
+  }
+  
+  @Test
+  public void shouldMaterializeCountedShip()
+  {
+    ProbeClass design = ProbeClass.valueOf("Counted Corvette", 200, 7000);
+    spaceProbeGroup.addSpaceProbes(design, 10);
+    
+    SpaceProbe probe = spaceProbeGroup.materialize(design);
+    
+    assertThat(probe.getClassName(), is("Counted Corvette"));
+    assertSame(spaceProbeGroup, probe.getGroup());
+    assertThat(spaceProbeGroup.getSpaceProbes(), contains(probe));
+    assertThat(spaceProbeGroup.getCountedSpaceProbes(design), is(9));
+    assertThat(spaceProbeGroup.getSpaceProbeCount(), is(10L));
+    assertEquals(7000, spaceProbeGroup.getMaximumSpeed());
+  }
+  
+  @Test
+  public void shouldMergeCountedShips()
+  {
+    ProbeClass design = ProbeClass.valueOf("Counted Corvette", 200, 7000);
+    spaceProbeGroup.addSpaceProbes(design, 10);
+    SpaceProbeGroup other = new SpaceProbeGroup("Other", groupPosition);
+    other.addSpaceProbes(design, 5);
+    
+    spaceProbeGroup.mergeInto(other);
+    
+    assertThat(other.getCountedSpaceProbes(design), is(15));
+    assertEquals(7000, other.getMaximumSpeed());
+    other.removeSpaceProbes(design, 15);
+    assertEquals(0, other.getMaximumSpeed());
+  }
+  
+  @Test
+  public void shouldSplitOffCountedShips()
+  {
+    ProbeClass design = ProbeClass.valueOf("Counted Corvette", 200, 7000);
+    spaceProbeGroup.addSpaceProbes(design, 10);
+    
+    SpaceProbeGroup detachment = spaceProbeGroup.splitOff("Detachment", design, 4);
+    
+    assertThat(detachment.getCountedSpaceProbes(design), is(4));
+    assertThat(spaceProbeGroup.getCountedSpaceProbes(design), is(6));
+  }
+  
   // stop() tests --------------------------------------------------------------
   @Test
   public void shouldSetDirectionAndSpeedWhenStopped()
@@ -235,6 +402,33 @@ public class SpaceProbeGroupTest
     spaceProbeGroup.setCurrentSpeed(maxSpeed + 1);
   }
   
+  // setStartedListener() tests -----------------------------------------------
+  @Test
+  public void shouldTellListenerWhenStarted()
+  {
+    ISpaceProbeGroupStartedListener listener = mock(ISpaceProbeGroupStartedListener.class);
+    addSpaceProbe(1000);
+    spaceProbeGroup.setStartedListener(listener);
+    
+    spaceProbeGroup.setCurrentSpeed(500);
+    spaceProbeGroup.setCurrentSpeed(1000);
+    
+    verify(listener, times(1)).spaceProbeGroupStarted(spaceProbeGroup);
+  }
+  
+  @Test
+  public void shouldNotTellRemovedListener()
+  {
+    ISpaceProbeGroupStartedListener listener = mock(ISpaceProbeGroupStartedListener.class);
+    addSpaceProbe(1000);
+    spaceProbeGroup.setStartedListener(listener);
+    spaceProbeGroup.setStartedListener(null);
+    
+    spaceProbeGroup.setCurrentSpeed(500);
+    
+    verify(listener, never()).spaceProbeGroupStarted(spaceProbeGroup);
+  }
+  
   // addWaypoint() tests -------------------------------------------------------
   @Test
   public void addsWaypoint() {
@@ -315,6 +509,136 @@ public class SpaceProbeGroupTest
     assertThat(spaceProbeGroup.getPosition(), is(new Position(1,0)));
   }
   
+  @Test
+  public void movesPositionBeyondTheIntRange() {
+    addSpaceProbe(1000);
+    spaceProbeGroup.setPosition(new Position(4000000000L, -4000000000L));
+    spaceProbeGroup.addWaypoint(new Position(4000000010L, -4000000000L));
+    spaceProbeGroup.setCurrentSpeed(spaceProbeGroup.getMaximumSpeed());
+    
+    spaceProbeGroup.update(1);
+    
+    assertThat(spaceProbeGroup.getPosition(), is(new Position(4000000001L, -4000000000L)));
+  }
+  
+  @Test
+  public void addsUpDistancesShorterThanAKilometre() {
+    addSpaceProbe(100);
+    spaceProbeGroup.setPosition(new Position(0,0));
+    spaceProbeGroup.addWaypoint(new Position(10,0));
+    spaceProbeGroup.setCurrentSpeed(spaceProbeGroup.getMaximumSpeed());
+    
+    for (int i = 0; i < 4; ++i) {
+      spaceProbeGroup.update(1);
+    }
+    assertThat(spaceProbeGroup.getPosition(), is(new Position(0,0)));
+    assertThat(spaceProbeGroup.hasMoved(), is(true));
+    
+    for (int i = 0; i < 6; ++i) {
+      spaceProbeGroup.update(1);
+    }
+    assertThat(spaceProbeGroup.getPosition(), is(new Position(1,0)));
+  }
+  
+  @Test
+  public void headsForWaypointFromNewPosition() {
+    addSpaceProbe(1000);
+    spaceProbeGroup.setPosition(new Position(0,0));
+    spaceProbeGroup.addWaypoint(new Position(10,0));
+    spaceProbeGroup.setCurrentSpeed(spaceProbeGroup.getMaximumSpeed());
+    spaceProbeGroup.update(1);
+    
+    spaceProbeGroup.setPosition(new Position(10,5));
+    spaceProbeGroup.update(1);
+    
+    assertThat(spaceProbeGroup.getPosition(), is(new Position(10,4)));
+  }
+  
+  @Test
+  public void hasNotMovedAfterSetPosition() {
+    spaceProbeGroup.setPosition(new Position(2000,5000));
+    
+    assertThat(spaceProbeGroup.hasMoved(), is(false));
+    assertSame(spaceProbeGroup.getPosition(), spaceProbeGroup.getPreviousPosition());
+  }
+  
+  @Test
+  public void interpolatesPositionBetweenUpdates() {
+    addSpaceProbe(1000);
+    spaceProbeGroup.setPosition(new Position(0,0));
+    spaceProbeGroup.addWaypoint(new Position(10,0));
+    spaceProbeGroup.setCurrentSpeed(spaceProbeGroup.getMaximumSpeed());
+    
+    spaceProbeGroup.update(4);
+    
+    assertThat(spaceProbeGroup.getInterpolatedPosition(0.0f), is(new Position(0,0)));
+    assertThat(spaceProbeGroup.getInterpolatedPosition(0.5f), is(new Position(2,0)));
+    assertThat(spaceProbeGroup.getInterpolatedPosition(1.0f), is(new Position(4,0)));
+  }
+  
+  @Test
+  public void doesNotInterpolateAfterSetPosition() {
+    Position pos = new Position(2000,5000);
+    
+    spaceProbeGroup.setPosition(pos);
+    
+    assertThat(spaceProbeGroup.getInterpolatedPosition(0.0f), is(pos));
+  }
+  
+  @Test
+  public void patrolsAlongWaypoints() {
+    addSpaceProbe(1000);
+    spaceProbeGroup.setPosition(new Position(0,0));
+    spaceProbeGroup.addWaypoint(new Position(10,0));
+    spaceProbeGroup.addWaypoint(new Position(0,0));
+    spaceProbeGroup.setPatrolling(true);
+    spaceProbeGroup.setCurrentSpeed(spaceProbeGroup.getMaximumSpeed());
+    
+    spaceProbeGroup.update(25);
+    
+    assertThat(spaceProbeGroup.isStopped(), is(false));
+    assertThat(spaceProbeGroup.getPosition(), is(new Position(5,0)));
+    assertThat(spaceProbeGroup.getWaypoints(), contains(new Position(10,0), new Position(0,0)));
+  }
+  
+  @Test
+  public void stopsAtLastWaypointAfterPatrol() {
+    addSpaceProbe(1000);
+    spaceProbeGroup.setPosition(new Position(0,0));
+    spaceProbeGroup.addWaypoint(new Position(10,0));
+    spaceProbeGroup.addWaypoint(new Position(0,0));
+    spaceProbeGroup.setPatrolling(true);
+    spaceProbeGroup.setCurrentSpeed(spaceProbeGroup.getMaximumSpeed());
+    spaceProbeGroup.update(25);
+    
+    spaceProbeGroup.setPatrolling(false);
+    spaceProbeGroup.update(100);
+    
+    assertThat(spaceProbeGroup.isStopped(), is(true));
+    assertThat(spaceProbeGroup.getPosition(), is(new Position(0,0)));
+    assertThat(spaceProbeGroup.getWaypoints(), is(empty()));
+  }
+  
+  @Test
+  public void stopsAfterWaypointsAreCleared() {
+    addSpaceProbe(1000);
+    spaceProbeGroup.setPosition(new Position(0,0));
+    spaceProbeGroup.addWaypoint(new Position(10,0));
+    spaceProbeGroup.setCurrentSpeed(spaceProbeGroup.getMaximumSpeed());
+    spaceProbeGroup.update(1);
+    
+    spaceProbeGroup.clearWaypoints();
+    spaceProbeGroup.update(1);
+    
+    assertThat(spaceProbeGroup.isStopped(), is(true));
+    assertThat(spaceProbeGroup.getPosition(), is(new Position(1,0)));
+  }
+  
+  @Test(expected = UnsupportedOperationException.class)
+  public void doesNotChangeWaypointsThroughList() {
+    spaceProbeGroup.getWaypoints().add(new Position(1,2));
+  }
+  
   // ----------- UTIL ----------------------------------------------------------
   private SpaceProbe addSpaceProbe(int _speed)
   {
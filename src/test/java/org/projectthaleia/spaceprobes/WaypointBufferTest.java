@@ -0,0 +1,146 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2011 Simon Hardijanto
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.projectthaleia.spaceprobes;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.projectthaleia.universe.Position;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Simon Hardijanto
+ */
+public class WaypointBufferTest
+{
+  private WaypointBuffer buffer;
+  
+  @Before
+  public void setUp()
+  {
+    buffer = new WaypointBuffer();
+  }
+  
+  @Test
+  public void shouldStartEmpty()
+  {
+    assertThat(buffer.isEmpty(), is(true));
+    assertThat(buffer.asList(), is(empty()));
+  }
+  
+  @Test
+  public void shouldKeepWaypointsInOrder()
+  {
+    buffer.add(1, 2);
+    buffer.add(3, 4);
+    
+    assertThat(buffer.asList(), contains(new Position(1, 2), new Position(3, 4)));
+  }
+  
+  @Test
+  public void shouldDropReachedWaypoint()
+  {
+    buffer.add(1, 2);
+    buffer.add(3, 4);
+    
+    buffer.advance();
+    
+    assertThat(buffer.asList(), contains(new Position(3, 4)));
+  }
+  
+  @Test
+  public void shouldKeepOrderWhenGrowingAroundTheEnd()
+  {
+    for (int i = 0; i < 3; ++i) {
+      buffer.add(i, 0);
+    }
+    buffer.advance();
+    buffer.advance();
+    for (int i = 3; i < 20; ++i) {
+      buffer.add(i, 0);
+    }
+    
+    assertThat(buffer.size(), is(18));
+    for (int i = 0; i < 18; ++i) {
+      assertThat(buffer.getX(i), is(i + 2L));
+    }
+  }
+  
+  @Test
+  public void shouldCycleWaypointsOfPatrol()
+  {
+    buffer.setCyclic(true);
+    buffer.add(1, 0);
+    buffer.add(2, 0);
+    buffer.add(3, 0);
+    
+    buffer.advance();
+    buffer.advance();
+    
+    assertThat(buffer.asList(), contains(new Position(3, 0), new Position(1, 0), 
+                                         new Position(2, 0)));
+  }
+  
+  @Test
+  public void shouldCycleWaypointsOfFullPatrol()
+  {
+    buffer.setCyclic(true);
+    for (int i = 0; i < 4; ++i) {
+      buffer.add(i, 0);
+    }
+    
+    for (int i = 0; i < 5; ++i) {
+      buffer.advance();
+    }
+    
+    assertThat(buffer.asList(), contains(new Position(1, 0), new Position(2, 0), 
+                                         new Position(3, 0), new Position(0, 0)));
+  }
+  
+  @Test
+  public void shouldDropSingleWaypointOfPatrol()
+  {
+    buffer.setCyclic(true);
+    buffer.add(1, 0);
+    
+    buffer.advance();
+    
+    assertThat(buffer.isEmpty(), is(true));
+  }
+  
+  @Test(expected=UnsupportedOperationException.class)
+  public void shouldNotChangeThroughView()
+  {
+    buffer.asList().add(new Position(1, 2));
+  }
+  
+  @Test(expected=IllegalStateException.class)
+  public void shouldNotAdvanceWhenEmpty()
+  {
+    buffer.advance();
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2011 Simon Hardijanto
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.projectthaleia.universe;
+
+import java.util.concurrent.ForkJoinPool;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.projectthaleia.core.RandomSource;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Simon Hardijanto
+ */
+public class GalaxyGeneratorTest
+{
+  private static final int SYSTEMS = 2*Galaxy.SECTOR_SIZE + 17;
+  
+  private ForkJoinPool singleThread;
+  private ForkJoinPool fourThreads;
+  
+  @Before
+  public void setUp()
+  {
+    singleThread = new ForkJoinPool(1);
+    fourThreads = new ForkJoinPool(4);
+  }
+  
+  @After
+  public void tearDown()
+  {
+    singleThread.shutdown();
+    fourThreads.shutdown();
+  }
+  
+  @Test(expected=IllegalArgumentException.class)
+  public void shouldNotGenerateNegativeNumberOfSystems()
+  {
+    new GalaxyGenerator(new RandomSource(42), singleThread).generate(-1);
+  }
+  
+  @Test
+  public void shouldGenerateRequestedNumberOfSystems()
+  {
+    StarSystem[] systems = new GalaxyGenerator(new RandomSource(42), fourThreads).generate(SYSTEMS);
+    
+    assertEquals(SYSTEMS, systems.length);
+    for (StarSystem system : systems) {
+      assertNotNull(system);
+    }
+  }
+  
+  @Test
+  public void shouldGenerateSameGalaxyWithAnyNumberOfThreads()
+  {
+    StarSystem[] first = new GalaxyGenerator(new RandomSource(42), singleThread).generate(SYSTEMS);
+    StarSystem[] second = new GalaxyGenerator(new RandomSource(42), fourThreads).generate(SYSTEMS);
+    
+    for (int i = 0; i < SYSTEMS; ++i) {
+      assertEquals(first[i].getName(), second[i].getName());
+      assertEquals(first[i].getPlanetCount(), second[i].getPlanetCount());
+      assertEquals(first[i].getSun().getMKClassification().toString(), 
+                   second[i].getSun().getMKClassification().toString());
+      assertEquals(first[i].getStateHash(), second[i].getStateHash());
+    }
+  }
+  
+  @Test
+  public void shouldPopulateGalaxiesThatEvolveAlike()
+  {
+    Galaxy first = new Galaxy(singleThread);
+    Galaxy second = new Galaxy(fourThreads);
+    new GalaxyGenerator(new RandomSource(7), singleThread).populate(first, SYSTEMS);
+    new GalaxyGenerator(new RandomSource(7), fourThreads).populate(second, SYSTEMS);
+    
+    first.update(86400);
+    second.update(86400);
+    
+    assertEquals(SYSTEMS, first.getStarSystemCount());
+    assertEquals(first.getStateHash(), second.getStateHash());
+  }
+  
+  @Test
+  public void shouldGenerateDifferentGalaxiesFromDifferentSeeds()
+  {
+    Galaxy first = new Galaxy(singleThread);
+    Galaxy second = new Galaxy(singleThread);
+    new GalaxyGenerator(new RandomSource(7), singleThread).populate(first, SYSTEMS);
+    new GalaxyGenerator(new RandomSource(8), singleThread).populate(second, SYSTEMS);
+    
+    first.update(86400);
+    second.update(86400);
+    
+    assertTrue(first.getStateHash() != second.getStateHash());
+  }
+}
@@ -0,0 +1,385 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2011 Simon Hardijanto
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.projectthaleia.universe;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.projectthaleia.colony.Colony;
+import org.projectthaleia.colony.buildings.BuildingQueue;
+import org.projectthaleia.core.StateHash;
+import org.projectthaleia.core.TickProfiler;
+import org.projectthaleia.core.Timeline;
+import org.projectthaleia.spaceprobes.SpaceProbeGroup;
+import org.projectthaleia.universe.planet.Planet;
+import org.projectthaleia.universe.sun.Sun;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ *
+ * @author Simon Hardijanto
+ */
+public class GalaxyTest
+{
+  private ForkJoinPool pool;
+  private Galaxy galaxy;
+  
+  @Before
+  public void setUp()
+  {
+    pool = new ForkJoinPool(4);
+    galaxy = new Galaxy(pool);
+  }
+  
+  @After
+  public void tearDown()
+  {
+    pool.shutdown();
+  }
+
+  @Test(expected=NullPointerException.class)
+  public void shouldNotAddNullStarSystem()
+  {
+    galaxy.addStarSystem(null);
+  }
+  
+  @Test
+  public void shouldAddStarSystem()
+  {
+    StarSystem mockSystem = mock(StarSystem.class);
+    
+    galaxy.addStarSystem(mockSystem);
+    
+    assertEquals(1, galaxy.getStarSystemCount());
+    assertEquals(mockSystem, galaxy.getStarSystems().get(0));
+  }
+  
+  @Test
+  public void shouldUpdateEveryStarSystemOnce()
+  {
+    StarSystem[] mockSystems = new StarSystem[100];
+    for (int i = 0; i < mockSystems.length; ++i) {
+      mockSystems[i] = mock(StarSystem.class);
+      galaxy.addStarSystem(mockSystems[i]);
+    }
+    
+    galaxy.update(42);
+    
+    for (StarSystem s : mockSystems) {
+      verify(s).update(eq(42L), Mockito.any(TickProfiler.class));
+    }
+  }
+  
+  @Test
+  public void shouldUpdateSeriallyWhenNotParallel()
+  {
+    StarSystem mockSystem = mock(StarSystem.class);
+    galaxy.addStarSystem(mockSystem);
+    
+    galaxy.setParallel(false);
+    galaxy.update(42);
+    
+    assertFalse(galaxy.isParallel());
+    verify(mockSystem).update(eq(42L), Mockito.any(TickProfiler.class));
+  }
+  
+  @Test
+  public void shouldProduceSameStateInParallelAndSerially()
+  {
+    final int systemCount = 200;
+    Galaxy serial = new Galaxy(pool);
+    serial.setParallel(false);
+    populate(galaxy, systemCount);
+    populate(serial, systemCount);
+    
+    for (int i = 0; i < 50; ++i) {
+      galaxy.update(60*60*6);
+      serial.update(60*60*6);
+    }
+    
+    for (int i = 0; i < systemCount; ++i) {
+      StarSystem p = galaxy.getStarSystems().get(i);
+      StarSystem s = serial.getStarSystems().get(i);
+      Planet pp = p.getPlanets().get(0);
+      Planet sp = s.getPlanets().get(0);
+      assertEquals(sp.getPositionInRad(), pp.getPositionInRad(), 0);
+      SpaceProbeGroup pg = p.getSpaceProbeGroups().get(0);
+      SpaceProbeGroup sg = s.getSpaceProbeGroups().get(0);
+      assertEquals(sg.getPosition(), pg.getPosition());
+      assertEquals(sg.isStopped(), pg.isStopped());
+    }
+    assertEquals(serial.getStateHash(), galaxy.getStateHash());
+  }
+  
+  @Test
+  public void shouldMoveSpaceProbeGroupsLikeStandaloneSystems()
+  {
+    final int systemCount = 200;
+    List<StarSystem> standalone = new ArrayList<StarSystem>();
+    for (int i = 0; i < systemCount; ++i) {
+      galaxy.addStarSystem(createSystem(i));
+      standalone.add(createSystem(i));
+    }
+    
+    for (int i = 0; i < 50; ++i) {
+      galaxy.update(60*60*6);
+      for (StarSystem system : standalone) {
+        system.update(60*60*6);
+      }
+    }
+    
+    long expected = StateHash.INITIAL;
+    for (int i = 0; i < systemCount; ++i) {
+      SpaceProbeGroup g = galaxy.getStarSystems().get(i).getSpaceProbeGroups().get(0);
+      SpaceProbeGroup s = standalone.get(i).getSpaceProbeGroups().get(0);
+      assertEquals(s.getPosition(), g.getPosition());
+      assertEquals(s.isStopped(), g.isStopped());
+      expected = StateHash.mix(expected, standalone.get(i).getStateHash());
+    }
+    assertEquals(expected, galaxy.getStateHash());
+  }
+  
+  @Test
+  public void shouldChangeStateHashWithUpdate()
+  {
+    populate(galaxy, 2);
+    galaxy.update(60*60*6);
+    long before = galaxy.getStateHash();
+    
+    galaxy.update(60*60*6);
+    
+    assertThat(galaxy.getStateHash(), not(equalTo(before)));
+  }
+  
+  @Test
+  public void shouldPassProfilerToStarSystems()
+  {
+    StarSystem mockSystem = mock(StarSystem.class);
+    TickProfiler profiler = new TickProfiler(true);
+    galaxy.addStarSystem(mockSystem);
+    
+    galaxy.setProfiler(profiler);
+    galaxy.update(42);
+    
+    verify(mockSystem).update(42, profiler);
+  }
+  
+  @Test(expected=NullPointerException.class)
+  public void shouldNotAcceptNullProfiler()
+  {
+    galaxy.setProfiler(null);
+  }
+  
+  @Test
+  public void shouldPutColoniesOfStarSystemsAddedLaterOnTimeline()
+  {
+    Timeline timeline = new Timeline(0);
+    galaxy.setTimeline(timeline);
+    StarSystem system = StarSystem.generateStarSystem();
+    BuildingQueue queue = mock(BuildingQueue.class);
+    Colony colony = mock(Colony.class);
+    when(colony.getBuildingQueue()).thenReturn(queue);
+    system.getPlanets().get(0).addColony(colony);
+    
+    galaxy.addStarSystem(system);
+    
+    verify(queue).setTimeline(timeline);
+  }
+  
+  @Test
+  public void shouldPutColoniesFoundedLaterOnTimeline()
+  {
+    Timeline timeline = new Timeline(0);
+    StarSystem system = StarSystem.generateStarSystem();
+    galaxy.addStarSystem(system);
+    galaxy.setTimeline(timeline);
+    Planet moon = Planet.generateMoon(new Random(1));
+    system.addMoon(system.getPlanets().get(0), moon);
+    BuildingQueue queue = mock(BuildingQueue.class);
+    Colony colony = mock(Colony.class);
+    when(colony.getBuildingQueue()).thenReturn(queue);
+    
+    moon.addColony(colony);
+    
+    verify(queue).setTimeline(timeline);
+  }
+  
+  @Test
+  public void shouldPageOutLeastRecentlyUsedSectors()
+  {
+    galaxy.setSectorBudget(1);
+    
+    populateWithGenerated(galaxy, 2*Galaxy.SECTOR_SIZE + 1);
+    
+    assertEquals(1, galaxy.getLoadedSectorCount());
+    assertEquals(2*Galaxy.SECTOR_SIZE + 1, galaxy.getStarSystemCount());
+  }
+  
+  @Test
+  public void shouldListLoadedStarSystemsWithoutPaging()
+  {
+    galaxy.setSectorBudget(1);
+    populateWithGenerated(galaxy, 2*Galaxy.SECTOR_SIZE + 1);
+    List<StarSystem> loaded = galaxy.getLoadedStarSystems();
+    
+    galaxy.setTimeline(new Timeline(0));
+    
+    assertEquals(1, loaded.size());
+    assertEquals(1, galaxy.getLoadedSectorCount());
+    assertSame(loaded.get(0), galaxy.getLoadedStarSystems().get(0));
+  }
+  
+  @Test
+  public void shouldPageInStarSystemsWhenAskedFor()
+  {
+    Galaxy unpaged = new Galaxy(pool);
+    galaxy.setSectorBudget(1);
+    populateWithGenerated(galaxy, 2*Galaxy.SECTOR_SIZE);
+    populateWithGenerated(unpaged, 2*Galaxy.SECTOR_SIZE);
+    
+    StarSystem paged = galaxy.getStarSystems().get(3);
+    StarSystem expected = unpaged.getStarSystems().get(3);
+    
+    assertEquals(1, galaxy.getLoadedSectorCount());
+    assertEquals(expected.getName(), paged.getName());
+    assertEquals(expected.getPlanetCount(), paged.getPlanetCount());
+    assertEquals(expected.getSun().getMKClassification().toString(), 
+                 paged.getSun().getMKClassification().toString());
+    assertEquals(expected.getPlanets().get(0).getX(), paged.getPlanets().get(0).getX(), 0);
+  }
+  
+  @Test
+  public void shouldCatchUpOnGameTimeMissedWhilePagedOut()
+  {
+    Galaxy unpaged = new Galaxy(pool);
+    galaxy.setSectorBudget(1);
+    populateWithGenerated(galaxy, 2*Galaxy.SECTOR_SIZE);
+    populateWithGenerated(unpaged, 2*Galaxy.SECTOR_SIZE);
+    
+    for (int i = 0; i < 10; ++i) {
+      galaxy.update(60*60*6);
+      unpaged.update(60*60*6);
+    }
+    Planet paged = galaxy.getStarSystems().get(3).getPlanets().get(0);
+    Planet expected = unpaged.getStarSystems().get(3).getPlanets().get(0);
+    
+    assertEquals(expected.getX(), paged.getX(), 1e-6);
+    assertEquals(expected.getY(), paged.getY(), 1e-6);
+  }
+  
+  @Test
+  public void shouldKeepSameStateHashWhenNoTimePassedWhilePagedOut()
+  {
+    populateWithGenerated(galaxy, 2*Galaxy.SECTOR_SIZE);
+    galaxy.update(60*60*6);
+    long before = galaxy.getStateHash();
+    
+    galaxy.setSectorBudget(1);
+    galaxy.getStarSystems().get(0);
+    galaxy.getStarSystems().get(Galaxy.SECTOR_SIZE);
+    galaxy.setSectorBudget(2);
+    galaxy.getStarSystems().get(0);
+    
+    assertEquals(2, galaxy.getLoadedSectorCount());
+    assertEquals(before, galaxy.getStateHash());
+  }
+  
+  @Test
+  public void shouldNotHashDependingOnSectorBudget()
+  {
+    Galaxy unpaged = new Galaxy(pool);
+    galaxy.setSectorBudget(1);
+    populateWithGenerated(galaxy, 3*Galaxy.SECTOR_SIZE);
+    populateWithGenerated(unpaged, 3*Galaxy.SECTOR_SIZE);
+    assertEquals(unpaged.getStateHash(), galaxy.getStateHash());
+    
+    for (int i = 0; i < 10; ++i) {
+      galaxy.update(60*60*6);
+      unpaged.update(60*60*6);
+    }
+    assertEquals(1, galaxy.getLoadedSectorCount());
+    assertEquals(unpaged.getStateHash(), galaxy.getStateHash());
+    
+    galaxy.getStarSystems().get(0);
+    galaxy.update(60*60*6);
+    unpaged.update(60*60*6);
+    assertEquals(unpaged.getStateHash(), galaxy.getStateHash());
+  }
+  
+  @Test
+  public void shouldNotPageOutSectorsInUse()
+  {
+    galaxy.setSectorBudget(1);
+    populate(galaxy, 1);
+    StarSystem inUse = galaxy.getStarSystems().get(0);
+    
+    populateWithGenerated(galaxy, 2*Galaxy.SECTOR_SIZE);
+    
+    assertEquals(2, galaxy.getLoadedSectorCount());
+    assertSame(inUse, galaxy.getStarSystems().get(0));
+  }
+  
+  @Test(expected=IllegalArgumentException.class)
+  public void shouldNotAcceptEmptySectorBudget()
+  {
+    galaxy.setSectorBudget(0);
+  }
+  
+  // ----------- UTIL ----------------------------------------------------------
+  private static void populateWithGenerated(final Galaxy _galaxy, final int _systemCount)
+  {
+    final Random random = new Random(42);
+    for (int i = 0; i < _systemCount; ++i) {
+      _galaxy.addStarSystem(StarSystem.generateStarSystem(random));
+    }
+  }
+  
+  private static void populate(final Galaxy _galaxy, final int _systemCount)
+  {
+    for (int i = 0; i < _systemCount; ++i) {
+      _galaxy.addStarSystem(createSystem(i));
+    }
+  }
+  
+  /** A system with a group that travels along two waypoints */
+  private static StarSystem createSystem(final int _number)
+  {
+    StarSystem result = new StarSystem("System " + _number, Sun.generateSun());
+    result.addPlanet(Planet.generatePlanet());
+    SpaceProbeGroup group = SpaceProbeGroup.generateSpaceProbeGroup();
+    group.addWaypoint(new Position(_number * 1000, -_number * 500));
+    group.addWaypoint(new Position(-_number * 200, 0));
+    group.setCurrentSpeed(group.getMaximumSpeed());
+    result.addSpaceProbeGroup(group);
+    return result;
+  }
+}
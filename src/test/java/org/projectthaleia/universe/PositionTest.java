@@ -98,7 +98,7 @@ public class PositionTest
   public void shouldNotBeEqualIfXCoordinateIsDifferent()
   {
     int x = 23;
-    int y = position.y;
+    long y = position.y;
     Position pos2 = new Position(x,y);
     
     assertThat(position, is(not(equalTo(pos2))));
@@ -107,7 +107,7 @@ public class PositionTest
   @Test
   public void shouldNotBeEqualIfYCoordinateIsDifferent()
   {
-    int x = position.x;
+    long x = position.x;
     int y = 42;
     Position pos2 = new Position(x,y);
     
@@ -136,6 +136,34 @@ public class PositionTest
     assertThat(hash1, is(not(hash2)));
   }
 
+  @Test
+  public void shouldMeasureDistance()
+  {
+    Position pos2 = new Position(position.x + 30, position.y - 40);
+    
+    assertEquals(50, position.distance(pos2), 1e-9);
+  }
+  
+  @Test
+  public void shouldMeasureDistancesBeyondTheIntRange()
+  {
+    // about 20 AU, far more than 2^31 km
+    Position from = new Position(-1500000000L, 0);
+    Position to = new Position(1500000000L, 4000000000L);
+    
+    assertEquals(5000000000.0, from.distance(to), 1e-3);
+    assertEquals(from.distance(to), Position.distance(from.x, from.y, to.x, to.y), 0);
+  }
+  
+  @Test
+  public void shouldInterpolateBetweenCoordinates()
+  {
+    assertEquals(-1, Position.interpolate(-1, 9, 0));
+    assertEquals(4, Position.interpolate(-1, 9, 0.5));
+    assertEquals(9, Position.interpolate(-1, 9, 1));
+    assertEquals(6000000000L, Position.interpolate(4000000000L, 8000000000L, 0.5));
+  }
+  
   @Test
   public void shouldPrintPositionAsString()
   {
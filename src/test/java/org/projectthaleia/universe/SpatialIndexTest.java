@@ -0,0 +1,169 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2011 Simon Hardijanto
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.projectthaleia.universe;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Simon Hardijanto
+ */
+public class SpatialIndexTest
+{
+  private static final int COUNT = 500;
+  
+  private double[] xs;
+  private double[] ys;
+  private SpatialIndex index;
+  
+  @Before
+  public void setUp()
+  {
+    Random random = new Random(42);
+    xs = new double[COUNT];
+    ys = new double[COUNT];
+    for (int i = 0; i < COUNT; ++i) {
+      // clustered like fleets around a few planets
+      xs[i] = (i % 5) * 300 + random.nextGaussian() * 40;
+      ys[i] = (i % 3) * -200 + random.nextGaussian() * 40;
+    }
+    index = new SpatialIndex(xs, ys);
+  }
+  
+  @Test
+  public void shouldFindSameObjectsWithinRadiusAsFullScan()
+  {
+    for (int q = 0; q < 50; ++q) {
+      double x = -100 + q * 31;
+      double y = -500 + q * 13;
+      double radius = q * 7;
+      List<Integer> expected = new ArrayList<Integer>();
+      for (int i = 0; i < COUNT; ++i) {
+        if ((xs[i] - x) * (xs[i] - x) + (ys[i] - y) * (ys[i] - y) <= radius * radius) {
+          expected.add(i);
+        }
+      }
+      
+      assertEquals(expected, toList(index.findWithin(x, y, radius)));
+    }
+  }
+  
+  @Test
+  public void shouldFindSameObjectsInRectangleAsFullScan()
+  {
+    for (int q = 0; q < 50; ++q) {
+      double minX = -200 + q * 29;
+      double minY = -600 + q * 11;
+      double maxX = minX + q * 9;
+      double maxY = minY + 100;
+      List<Integer> expected = new ArrayList<Integer>();
+      for (int i = 0; i < COUNT; ++i) {
+        if (xs[i] >= minX && xs[i] <= maxX && ys[i] >= minY && ys[i] <= maxY) {
+          expected.add(i);
+        }
+      }
+      
+      assertEquals(expected, toList(index.findInRectangle(minX, minY, maxX, maxY)));
+    }
+  }
+  
+  @Test
+  public void shouldFindSameNearestObjectsAsFullScan()
+  {
+    for (int q = 0; q < 50; ++q) {
+      final double x = -3000 + q * 127;
+      final double y = 800 - q * 37;
+      int count = 1 + q % 10;
+      List<Integer> all = new ArrayList<Integer>();
+      for (int i = 0; i < COUNT; ++i) {
+        all.add(i);
+      }
+      Collections.sort(all, new Comparator<Integer>()
+      {
+        @Override
+        public int compare(final Integer _a, final Integer _b)
+        {
+          double a = (xs[_a] - x) * (xs[_a] - x) + (ys[_a] - y) * (ys[_a] - y);
+          double b = (xs[_b] - x) * (xs[_b] - x) + (ys[_b] - y) * (ys[_b] - y);
+          return a != b ? Double.compare(a, b) : _a - _b;
+        }
+      });
+      
+      assertEquals(all.subList(0, count), toList(index.findNearest(x, y, count)));
+    }
+  }
+  
+  @Test
+  public void shouldFindAtMostAllObjects()
+  {
+    assertEquals(COUNT, index.findNearest(0, 0, COUNT + 10).length);
+  }
+  
+  @Test
+  public void shouldFindNothingInEmptyIndex()
+  {
+    assertEquals(0, SpatialIndex.EMPTY.findWithin(0, 0, 100).length);
+    assertEquals(0, SpatialIndex.EMPTY.findInRectangle(-1, -1, 1, 1).length);
+    assertEquals(0, SpatialIndex.EMPTY.findNearest(0, 0, 3).length);
+  }
+  
+  @Test
+  public void shouldIndexObjectsAtSamePosition()
+  {
+    SpatialIndex samePosition = new SpatialIndex(new double[] {5, 5, 5}, new double[] {7, 7, 7});
+    
+    assertArrayEquals(new int[] {0, 1, 2}, samePosition.findWithin(5, 7, 0));
+    assertArrayEquals(new int[] {0, 1}, samePosition.findNearest(0, 0, 2));
+  }
+  
+  @Test(expected=IllegalArgumentException.class)
+  public void shouldNotAcceptNegativeRadius()
+  {
+    index.findWithin(0, 0, -1);
+  }
+  
+  @Test(expected=IllegalArgumentException.class)
+  public void shouldNotIndexUnmatchedCoordinates()
+  {
+    new SpatialIndex(new double[2], new double[3]);
+  }
+  
+  // ----------- UTIL ----------------------------------------------------------
+  private static List<Integer> toList(final int[] _ids)
+  {
+    List<Integer> result = new ArrayList<Integer>();
+    for (int id : _ids) {
+      result.add(id);
+    }
+    return result;
+  }
+}
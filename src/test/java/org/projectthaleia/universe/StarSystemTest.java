@@ -23,13 +23,17 @@
  */
 package org.projectthaleia.universe;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.projectthaleia.spaceprobes.SpaceProbeGroup;
 import org.projectthaleia.universe.planet.Planet;
 import org.projectthaleia.universe.sun.Sun;
 
+import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 
@@ -76,6 +80,45 @@ public class StarSystemTest
     assertEquals(mockPlanet, planets.get(0));
   }
   
+  @Test
+  public void shouldAddMoonAfterItsPlanet()
+  {
+    Planet planet = Planet.generatePlanet();
+    Planet moon = Planet.generateMoon(new Random(1));
+    this.starSystem.addPlanet(planet);
+    
+    this.starSystem.addMoon(planet, moon);
+    
+    assertThat(this.starSystem.getPlanets(), contains(planet, moon));
+    assertSame(planet, moon.getParent());
+  }
+  
+  @Test(expected=IllegalArgumentException.class)
+  public void shouldNotAddMoonToPlanetOfOtherSystem()
+  {
+    this.starSystem.addMoon(Planet.generatePlanet(), Planet.generateMoon(new Random(1)));
+  }
+  
+  @Test
+  public void shouldPublishPositionsOfBinarySuns()
+  {
+    this.starSystem.setCompanionStar(mock(Sun.class), 10, 2, 1.0f);
+    this.starSystem.addStarSystemChangedListener(mock(IStarSystemChangedListener.class));
+    this.starSystem.update(0);
+    
+    StarSystemSnapshot snapshot = this.starSystem.getSnapshot();
+    
+    assertEquals(-5, snapshot.getInterpolatedSunX(0, 1.0f), 1e-9);
+    assertEquals(5, snapshot.getInterpolatedSunX(1, 1.0f), 1e-9);
+  }
+  
+  @Test(expected=IllegalStateException.class)
+  public void shouldNotHaveTwoCompanionStars()
+  {
+    this.starSystem.setCompanionStar(mock(Sun.class), 10, 2, 1.0f);
+    this.starSystem.setCompanionStar(mock(Sun.class), 10, 2, 1.0f);
+  }
+  
   @Test
   public void shouldGetSun()
   {
@@ -90,8 +133,13 @@ public class StarSystemTest
     
     SpaceProbeGroup mockGroup = mock(SpaceProbeGroup.class);
     starSystem.addSpaceProbeGroup(mockGroup);
+    verify(mockListener, never()).starSystemChanged(any(StarSystemChanges.class));
+    starSystem.update(1);
     
-    verify(mockListener).spaceProbeGroupAdded(mockGroup);
+    ArgumentCaptor<StarSystemChanges> changes = ArgumentCaptor.forClass(StarSystemChanges.class);
+    verify(mockListener).starSystemChanged(changes.capture());
+    assertEquals(Arrays.asList(mockGroup), changes.getValue().getAddedSpaceProbeGroups());
+    assertTrue(changes.getValue().getRemovedSpaceProbeGroups().isEmpty());
   }
   
   @Test
@@ -103,8 +151,9 @@ public class StarSystemTest
     
     SpaceProbeGroup mockGroup = mock(SpaceProbeGroup.class);
     starSystem.addSpaceProbeGroup(mockGroup);
+    starSystem.update(1);
     
-    verify(mockListener, times(0)).spaceProbeGroupAdded(mockGroup);
+    verify(mockListener, never()).starSystemChanged(any(StarSystemChanges.class));
   }
   
   @Test
@@ -114,21 +163,294 @@ public class StarSystemTest
     starSystem.addStarSystemChangedListener(mockListener);
     SpaceProbeGroup mockGroup = mock(SpaceProbeGroup.class);
     starSystem.addSpaceProbeGroup(mockGroup);
+    starSystem.update(1);
 
     starSystem.removeSpaceProbeGroup(mockGroup);
+    starSystem.update(1);
+    
+    ArgumentCaptor<StarSystemChanges> changes = ArgumentCaptor.forClass(StarSystemChanges.class);
+    verify(mockListener, times(2)).starSystemChanged(changes.capture());
+    assertEquals(Arrays.asList(mockGroup), changes.getValue().getRemovedSpaceProbeGroups());
+    assertTrue(changes.getValue().getAddedSpaceProbeGroups().isEmpty());
+  }
+  
+  @Test
+  public void shouldDeliverAllChangesOfAnUpdateAtOnce()
+  {
+    IStarSystemChangedListener mockListener = mock(IStarSystemChangedListener.class);
+    starSystem.addStarSystemChangedListener(mockListener);
+    SpaceProbeGroup[] groups = new SpaceProbeGroup[1000];
+    for (int i = 0; i < groups.length; ++i) {
+      groups[i] = SpaceProbeGroup.generateSpaceProbeGroup();
+      starSystem.addSpaceProbeGroup(groups[i]);
+    }
+    for (int i = 0; i < groups.length; i += 2) {
+      starSystem.removeSpaceProbeGroup(groups[i]);
+    }
+    
+    starSystem.update(1);
+    
+    ArgumentCaptor<StarSystemChanges> changes = ArgumentCaptor.forClass(StarSystemChanges.class);
+    verify(mockListener).starSystemChanged(changes.capture());
+    assertEquals(500, changes.getValue().getAddedSpaceProbeGroups().size());
+    assertSame(groups[1], changes.getValue().getAddedSpaceProbeGroups().get(0));
+    assertTrue(changes.getValue().getRemovedSpaceProbeGroups().isEmpty());
+  }
+  
+  @Test
+  public void shouldReportMovedSpaceProbeGroups()
+  {
+    IStarSystemChangedListener mockListener = mock(IStarSystemChangedListener.class);
+    SpaceProbeGroup moving = SpaceProbeGroup.generateSpaceProbeGroup();
+    SpaceProbeGroup waiting = SpaceProbeGroup.generateSpaceProbeGroup();
+    moving.addWaypoint(new Position(100000, 0));
+    moving.setCurrentSpeed(moving.getMaximumSpeed());
+    starSystem.addSpaceProbeGroup(moving);
+    starSystem.addSpaceProbeGroup(waiting);
+    starSystem.addStarSystemChangedListener(mockListener);
     
-    verify(mockListener).spaceProbeGroupRemoved(mockGroup);
+    starSystem.update(60);
+    
+    // first the groups already in the system, then the update
+    ArgumentCaptor<StarSystemChanges> changes = ArgumentCaptor.forClass(StarSystemChanges.class);
+    verify(mockListener, times(2)).starSystemChanged(changes.capture());
+    assertEquals(Arrays.asList(moving), changes.getValue().getMovedSpaceProbeGroups());
+    assertTrue(changes.getValue().getAddedSpaceProbeGroups().isEmpty());
+  }
+  
+  @Test
+  public void shouldTellNewListenerAboutGroupsAlreadyInSystem()
+  {
+    IStarSystemChangedListener oldListener = mock(IStarSystemChangedListener.class);
+    starSystem.addStarSystemChangedListener(oldListener);
+    SpaceProbeGroup early = SpaceProbeGroup.generateSpaceProbeGroup();
+    starSystem.addSpaceProbeGroup(early);
+    starSystem.update(1);
+    SpaceProbeGroup late = SpaceProbeGroup.generateSpaceProbeGroup();
+    IStarSystemChangedListener newListener = mock(IStarSystemChangedListener.class);
+    starSystem.addStarSystemChangedListener(newListener);
+    // added before the listener takes effect
+    starSystem.addSpaceProbeGroup(late);
+    
+    starSystem.update(1);
+    
+    ArgumentCaptor<StarSystemChanges> changes = ArgumentCaptor.forClass(StarSystemChanges.class);
+    verify(newListener).starSystemChanged(changes.capture());
+    assertEquals(Arrays.asList(early, late), changes.getValue().getAddedSpaceProbeGroups());
+    assertTrue(changes.getValue().getRemovedSpaceProbeGroups().isEmpty());
+    verify(oldListener, times(2)).starSystemChanged(changes.capture());
+    assertEquals(Arrays.asList(late), changes.getValue().getAddedSpaceProbeGroups());
   }
   
   @Test
   public void shouldUpdatePlanets()
+  {
+    Planet planet = Planet.generatePlanet();
+    this.starSystem.addPlanet(planet);
+    this.starSystem.addStarSystemChangedListener(mock(IStarSystemChangedListener.class));
+    double before = planet.getPositionInRad();
+    
+    this.starSystem.update(60*60*24);
+    
+    assertSame(planet, this.starSystem.getPlanets().get(0));
+    assertThat(planet.getPositionInRad(), greaterThan(before));
+    assertEquals(planet.getPositionInRad(), planet.getPositionInRadAt(60*60*24), 0);
+  }
+  
+  @Test
+  public void systemWithoutMovementShouldGoDormant()
+  {
+    Planet planet = Planet.generatePlanet();
+    this.starSystem.addPlanet(planet);
+    
+    this.starSystem.update(60*60*24);
+    this.starSystem.update(60*60*24);
+    
+    assertTrue(this.starSystem.isDormant());
+  }
+  
+  @Test
+  public void dormantSystemShouldReportCurrentPositions()
+  {
+    Planet planet = Planet.generatePlanet(new Random(1));
+    Planet moon = Planet.generateMoon(new Random(2));
+    this.starSystem.addPlanet(planet);
+    this.starSystem.addMoon(planet, moon);
+    
+    this.starSystem.update(60*60*24);
+    this.starSystem.update(60*60*24);
+    
+    assertTrue(this.starSystem.isDormant());
+    assertEquals(planet.getPositionInRadAt(2*60*60*24), planet.getPositionInRad(), 1e-9);
+    Position expected = moon.getPositionAt(2*60*60*24);
+    assertEquals(expected.x, moon.getX(), 1);
+    assertEquals(expected.y, moon.getY(), 1);
+  }
+  
+  @Test
+  public void dormantSystemShouldCatchUpOnUpdateAfterBeingObserved()
+  {
+    Planet planet = Planet.generatePlanet();
+    this.starSystem.addPlanet(planet);
+    for (int i = 0; i < 30; ++i) {
+      this.starSystem.update(60*60);
+    }
+    double before = planet.getPositionInRad();
+    
+    this.starSystem.getPlanets();
+    this.starSystem.addStarSystemChangedListener(mock(IStarSystemChangedListener.class));
+    assertTrue(this.starSystem.isDormant());
+    assertEquals(before, planet.getPositionInRad(), 0);
+    
+    this.starSystem.update(60*60);
+    
+    assertFalse(this.starSystem.isDormant());
+    assertEquals(planet.getPositionInRadAt(31*60*60), planet.getPositionInRad(), 1e-9);
+  }
+  
+  @Test
+  public void dormantSystemShouldWakeUpWhenGroupStartsMoving()
+  {
+    Planet planet = Planet.generatePlanet();
+    this.starSystem.addPlanet(planet);
+    SpaceProbeGroup group = SpaceProbeGroup.generateSpaceProbeGroup();
+    group.setPosition(new Position(0, 0));
+    this.starSystem.addSpaceProbeGroup(group);
+    this.starSystem.update(60*60);
+    assertTrue(this.starSystem.isDormant());
+    
+    group.addWaypoint(new Position(100000, 0));
+    group.setCurrentSpeed(group.getMaximumSpeed());
+    this.starSystem.update(60*60);
+    
+    assertFalse(this.starSystem.isDormant());
+    assertThat(group.getPosition().x, greaterThan(0L));
+    assertEquals(planet.getPositionInRadAt(2*60*60), planet.getPositionInRad(), 1e-9);
+  }
+  
+  @Test
+  public void removedGroupShouldNotWakeSystemUp()
+  {
+    this.starSystem.addPlanet(Planet.generatePlanet());
+    SpaceProbeGroup group = SpaceProbeGroup.generateSpaceProbeGroup();
+    group.setPosition(new Position(0, 0));
+    this.starSystem.addSpaceProbeGroup(group);
+    this.starSystem.removeSpaceProbeGroup(group);
+    
+    group.addWaypoint(new Position(100000, 0));
+    group.setCurrentSpeed(group.getMaximumSpeed());
+    this.starSystem.update(60*60);
+    
+    assertTrue(this.starSystem.isDormant());
+  }
+  
+  @Test
+  public void observedSystemShouldNotGoDormant()
+  {
+    this.starSystem.addPlanet(Planet.generatePlanet());
+    this.starSystem.addStarSystemChangedListener(mock(IStarSystemChangedListener.class));
+    
+    this.starSystem.update(60*60);
+    
+    assertFalse(this.starSystem.isDormant());
+  }
+  
+  @Test
+  public void dormantSystemsShouldHashMissedTime()
+  {
+    StarSystem other = new StarSystem("Other System", mockSun);
+    this.starSystem.addPlanet(Planet.generatePlanet());
+    other.addPlanet(Planet.generatePlanet());
+    
+    this.starSystem.update(60*60);
+    other.update(60*60);
+    assertEquals(this.starSystem.getStateHash(), other.getStateHash());
+    
+    other.update(60*60);
+    assertThat(this.starSystem.getStateHash(), is(not(other.getStateHash())));
+  }
+  
+  @Test
+  public void dormantSystemShouldHashLikeObservedOne()
+  {
+    StarSystem observed = new StarSystem("Other System", mockSun);
+    this.starSystem.addPlanet(Planet.generatePlanet(new Random(1)));
+    observed.addPlanet(Planet.generatePlanet(new Random(1)));
+    observed.addStarSystemChangedListener(mock(IStarSystemChangedListener.class));
+    
+    for (int i = 0; i < 10; ++i) {
+      this.starSystem.update(60*60);
+      observed.update(60*60);
+    }
+    
+    assertTrue(this.starSystem.isDormant());
+    assertFalse(observed.isDormant());
+    assertEquals(observed.getStateHash(), this.starSystem.getStateHash());
+  }
+  
+  @Test
+  public void unobservedSystemShouldNotPublishSnapshots()
+  {
+    Planet mockPlanet = mock(Planet.class);
+    this.starSystem.addPlanet(mockPlanet);
+    this.starSystem.update(1);
+    
+    assertSame(StarSystemSnapshot.EMPTY, this.starSystem.getSnapshot());
+  }
+  
+  @Test
+  public void observedSystemShouldPublishSnapshotAfterUpdate()
   {
     Planet mockPlanet = mock(Planet.class);
+    when(mockPlanet.getPositionInRad()).thenReturn(0.5);
     this.starSystem.addPlanet(mockPlanet);
+    this.starSystem.addStarSystemChangedListener(mock(IStarSystemChangedListener.class));
+    assertSame(StarSystemSnapshot.EMPTY, this.starSystem.getSnapshot());
+    this.starSystem.update(1);
+    StarSystemSnapshot before = this.starSystem.getSnapshot();
+    
+    when(mockPlanet.getPositionInRad()).thenReturn(1.5);
+    this.starSystem.update(1);
+    StarSystemSnapshot after = this.starSystem.getSnapshot();
+    
+    assertEquals(0.5, before.getPlanetPositionInRad(0), 0.0);
+    assertEquals(1.5, after.getPlanetPositionInRad(0), 0.0);
+    assertSame(mockPlanet, after.getPlanet(0));
+  }
+  
+  @Test
+  public void shouldFindPlanetsWithinDistance()
+  {
+    Random random = new Random(42);
+    for (int i = 0; i < 20; ++i) {
+      this.starSystem.addPlanet(Planet.generatePlanet(random));
+    }
+    this.starSystem.update(60*60*24);
+    Planet planet = this.starSystem.getPlanets().get(7);
+    
+    List<Planet> found = this.starSystem.findPlanetsWithin(planet.getPosition(), 2);
+    
+    assertThat(found, hasItem(planet));
+    assertTrue(this.starSystem.findPlanetsWithin(new Position(5000, 5000), 100).isEmpty());
+  }
+  
+  @Test
+  public void shouldFindSpaceProbeGroupsAtTheirLatestPositions()
+  {
+    SpaceProbeGroup near = SpaceProbeGroup.generateSpaceProbeGroup();
+    SpaceProbeGroup far = SpaceProbeGroup.generateSpaceProbeGroup();
+    near.setPosition(new Position(10, 0));
+    far.setPosition(new Position(100, 0));
+    this.starSystem.addSpaceProbeGroup(far);
+    this.starSystem.addSpaceProbeGroup(near);
+    
+    assertEquals(Arrays.asList(near), 
+                 this.starSystem.findSpaceProbeGroupsWithin(new Position(0, 0), 50));
+    assertEquals(Arrays.asList(near, far), 
+                 this.starSystem.findNearestSpaceProbeGroups(new Position(0, 0), 5));
     
-    int exp = 1;
-    this.starSystem.update(exp);
+    this.starSystem.removeSpaceProbeGroup(near);
     
-    verify(mockPlanet).update(exp);
+    assertTrue(this.starSystem.findSpaceProbeGroupsWithin(new Position(0, 0), 50).isEmpty());
   }
 }
@@ -24,6 +24,9 @@
 package org.projectthaleia.universe.graphics;
 
 import java.awt.Graphics2D;
+import java.util.Collections;
+import org.projectthaleia.universe.planet.Planet;
+import org.projectthaleia.universe.planet.PlanetGraphic;
 import org.junit.Before;
 import org.junit.Test;
 import org.projectthaleia.spaceprobes.SpaceProbeGraphicFactory;
@@ -31,6 +34,8 @@ import org.projectthaleia.spaceprobes.SpaceProbeGroup;
 import org.projectthaleia.spaceprobes.SpaceProbeGroupGraphic;
 import org.projectthaleia.universe.Position;
 import org.projectthaleia.universe.StarSystem;
+import org.projectthaleia.universe.StarSystemChanges;
+import org.projectthaleia.universe.StarSystemSnapshot;
 import org.projectthaleia.universe.sun.Sun;
 import org.projectthaleia.universe.sun.SunGraphic;
 
@@ -54,6 +59,7 @@ public class StarSystemGraphicTest
     mockStarSystemGraphicFactory = mock(StarSystemGraphicFactory.class);
     mockSpaceProbeGraphicFactory = mock(SpaceProbeGraphicFactory.class);
     mockStarSystem = mock(StarSystem.class);
+    when(mockStarSystem.getSnapshot()).thenReturn(StarSystemSnapshot.EMPTY);
     starSystemGraphic = new StarSystemGraphic(mockStarSystemGraphicFactory, mockSpaceProbeGraphicFactory, mockStarSystem);
   }
 
@@ -84,6 +90,33 @@ public class StarSystemGraphicTest
     verify(mockStarSystemGraphicFactory).create(mockSun);
   }
   
+  @Test
+  public void shouldNotReadObjectsOfSystemWhenCreated()
+  {
+    verify(mockStarSystem, never()).getPlanets();
+    verify(mockStarSystem, never()).getSpaceProbeGroups();
+  }
+  
+  @Test
+  public void shouldPaintPlanetOfSnapshot()
+  {
+    givenSunGraphic();
+    Planet planet = Planet.generatePlanet();
+    PlanetGraphic mockPlanetGraphic = mock(PlanetGraphic.class);
+    when(mockStarSystemGraphicFactory.create(planet)).thenReturn(mockPlanetGraphic);
+    when(mockStarSystem.getSnapshot()).thenReturn(StarSystemSnapshot.capture(
+            Collections.singletonList(planet), Collections.<SpaceProbeGroup>emptyList()));
+    
+    Graphics2D mockGraphics = mock(Graphics2D.class);
+    Position offset = new Position(0, 0);
+    starSystemGraphic.paint(mockGraphics, offset);
+    starSystemGraphic.paint(mockGraphics, offset);
+    
+    verify(mockStarSystemGraphicFactory, times(1)).create(planet);
+    verify(mockPlanetGraphic, times(2)).paintAt(mockGraphics, offset, 
+            (int) planet.getX(), (int) planet.getY(), 0, 0);
+  }
+  
   @Test
   public void shouldPaintSun()
   {
@@ -140,6 +173,28 @@ public class StarSystemGraphicTest
     starSystemGraphic.spaceProbeGroupRemoved(mockGroup);
   }
 
+  @Test
+  public void shouldApplyRemovalsBeforeAdditions()
+  {
+    SpaceProbeGroup mockGroup = mock(SpaceProbeGroup.class);
+    SpaceProbeGroupGraphic mockGroupGraphic = mock(SpaceProbeGroupGraphic.class);
+    when(mockSpaceProbeGraphicFactory.create(mockGroup)).thenReturn(mockGroupGraphic);
+    when(mockGroupGraphic.hitAt(any(Position.class), anyLong(), anyLong())).thenReturn(true);
+    when(mockGroup.getPosition()).thenReturn(new Position(30, 40));
+    when(mockGroup.getPreviousPosition()).thenReturn(new Position(30, 40));
+    when(mockStarSystem.getSnapshot()).thenReturn(StarSystemSnapshot.capture(
+            Collections.<Planet>emptyList(), Collections.singletonList(mockGroup)));
+    starSystemGraphic.spaceProbeGroupAdded(mockGroup);
+    // removed and added back during the same update
+    StarSystemChanges mockChanges = mock(StarSystemChanges.class);
+    when(mockChanges.getRemovedSpaceProbeGroups()).thenReturn(Collections.singletonList(mockGroup));
+    when(mockChanges.getAddedSpaceProbeGroups()).thenReturn(Collections.singletonList(mockGroup));
+    
+    starSystemGraphic.starSystemChanged(mockChanges);
+    
+    assertSame(mockGroup, starSystemGraphic.wasSpaceProbeGroupHit(new Position(30, 40)));
+  }
+
   @Test(expected=NullPointerException.class)
   public void shouldThrowExceptionWhenNullSpaceProbeIsRemoved()
   {
@@ -153,6 +208,9 @@ public class StarSystemGraphicTest
     SpaceProbeGroup mockGroup = mock(SpaceProbeGroup.class);
     SpaceProbeGroupGraphic mockGroupGraphic = mock(SpaceProbeGroupGraphic.class);
     when(mockSpaceProbeGraphicFactory.create(mockGroup)).thenReturn(mockGroupGraphic);
+    when(mockGroup.getPosition()).thenReturn(new Position(30, 40));
+    when(mockGroup.getPreviousPosition()).thenReturn(new Position(10, 20));
+    when(mockGroup.getName()).thenReturn("Group");
     Sun mockSun = mock(Sun.class);
     when(mockStarSystem.getSun()).thenReturn(mockSun);
     SunGraphic mockSunGraphic = mock(SunGraphic.class);
@@ -160,6 +218,9 @@ public class StarSystemGraphicTest
     
     starSystemGraphic = new StarSystemGraphic(mockStarSystemGraphicFactory, mockSpaceProbeGraphicFactory, mockStarSystem);
     starSystemGraphic.spaceProbeGroupAdded(mockGroup);
+    StarSystemSnapshot snapshot = StarSystemSnapshot.capture(
+            Collections.<Planet>emptyList(), Collections.singletonList(mockGroup));
+    when(mockStarSystem.getSnapshot()).thenReturn(snapshot);
     
     //when
     Graphics2D mockGraphics = mock(Graphics2D.class);
@@ -167,6 +228,97 @@ public class StarSystemGraphicTest
     starSystemGraphic.paint(mockGraphics, mockPosition);
     
     //then
-    verify(mockGroupGraphic).paint(mockGraphics, mockPosition);
+    verify(mockGroupGraphic).paintAt(mockGraphics, mockPosition, 30, 40, "Group");
+  }
+  
+  @Test
+  public void shouldPaintInterpolatedSpaceProbeFromSnapshot()
+  {
+    //given
+    givenSunGraphic();
+    SpaceProbeGroup mockGroup = mock(SpaceProbeGroup.class);
+    SpaceProbeGroupGraphic mockGroupGraphic = mock(SpaceProbeGroupGraphic.class);
+    when(mockSpaceProbeGraphicFactory.create(mockGroup)).thenReturn(mockGroupGraphic);
+    when(mockGroup.getPosition()).thenReturn(new Position(30, 40));
+    when(mockGroup.getPreviousPosition()).thenReturn(new Position(10, 20));
+    when(mockGroup.getName()).thenReturn("Group");
+    starSystemGraphic.spaceProbeGroupAdded(mockGroup);
+    StarSystemSnapshot snapshot = StarSystemSnapshot.capture(
+            Collections.<Planet>emptyList(), Collections.singletonList(mockGroup));
+    when(mockStarSystem.getSnapshot()).thenReturn(snapshot);
+    // the group moves on after the snapshot has been taken
+    when(mockGroup.getPosition()).thenReturn(new Position(1000, 1000));
+    
+    //when
+    Graphics2D mockGraphics = mock(Graphics2D.class);
+    Position offset = new Position(0, 0);
+    starSystemGraphic.paint(mockGraphics, offset, 0.5f);
+    
+    //then
+    verify(mockGroupGraphic).paintAt(mockGraphics, offset, 20, 30, "Group");
+  }
+  
+  @Test
+  public void shouldHitSpaceProbeGroupAtSnapshotPosition()
+  {
+    SpaceProbeGroup mockGroup = mock(SpaceProbeGroup.class);
+    SpaceProbeGroupGraphic mockGroupGraphic = mock(SpaceProbeGroupGraphic.class);
+    when(mockSpaceProbeGraphicFactory.create(mockGroup)).thenReturn(mockGroupGraphic);
+    when(mockGroup.getPosition()).thenReturn(new Position(30, 40));
+    when(mockGroup.getPreviousPosition()).thenReturn(new Position(30, 40));
+    starSystemGraphic.spaceProbeGroupAdded(mockGroup);
+    StarSystemSnapshot snapshot = StarSystemSnapshot.capture(
+            Collections.<Planet>emptyList(), Collections.singletonList(mockGroup));
+    when(mockStarSystem.getSnapshot()).thenReturn(snapshot);
+    Position click = new Position(32, 41);
+    when(mockGroupGraphic.hitAt(click, 30, 40)).thenReturn(true);
+    
+    assertEquals(mockGroup, starSystemGraphic.wasSpaceProbeGroupHit(click));
+  }
+  
+  @Test
+  public void shouldNotTestSpaceProbeGroupsFarFromClick()
+  {
+    SpaceProbeGroup mockGroup = mock(SpaceProbeGroup.class);
+    SpaceProbeGroupGraphic mockGroupGraphic = mock(SpaceProbeGroupGraphic.class);
+    when(mockSpaceProbeGraphicFactory.create(mockGroup)).thenReturn(mockGroupGraphic);
+    when(mockGroup.getPosition()).thenReturn(new Position(300, 400));
+    when(mockGroup.getPreviousPosition()).thenReturn(new Position(300, 400));
+    starSystemGraphic.spaceProbeGroupAdded(mockGroup);
+    StarSystemSnapshot snapshot = StarSystemSnapshot.capture(
+            Collections.<Planet>emptyList(), Collections.singletonList(mockGroup));
+    when(mockStarSystem.getSnapshot()).thenReturn(snapshot);
+    
+    assertNull(starSystemGraphic.wasSpaceProbeGroupHit(new Position(0, 0)));
+    verify(mockGroupGraphic, never()).hitAt(any(Position.class), anyLong(), anyLong());
+  }
+  
+  @Test
+  public void shouldNotPaintRemovedSpaceProbe()
+  {
+    givenSunGraphic();
+    SpaceProbeGroup mockGroup = mock(SpaceProbeGroup.class);
+    SpaceProbeGroupGraphic mockGroupGraphic = mock(SpaceProbeGroupGraphic.class);
+    when(mockSpaceProbeGraphicFactory.create(mockGroup)).thenReturn(mockGroupGraphic);
+    when(mockGroup.getPosition()).thenReturn(new Position(30, 40));
+    when(mockGroup.getPreviousPosition()).thenReturn(new Position(30, 40));
+    starSystemGraphic.spaceProbeGroupAdded(mockGroup);
+    StarSystemSnapshot snapshot = StarSystemSnapshot.capture(
+            Collections.<Planet>emptyList(), Collections.singletonList(mockGroup));
+    when(mockStarSystem.getSnapshot()).thenReturn(snapshot);
+    
+    starSystemGraphic.spaceProbeGroupRemoved(mockGroup);
+    starSystemGraphic.paint(mock(Graphics2D.class), new Position(0, 0));
+    
+    verify(mockGroupGraphic, never()).paintAt(any(Graphics2D.class), any(Position.class), 
+            anyLong(), anyLong(), anyString());
+  }
+  
+  private void givenSunGraphic()
+  {
+    Sun mockSun = mock(Sun.class);
+    when(mockStarSystem.getSun()).thenReturn(mockSun);
+    when(mockStarSystemGraphicFactory.create(mockSun)).thenReturn(mock(SunGraphic.class));
+    starSystemGraphic = new StarSystemGraphic(mockStarSystemGraphicFactory, mockSpaceProbeGraphicFactory, mockStarSystem);
   }
 }
@@ -108,4 +108,32 @@ public class SystemGraphicsLibraryTest
     
     verify(mockStarSystem).addStarSystemChangedListener(mockGraphic);
   }
+  
+  @Test
+  public void shouldStopObservingLeastRecentlyUsedStarSystem()
+  {
+    systemGraphicsLib = new SystemGraphicsLibrary(mockFactory, 2);
+    final StarSystem[] mockStarSystems = new StarSystem[3];
+    final StarSystemGraphic[] mockGraphics = new StarSystemGraphic[3];
+    for (int i = 0; i < mockStarSystems.length; ++i) {
+      mockStarSystems[i] = mock(StarSystem.class);
+      mockGraphics[i] = mock(StarSystemGraphic.class);
+      when(mockFactory.create(mockStarSystems[i])).thenReturn(mockGraphics[i]);
+    }
+    
+    systemGraphicsLib.get(mockStarSystems[0]);
+    systemGraphicsLib.get(mockStarSystems[1]);
+    systemGraphicsLib.get(mockStarSystems[0]);
+    systemGraphicsLib.get(mockStarSystems[2]);
+    
+    assertEquals(2, systemGraphicsLib.size());
+    verify(mockStarSystems[1]).removeStarSystemChangedListener(mockGraphics[1]);
+    verify(mockStarSystems[0], never()).removeStarSystemChangedListener(mockGraphics[0]);
+  }
+  
+  @Test(expected=IllegalArgumentException.class)
+  public void shouldNotCreateWithoutCapacity()
+  {
+    systemGraphicsLib = new SystemGraphicsLibrary(mockFactory, 0);
+  }
 }
@@ -26,6 +26,7 @@ package org.projectthaleia.universe.graphics;
 import java.awt.Graphics2D;
 import org.junit.Before;
 import org.junit.Test;
+import org.projectthaleia.core.TickProfiler;
 import org.projectthaleia.game.graphics.GameGraphics;
 import org.projectthaleia.universe.Position;
 
@@ -65,7 +66,20 @@ public class UniversePanelTest
 
     this.universe.paintComponent(mockG);
     verify(this.mockGameGraphics).getCurrentStarSystemGraphic();
-    verify(mockStarSystemGraphic).paint(eq(mockG), any(Position.class));
+    verify(mockStarSystemGraphic).paint(eq(mockG), any(Position.class), anyFloat());
+  }
+  
+  @Test
+  public void shouldProfileWhileOverlayIsVisible()
+  {
+    TickProfiler profiler = new TickProfiler(false);
+    when(this.mockGameGraphics.getProfiler()).thenReturn(profiler);
+    
+    universe.setProfilerOverlayVisible(true);
+    assertTrue(profiler.isEnabled());
+    
+    universe.setProfilerOverlayVisible(false);
+    assertFalse(profiler.isEnabled());
   }
   
   @Test
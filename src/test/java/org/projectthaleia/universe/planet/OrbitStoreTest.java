@@ -0,0 +1,253 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2011 Simon Hardijanto
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.projectthaleia.universe.planet;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Simon Hardijanto
+ */
+public class OrbitStoreTest
+{
+  private static final long DAY = 60*60*24;
+  
+  OrbitStore store;
+  
+  @Before
+  public void setUp()
+  {
+    store = new OrbitStore();
+  }
+  
+  @Test
+  public void shouldMovePlanetsLikeSeparateUpdates()
+  {
+    Planet separate = new Planet(100, 0.3f, 70, 1.0);
+    Planet stored = new Planet(100, 0.3f, 70, 1.0);
+    store.add(stored);
+    
+    for (int i = 0; i < 100; ++i) {
+      separate.update(DAY);
+      store.update(DAY);
+    }
+    
+    assertEquals(separate.getPositionInRad(), stored.getPositionInRad(), 0);
+    assertEquals(separate.getPreviousPositionInRad(), stored.getPreviousPositionInRad(), 0);
+    assertEquals(separate.hashState(0), stored.hashState(0));
+  }
+  
+  @Test
+  public void shouldKeepProgressOfAddedPlanet()
+  {
+    Planet planet = new Planet(100, 0.3f, 70, 1.0);
+    planet.update(10*DAY);
+    double position = planet.getPositionInRad();
+    
+    store.add(planet);
+    
+    assertEquals(position, planet.getPositionInRad(), 0);
+    assertEquals(100, planet.getSemiMajorAxis());
+    assertEquals(0.3f, planet.getEccentricity(), 0);
+    assertEquals(70, planet.getSidericPeriod());
+  }
+  
+  @Test
+  public void shouldAddUnusedPlanetLikeUsedOne()
+  {
+    Planet used = new Planet(100, 0.3f, 70, 1.0);
+    used.getPositionInRad();
+    Planet unused = new Planet(100, 0.3f, 70, 1.0);
+    
+    store.add(used);
+    store.add(unused);
+    
+    assertEquals(2, store.size());
+    assertEquals(used.getPositionInRad(), unused.getPositionInRad(), 0);
+    assertEquals(used.getSemiMajorAxis(), unused.getSemiMajorAxis());
+    assertEquals(used.getEccentricity(), unused.getEccentricity(), 0);
+    assertEquals(used.getSidericPeriod(), unused.getSidericPeriod());
+    assertEquals(used.hashState(0), unused.hashState(0));
+  }
+  
+  @Test
+  public void shouldAddOrbitAtCurrentGameTime()
+  {
+    Planet early = new Planet(100, 0.3f, 70, 1.0);
+    store.add(early);
+    store.update(10*DAY);
+    
+    Planet late = new Planet(100, 0.3f, 70, 1.0);
+    store.add(late);
+    
+    assertEquals(late.getPositionInRadAt(10*DAY), late.getPositionInRad(), 1e-9);
+    assertEquals(early.getPositionInRad(), late.getPositionInRad(), 1e-9);
+    
+    store.update(DAY);
+    
+    assertEquals(early.getPositionInRad(), late.getPositionInRad(), 1e-9);
+  }
+  
+  @Test(expected=IllegalStateException.class)
+  public void shouldNotUpdatePlanetInSharedStore()
+  {
+    Planet planet = new Planet(100, 0.3f, 70, 1.0);
+    store.add(planet);
+    
+    planet.update(DAY);
+  }
+  
+  @Test
+  public void shouldGrow()
+  {
+    Planet[] planets = new Planet[100];
+    for (int i = 0; i < planets.length; ++i) {
+      planets[i] = new Planet(100 + i, 0, 70 + i, 0);
+      store.add(planets[i]);
+    }
+    
+    store.update(DAY);
+    
+    assertEquals(planets.length, store.size());
+    for (int i = 0; i < planets.length; ++i) {
+      assertEquals(planets[i].getPositionInRadAt(DAY), planets[i].getPositionInRad(), 0);
+    }
+  }
+  
+  @Test
+  public void shouldPlaceMoonRelativeToItsPlanet()
+  {
+    Planet planet = new Planet(100, 0, 70, 0);
+    Planet moon = new Planet(10, 0, 7, 0);
+    store.add(planet);
+    store.add(moon, planet);
+    
+    assertEquals(110, moon.getX(), 1e-9);
+    assertSame(planet, moon.getParent());
+    
+    store.update(70*DAY/4);
+    
+    // the planet has done a quarter, the moon two and a half revolutions
+    assertEquals(-10, moon.getX(), 1e-9);
+    assertEquals(100, moon.getY(), 1e-9);
+    assertEquals(moon.getPosition(), moon.getPositionAt(70*DAY/4));
+  }
+  
+  @Test
+  public void shouldMoveOrbitsWithoutPlanets()
+  {
+    int orbit = store.addOrbit(10, 2, Math.PI);
+    
+    assertEquals(-10, store.getX(orbit), 1e-9);
+    
+    store.update(DAY);
+    
+    assertEquals(10, store.getX(orbit), 1e-9);
+    assertEquals(-10, store.getPreviousX(orbit), 1e-9);
+  }
+  
+  @Test(expected=IllegalArgumentException.class)
+  public void shouldNotAddMoonOfPlanetInOtherStore()
+  {
+    Planet planet = new Planet(100, 0, 70, 0);
+    new OrbitStore().add(planet);
+    
+    store.add(new Planet(10, 0, 7, 0), planet);
+  }
+  
+  @Test
+  public void shouldContinueExactlyAfterReading() throws IOException
+  {
+    Planet planet = new Planet(100, 0.3f, 70, 1.0);
+    Planet moon = new Planet(10, 0.05f, 7, 2.0);
+    store.addOrbit(20, 30, Math.PI);
+    store.add(planet);
+    store.add(moon, planet);
+    store.update(DAY / 3);
+    
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    store.writeTo(new DataOutputStream(bytes));
+    OrbitStore read = OrbitStore.readFrom(new DataInputStream(
+            new ByteArrayInputStream(bytes.toByteArray())));
+    List<Planet> planets = read.restorePlanets(0);
+    
+    assertEquals(3, read.size());
+    assertEquals(2, planets.size());
+    assertSame(planets.get(0), planets.get(1).getParent());
+    for (int i = 0; i < 5; ++i) {
+      for (int orbit = 0; orbit < store.size(); ++orbit) {
+        assertEquals(store.getX(orbit), read.getX(orbit), 0);
+        assertEquals(store.getY(orbit), read.getY(orbit), 0);
+        assertEquals(store.getPreviousX(orbit), read.getPreviousX(orbit), 0);
+        assertEquals(store.getPreviousY(orbit), read.getPreviousY(orbit), 0);
+      }
+      assertEquals(moon.hashState(0), planets.get(1).hashState(0));
+      store.update(DAY / 3);
+      read.update(DAY / 3);
+    }
+  }
+  
+  @Test
+  public void shouldKeepOrbitsBeyondIntRange() throws IOException
+  {
+    // 30 AU, e.g. Neptune
+    final long semiMajorAxis = 4500000000L;
+    Planet planet = new Planet(semiMajorAxis, 0, 60190, 0);
+    store.add(planet);
+    
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    store.writeTo(new DataOutputStream(bytes));
+    OrbitStore read = OrbitStore.readFrom(new DataInputStream(
+            new ByteArrayInputStream(bytes.toByteArray())));
+    
+    assertEquals(semiMajorAxis, planet.getSemiMajorAxis());
+    assertEquals(semiMajorAxis, planet.getX(), 1e-3);
+    assertEquals(semiMajorAxis, read.restorePlanets().get(0).getSemiMajorAxis());
+    assertEquals(semiMajorAxis, read.getX(0), 1e-3);
+  }
+  
+  @Test(expected=IllegalArgumentException.class)
+  public void shouldNotShareOrbitWithTwoStores()
+  {
+    Planet planet = new Planet(100, 0, 70, 0);
+    store.add(planet);
+    
+    new OrbitStore().add(planet);
+  }
+  
+  @Test(expected=NullPointerException.class)
+  public void shouldNotAddNull()
+  {
+    store.add(null);
+  }
+}
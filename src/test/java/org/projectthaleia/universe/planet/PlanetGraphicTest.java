@@ -50,7 +50,7 @@ public class PlanetGraphicTest
   public void shouldPaintOrbit()
   {
     int radius = 5;
-    when(mockPlanet.getSemiMajorAxis()).thenReturn(radius);
+    when(mockPlanet.getSemiMajorAxis()).thenReturn((long) radius);
     Graphics2D mockG = mock(Graphics2D.class);
     Position offset = new Position(0,0);
     
@@ -63,7 +63,7 @@ public class PlanetGraphicTest
   public void shouldPaintPlanet()
   {
     int radius = 5;
-    when(mockPlanet.getSemiMajorAxis()).thenReturn(radius);
+    when(mockPlanet.getSemiMajorAxis()).thenReturn((long) radius);
     final double pos = Math.PI;
     when(mockPlanet.getPositionInRad()).thenReturn(pos);
     Graphics2D mockG = mock(Graphics2D.class);
@@ -75,11 +75,26 @@ public class PlanetGraphicTest
     verify(mockG).fillOval(-radius-planetRadius,-planetRadius,2*planetRadius,2*planetRadius);
   }
   
+  @Test
+  public void shouldPaintInterpolatedPlanet()
+  {
+    int radius = 5;
+    when(mockPlanet.getSemiMajorAxis()).thenReturn((long) radius);
+    when(mockPlanet.getInterpolatedPositionInRad(0.5f)).thenReturn(Math.PI);
+    Graphics2D mockG = mock(Graphics2D.class);
+    Position offset = new Position(0,0);
+
+    planetGraphic.paint(mockG, offset, 0.5f);
+
+    int planetRadius = 4;
+    verify(mockG).fillOval(-radius-planetRadius,-planetRadius,2*planetRadius,2*planetRadius);
+  }
+  
   @Test
   public void shouldPaintAfterUpdate()
   {
     final int radius = 5;
-    when(mockPlanet.getSemiMajorAxis()).thenReturn(radius);
+    when(mockPlanet.getSemiMajorAxis()).thenReturn((long) radius);
     double firstPos = 0;
     double secondPos = Math.PI;
     when(mockPlanet.getPositionInRad()).thenReturn(firstPos).thenReturn(secondPos);
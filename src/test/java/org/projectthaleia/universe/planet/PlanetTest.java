@@ -24,10 +24,13 @@
 package org.projectthaleia.universe.planet;
 
 import java.util.List;
+import java.util.Random;
 import org.hamcrest.collection.IsEmptyCollection;
 import org.junit.Before;
 import org.junit.Test;
 import org.projectthaleia.colony.Colony;
+import org.projectthaleia.colony.buildings.BuildingQueue;
+import org.projectthaleia.core.Timeline;
 import org.projectthaleia.factions.Empire;
 
 import static org.hamcrest.Matchers.*;
@@ -89,6 +92,80 @@ public class PlanetTest
     assertEquals(expPosition, gotPosition, 0);
   }
   
+  @Test
+  public void shouldNotDependOnStepSize()
+  {
+    Planet stepped = new Planet(semiMajorAxis, eccentricity, sidericPeriod, startingPosition);
+    
+    for (int i = 0; i < 30*365; ++i) {
+      stepped.update(60*60*24/30);
+    }
+    planet.update(60*60*24*365);
+    
+    assertEquals(planet.getPositionInRad(), stepped.getPositionInRad(), 0);
+    assertEquals(planet.hashState(0), stepped.hashState(0));
+  }
+  
+  @Test
+  public void shouldFollowEllipticOrbit()
+  {
+    Planet elliptic = new Planet(100, 0.5f, sidericPeriod, 0);
+    
+    assertEquals(50, elliptic.getPosition().x);
+    assertEquals(0, elliptic.getPosition().y);
+    
+    elliptic.update(60*60*24*sidericPeriod/2);
+    
+    assertEquals(Math.PI, elliptic.getPositionInRad(), 1e-9);
+    assertEquals(-150, elliptic.getPosition().x);
+  }
+  
+  @Test
+  public void shouldSolveKeplersEquationAtAnyTime()
+  {
+    Planet elliptic = new Planet(100, 0.9f, sidericPeriod, startingPosition);
+    Planet stepped = new Planet(100, 0.9f, sidericPeriod, startingPosition);
+    final long step = 60*60*24/10;
+    
+    for (int i = 0; i < 10*sidericPeriod*3; ++i) {
+      stepped.update(step);
+    }
+    
+    assertEquals(stepped.getPositionInRad(), 
+            elliptic.getPositionInRadAt(step*10*sidericPeriod*3), 1e-9);
+    // three whole revolutions
+    assertEquals(elliptic.getPositionInRadAt(0) + 6*Math.PI, stepped.getPositionInRad(), 1e-9);
+  }
+  
+  @Test(expected=IllegalArgumentException.class)
+  public void shouldNotAcceptOpenOrbit()
+  {
+    new Planet(semiMajorAxis, 1.0f, sidericPeriod, startingPosition);
+  }
+  
+  @Test
+  public void shouldGenerateSamePlanetFromSameSeed()
+  {
+    Planet first = Planet.generatePlanet(new Random(7));
+    Planet second = Planet.generatePlanet(new Random(7));
+    
+    assertEquals(first.getSemiMajorAxis(), second.getSemiMajorAxis());
+    assertEquals(first.getSidericPeriod(), second.getSidericPeriod());
+    assertEquals(first.getPositionInRad(), second.getPositionInRad(), 0);
+  }
+  
+  @Test
+  public void shouldInterpolatePositionBetweenUpdates()
+  {
+    long secondsPassed = 60*60*24*7;
+    planet.update(secondsPassed);
+    double current = planet.getPositionInRad();
+    
+    assertEquals(startingPosition, planet.getInterpolatedPositionInRad(0.0f), 0);
+    assertEquals(current, planet.getInterpolatedPositionInRad(1.0f), 0);
+    assertEquals((startingPosition + current)/2, planet.getInterpolatedPositionInRad(0.5f), 1e-9);
+  }
+  
   @Test
   public void shouldAddColony()
   {
@@ -97,6 +174,34 @@ public class PlanetTest
     planet.addColony(colony);
   }
   
+  @Test
+  public void shouldPutExistingColoniesOnTimeline()
+  {
+    BuildingQueue queue = mock(BuildingQueue.class);
+    Colony colony = mock(Colony.class);
+    when(colony.getBuildingQueue()).thenReturn(queue);
+    planet.addColony(colony);
+    Timeline timeline = new Timeline(0);
+    
+    planet.setTimeline(timeline);
+    
+    verify(queue).setTimeline(timeline);
+  }
+  
+  @Test
+  public void shouldPutColoniesFoundedLaterOnTimeline()
+  {
+    Timeline timeline = new Timeline(0);
+    planet.setTimeline(timeline);
+    BuildingQueue queue = mock(BuildingQueue.class);
+    Colony colony = mock(Colony.class);
+    when(colony.getBuildingQueue()).thenReturn(queue);
+    
+    planet.addColony(colony);
+    
+    verify(queue).setTimeline(timeline);
+  }
+  
   @Test(expected=NullPointerException.class)
   public void shouldNotAddNullColony()
   {
@@ -83,4 +83,60 @@ public class MKClassificationTest
     String gotString = this.mKClassification.toString();
     assertEquals(expString, gotString);
   }
+  
+  @Test
+  public void shouldPrintHalfSubclasses()
+  {
+    assertEquals("B0.5I", MKClassification.valueOf(SpectralType.B, 0.5f, Luminosity.I).toString());
+    assertEquals("M9.5VII", MKClassification.valueOf(SpectralType.M, 9.5f, Luminosity.VII).toString());
+  }
+  
+  @Test
+  public void shouldShareClassificationsOfTheCatalog()
+  {
+    MKClassification first = MKClassification.valueOf(spectralType, spectralClass, luminosity);
+    MKClassification second = MKClassification.valueOf(spectralType, spectralClass, luminosity);
+    
+    assertSame(first, second);
+    assertEquals(spectralType, first.getSpectralType());
+    assertEquals(spectralClass, first.getSpectralClass(), 0);
+    assertEquals(luminosity, first.getLuminosity());
+  }
+  
+  @Test(expected=IllegalArgumentException.class)
+  public void shouldNotHaveSubclassTen()
+  {
+    MKClassification.valueOf(spectralType, 10, luminosity);
+  }
+  
+  @Test(expected=IllegalArgumentException.class)
+  public void shouldOnlyHaveHalfSubclasses()
+  {
+    MKClassification.valueOf(spectralType, 2.3f, luminosity);
+  }
+  
+  @Test
+  public void shouldDeriveDataOfTheSun()
+  {
+    MKClassification sunLike = MKClassification.valueOf(SpectralType.G, 2, Luminosity.V);
+    
+    assertEquals(5778, sunLike.getTemperature(), 100);
+    assertEquals(1, sunLike.getMass(), 0.1);
+    assertEquals(1, sunLike.getBolometricLuminosity(), 0.2);
+    assertTrue(sunLike.getHabitableZoneInnerRadius() < 1);
+    assertTrue(sunLike.getHabitableZoneOuterRadius() > 1);
+  }
+  
+  @Test
+  public void hotterSunsShouldBeBrighter()
+  {
+    MKClassification hot = MKClassification.valueOf(SpectralType.B, 5, Luminosity.V);
+    MKClassification cool = MKClassification.valueOf(SpectralType.M, 5, Luminosity.V);
+    MKClassification giant = MKClassification.valueOf(SpectralType.M, 5, Luminosity.III);
+    
+    assertTrue(hot.getTemperature() > cool.getTemperature());
+    assertTrue(hot.getBolometricLuminosity() > cool.getBolometricLuminosity());
+    assertTrue(giant.getBolometricLuminosity() > cool.getBolometricLuminosity());
+    assertTrue(hot.getHabitableZoneInnerRadius() > cool.getHabitableZoneOuterRadius());
+  }
 }